@@ -1,18 +1,26 @@
 package io.leavesfly.koder.agent;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.leavesfly.koder.agent.executor.AgentExecutor;
+import io.leavesfly.koder.agent.executor.FileReadDeduplicator;
+import io.leavesfly.koder.agent.executor.ToolResultShaper;
 import io.leavesfly.koder.core.llm.LLMProvider;
 import io.leavesfly.koder.core.llm.LLMProviderRegistry;
 import io.leavesfly.koder.tool.Tool;
 import io.leavesfly.koder.tool.ToolResponse;
 import io.leavesfly.koder.tool.ToolUseContext;
 import io.leavesfly.koder.tool.executor.ToolExecutor;
+import io.leavesfly.koder.tool.fs.FilePrefetcher;
+import io.leavesfly.koder.tool.fs.ImportScanner;
+import io.leavesfly.koder.tool.impl.FileReadTool;
+import io.leavesfly.koder.tool.impl.GlobTool;
+import io.leavesfly.koder.tool.impl.GrepTool;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -34,9 +42,20 @@ public class ToolCallAgent {
     private final AgentExecutor.ConversationHistory history;
     private final ToolExecutor toolExecutor;
     private final LLMProviderRegistry llmProviderRegistry;
+    private final ToolResultShaper resultShaper;
+    private final FilePrefetcher filePrefetcher;
+
+    /**
+     * 本次执行中重复文件读取的去重状态
+     */
+    private final FileReadDeduplicator readDeduplicator = new FileReadDeduplicator();
+
+    /**
+     * 等待模型响应期间进行中的预取（-1 表示没有）
+     */
+    private volatile long prefetchRound = -1;
 
     private static final int MAX_ITERATIONS = 20;
-    private static final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
      * 执行Agent任务
@@ -73,8 +92,9 @@ public class ToolCallAgent {
             return Flux.just("\n[警告: 已达到最大工具调用次数限制]");
         }
 
-        // 调用LLM并收集完整响应
+        // 调用LLM并收集完整响应；响应到达后停止预取，把磁盘让给接下来的工具调用
         return callLLM(messages)
+            .doFinally(signal -> cancelPrefetch())
             .flatMapMany(llmResponse -> {
                 try {
                     // 检查是否包含工具调用
@@ -84,6 +104,10 @@ public class ToolCallAgent {
                         // 执行工具调用
                         return executeToolCalls(llmResponse.getToolCalls(), context)
                             .collectList()
+                            .map(toolResults -> {
+                                prefetchNext(toolResults, context);
+                                return shapeResults(toolResults);
+                            })
                             .flatMapMany(toolResults -> {
                                 // 将助手消息添加到历史
                                 String assistantContent = llmResponse.getContent() != null ? 
@@ -196,30 +220,24 @@ public class ToolCallAgent {
                     String toolCallId = (String) toolCall.get("id");
                     Map<String, Object> function = (Map<String, Object>) toolCall.get("function");
                     String toolName = (String) function.get("name");
-                    Map<String, Object> arguments = objectMapper.readValue(
-                        (String) function.get("arguments"), 
-                        Map.class
-                    );
+                    Object arguments = function.get("arguments");
 
                     log.info("执行工具: {} (id={})", toolName, toolCallId);
 
-                    return toolExecutor.execute(toolName, arguments, context)
+                    // 参数 JSON 由工具的绑定器直接解析为类型化输入；部分模型直接给出对象，按已解析参数转换
+                    Flux<ToolResponse<Object>> responses = arguments instanceof String json
+                        ? toolExecutor.executeJson(toolName, json, context)
+                        : toolExecutor.execute(toolName, arguments, context);
+
+                    Tool<?, ?> tool = toolExecutor.getTool(toolName);
+                    return responses
                         .filter(resp -> resp.getType() == ToolResponse.ResponseType.RESULT)
-                        .map(resp -> {
-                            try {
-                                return new ToolExecutionResult(
-                                    toolCallId,
-                                    toolName,
-                                    objectMapper.writeValueAsString(resp.getData())
-                                );
-                            } catch (Exception e) {
-                                return new ToolExecutionResult(
-                                    toolCallId,
-                                    toolName,
-                                    String.valueOf(resp.getData())
-                                );
-                            }
-                        })
+                        .map(resp -> new ToolExecutionResult(
+                            toolCallId,
+                            toolName,
+                            resultShaper.render(tool, resp.getData()),
+                            resp.getData()
+                        ))
                         .onErrorResume(e -> {
                             log.error("工具执行失败: {}", toolName, e);
                             return Mono.just(new ToolExecutionResult(
@@ -235,6 +253,72 @@ public class ToolCallAgent {
             });
     }
 
+    /**
+     * 整理本轮的工具结果：重复的文件读取改写为引用或差异，再按单个结果与整轮的 token 预算截断
+     */
+    private List<ToolExecutionResult> shapeResults(List<ToolExecutionResult> results) {
+        List<String> texts = new ArrayList<>(results.size());
+        for (ToolExecutionResult result : results) {
+            String text = result.getResult();
+            if (result.getData() instanceof FileReadTool.Output read) {
+                String rewritten = readDeduplicator.rewrite(result.getToolCallId(), read, text);
+                if (rewritten != null) {
+                    text = rewritten;
+                }
+            }
+            texts.add(text);
+        }
+
+        List<String> shaped = resultShaper.shape(texts);
+        List<ToolExecutionResult> budgeted = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            ToolExecutionResult result = results.get(i);
+            if (result.getData() instanceof FileReadTool.Output) {
+                readDeduplicator.commit(result.getToolCallId(), shaped.get(i) != texts.get(i));
+            }
+            budgeted.add(new ToolExecutionResult(result.getToolCallId(), result.getToolName(), shaped.get(i)));
+        }
+        return budgeted;
+    }
+
+    /**
+     * 根据本轮结果推测接下来可能读取的文件（Grep/Glob 命中的文件、刚读过的源文件导入的文件），在等待模型响应时预取
+     */
+    private void prefetchNext(List<ToolExecutionResult> results, ToolUseContext context) {
+        if (filePrefetcher == null) {
+            return;
+        }
+        List<Path> candidates = new ArrayList<>();
+        Set<Path> read = new HashSet<>();
+        for (ToolExecutionResult result : results) {
+            if (result.getData() instanceof FileReadTool.Output output) {
+                Path file = Paths.get(output.getFilePath()).toAbsolutePath().normalize();
+                read.add(file);
+                candidates.addAll(ImportScanner.imports(file, output.getContent()));
+            } else if (result.getData() instanceof GrepTool.Output output) {
+                output.getMatches().forEach(match -> candidates.add(Paths.get(match.getFile())));
+            } else if (result.getData() instanceof GlobTool.Output output) {
+                output.getFiles().forEach(file -> candidates.add(Paths.get(file)));
+            }
+        }
+        candidates.removeAll(read);
+        prefetchRound = filePrefetcher.prefetch(candidates, context.getFileContentCache());
+    }
+
+    /**
+     * 本次执行中重复文件读取去重的统计
+     */
+    public FileReadDeduplicator.Stats getReadDeduplicationStats() {
+        return readDeduplicator.getStats();
+    }
+
+    private void cancelPrefetch() {
+        if (filePrefetcher != null && prefetchRound >= 0) {
+            filePrefetcher.cancel(prefetchRound);
+            prefetchRound = -1;
+        }
+    }
+
     /**
      * 工具执行结果类
      */
@@ -242,11 +326,17 @@ public class ToolCallAgent {
         private final String toolCallId;
         private final String toolName;
         private final String result;
+        private final Object data;
 
         public ToolExecutionResult(String toolCallId, String toolName, String result) {
+            this(toolCallId, toolName, result, null);
+        }
+
+        public ToolExecutionResult(String toolCallId, String toolName, String result, Object data) {
             this.toolCallId = toolCallId;
             this.toolName = toolName;
             this.result = result;
+            this.data = data;
         }
 
         public String getToolCallId() {
@@ -260,5 +350,12 @@ public class ToolCallAgent {
         public String getResult() {
             return result;
         }
+
+        /**
+         * 工具的原始输出（错误结果为null）
+         */
+        public Object getData() {
+            return data;
+        }
     }
 }
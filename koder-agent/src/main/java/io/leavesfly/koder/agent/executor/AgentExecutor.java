@@ -7,6 +7,7 @@ import io.leavesfly.koder.core.llm.LLMProviderRegistry;
 import io.leavesfly.koder.tool.Tool;
 import io.leavesfly.koder.tool.ToolUseContext;
 import io.leavesfly.koder.tool.executor.ToolExecutor;
+import io.leavesfly.koder.tool.fs.FilePrefetcher;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,6 +16,7 @@ import reactor.core.publisher.Flux;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 /**
@@ -35,10 +37,16 @@ public class AgentExecutor {
     private final AgentRegistry agentRegistry;
     private final ToolExecutor toolExecutor;
     private final LLMProviderRegistry llmProviderRegistry;
+    private final ToolResultShaper resultShaper;
+    private final FilePrefetcher filePrefetcher;
 
     // 会话历史管理(sessionId -> 会话历史)
     private final Map<String, ConversationHistory> sessionHistories = new ConcurrentHashMap<>();
 
+    // 已结束的各次执行中重复文件读取去重的累计统计
+    private final AtomicReference<FileReadDeduplicator.Stats> readDeduplicationStats =
+            new AtomicReference<>(new FileReadDeduplicator.Stats(0, 0, 0));
+
     /**
      * 执行Agent任务(流式)
      *
@@ -56,8 +64,10 @@ public class AgentExecutor {
             // 构建Agent实例
             ToolCallAgent agent = buildAgent(agentConfig, context);
 
-            // 执行Agent
-            return agent.execute(userInput, context);
+            // 执行Agent，结束后累计去重统计
+            return agent.execute(userInput, context)
+                    .doFinally(signal -> readDeduplicationStats.accumulateAndGet(
+                            agent.getReadDeduplicationStats(), FileReadDeduplicator.Stats::plus));
         });
     }
 
@@ -94,7 +104,8 @@ public class AgentExecutor {
                 k -> new ConversationHistory()
         );
 
-        return new ToolCallAgent(config, allowedTools, history, toolExecutor, llmProviderRegistry);
+        return new ToolCallAgent(config, allowedTools, history, toolExecutor, llmProviderRegistry, resultShaper,
+                filePrefetcher);
     }
 
     /**
@@ -138,6 +149,13 @@ public class AgentExecutor {
         return sessionHistories.get(sessionId);
     }
 
+    /**
+     * 获取重复文件读取去重的累计统计
+     */
+    public FileReadDeduplicator.Stats getReadDeduplicationStats() {
+        return readDeduplicationStats.get();
+    }
+
     /**
      * 获取所有会话ID
      */
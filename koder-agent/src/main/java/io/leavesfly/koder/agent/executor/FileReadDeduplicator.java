@@ -0,0 +1,216 @@
+package io.leavesfly.koder.agent.executor;
+
+import io.leavesfly.koder.tool.impl.FileReadTool;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 会话内的重复文件读取去重
+ * <p>
+ * 记录每个文件最近一次完整发给模型的读取结果（起始行、各行内容与内容哈希）。同一文件再次读取时：
+ * - 请求的行都包含在上次的结果中且内容相同：替换为指向上次结果（tool_call_id）的简短引用
+ * - 起始行相同但内容有变化：替换为相对于上次结果的行级差异（见 {@link LineDiff}），差异不比完整内容明显更短时仍发送完整内容
+ * - 其他情况发送完整内容，并以本次结果作为新的参照
+ * <p>
+ * 读取工具本身照常执行（{@code ToolUseContext.readFileTimestamps} 照常更新，编辑前的读取检查不受影响），
+ * 这里只改写发给模型的文本。以内容为准而不是以读取时间为准：读取时间只说明读过，不说明模型看到了什么。
+ * <p>
+ * 同一轮中的结果统一在 {@link #commit} 之后才成为参照：被预算截断的结果不完整，不能被引用。
+ */
+public class FileReadDeduplicator {
+
+    /**
+     * 差异的编辑距离上限（行）
+     */
+    private static final int MAX_DIFF_EDITS = 1000;
+
+    /**
+     * 差异长度超过完整内容的该比例时改为发送完整内容
+     */
+    private static final double MAX_DIFF_RATIO = 0.6;
+
+    /**
+     * 按规范化路径索引的参照结果
+     */
+    private final Map<String, Reference> references = new HashMap<>();
+
+    /**
+     * 本轮待提交的结果（按 tool_call_id）
+     */
+    private final Map<String, Pending> pending = new HashMap<>();
+
+    private long reads;
+    private long deduplicated;
+    private long savedChars;
+
+    /**
+     * 改写一次读取结果
+     *
+     * @param toolCallId 工具调用ID
+     * @param read       读取结果
+     * @param rendered   完整的结果文本
+     * @return 替换后的文本，应发送完整内容时返回null
+     */
+    public synchronized String rewrite(String toolCallId, FileReadTool.Output read, String rendered) {
+        reads++;
+        String path = normalize(read.getFilePath());
+        List<String> lines = lines(read.getContent());
+        Reference current = new Reference(toolCallId, Math.max(read.getStartLine(), 1), lines, lines.hashCode());
+        Reference previous = references.get(path);
+
+        if (previous != null) {
+            // 引用不改变参照，无需提交
+            String unchanged = unchanged(previous, current, read.getFilePath());
+            if (unchanged != null && unchanged.length() < rendered.length()) {
+                return saved(unchanged, rendered);
+            }
+            if (previous.startLine == current.startLine) {
+                String diff = diff(previous, current, read.getFilePath(), rendered);
+                if (diff != null) {
+                    // 差异发送后模型看到的内容即为本次内容
+                    pending.put(toolCallId, new Pending(path, current));
+                    return saved(diff, rendered);
+                }
+            }
+        }
+        pending.put(toolCallId, new Pending(path, current));
+        return null;
+    }
+
+    /**
+     * 本轮结果发送后提交：完整发送的结果成为该文件新的参照，被截断的结果使参照失效
+     *
+     * @param toolCallId 工具调用ID
+     * @param truncated  结果是否被截断
+     */
+    public synchronized void commit(String toolCallId, boolean truncated) {
+        Pending entry = pending.remove(toolCallId);
+        if (entry == null) {
+            return;
+        }
+        if (truncated) {
+            references.remove(entry.path);
+        } else {
+            references.put(entry.path, entry.reference);
+        }
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(reads, deduplicated, savedChars);
+    }
+
+    private String saved(String replacement, String rendered) {
+        deduplicated++;
+        savedChars += rendered.length() - replacement.length();
+        return replacement;
+    }
+
+    /**
+     * 请求的行都在参照结果中且内容相同时返回引用文本
+     */
+    private static String unchanged(Reference previous, Reference current, String filePath) {
+        int from = current.startLine - previous.startLine;
+        int count = current.lines.size();
+        if (from < 0 || from + count > previous.lines.size()) {
+            return null;
+        }
+        if (from == 0 && count == previous.lines.size()) {
+            if (current.contentHash != previous.contentHash || !current.lines.equals(previous.lines)) {
+                return null;
+            }
+        } else if (!current.lines.equals(previous.lines.subList(from, from + count))) {
+            return null;
+        }
+        int endLine = current.startLine + Math.max(count, 1) - 1;
+        return "[未变化] " + filePath + " 第 " + current.startLine + "-" + endLine
+                + " 行与之前的读取结果（tool_call_id: " + previous.toolCallId + "）相同，请直接参考该结果。";
+    }
+
+    /**
+     * 内容变化时返回相对于参照结果的差异，差异过大时返回null
+     */
+    private static String diff(Reference previous, Reference current, String filePath, String rendered) {
+        String diff = LineDiff.unified(previous.lines, current.lines, previous.startLine, MAX_DIFF_EDITS);
+        if (diff == null || diff.isEmpty() || diff.length() > rendered.length() * MAX_DIFF_RATIO) {
+            return null;
+        }
+        return "[已修改] " + filePath + " 自之前的读取（tool_call_id: " + previous.toolCallId
+                + "）以来有变化，以下是相对于该结果的差异（行号为文件行号），其余内容不变：\n" + diff;
+    }
+
+    private static String normalize(String path) {
+        try {
+            return Paths.get(path).toAbsolutePath().normalize().toString();
+        } catch (RuntimeException e) {
+            return path;
+        }
+    }
+
+    /**
+     * 按读取工具的方式划分行：末尾的换行不产生空行
+     */
+    private static List<String> lines(String content) {
+        List<String> lines = new ArrayList<>();
+        int end = content.length();
+        while (end > 0 && content.charAt(end - 1) == '\n') {
+            end--;
+        }
+        int start = 0;
+        while (start < end) {
+            int newline = content.indexOf('\n', start);
+            int lineEnd = newline < 0 || newline > end ? end : newline;
+            lines.add(content.substring(start, lineEnd));
+            start = lineEnd + 1;
+        }
+        return lines;
+    }
+
+    /**
+     * 参照结果
+     *
+     * @param toolCallId  发送该结果的工具调用ID
+     * @param startLine   第一行的行号
+     * @param lines       各行内容
+     * @param contentHash 内容哈希
+     */
+    private record Reference(String toolCallId, int startLine, List<String> lines, int contentHash) {
+    }
+
+    private record Pending(String path, Reference reference) {
+    }
+
+    /**
+     * 去重统计
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Stats {
+        /**
+         * 读取次数
+         */
+        private long reads;
+
+        /**
+         * 被替换为引用或差异的次数
+         */
+        private long deduplicated;
+
+        /**
+         * 节省的字符数
+         */
+        private long savedChars;
+
+        /**
+         * 与另一份统计相加
+         */
+        public Stats plus(Stats other) {
+            return new Stats(reads + other.reads, deduplicated + other.deduplicated, savedChars + other.savedChars);
+        }
+    }
+}
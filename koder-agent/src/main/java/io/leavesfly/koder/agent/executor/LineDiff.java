@@ -0,0 +1,179 @@
+package io.leavesfly.koder.agent.executor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 行级差异（Myers 算法）
+ * <p>
+ * 先去掉公共的前缀与后缀，再对中间部分求最短编辑脚本；编辑距离超过上限时放弃（返回null），
+ * 此时差异通常比完整内容更长。结果格式化为带文件行号的 unified diff 片段。
+ */
+final class LineDiff {
+
+    private static final int CONTEXT_LINES = 2;
+
+    /**
+     * 编辑脚本中的操作
+     */
+    private static final int EQUAL = 0;
+    private static final int DELETE = 1;
+    private static final int INSERT = 2;
+
+    private LineDiff() {
+    }
+
+    /**
+     * 计算差异并格式化为 unified diff 片段
+     *
+     * @param before    原内容的各行
+     * @param after     新内容的各行
+     * @param firstLine 两者第一行在文件中的行号
+     * @param maxEdits  编辑距离上限
+     * @return diff 文本（没有差异时为空字符串），超过上限时返回null
+     */
+    static String unified(List<String> before, List<String> after, int firstLine, int maxEdits) {
+        int prefix = 0;
+        while (prefix < before.size() && prefix < after.size() && before.get(prefix).equals(after.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < before.size() - prefix && suffix < after.size() - prefix
+                && before.get(before.size() - 1 - suffix).equals(after.get(after.size() - 1 - suffix))) {
+            suffix++;
+        }
+        if (prefix == before.size() && prefix == after.size()) {
+            return "";
+        }
+
+        List<String> a = before.subList(prefix, before.size() - suffix);
+        List<String> b = after.subList(prefix, after.size() - suffix);
+        List<int[]> ops = shortestEdit(a, b, maxEdits);
+        if (ops == null) {
+            return null;
+        }
+
+        // 补上公共前后缀中的相等行，供上下文使用
+        List<int[]> script = new ArrayList<>(prefix + ops.size() + suffix);
+        for (int i = 0; i < prefix; i++) {
+            script.add(new int[]{EQUAL, i, i});
+        }
+        for (int[] op : ops) {
+            script.add(new int[]{op[0], op[1] + prefix, op[2] + prefix});
+        }
+        for (int i = 0; i < suffix; i++) {
+            script.add(new int[]{EQUAL, before.size() - suffix + i, after.size() - suffix + i});
+        }
+        return format(script, before, after, firstLine);
+    }
+
+    /**
+     * Myers 最短编辑脚本，每项为 {操作, 原行下标, 新行下标}
+     */
+    private static List<int[]> shortestEdit(List<String> a, List<String> b, int maxEdits) {
+        int n = a.size();
+        int m = b.size();
+        int max = Math.min(n + m, maxEdits);
+        int offset = max + 1;
+        int[] v = new int[2 * max + 3];
+        List<int[]> trace = new ArrayList<>();
+
+        for (int d = 0; d <= max; d++) {
+            int[] snapshot = new int[2 * d + 1];
+            System.arraycopy(v, offset - d, snapshot, 0, snapshot.length);
+            trace.add(snapshot);
+            for (int k = -d; k <= d; k += 2) {
+                int x = k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])
+                        ? v[offset + k + 1]
+                        : v[offset + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && a.get(x).equals(b.get(y))) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    return backtrack(trace, n, m);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static List<int[]> backtrack(List<int[]> trace, int n, int m) {
+        List<int[]> ops = new ArrayList<>();
+        int x = n;
+        int y = m;
+        for (int d = trace.size() - 1; d > 0; d--) {
+            int[] v = trace.get(d);
+            int k = x - y;
+            int previousK = k == -d || (k != d && v[k - 1 + d] < v[k + 1 + d]) ? k + 1 : k - 1;
+            int previousX = v[previousK + d];
+            int previousY = previousX - previousK;
+            while (x > previousX && y > previousY) {
+                ops.add(new int[]{EQUAL, --x, --y});
+            }
+            if (x == previousX) {
+                ops.add(new int[]{INSERT, x, --y});
+            } else {
+                ops.add(new int[]{DELETE, --x, y});
+            }
+        }
+        while (x > 0 && y > 0) {
+            ops.add(new int[]{EQUAL, --x, --y});
+        }
+        Collections.reverse(ops);
+        return ops;
+    }
+
+    /**
+     * 把编辑脚本格式化为带上下文的 unified diff 片段
+     */
+    private static String format(List<int[]> script, List<String> before, List<String> after, int firstLine) {
+        StringBuilder sb = new StringBuilder();
+        int i = 0;
+        while (i < script.size()) {
+            if (script.get(i)[0] == EQUAL) {
+                i++;
+                continue;
+            }
+            // 一个片段：从第一个变更前的上下文开始，直到变更之间相隔超过两倍上下文
+            int start = Math.max(0, i - CONTEXT_LINES);
+            int end = i;
+            int lastChange = i;
+            while (end < script.size()) {
+                if (script.get(end)[0] != EQUAL) {
+                    lastChange = end;
+                } else if (end - lastChange > 2 * CONTEXT_LINES) {
+                    break;
+                }
+                end++;
+            }
+            end = Math.min(script.size(), lastChange + CONTEXT_LINES + 1);
+
+            int oldStart = script.get(start)[1];
+            int newStart = script.get(start)[2];
+            int oldCount = 0;
+            int newCount = 0;
+            for (int j = start; j < end; j++) {
+                int op = script.get(j)[0];
+                oldCount += op != INSERT ? 1 : 0;
+                newCount += op != DELETE ? 1 : 0;
+            }
+            sb.append("@@ -").append(firstLine + oldStart).append(',').append(oldCount)
+                    .append(" +").append(firstLine + newStart).append(',').append(newCount).append(" @@\n");
+            for (int j = start; j < end; j++) {
+                int[] op = script.get(j);
+                switch (op[0]) {
+                    case DELETE -> sb.append('-').append(before.get(op[1]));
+                    case INSERT -> sb.append('+').append(after.get(op[2]));
+                    default -> sb.append(' ').append(before.get(op[1]));
+                }
+                sb.append('\n');
+            }
+            i = end;
+        }
+        return sb.toString();
+    }
+}
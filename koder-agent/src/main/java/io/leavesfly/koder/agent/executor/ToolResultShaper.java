@@ -0,0 +1,240 @@
+package io.leavesfly.koder.agent.executor;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.leavesfly.koder.tool.Tool;
+import io.leavesfly.koder.tool.config.ToolProperties;
+import io.leavesfly.koder.tool.config.ToolProperties.ResultShapingSettings;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 工具结果整形
+ * <p>
+ * 把工具输出转换为发给模型的文本：使用工具的 {@link Tool#renderResultForAssistant} 得到紧凑的文本，
+ * 工具返回结构化对象时序列化为省略空值的 JSON。文本再按 token 预算截断：
+ * - 单个结果不超过 maxResultTokens
+ * - 同一轮的所有结果合计不超过 maxTurnTokens，超出时较小的结果保持完整，较大的结果平分剩余预算
+ * <p>
+ * 截断时保留开头与结尾的完整行，中间替换为说明省略了多少行的标记。
+ * token 数按字符估算：ASCII 字符约 4 个 1 个 token，其他字符（如中文）每个 1 个 token。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ToolResultShaper {
+
+    /**
+     * 预算紧张时每个结果至少保留的 token 数
+     */
+    static final int MIN_RESULT_TOKENS = 256;
+
+    /**
+     * 为省略标记预留的 token 数
+     */
+    private static final int MARKER_TOKENS = 32;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private final ToolProperties properties;
+
+    /**
+     * 把工具输出渲染为发给模型的文本（未截断）
+     *
+     * @param tool   工具（为null时直接序列化输出）
+     * @param output 工具输出
+     */
+    @SuppressWarnings("unchecked")
+    public String render(Tool<?, ?> tool, Object output) {
+        Object rendered = output;
+        if (tool != null && output != null) {
+            try {
+                rendered = ((Tool<?, Object>) tool).renderResultForAssistant(output);
+            } catch (RuntimeException e) {
+                log.debug("渲染工具结果失败，改为序列化输出: {}", tool.getName(), e);
+            }
+        }
+        if (rendered == null) {
+            return "";
+        }
+        if (rendered instanceof CharSequence text) {
+            return text.toString();
+        }
+        try {
+            return MAPPER.writeValueAsString(rendered);
+        } catch (JsonProcessingException e) {
+            return String.valueOf(rendered);
+        }
+    }
+
+    /**
+     * 按单个结果与整轮的预算截断同一轮的结果
+     *
+     * @param results 同一轮各工具调用的结果文本
+     * @return 截断后的结果，顺序与输入一致
+     */
+    public List<String> shape(List<String> results) {
+        ResultShapingSettings settings = properties.getResultShaping();
+        int count = results.size();
+        int[] tokens = new int[count];
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            tokens[i] = estimateTokens(results.get(i), 0, results.get(i).length());
+            order[i] = i;
+        }
+
+        // 从小到大分配：放得下的结果保持完整，其余结果平分剩下的预算
+        Arrays.sort(order, Comparator.comparingInt(i -> tokens[i]));
+        int[] budgets = new int[count];
+        long remaining = settings.getMaxTurnTokens();
+        for (int k = 0; k < count; k++) {
+            int i = order[k];
+            long share = Math.max(remaining / (count - k), MIN_RESULT_TOKENS);
+            budgets[i] = (int) Math.min(Math.min(tokens[i], share), settings.getMaxResultTokens());
+            remaining -= budgets[i];
+        }
+
+        List<String> shaped = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            shaped.add(tokens[i] <= budgets[i] ? results.get(i) : truncate(results.get(i), budgets[i]));
+        }
+        return shaped;
+    }
+
+    /**
+     * 把文本截断到 token 预算内：保留开头约三分之二与结尾约三分之一的完整行，中间插入省略标记。
+     * 单行超出预算时（如压缩过的 JSON）按字符截断。
+     *
+     * @param text      文本
+     * @param maxTokens token 预算
+     */
+    public static String truncate(String text, int maxTokens) {
+        int length = text.length();
+        int total = estimateTokens(text, 0, length);
+        if (total <= maxTokens) {
+            return text;
+        }
+        int available = Math.max(maxTokens - MARKER_TOKENS, 0);
+        int headBudget = available * 2 / 3;
+        int tailBudget = available - headBudget;
+
+        int headEnd = 0;
+        int used = 0;
+        while (headEnd < length) {
+            int newline = text.indexOf('\n', headEnd);
+            int lineEnd = newline < 0 ? length : newline + 1;
+            int lineTokens = estimateTokens(text, headEnd, lineEnd);
+            if (used + lineTokens > headBudget) {
+                break;
+            }
+            used += lineTokens;
+            headEnd = lineEnd;
+        }
+        if (headEnd == 0) {
+            headEnd = cutForward(text, 0, headBudget);
+        }
+
+        int tailStart = length;
+        used = 0;
+        while (tailStart > headEnd) {
+            int lineStart = tailStart >= 2 ? text.lastIndexOf('\n', tailStart - 2) + 1 : 0;
+            if (lineStart < headEnd) {
+                break;
+            }
+            int lineTokens = estimateTokens(text, lineStart, tailStart);
+            if (used + lineTokens > tailBudget) {
+                break;
+            }
+            used += lineTokens;
+            tailStart = lineStart;
+        }
+        if (tailStart == length) {
+            tailStart = Math.max(cutBackward(text, length, tailBudget), headEnd);
+        }
+
+        int omittedLines = 0;
+        for (int i = text.indexOf('\n', headEnd); i >= 0 && i < tailStart; i = text.indexOf('\n', i + 1)) {
+            omittedLines++;
+        }
+        int omittedTokens = estimateTokens(text, headEnd, tailStart);
+
+        StringBuilder sb = new StringBuilder(headEnd + (length - tailStart) + 96);
+        sb.append(text, 0, headEnd);
+        if (headEnd > 0 && text.charAt(headEnd - 1) != '\n') {
+            sb.append('\n');
+        }
+        sb.append("… [已省略");
+        if (omittedLines > 0) {
+            sb.append(' ').append(omittedLines).append(" 行，");
+        }
+        sb.append("约 ").append(omittedTokens).append(" tokens；如需这部分内容，请缩小范围后重新调用] …\n");
+        sb.append(text, tailStart, length);
+        return sb.toString();
+    }
+
+    /**
+     * 估算 token 数
+     */
+    public static int estimateTokens(CharSequence text) {
+        return estimateTokens(text, 0, text.length());
+    }
+
+    /**
+     * 估算 [from, to) 范围的 token 数：以四分之一 token 为单位累计，ASCII 字符计 1，其他字符计 4
+     */
+    static int estimateTokens(CharSequence text, int from, int to) {
+        long quarters = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                quarters++;
+            } else if (!Character.isLowSurrogate(c)) {
+                quarters += 4;
+            }
+        }
+        return (int) ((quarters + 3) / 4);
+    }
+
+    /**
+     * 从 from 开始向后取不超过 budget 个 token 的字符，返回结束位置（不拆分代理对）
+     */
+    private static int cutForward(CharSequence text, int from, int budget) {
+        long quarters = budget * 4L;
+        int i = from;
+        while (i < text.length()) {
+            int cost = text.charAt(i) < 0x80 ? 1 : 4;
+            if (quarters < cost) {
+                break;
+            }
+            quarters -= cost;
+            i += Character.isHighSurrogate(text.charAt(i)) && i + 1 < text.length() ? 2 : 1;
+        }
+        return i;
+    }
+
+    /**
+     * 从 to 开始向前取不超过 budget 个 token 的字符，返回开始位置（不拆分代理对）
+     */
+    private static int cutBackward(CharSequence text, int to, int budget) {
+        long quarters = budget * 4L;
+        int i = to;
+        while (i > 0) {
+            char c = text.charAt(i - 1);
+            int cost = c < 0x80 ? 1 : 4;
+            if (quarters < cost) {
+                break;
+            }
+            quarters -= cost;
+            i -= Character.isLowSurrogate(c) && i >= 2 ? 2 : 1;
+        }
+        return i;
+    }
+}
@@ -7,6 +7,7 @@ import io.leavesfly.koder.agent.executor.AgentExecutor;
 import io.leavesfly.koder.cli.command.Command;
 import io.leavesfly.koder.cli.command.CommandContext;
 import io.leavesfly.koder.cli.command.CommandResult;
+import io.leavesfly.koder.tool.fs.FileContentCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -38,6 +39,8 @@ public class AgentsCommand implements Command {
 
     private final AgentExecutor agentExecutor;
 
+    private final FileContentCache fileContentCache;
+
     private static final List<String> RESERVED_NAMES = List.of(
             "help", "exit", "quit", "agents", "task", "model", "config", "tools", "mcp"
     );
@@ -716,6 +719,7 @@ public class AgentsCommand implements Command {
                 .messageId(UUID.randomUUID().toString())
                 .agentId(agent.getAgentType())
                 .safeMode(false)
+                .fileContentCache(fileContentCache)
                 .build();
 
             StringBuilder responseBuilder = new StringBuilder();
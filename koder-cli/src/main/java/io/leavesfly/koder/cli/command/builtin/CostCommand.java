@@ -1,20 +1,39 @@
 package io.leavesfly.koder.cli.command.builtin;
 
+import io.leavesfly.koder.agent.executor.AgentExecutor;
+import io.leavesfly.koder.agent.executor.FileReadDeduplicator;
 import io.leavesfly.koder.cli.command.Command;
 import io.leavesfly.koder.cli.command.CommandContext;
 import io.leavesfly.koder.cli.command.CommandResult;
 import io.leavesfly.koder.cli.repl.REPLSession;
+import io.leavesfly.koder.tool.executor.ToolExecutor;
+import io.leavesfly.koder.tool.executor.ToolResultCache;
+import io.leavesfly.koder.tool.fs.FileContentCache;
+import io.leavesfly.koder.tool.fs.FilePrefetcher;
+import io.leavesfly.koder.tool.impl.BashTool;
+import io.leavesfly.koder.tool.search.SearchService;
+import io.leavesfly.koder.tool.shell.CommandResultCache;
+import io.leavesfly.koder.tool.shell.ShellResourceStats;
+import io.leavesfly.koder.tool.web.HttpCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 /**
- * cost命令 - 显示当前会话的token消耗和成本
+ * cost命令 - 显示当前会话的token消耗和成本，以及工具缓存、去重、预取等优化的效果
  */
 @Component
 @RequiredArgsConstructor
 public class CostCommand implements Command {
 
     private final REPLSession session;
+    private final ToolExecutor toolExecutor;
+    private final FileContentCache fileContentCache;
+    private final FilePrefetcher filePrefetcher;
+    private final BashTool bashTool;
+    private final ShellResourceStats shellResourceStats;
+    private final SearchService searchService;
+    private final HttpCache httpCache;
+    private final AgentExecutor agentExecutor;
 
     @Override
     public String getName() {
@@ -47,9 +66,69 @@ public class CostCommand implements Command {
         output.append("消息数量: ").append(session.getMessages().size()).append("\n");
         output.append("会话时长: ").append(formatDuration(session.getStartTime())).append("\n");
 
+        // 显示工具优化统计
+        output.append("\n工具优化统计:\n");
+        appendToolStats(output);
+
         return CommandResult.success(output.toString());
     }
 
+    private void appendToolStats(StringBuilder output) {
+        ToolResultCache.Stats resultCache = toolExecutor.getResultCacheStats();
+        if (resultCache != null) {
+            output.append(String.format("工具结果缓存: 命中 %d / 未命中 %d (%.1f%%)，失效 %d，条目 %d (%s)%n",
+                    resultCache.getHits(), resultCache.getMisses(), resultCache.getHitRate() * 100,
+                    resultCache.getStale(), resultCache.getEntries(), formatChars(resultCache.getTotalChars())));
+        }
+
+        FileContentCache.Stats contentCache = fileContentCache.getStats();
+        output.append(String.format("文件内容缓存: 命中 %d / 未命中 %d (%.1f%%)，条目 %d (%s)%n",
+                contentCache.getHits(), contentCache.getMisses(), contentCache.getHitRate() * 100,
+                contentCache.getEntries(), formatBytes(contentCache.getBytes())));
+
+        FileReadDeduplicator.Stats dedup = agentExecutor.getReadDeduplicationStats();
+        output.append(String.format("重复读取去重: 读取 %d 次，替换为引用或差异 %d 次，节省 %s%n",
+                dedup.getReads(), dedup.getDeduplicated(), formatChars(dedup.getSavedChars())));
+
+        FilePrefetcher.Stats prefetch = filePrefetcher.getStats();
+        output.append(String.format("文件预取: %d 轮，预取 %d 个文件 (%s)，跳过 %d，取消 %d 轮%n",
+                prefetch.getRounds(), prefetch.getFiles(), formatBytes(prefetch.getBytes()),
+                prefetch.getSkipped(), prefetch.getCancelled()));
+
+        CommandResultCache.Stats commandCache = bashTool.getResultCacheStats();
+        if (commandCache.getHits() + commandCache.getMisses() > 0) {
+            output.append(String.format("命令结果缓存: 命中 %d / 未命中 %d，条目 %d%n",
+                    commandCache.getHits(), commandCache.getMisses(), commandCache.getEntries()));
+        }
+
+        ShellResourceStats.Stats shell = shellResourceStats.getStats();
+        output.append(String.format("命令资源: %d 条命令，CPU %.1f 秒，读取 %s / 写入 %s，内存峰值 %s，超限终止 %d 次%n",
+                shell.getCommands(), shell.getCpuTimeMs() / 1000.0, formatBytes(shell.getReadBytes()),
+                formatBytes(shell.getWriteBytes()), formatBytes(shell.getMaxPeakRssBytes()), shell.getLimitKills()));
+
+        SearchService.Stats search = searchService.getStats();
+        output.append(String.format("搜索缓存: 命中 %d / 未命中 %d，合并请求 %d，后端调用 %d%n",
+                search.getHits(), search.getMisses(), search.getCoalesced(), search.getBackendCalls()));
+
+        HttpCache.Stats http = httpCache.getStats();
+        output.append(String.format("HTTP 缓存: 内存命中 %d，磁盘命中 %d，未命中 %d%n",
+                http.getMemoryHits(), http.getDiskHits(), http.getMisses()));
+    }
+
+    private String formatBytes(long bytes) {
+        if (bytes >= 1024 * 1024) {
+            return String.format("%.1f MB", bytes / (1024.0 * 1024));
+        } else if (bytes >= 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        } else {
+            return bytes + " B";
+        }
+    }
+
+    private String formatChars(long chars) {
+        return chars >= 1000 ? String.format("%.1fK 字符", chars / 1000.0) : chars + " 字符";
+    }
+
     private String formatDuration(long startTime) {
         long duration = System.currentTimeMillis() - startTime;
         long seconds = duration / 1000;
@@ -6,6 +6,7 @@ import io.leavesfly.koder.cli.command.CommandRegistry;
 import io.leavesfly.koder.cli.command.CommandResult;
 import io.leavesfly.koder.cli.terminal.TerminalRenderer;
 import io.leavesfly.koder.tool.ToolUseContext;
+import io.leavesfly.koder.tool.fs.FileContentCache;
 import io.leavesfly.koder.tool.impl.BashTool;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,6 +29,7 @@ public class REPLEngine {
     private final TerminalRenderer renderer;
     private final BashTool bashTool;
     private final AgentExecutor agentExecutor;
+    private final FileContentCache fileContentCache;
 
     private REPLSession session;
     private LineReader lineReader;
@@ -145,19 +147,29 @@ public class REPLEngine {
                 return false;
             }
 
-            // 执行命令
+            // 执行命令：输出行以进度事件实时打印，结果中只补充未流式展示的内容
+            AtomicBoolean stdoutStreamed = new AtomicBoolean(false);
+            AtomicBoolean stderrStreamed = new AtomicBoolean(false);
             bashTool.call(input, null)
                     .doOnNext(response -> {
-                        if (response.getData() != null) {
+                        if (response.getContent() instanceof BashTool.OutputLine line) {
+                            if (line.isStderr()) {
+                                stderrStreamed.set(true);
+                                renderer.printError(line.getText());
+                            } else {
+                                stdoutStreamed.set(true);
+                                renderer.println(line.getText());
+                            }
+                        } else if (response.getData() != null) {
                             BashTool.Output output = response.getData();
 
                             // 显示标准输出
-                            if (!output.getStdout().isEmpty()) {
+                            if (!stdoutStreamed.get() && !output.getStdout().isEmpty()) {
                                 renderer.println(output.getStdout());
                             }
 
                             // 显示标准错误
-                            if (!output.getStderr().isEmpty()) {
+                            if (!stderrStreamed.get() && !output.getStderr().isEmpty()) {
                                 renderer.printError(output.getStderr());
                             }
 
@@ -247,6 +259,7 @@ public class REPLEngine {
                 .messageId(UUID.randomUUID().toString())
                 .agentId(DEFAULT_AGENT)
                 .safeMode(false)
+                .fileContentCache(fileContentCache)
                 .build();
 
             // 执行代理查询
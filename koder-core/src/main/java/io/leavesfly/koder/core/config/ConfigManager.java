@@ -3,6 +3,7 @@ package io.leavesfly.koder.core.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.leavesfly.koder.core.fs.AtomicFileWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -11,7 +12,6 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.Optional;
 
 /**
@@ -142,12 +142,8 @@ public class ConfigManager {
      */
     private void saveConfigToFile(Object config, Path targetPath) {
         try {
-            // 先写入临时文件
-            Path tempFile = Files.createTempFile("koder-config-", ".tmp");
-            objectMapper.writeValue(tempFile.toFile(), config);
-            
-            // 原子性移动到目标位置
-            Files.move(tempFile, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            // 在目标目录写入临时文件并刷盘，再原子重命名到目标位置
+            AtomicFileWriter.write(targetPath, objectMapper.writeValueAsBytes(config), true);
             
             log.info("配置已保存: {}", targetPath);
         } catch (IOException e) {
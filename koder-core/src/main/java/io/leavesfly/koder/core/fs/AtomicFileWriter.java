@@ -0,0 +1,188 @@
+package io.leavesfly.koder.core.fs;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 原子文件写入
+ * <p>
+ * 先把内容完整写入目标文件所在目录下的临时文件，再通过重命名替换目标文件，
+ * 读者只会看到旧内容或新内容，进程崩溃也不会留下被截断的文件。
+ * 临时文件与目标位于同一目录（同一文件系统），重命名因此是原子的。
+ * <p>
+ * 替换已有文件时保留其 POSIX 权限；目标是符号链接时写入链接指向的文件，而不是替换链接本身。
+ */
+@Slf4j
+public final class AtomicFileWriter {
+
+    private AtomicFileWriter() {
+    }
+
+    /**
+     * 原子写入文件
+     *
+     * @param target 目标文件
+     * @param data   文件内容
+     * @param sync   是否在返回前将数据与目录项刷入磁盘
+     * @throws IOException 写入失败（此时目标文件保持不变）
+     */
+    public static void write(Path target, byte[] data, boolean sync) throws IOException {
+        Path resolved = resolveTarget(target);
+        Path temp = writeTemp(resolved, data, sync);
+        try {
+            moveIntoPlace(temp, resolved);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        if (sync) {
+            syncDirectory(resolved.getParent());
+        }
+    }
+
+    /**
+     * 解析实际写入的位置：符号链接解析为其指向的文件
+     *
+     * @param target 目标路径
+     * @return 实际写入的绝对路径
+     * @throws IOException 解析失败
+     */
+    public static Path resolveTarget(Path target) throws IOException {
+        Path absolute = target.toAbsolutePath().normalize();
+        if (Files.isSymbolicLink(absolute) && Files.exists(absolute)) {
+            return absolute.toRealPath();
+        }
+        return absolute;
+    }
+
+    /**
+     * 在目标所在目录写入临时文件，并复制目标已有的权限
+     *
+     * @param target 目标文件（绝对路径）
+     * @param data   文件内容
+     * @param sync   是否刷盘
+     * @return 临时文件路径
+     * @throws IOException 写入失败（临时文件已被清理）
+     */
+    public static Path writeTemp(Path target, byte[] data, boolean sync) throws IOException {
+        return writeTemp(target, channel -> {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }, sync);
+    }
+
+    /**
+     * 在目标所在目录写入临时文件，内容由调用方直接写入文件通道（不必先在内存中拼出完整内容）
+     *
+     * @param target 目标文件（绝对路径）
+     * @param writer 内容写入器
+     * @param sync   是否刷盘
+     * @return 临时文件路径
+     * @throws IOException 写入失败（临时文件已被清理）
+     */
+    public static Path writeTemp(Path target, ContentWriter writer, boolean sync) throws IOException {
+        Path directory = target.getParent();
+        Path temp = directory.resolve("." + target.getFileName() + "."
+                + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+
+        // 不使用 Files.createTempFile：它固定创建 0600 权限的文件，新文件应遵循 umask
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            writer.writeTo(channel);
+            if (sync) {
+                channel.force(true);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        copyPermissions(target, temp);
+        return temp;
+    }
+
+    /**
+     * 用临时文件替换目标文件
+     *
+     * @param temp   临时文件
+     * @param target 目标文件
+     * @throws IOException 替换失败
+     */
+    public static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            log.debug("文件系统不支持原子重命名，改用普通替换: {}", target);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 将文件数据刷入磁盘
+     *
+     * @param file 文件
+     * @throws IOException 刷盘失败
+     */
+    public static void sync(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * 将目录项刷入磁盘，使重命名持久化（部分平台不支持打开目录，此时忽略）
+     *
+     * @param directory 目录
+     */
+    public static void syncDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.trace("无法刷新目录: {}", directory, e);
+        }
+    }
+
+    private static void copyPermissions(Path source, Path target) throws IOException {
+        if (!Files.exists(source, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        PosixFileAttributeView sourceView = Files.getFileAttributeView(source, PosixFileAttributeView.class);
+        PosixFileAttributeView targetView = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+        if (sourceView == null || targetView == null) {
+            return;
+        }
+        try {
+            targetView.setPermissions(sourceView.readAttributes().permissions());
+        } catch (IOException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+
+    /**
+     * 文件内容写入器
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+
+        /**
+         * 把完整内容写入通道
+         */
+        void writeTo(FileChannel channel) throws IOException;
+    }
+}
@@ -2,6 +2,8 @@ package io.leavesfly.koder.tool;
 
 import reactor.core.publisher.Flux;
 
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -74,6 +76,38 @@ public interface Tool<I, O> {
      */
     boolean isConcurrencySafe();
 
+    /**
+     * 调用结果能否由执行引擎缓存复用
+     * 仅对只读且并发安全的工具生效：相同输入在工作区与依赖路径未变化时直接返回上次的结果。
+     * 结果必须完全由 {@link #getResultDependencies} 的状态决定：目录的修改时间不反映深层文件的变化，
+     * 遍历目录树的工具（如 Grep、Glob）不应声明可缓存
+     *
+     * @return true表示可以缓存
+     */
+    default boolean isResultCacheable() {
+        return false;
+    }
+
+    /**
+     * 调用结果依赖的文件或目录
+     * 缓存命中前比较它们的修改时间，发生变化即视为失效
+     *
+     * @param input 工具输入参数
+     * @return 依赖路径列表
+     */
+    default List<Path> getResultDependencies(I input) {
+        return List.of();
+    }
+
+    /**
+     * 调用结果由缓存复用时调用（代替 {@link #call}），用于补做执行时对上下文的登记
+     *
+     * @param input   工具输入参数
+     * @param context 执行上下文
+     */
+    default void onCachedResult(I input, ToolUseContext context) {
+    }
+
     /**
      * 工具执行是否需要用户权限确认
      *
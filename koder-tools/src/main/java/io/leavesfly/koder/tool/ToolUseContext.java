@@ -1,5 +1,6 @@
 package io.leavesfly.koder.tool;
 
+import io.leavesfly.koder.tool.fs.FileContentCache;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -43,6 +44,11 @@ public class ToolUseContext {
      */
     private Map<String, Long> readFileTimestamps;
 
+    /**
+     * 文件内容缓存（读取与编辑工具共享，为null时直接读盘）
+     */
+    private FileContentCache fileContentCache;
+
     /**
      * 额外选项
      */
@@ -0,0 +1,530 @@
+package io.leavesfly.koder.tool.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 工具系统配置属性
+ * 从配置文件加载 koder.tools 下的工具配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "koder.tools")
+public class ToolProperties {
+
+    /**
+     * 是否注册工具列表Bean
+     */
+    private boolean listEnabled = true;
+
+    /**
+     * 文件写入配置
+     */
+    private FileWriteSettings fileWrite = new FileWriteSettings();
+
+    /**
+     * Shell 执行配置
+     */
+    private ShellSettings shell = new ShellSettings();
+
+    /**
+     * HTTP 获取配置
+     */
+    private FetchSettings fetch = new FetchSettings();
+
+    /**
+     * 网络搜索配置
+     */
+    private SearchSettings search = new SearchSettings();
+
+    /**
+     * 记忆存储配置
+     */
+    private MemorySettings memory = new MemorySettings();
+
+    /**
+     * 任务存储配置
+     */
+    private TaskSettings task = new TaskSettings();
+
+    /**
+     * 任务列表（TodoWrite）存储配置
+     */
+    private TodoSettings todo = new TodoSettings();
+
+    /**
+     * 语义检索配置
+     */
+    private SemanticSettings semantic = new SemanticSettings();
+
+    /**
+     * 工具调用结果缓存配置
+     */
+    private ResultCacheSettings resultCache = new ResultCacheSettings();
+
+    /**
+     * 返回给模型的工具结果的 token 预算
+     */
+    private ResultShapingSettings resultShaping = new ResultShapingSettings();
+
+    /**
+     * 文件预取配置
+     */
+    private PrefetchSettings prefetch = new PrefetchSettings();
+
+    /**
+     * 文件写入配置
+     */
+    @Data
+    public static class FileWriteSettings {
+        /**
+         * 刷盘策略
+         */
+        private SyncMode sync = SyncMode.NONE;
+    }
+
+    /**
+     * Shell 执行配置
+     */
+    @Data
+    public static class ShellSettings {
+        /**
+         * 是否在持久 Shell 会话中执行命令（保留 cd、export 等状态）
+         */
+        private boolean persistentSession = false;
+
+        /**
+         * 持久会话使用的 Shell
+         */
+        private String path = "/bin/bash";
+
+        /**
+         * 同时保持的最大会话数
+         */
+        private int maxSessions = 8;
+
+        /**
+         * 命令资源软限制
+         */
+        private ResourceLimits limits = new ResourceLimits();
+
+        /**
+         * 只读命令结果缓存
+         */
+        private CommandCacheSettings resultCache = new CommandCacheSettings();
+    }
+
+    /**
+     * 只读命令结果缓存配置
+     */
+    @Data
+    public static class CommandCacheSettings {
+        /**
+         * 是否启用
+         */
+        private boolean enabled = false;
+
+        /**
+         * 可缓存的命令（命令本身或以其开头并带参数的形式）
+         */
+        private List<String> commands = new ArrayList<>(List.of(
+                "git status", "git diff", "git log", "git show", "git branch",
+                "ls", "pwd", "tree"));
+
+        /**
+         * 缓存存活时间（秒）
+         */
+        private int ttlSeconds = 30;
+
+        /**
+         * 最大缓存条目数
+         */
+        private int maxEntries = 128;
+    }
+
+    /**
+     * 命令资源软限制，超出时终止整棵进程树（0 表示不限制）
+     */
+    @Data
+    public static class ResourceLimits {
+        /**
+         * 资源采样间隔（毫秒）
+         */
+        private long sampleIntervalMs = 250;
+
+        /**
+         * CPU 时间上限（秒）
+         */
+        private int maxCpuSeconds = 0;
+
+        /**
+         * 常驻内存上限（MB）
+         */
+        private int maxRssMb = 0;
+
+        /**
+         * 磁盘写入上限（MB）
+         */
+        private int maxWriteMb = 0;
+
+        /**
+         * 同时存活的进程数上限
+         */
+        private int maxProcesses = 0;
+    }
+
+    /**
+     * HTTP 获取配置
+     */
+    @Data
+    public static class FetchSettings {
+        /**
+         * 连接超时（毫秒）
+         */
+        private int connectTimeoutMs = 10000;
+
+        /**
+         * 等待响应头的超时（毫秒）
+         */
+        private long responseTimeoutMs = 30000;
+
+        /**
+         * 单次请求的总超时（毫秒）
+         */
+        private long totalTimeoutMs = 60000;
+
+        /**
+         * 每个主机的最大连接数
+         */
+        private int maxConnectionsPerHost = 4;
+
+        /**
+         * 解码后响应体的字节上限
+         */
+        private long maxBodyBytes = 2 * 1024 * 1024;
+
+        /**
+         * HTML 页面提取文本的 token 上限
+         */
+        private long maxTextTokens = 20000;
+
+        /**
+         * 批量获取的全局并发上限
+         */
+        private int batchConcurrency = 8;
+
+        /**
+         * 批量获取单次最多的URL数
+         */
+        private int batchMaxUrls = 20;
+
+        /**
+         * 批量获取中单个URL的超时（毫秒）
+         */
+        private long batchUrlTimeoutMs = 30000;
+
+        /**
+         * 批量获取所有URL共享的解码后字节预算
+         */
+        private long batchMaxBytes = 8 * 1024 * 1024;
+
+        /**
+         * HTTP 缓存配置
+         */
+        private HttpCacheSettings cache = new HttpCacheSettings();
+    }
+
+    /**
+     * HTTP 缓存配置
+     */
+    @Data
+    public static class HttpCacheSettings {
+        /**
+         * 是否启用
+         */
+        private boolean enabled = true;
+
+        /**
+         * 磁盘缓存目录（为空时使用 ~/.koder/cache/http）
+         */
+        private String directory;
+
+        /**
+         * 内存缓存的字节上限
+         */
+        private long memoryMaxBytes = 16 * 1024 * 1024;
+
+        /**
+         * 磁盘缓存的容量上限（MB）
+         */
+        private int diskMaxMb = 256;
+    }
+
+    /**
+     * 网络搜索配置
+     */
+    @Data
+    public static class SearchSettings {
+        /**
+         * 使用的搜索后端名称
+         */
+        private String backend = "local";
+
+        /**
+         * 结果缓存存活时间（秒）
+         */
+        private int cacheTtlSeconds = 600;
+
+        /**
+         * 结果缓存最大条目数
+         */
+        private int cacheMaxEntries = 256;
+
+        /**
+         * 每个后端的平均请求速率（每秒，0 表示不限流）
+         */
+        private double rateLimitPerSecond = 1.0;
+
+        /**
+         * 每个后端允许的突发请求数
+         */
+        private int rateLimitBurst = 5;
+
+        /**
+         * 本地文件搜索后端配置
+         */
+        private LocalSearchSettings local = new LocalSearchSettings();
+    }
+
+    /**
+     * 本地文件搜索后端配置
+     */
+    @Data
+    public static class LocalSearchSettings {
+        /**
+         * JSONL 语料文件（为空时使用 ~/.koder/search/corpus.jsonl）
+         */
+        private String corpusFile;
+
+        /**
+         * 模拟的网络延迟（毫秒）
+         */
+        private long latencyMs = 0;
+    }
+
+    /**
+     * 记忆存储配置
+     */
+    @Data
+    public static class MemorySettings {
+        /**
+         * 存储目录（为空时使用 ~/.koder/memory）
+         */
+        private String directory;
+
+        /**
+         * 日志累计到多少条记录后压缩为快照
+         */
+        private int compactThreshold = 1000;
+
+        /**
+         * 相关度检索中时间衰减的半衰期（天，0 表示不衰减）
+         */
+        private int recencyHalfLifeDays = 30;
+
+        /**
+         * 每次写入后是否刷盘
+         */
+        private boolean sync = false;
+    }
+
+    /**
+     * 任务存储配置
+     */
+    @Data
+    public static class TaskSettings {
+        /**
+         * 存储目录（为空时使用 ~/.koder/tasks）
+         */
+        private String directory;
+
+        /**
+         * 日志累计到多少条记录后压缩为快照
+         */
+        private int compactThreshold = 1000;
+
+        /**
+         * 每次写入后是否刷盘
+         */
+        private boolean sync = false;
+    }
+
+    /**
+     * 任务列表（TodoWrite）存储配置
+     */
+    @Data
+    public static class TodoSettings {
+        /**
+         * 存储目录（为空时使用 ~/.koder/todos）
+         */
+        private String directory;
+
+        /**
+         * 日志累计到多少条记录后压缩为快照
+         */
+        private int compactThreshold = 200;
+
+        /**
+         * 更新后延迟多久写盘，窗口内的多次更新合并写入（0 表示立即写盘）
+         */
+        private long flushDelayMs = 500;
+
+        /**
+         * 每次写入后是否刷盘
+         */
+        private boolean sync = false;
+    }
+
+    /**
+     * 语义检索配置
+     */
+    @Data
+    public static class SemanticSettings {
+        /**
+         * 哈希向量维度
+         */
+        private int dimensions = 256;
+
+        /**
+         * 代码块的目标行数
+         */
+        private int chunkLines = 40;
+
+        /**
+         * 超过该大小的文件不建索引
+         */
+        private long maxFileBytes = 512 * 1024;
+
+        /**
+         * 每个目录最多索引的文件数
+         */
+        private int maxFiles = 20000;
+
+        /**
+         * 同时保留索引的目录数，超出时淘汰最久未使用的
+         */
+        private int maxIndexedRoots = 4;
+
+        /**
+         * HNSW 每个节点的邻居数
+         */
+        private int hnswM = 16;
+
+        /**
+         * HNSW 建图时的束宽
+         */
+        private int efConstruction = 40;
+
+        /**
+         * HNSW 检索时的束宽
+         */
+        private int efSearch = 64;
+
+        /**
+         * 工作区未发生已知变更时，两次增量刷新（比对文件修改时间）的最小间隔
+         */
+        private long refreshIntervalMs = 10000;
+    }
+
+    /**
+     * 刷盘策略
+     */
+    public enum SyncMode {
+        /**
+         * 不主动刷盘，由操作系统决定写回时机（仍保证原子替换）
+         */
+        NONE,
+
+        /**
+         * 重命名前刷新文件数据，重命名后刷新目录项，写入返回即已持久化
+         */
+        SYNC,
+
+        /**
+         * 写入立即可见，刷盘由后台线程批量完成
+         */
+        WRITE_BEHIND
+    }
+
+    /**
+     * 工具调用结果缓存配置（只对只读、并发安全且声明可缓存的工具生效）
+     */
+    @Data
+    public static class ResultCacheSettings {
+        /**
+         * 是否启用
+         */
+        private boolean enabled = true;
+
+        /**
+         * 缓存存活时间（秒）
+         */
+        private int ttlSeconds = 120;
+
+        /**
+         * 最大缓存条目数
+         */
+        private int maxEntries = 256;
+
+        /**
+         * 缓存结果的总文本长度上限（字符），单个结果超过其四分之一时不缓存
+         */
+        private long maxChars = 8L * 1024 * 1024;
+    }
+
+    /**
+     * 工具结果的 token 预算（按字符估算），超出时保留开头与结尾、省略中间部分
+     */
+    @Data
+    public static class ResultShapingSettings {
+        /**
+         * 单个结果的 token 上限
+         */
+        private int maxResultTokens = 8000;
+
+        /**
+         * 同一轮所有结果合计的 token 上限
+         */
+        private int maxTurnTokens = 20000;
+    }
+
+    /**
+     * 文件预取配置：等待模型响应时预先读取接下来可能读取的文件
+     */
+    @Data
+    public static class PrefetchSettings {
+        /**
+         * 是否启用
+         */
+        private boolean enabled = true;
+
+        /**
+         * 每轮最多预取的文件数
+         */
+        private int maxFiles = 8;
+
+        /**
+         * 每轮最多读取的字节数
+         */
+        private long maxBytes = 4L * 1024 * 1024;
+
+        /**
+         * 超过该大小的文件不预取
+         */
+        private long maxFileBytes = 1024 * 1024;
+    }
+}
@@ -2,6 +2,7 @@ package io.leavesfly.koder.tool.config;
 
 import io.leavesfly.koder.tool.Tool;
 import io.leavesfly.koder.tool.executor.ToolExecutor;
+import io.leavesfly.koder.tool.executor.ToolResultCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -25,10 +26,10 @@ public class ToolSystemConfiguration {
      */
     @Bean
     @ConditionalOnMissingBean
-    public ToolExecutor toolExecutor(List<Tool<?, ?>> tools) {
+    public ToolExecutor toolExecutor(List<Tool<?, ?>> tools, ToolResultCache resultCache) {
         log.info("创建ToolExecutor，发现 {} 个工具", tools.size());
         
-        ToolExecutor executor = new ToolExecutor();
+        ToolExecutor executor = new ToolExecutor(resultCache);
         
         // 注册所有工具
         for (Tool<?, ?> tool : tools) {
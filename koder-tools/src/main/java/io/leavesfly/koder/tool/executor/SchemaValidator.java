@@ -0,0 +1,357 @@
+package io.leavesfly.koder.tool.executor;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 预编译的 JSON Schema 校验器
+ * <p>
+ * 注册工具时把 {@link io.leavesfly.koder.tool.Tool#getInputSchema()} 编译为一棵校验节点树，之后每次调用只遍历参数本身，
+ * 不再解释 schema 的 Map。支持工具 schema 中常用的关键字：
+ * type（可为数组）、properties、required、additionalProperties（false）、items、enum、
+ * minimum / maximum、minLength / maxLength、pattern、minItems / maxItems；其余关键字（如 $ref、oneOf）忽略，不做限制。
+ * <p>
+ * 与输入绑定保持一致：值为 null 视同未提供；数值与布尔类型接受可转换的字符串（如 "20"、"true"）。
+ * 校验失败时最多收集 {@link #MAX_ERRORS} 条错误，合并为一条简短的消息。
+ */
+@Slf4j
+public final class SchemaValidator {
+
+    static final int MAX_ERRORS = 5;
+
+    private static final SchemaValidator PERMISSIVE = new SchemaValidator(new Node());
+
+    private static final int OBJECT = 1;
+    private static final int ARRAY = 1 << 1;
+    private static final int STRING = 1 << 2;
+    private static final int NUMBER = 1 << 3;
+    private static final int INTEGER = 1 << 4;
+    private static final int BOOLEAN = 1 << 5;
+    private static final int NULL = 1 << 6;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Node root;
+
+    private SchemaValidator(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * 编译 schema
+     *
+     * @param schema 工具的输入 schema（为null时不做任何限制）
+     */
+    public static SchemaValidator compile(Map<String, Object> schema) {
+        if (schema == null || schema.isEmpty()) {
+            return PERMISSIVE;
+        }
+        return new SchemaValidator(compileNode(schema));
+    }
+
+    /**
+     * 校验参数
+     *
+     * @param arguments 参数（已解析的 JSON）
+     * @return 错误消息，通过时返回null
+     */
+    public String validate(JsonNode arguments) {
+        List<String> errors = new ArrayList<>(0);
+        root.validate(arguments, "", errors);
+        if (errors.isEmpty()) {
+            return null;
+        }
+        StringBuilder message = new StringBuilder("参数校验失败: ");
+        for (int i = 0; i < errors.size() && i < MAX_ERRORS; i++) {
+            if (i > 0) {
+                message.append("；");
+            }
+            message.append(errors.get(i));
+        }
+        if (errors.size() > MAX_ERRORS) {
+            message.append("；等 ").append(errors.size()).append(" 个问题");
+        }
+        return message.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Node compileNode(Map<String, Object> schema) {
+        Node node = new Node();
+        node.types = parseTypes(schema.get("type"));
+
+        if (schema.get("enum") instanceof Collection<?> values) {
+            node.enumValues = new LinkedHashSet<>();
+            for (Object value : values) {
+                node.enumValues.add(MAPPER.valueToTree(value));
+            }
+        }
+        node.minimum = number(schema.get("minimum"));
+        node.maximum = number(schema.get("maximum"));
+        node.minLength = integer(schema.get("minLength"));
+        node.maxLength = integer(schema.get("maxLength"));
+        node.minItems = integer(schema.get("minItems"));
+        node.maxItems = integer(schema.get("maxItems"));
+        if (schema.get("pattern") instanceof String regex) {
+            try {
+                node.pattern = Pattern.compile(regex);
+            } catch (PatternSyntaxException e) {
+                log.debug("忽略无效的 schema pattern: {}", regex);
+            }
+        }
+
+        if (schema.get("properties") instanceof Map<?, ?> properties) {
+            node.properties = new LinkedHashMap<>();
+            properties.forEach((name, propertySchema) -> {
+                if (propertySchema instanceof Map<?, ?> map) {
+                    node.properties.put(String.valueOf(name), compileNode((Map<String, Object>) map));
+                }
+            });
+        }
+        if (schema.get("required") instanceof Collection<?> required) {
+            node.required = required.stream().map(String::valueOf).toArray(String[]::new);
+        }
+        node.additionalProperties = !Boolean.FALSE.equals(schema.get("additionalProperties"));
+        if (schema.get("items") instanceof Map<?, ?> items) {
+            node.items = compileNode((Map<String, Object>) items);
+        }
+        return node;
+    }
+
+    private static int parseTypes(Object type) {
+        if (type instanceof String name) {
+            return typeBit(name);
+        }
+        if (type instanceof Collection<?> names) {
+            int types = 0;
+            for (Object name : names) {
+                types |= typeBit(String.valueOf(name));
+            }
+            return types;
+        }
+        return 0;
+    }
+
+    private static int typeBit(String name) {
+        return switch (name) {
+            case "object" -> OBJECT;
+            case "array" -> ARRAY;
+            case "string" -> STRING;
+            case "number" -> NUMBER | INTEGER;
+            case "integer" -> INTEGER;
+            case "boolean" -> BOOLEAN;
+            case "null" -> NULL;
+            default -> 0;
+        };
+    }
+
+    private static Double number(Object value) {
+        return value instanceof Number number ? number.doubleValue() : null;
+    }
+
+    private static Integer integer(Object value) {
+        return value instanceof Number number ? number.intValue() : null;
+    }
+
+    /**
+     * 校验节点（各约束为null时不检查）
+     */
+    private static final class Node {
+        /**
+         * 允许的类型位（0 表示不限）
+         */
+        int types;
+        Set<JsonNode> enumValues;
+        Double minimum;
+        Double maximum;
+        Integer minLength;
+        Integer maxLength;
+        Integer minItems;
+        Integer maxItems;
+        Pattern pattern;
+        Map<String, Node> properties;
+        String[] required;
+        boolean additionalProperties = true;
+        Node items;
+
+        void validate(JsonNode value, String path, List<String> errors) {
+            if (types != 0 && !matchesType(value)) {
+                errors.add(label(path) + "应为 " + typeNames() + "（实际为 " + describe(value) + "）");
+                return;
+            }
+            if (enumValues != null && !enumValues.contains(value)
+                    && !(value.isTextual() && enumValues.stream().anyMatch(v -> v.isTextual() && v.asText().equalsIgnoreCase(value.asText())))) {
+                errors.add(label(path) + "取值应为 " + enumNames() + "（实际为 " + describe(value) + "）");
+                return;
+            }
+            if (value.isObject()) {
+                validateObject(value, path, errors);
+            } else if (value.isArray()) {
+                validateArray(value, path, errors);
+            } else if (value.isTextual()) {
+                validateString(value.asText(), path, errors);
+            }
+            if ((minimum != null || maximum != null) && isNumeric(value)) {
+                double number = value.isNumber() ? value.doubleValue() : Double.parseDouble(value.asText().trim());
+                if (minimum != null && number < minimum) {
+                    errors.add(label(path) + "不能小于 " + format(minimum));
+                } else if (maximum != null && number > maximum) {
+                    errors.add(label(path) + "不能大于 " + format(maximum));
+                }
+            }
+        }
+
+        private void validateObject(JsonNode value, String path, List<String> errors) {
+            if (required != null) {
+                for (String name : required) {
+                    JsonNode field = value.get(name);
+                    if (field == null || field.isNull()) {
+                        errors.add("缺少必需参数 " + child(path, name));
+                    }
+                }
+            }
+            Iterator<Map.Entry<String, JsonNode>> fields = value.fields();
+            while (fields.hasNext() && errors.size() <= MAX_ERRORS) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                Node property = properties != null ? properties.get(field.getKey()) : null;
+                if (property == null) {
+                    if (!additionalProperties) {
+                        errors.add("不支持的参数 " + child(path, field.getKey()));
+                    }
+                } else if (!field.getValue().isNull()) {
+                    property.validate(field.getValue(), child(path, field.getKey()), errors);
+                }
+            }
+        }
+
+        private void validateArray(JsonNode value, String path, List<String> errors) {
+            if (minItems != null && value.size() < minItems) {
+                errors.add(label(path) + "至少需要 " + minItems + " 项");
+            }
+            if (maxItems != null && value.size() > maxItems) {
+                errors.add(label(path) + "最多 " + maxItems + " 项");
+            }
+            if (items != null) {
+                for (int i = 0; i < value.size() && errors.size() <= MAX_ERRORS; i++) {
+                    items.validate(value.get(i), path + "[" + i + "]", errors);
+                }
+            }
+        }
+
+        private void validateString(String text, String path, List<String> errors) {
+            if (minLength != null && text.codePointCount(0, text.length()) < minLength) {
+                errors.add(label(path) + "长度不能少于 " + minLength);
+            }
+            if (maxLength != null && text.codePointCount(0, text.length()) > maxLength) {
+                errors.add(label(path) + "长度不能超过 " + maxLength);
+            }
+            if (pattern != null && !pattern.matcher(text).find()) {
+                errors.add(label(path) + "不符合格式 " + pattern.pattern());
+            }
+        }
+
+        private boolean matchesType(JsonNode value) {
+            return switch (value.getNodeType()) {
+                case OBJECT -> (types & OBJECT) != 0;
+                case ARRAY -> (types & ARRAY) != 0;
+                case STRING -> (types & STRING) != 0
+                        || ((types & (NUMBER | INTEGER)) != 0 && isNumeric(value))
+                        || ((types & BOOLEAN) != 0 && isBooleanText(value.asText()));
+                case NUMBER -> (types & NUMBER) != 0 || ((types & INTEGER) != 0 && isIntegral(value));
+                case BOOLEAN -> (types & BOOLEAN) != 0;
+                case NULL -> (types & NULL) != 0;
+                default -> true;
+            };
+        }
+
+        private boolean isNumeric(JsonNode value) {
+            if (value.isNumber()) {
+                return true;
+            }
+            if (!value.isTextual()) {
+                return false;
+            }
+            String text = value.asText().trim();
+            try {
+                double number = Double.parseDouble(text);
+                return (types & NUMBER) != 0 || number == Math.rint(number) && !text.contains(".");
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        private static boolean isIntegral(JsonNode value) {
+            return value.isIntegralNumber() || (value.isNumber() && value.doubleValue() == Math.rint(value.doubleValue()));
+        }
+
+        private static boolean isBooleanText(String text) {
+            return "true".equalsIgnoreCase(text) || "false".equalsIgnoreCase(text);
+        }
+
+        private String typeNames() {
+            List<String> names = new ArrayList<>();
+            if ((types & OBJECT) != 0) {
+                names.add("object");
+            }
+            if ((types & ARRAY) != 0) {
+                names.add("array");
+            }
+            if ((types & STRING) != 0) {
+                names.add("string");
+            }
+            if ((types & NUMBER) != 0) {
+                names.add("number");
+            } else if ((types & INTEGER) != 0) {
+                names.add("integer");
+            }
+            if ((types & BOOLEAN) != 0) {
+                names.add("boolean");
+            }
+            if ((types & NULL) != 0) {
+                names.add("null");
+            }
+            return String.join("|", names);
+        }
+
+        private String enumNames() {
+            StringJoiner joiner = new StringJoiner("|");
+            for (JsonNode value : enumValues) {
+                joiner.add(value.isTextual() ? value.asText() : value.toString());
+            }
+            return joiner.toString();
+        }
+
+        private static String label(String path) {
+            return path.isEmpty() ? "参数" : path + " ";
+        }
+
+        private static String child(String path, String name) {
+            return path.isEmpty() ? name : path + "." + name;
+        }
+
+        private static String describe(JsonNode value) {
+            String type = switch (value.getNodeType()) {
+                case OBJECT -> "object";
+                case ARRAY -> "array";
+                case STRING -> "string";
+                case NUMBER -> value.isIntegralNumber() ? "integer" : "number";
+                case BOOLEAN -> "boolean";
+                case NULL -> "null";
+                default -> value.getNodeType().name().toLowerCase(Locale.ROOT);
+            };
+            if (value.isValueNode() && !value.isNull()) {
+                String text = value.isTextual() ? "\"" + value.asText() + "\"" : value.toString();
+                return type + " " + (text.length() > 40 ? text.substring(0, 40) + "…" : text);
+            }
+            return type;
+        }
+
+        private static String format(double number) {
+            return number == Math.rint(number) ? String.valueOf((long) number) : String.valueOf(number);
+        }
+    }
+}
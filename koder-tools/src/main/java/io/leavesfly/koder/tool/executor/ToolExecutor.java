@@ -2,6 +2,7 @@ package io.leavesfly.koder.tool.executor;
 
 import io.leavesfly.koder.tool.*;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -11,7 +12,8 @@ import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 工具执行引擎
- * 负责工具的注册、管理和执行
+ * 负责工具的注册、管理和执行；注册时为每个工具预先构建输入绑定器（见 {@link ToolInputBinder}），
+ * 可缓存工具的重复调用直接复用结果（见 {@link ToolResultCache}）
  */
 @Slf4j
 @Service
@@ -22,6 +24,25 @@ public class ToolExecutor {
      */
     private final Map<String, Tool<?, ?>> tools = new ConcurrentHashMap<>();
 
+    /**
+     * 各工具的输入绑定器（按名称索引）
+     */
+    private final Map<String, ToolInputBinder<?>> binders = new ConcurrentHashMap<>();
+
+    /**
+     * 结果缓存（为null时不缓存）
+     */
+    private final ToolResultCache resultCache;
+
+    public ToolExecutor() {
+        this(null);
+    }
+
+    @Autowired
+    public ToolExecutor(ToolResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
     /**
      * 注册工具
      *
@@ -29,6 +50,7 @@ public class ToolExecutor {
      */
     public void registerTool(Tool<?, ?> tool) {
         if (tool.isEnabled()) {
+            binders.put(tool.getName(), ToolInputBinder.forTool(tool));
             tools.put(tool.getName(), tool);
             log.info("注册工具: {}", tool.getName());
         }
@@ -95,6 +117,54 @@ public class ToolExecutor {
             return Flux.error(new ToolNotFoundException("工具不存在: " + toolName));
         }
 
+        // 未绑定的参数（如 Map）转换为工具的输入类型
+        ToolInputBinder<I> binder = (ToolInputBinder<I>) binders.get(toolName);
+        if (binder != null) {
+            try {
+                input = binder.coerce(input);
+            } catch (IllegalArgumentException e) {
+                return Flux.error(new ToolValidationException(e.getMessage(), null));
+            }
+        }
+
+        return run(tool, toolName, binder, input, context);
+    }
+
+    /**
+     * 执行工具调用，参数为模型给出的 JSON 字符串
+     * <p>
+     * 参数按工具预先构建的绑定器解析、按 schema 校验后绑定为类型化的输入，解析或校验失败时返回 {@link ToolValidationException}，
+     * 不会进入工具。
+     *
+     * @param toolName      工具名称
+     * @param argumentsJson 参数 JSON
+     * @param context       执行上下文
+     * @param <O>           输出类型
+     * @return 执行结果流
+     */
+    @SuppressWarnings("unchecked")
+    public <O> Flux<ToolResponse<O>> executeJson(
+            String toolName,
+            String argumentsJson,
+            ToolUseContext context) {
+
+        Tool<Object, O> tool = (Tool<Object, O>) tools.get(toolName);
+        ToolInputBinder<Object> binder = (ToolInputBinder<Object>) binders.get(toolName);
+        if (tool == null || binder == null) {
+            return Flux.error(new ToolNotFoundException("工具不存在: " + toolName));
+        }
+
+        Object input;
+        try {
+            input = binder.bind(argumentsJson);
+        } catch (IllegalArgumentException e) {
+            return Flux.error(new ToolValidationException(e.getMessage(), null));
+        }
+        return run(tool, toolName, binder, input, context);
+    }
+
+    private <I, O> Flux<ToolResponse<O>> run(Tool<I, O> tool, String toolName, ToolInputBinder<I> binder,
+                                             I input, ToolUseContext context) {
         // 验证输入
         ValidationResult validation = tool.validateInput(input, context);
         if (!validation.isResult()) {
@@ -110,6 +180,50 @@ public class ToolExecutor {
             return Flux.error(new ToolAbortedException("工具执行已中断"));
         }
 
+        if (resultCache != null && binder != null && resultCache.supports(tool)) {
+            return cached(tool, toolName, binder, input, context);
+        }
+        return call(tool, toolName, input, context);
+    }
+
+    /**
+     * 经过结果缓存执行：命中时直接回放缓存的结果，否则执行工具并在成功完成后缓存其结果（进度消息不缓存）
+     */
+    private <I, O> Flux<ToolResponse<O>> cached(Tool<I, O> tool, String toolName, ToolInputBinder<I> binder,
+                                                I input, ToolUseContext context) {
+        String key;
+        try {
+            key = toolName + '\0' + binder.canonicalKey(input);
+        } catch (IllegalArgumentException e) {
+            log.debug("参数无法规范化，跳过结果缓存: {}", e.getMessage());
+            return call(tool, toolName, input, context);
+        }
+
+        return Flux.defer(() -> {
+            List<ToolResponse<O>> hit = resultCache.get(key);
+            if (hit != null) {
+                log.debug("工具结果缓存命中: {}", toolName);
+                tool.onCachedResult(input, context);
+                return Flux.fromIterable(hit);
+            }
+
+            ToolResultCache.Snapshot snapshot = resultCache.snapshot(tool.getResultDependencies(input));
+            List<ToolResponse<O>> results = new ArrayList<>(1);
+            return call(tool, toolName, input, context)
+                    .doOnNext(response -> {
+                        if (response.getType() == ToolResponse.ResponseType.RESULT) {
+                            results.add(response);
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        if (!results.isEmpty()) {
+                            resultCache.put(key, snapshot, results, weigh(tool, results));
+                        }
+                    });
+        });
+    }
+
+    private <I, O> Flux<ToolResponse<O>> call(Tool<I, O> tool, String toolName, I input, ToolUseContext context) {
         try {
             return tool.call(input, context)
                     .doOnSubscribe(sub -> log.debug("开始执行工具: {}", toolName))
@@ -122,6 +236,27 @@ public class ToolExecutor {
         }
     }
 
+    /**
+     * 结果的权重：返回给模型的文本长度
+     */
+    private static <O> long weigh(Tool<?, O> tool, List<ToolResponse<O>> results) {
+        long chars = 0;
+        for (ToolResponse<O> response : results) {
+            Object rendered = response.getData() != null ? tool.renderResultForAssistant(response.getData()) : null;
+            chars += rendered != null ? String.valueOf(rendered).length() : 0;
+        }
+        return chars;
+    }
+
+    /**
+     * 获取结果缓存统计
+     *
+     * @return 缓存统计（未启用缓存时为null）
+     */
+    public ToolResultCache.Stats getResultCacheStats() {
+        return resultCache != null ? resultCache.getStats() : null;
+    }
+
     /**
      * 执行工具并等待结果
      *
@@ -0,0 +1,151 @@
+package io.leavesfly.koder.tool.executor;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.leavesfly.koder.tool.Tool;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 工具输入绑定器
+ * <p>
+ * 注册工具时按其输入类型（{@code Tool<I, O>} 的 I）与 {@link Tool#getInputSchema()} 预先构建：
+ * - 缓存该类型的 {@link ObjectReader}，参数 JSON 只解析一次，得到的节点树先校验再直接绑定为类型化的输入对象
+ * - 属性名按 snake_case 与输入类的字段对应（schema 中的 file_path 对应 filePath），未知属性忽略
+ * - schema 编译为 {@link SchemaValidator}，类型、必需参数、枚举等问题在进入工具之前即被拒绝
+ * - 绑定后的输入可序列化为规范化的 JSON（见 {@link #canonicalKey(Object)}），供结果缓存使用
+ * <p>
+ * 输入类型无法解析时按 Map 绑定。
+ *
+ * @param <I> 输入类型
+ */
+public final class ToolInputBinder<I> {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .configure(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS, true)
+            .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+            .build();
+
+    private final String toolName;
+    private final JavaType inputType;
+    private final ObjectReader reader;
+    private final SchemaValidator validator;
+
+    private ToolInputBinder(String toolName, JavaType inputType, SchemaValidator validator) {
+        this.toolName = toolName;
+        this.inputType = inputType;
+        this.reader = MAPPER.readerFor(inputType);
+        this.validator = validator;
+    }
+
+    /**
+     * 为工具构建绑定器
+     */
+    public static <I> ToolInputBinder<I> forTool(Tool<I, ?> tool) {
+        return new ToolInputBinder<>(tool.getName(), resolveInputType(tool), SchemaValidator.compile(tool.getInputSchema()));
+    }
+
+    /**
+     * 把参数 JSON 解析、校验并绑定为输入对象
+     *
+     * @param json 参数 JSON（为空时视为 {}）
+     * @throws IllegalArgumentException 参数不是合法的 JSON 或不符合 schema
+     */
+    public I bind(String json) {
+        JsonNode arguments;
+        try {
+            arguments = json == null || json.isBlank() ? MAPPER.createObjectNode() : reader.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(describe(e), e);
+        }
+        return bindTree(arguments);
+    }
+
+    /**
+     * 把已解析的参数（通常为 Map）校验并转换为输入对象；已是输入类型时原样返回
+     *
+     * @throws IllegalArgumentException 参数不符合 schema
+     */
+    @SuppressWarnings("unchecked")
+    public I coerce(Object arguments) {
+        if (arguments != null && inputType.getRawClass().isInstance(arguments)) {
+            return (I) arguments;
+        }
+        JsonNode tree;
+        try {
+            tree = arguments != null ? MAPPER.valueToTree(arguments) : MAPPER.createObjectNode();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("工具 " + toolName + " 的参数无效: " + e.getMessage(), e);
+        }
+        return bindTree(tree);
+    }
+
+    /**
+     * 输入的规范化 JSON（属性与 Map 键按字母排序，缺省值已填充），用作结果缓存的键
+     * <p>
+     * 等价的调用（属性顺序不同、显式给出默认值、枚举大小写不同）得到相同的键。
+     *
+     * @throws IllegalArgumentException 输入无法序列化
+     */
+    public String canonicalKey(I input) {
+        try {
+            return MAPPER.writeValueAsString(input);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("工具 " + toolName + " 的参数无法序列化: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    public JavaType getInputType() {
+        return inputType;
+    }
+
+    private I bindTree(JsonNode arguments) {
+        String error = validator.validate(arguments);
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+        try {
+            I input = reader.readValue(arguments);
+            if (input == null) {
+                throw new IllegalArgumentException("工具 " + toolName + " 的参数必须是 JSON 对象");
+            }
+            return input;
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e instanceof JsonProcessingException processing
+                    ? describe(processing) : e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 把 Jackson 的异常压缩为"参数 x.y 类型错误"一类的短消息
+     */
+    private String describe(JsonProcessingException e) {
+        if (e instanceof JsonParseException) {
+            return "工具 " + toolName + " 的参数不是合法的 JSON: " + e.getOriginalMessage();
+        }
+        if (e instanceof JsonMappingException mapping && !mapping.getPath().isEmpty()) {
+            String path = mapping.getPath().stream()
+                    .map(ref -> ref.getFieldName() != null ? ref.getFieldName() : "[" + ref.getIndex() + "]")
+                    .collect(Collectors.joining("."))
+                    .replace(".[", "[");
+            return "参数 " + path + " 的类型不正确: " + e.getOriginalMessage().split("\n")[0];
+        }
+        return "工具 " + toolName + " 的参数必须是 JSON 对象";
+    }
+
+    private static JavaType resolveInputType(Tool<?, ?> tool) {
+        JavaType[] parameters = MAPPER.getTypeFactory().findTypeParameters(tool.getClass(), Tool.class);
+        if (parameters.length == 0 || parameters[0].getRawClass() == Object.class) {
+            return MAPPER.getTypeFactory().constructMapType(Map.class, String.class, Object.class);
+        }
+        return parameters[0];
+    }
+
+}
@@ -0,0 +1,225 @@
+package io.leavesfly.koder.tool.executor;
+
+import io.leavesfly.koder.tool.Tool;
+import io.leavesfly.koder.tool.ToolResponse;
+import io.leavesfly.koder.tool.config.ToolProperties;
+import io.leavesfly.koder.tool.config.ToolProperties.ResultCacheSettings;
+import io.leavesfly.koder.tool.fs.WorkspaceChangeTracker;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+/**
+ * 工具调用结果缓存
+ * <p>
+ * 只对声明了 {@link Tool#isResultCacheable()} 的只读、并发安全工具生效，以工具名与规范化的输入
+ * （见 {@link ToolInputBinder#canonicalKey(Object)}）为键，缓存调用产生的结果。满足以下条件时复用：
+ * - 未超过存活时间
+ * - 工作区变更代数未变化（工具写入文件或执行命令都会使缓存失效）
+ * - 工具声明的依赖路径（见 {@link Tool#getResultDependencies(Object)}）的修改时间、大小与文件标识未变化，
+ *   可以发现编辑器等外部程序对文件的修改
+ * <p>
+ * 条目按结果文本长度加权，超出总容量或条目数上限时淘汰最久未使用的条目。
+ */
+@Component
+public class ToolResultCache {
+
+    private final ToolProperties properties;
+    private final WorkspaceChangeTracker changeTracker;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long totalChars;
+    private long hits;
+    private long misses;
+    private long stale;
+    private long evictions;
+
+    public ToolResultCache(ToolProperties properties, WorkspaceChangeTracker changeTracker) {
+        this.properties = properties;
+        this.changeTracker = changeTracker;
+    }
+
+    /**
+     * 工具的结果是否可以缓存
+     */
+    public boolean supports(Tool<?, ?> tool) {
+        return settings().isEnabled() && tool.isResultCacheable() && tool.isReadOnly() && tool.isConcurrencySafe();
+    }
+
+    /**
+     * 查找仍然有效的缓存结果
+     *
+     * @return 缓存的结果响应，不存在或已失效时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <O> List<ToolResponse<O>> get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (!isValid(entry)) {
+            remove(key);
+            stale++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return (List<ToolResponse<O>>) (List<?>) entry.responses;
+    }
+
+    /**
+     * 记录调用开始执行前的状态，执行完成后用它写入缓存
+     * <p>
+     * 状态在执行前采集：执行期间依赖若发生变化，写入的缓存会在下次查找时失效，不会返回过期结果。
+     *
+     * @param dependencies 结果依赖的文件或目录
+     */
+    public Snapshot snapshot(List<Path> dependencies) {
+        List<Path> paths = dependencies != null ? List.copyOf(dependencies) : List.of();
+        Object[] stamps = new Object[paths.size()];
+        for (int i = 0; i < stamps.length; i++) {
+            stamps[i] = stamp(paths.get(i));
+        }
+        return new Snapshot(changeTracker.getGeneration(), paths, stamps, System.currentTimeMillis());
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param key       缓存键
+     * @param snapshot  执行前采集的状态
+     * @param responses 结果响应
+     * @param chars     结果文本长度（用于加权）
+     */
+    public synchronized void put(String key, Snapshot snapshot, List<? extends ToolResponse<?>> responses, long chars) {
+        ResultCacheSettings settings = settings();
+        if (chars > settings.getMaxChars() / 4) {
+            return;
+        }
+        remove(key);
+        entries.put(key, new Entry(List.copyOf(responses), snapshot, chars));
+        totalChars += chars;
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > settings.getMaxEntries() || totalChars > settings.getMaxChars()) && eldest.hasNext()) {
+            totalChars -= eldest.next().getValue().chars;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        totalChars = 0;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, stale, evictions, entries.size(), totalChars);
+    }
+
+    private boolean isValid(Entry entry) {
+        Snapshot snapshot = entry.snapshot;
+        if (System.currentTimeMillis() - snapshot.createdAt() > settings().getTtlSeconds() * 1000L
+                || snapshot.generation() != changeTracker.getGeneration()) {
+            return false;
+        }
+        for (int i = 0; i < snapshot.stamps().length; i++) {
+            if (!snapshot.stamps()[i].equals(stamp(snapshot.dependencies().get(i)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            totalChars -= removed.chars;
+        }
+    }
+
+    /**
+     * 路径的修改时间、大小与文件标识，不存在时为 "-"
+     */
+    private static Object stamp(Path path) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            return List.of(attrs.lastModifiedTime().toMillis(), attrs.size(),
+                    String.valueOf(attrs.fileKey()));
+        } catch (IOException e) {
+            return "-";
+        }
+    }
+
+    private ResultCacheSettings settings() {
+        return properties.getResultCache();
+    }
+
+    /**
+     * 调用执行前的状态
+     *
+     * @param generation   工作区变更代数
+     * @param dependencies 依赖路径
+     * @param stamps       各依赖路径的状态
+     * @param createdAt    采集时间
+     */
+    public record Snapshot(long generation, List<Path> dependencies, Object[] stamps, long createdAt) {
+    }
+
+    private record Entry(List<ToolResponse<?>> responses, Snapshot snapshot, long chars) {
+    }
+
+    /**
+     * 缓存统计
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Stats {
+        /**
+         * 命中次数
+         */
+        private long hits;
+
+        /**
+         * 未命中次数（包含已失效的条目）
+         */
+        private long misses;
+
+        /**
+         * 因依赖变化、工作区变更或过期而失效的次数
+         */
+        private long stale;
+
+        /**
+         * 因容量淘汰的条目数
+         */
+        private long evictions;
+
+        /**
+         * 当前条目数
+         */
+        private int entries;
+
+        /**
+         * 当前缓存的结果文本总长度
+         */
+        private long totalChars;
+
+        /**
+         * 命中率
+         */
+        public double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+}
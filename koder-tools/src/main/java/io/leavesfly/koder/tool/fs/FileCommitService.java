@@ -0,0 +1,289 @@
+package io.leavesfly.koder.tool.fs;
+
+import io.leavesfly.koder.core.fs.AtomicFileWriter;
+import io.leavesfly.koder.tool.config.ToolProperties;
+import io.leavesfly.koder.tool.config.ToolProperties.SyncMode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 文件提交服务
+ * <p>
+ * 写入类工具共享的落盘入口：
+ * - 内容先写入同目录临时文件，再原子重命名替换目标，崩溃不会留下被截断的文件
+ * - 保留目标文件原有的 POSIX 权限与换行风格（CRLF 文件写入 LF 内容时自动转换）
+ * - 一次提交多个文件时先全部写好临时文件，任何一个失败都不会改动目标文件
+ * - 按路径分段加锁，同一文件的写入互斥，不同文件之间互不阻塞
+ * - 刷盘策略由 {@code koder.tools.file-write.sync} 配置，支持同步刷盘与后台批量刷盘
+ * <p>
+ * 提交成功后直写更新 {@link FileContentCache}，并递增 {@link WorkspaceChangeTracker} 的变更代数。
+ */
+@Slf4j
+@Component
+public class FileCommitService {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final ToolProperties properties;
+    private final FileContentCache contentCache;
+    private final WorkspaceChangeTracker changeTracker;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    /**
+     * 等待后台刷盘的文件
+     */
+    private final Set<Path> pendingSync = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean syncScheduled = new AtomicBoolean(false);
+    private final ExecutorService syncExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "koder-file-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public FileCommitService(ToolProperties properties, FileContentCache contentCache,
+                             WorkspaceChangeTracker changeTracker) {
+        this.properties = properties;
+        this.contentCache = contentCache;
+        this.changeTracker = changeTracker;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * 原子写入单个文件
+     *
+     * @param path    文件路径
+     * @param content 文件内容
+     * @return 实际写入的内容（可能已转换换行符）
+     * @throws IOException 写入失败（目标文件保持不变）
+     */
+    public String write(Path path, String content) throws IOException {
+        return commit(List.of(new FileWrite(path, content))).get(0);
+    }
+
+    /**
+     * 批量提交多个文件
+     * <p>
+     * 所有临时文件写入成功后才开始替换目标文件；重命名阶段失败时已替换的文件保持新内容。
+     *
+     * @param writes 待写入的文件
+     * @return 各文件实际写入的内容（顺序与参数一致）
+     * @throws IOException 写入失败
+     */
+    public List<String> commit(List<FileWrite> writes) throws IOException {
+        SyncMode syncMode = properties.getFileWrite().getSync();
+        boolean syncNow = syncMode == SyncMode.SYNC;
+
+        List<Path> targets = new ArrayList<>(writes.size());
+        for (FileWrite write : writes) {
+            Path target = AtomicFileWriter.resolveTarget(write.path());
+            Path parent = target.getParent();
+            if (parent != null && !Files.isDirectory(parent)) {
+                Files.createDirectories(parent);
+            }
+            targets.add(target);
+        }
+
+        List<ReentrantLock> held = lock(targets);
+        List<Path> temps = new ArrayList<>(writes.size());
+        try {
+            // 第一阶段：写入全部临时文件
+            List<String> written = new ArrayList<>(writes.size());
+            try {
+                for (int i = 0; i < writes.size(); i++) {
+                    String content = preserveLineEnding(targets.get(i), writes.get(i).content());
+                    temps.add(AtomicFileWriter.writeTemp(targets.get(i),
+                            content.getBytes(StandardCharsets.UTF_8), syncNow));
+                    written.add(content);
+                }
+            } catch (IOException e) {
+                deleteQuietly(temps);
+                throw e;
+            }
+
+            // 第二阶段：依次重命名
+            for (int i = 0; i < temps.size(); i++) {
+                try {
+                    AtomicFileWriter.moveIntoPlace(temps.get(i), targets.get(i));
+                } catch (IOException e) {
+                    deleteQuietly(temps.subList(i, temps.size()));
+                    if (i > 0) {
+                        log.warn("批量提交在第 {} 个文件失败，之前的 {} 个文件已写入", i + 1, i);
+                    }
+                    throw e;
+                }
+                contentCache.put(targets.get(i), written.get(i));
+                changeTracker.markChanged();
+            }
+
+            afterCommit(targets, syncMode);
+            return written;
+        } finally {
+            for (ReentrantLock lock : held) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 原子写入单个文件，内容由调用方流式写入临时文件（适合不宜整体载入内存的大文件）
+     * <p>
+     * 内容不经过内存，因此不做换行风格转换，也不直写 {@link FileContentCache}，只让其中的旧内容失效。
+     *
+     * @param path   文件路径
+     * @param writer 内容写入器
+     * @throws IOException 写入失败（目标文件保持不变）
+     */
+    public void writeStream(Path path, AtomicFileWriter.ContentWriter writer) throws IOException {
+        SyncMode syncMode = properties.getFileWrite().getSync();
+        Path target = AtomicFileWriter.resolveTarget(path);
+        Path parent = target.getParent();
+        if (parent != null && !Files.isDirectory(parent)) {
+            Files.createDirectories(parent);
+        }
+
+        List<ReentrantLock> held = lock(List.of(target));
+        try {
+            Path temp = AtomicFileWriter.writeTemp(target, writer, syncMode == SyncMode.SYNC);
+            try {
+                AtomicFileWriter.moveIntoPlace(temp, target);
+            } catch (IOException e) {
+                deleteQuietly(List.of(temp));
+                throw e;
+            }
+            contentCache.invalidate(target);
+            changeTracker.markChanged();
+            afterCommit(List.of(target), syncMode);
+        } finally {
+            for (ReentrantLock lock : held) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 立即完成所有等待中的后台刷盘
+     */
+    public void flush() {
+        Set<Path> files = new LinkedHashSet<>();
+        for (Path path : pendingSync) {
+            if (pendingSync.remove(path)) {
+                files.add(path);
+            }
+        }
+        for (Path file : files) {
+            try {
+                AtomicFileWriter.sync(file);
+            } catch (NoSuchFileException e) {
+                // 文件已被删除，无需刷盘
+            } catch (IOException e) {
+                log.warn("文件刷盘失败: {}", file, e);
+            }
+        }
+        for (Path directory : parentsOf(files)) {
+            AtomicFileWriter.syncDirectory(directory);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        syncExecutor.shutdown();
+        flush();
+    }
+
+    /**
+     * 按刷盘策略处理已替换的文件：同步模式刷新目录项，后台模式加入刷盘队列
+     */
+    private void afterCommit(List<Path> targets, SyncMode syncMode) {
+        if (syncMode == SyncMode.SYNC) {
+            for (Path directory : parentsOf(targets)) {
+                AtomicFileWriter.syncDirectory(directory);
+            }
+        } else if (syncMode == SyncMode.WRITE_BEHIND) {
+            pendingSync.addAll(targets);
+            scheduleSync();
+        }
+    }
+
+    private void scheduleSync() {
+        if (syncScheduled.compareAndSet(false, true)) {
+            syncExecutor.execute(() -> {
+                syncScheduled.set(false);
+                flush();
+            });
+        }
+    }
+
+    /**
+     * CRLF 文件写入纯 LF 内容时转换为 CRLF
+     */
+    private String preserveLineEnding(Path target, String content) throws IOException {
+        if (content.indexOf('\n') < 0 || content.contains("\r\n")) {
+            return content;
+        }
+        return LineEnding.detect(target) == LineEnding.CRLF ? LineEnding.CRLF.apply(content) : content;
+    }
+
+    /**
+     * 按分段编号升序加锁，避免批量提交之间死锁
+     */
+    private List<ReentrantLock> lock(List<Path> targets) {
+        Set<Integer> stripes = new TreeSet<>();
+        for (Path target : targets) {
+            stripes.add(Math.floorMod(target.hashCode(), LOCK_STRIPES));
+        }
+        List<ReentrantLock> held = new ArrayList<>(stripes.size());
+        for (int stripe : stripes) {
+            locks[stripe].lock();
+            held.add(locks[stripe]);
+        }
+        return held;
+    }
+
+    private static Set<Path> parentsOf(Iterable<Path> files) {
+        Set<Path> parents = new LinkedHashSet<>();
+        for (Path file : files) {
+            if (file.getParent() != null) {
+                parents.add(file.getParent());
+            }
+        }
+        return parents;
+    }
+
+    private static void deleteQuietly(List<Path> files) {
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.debug("无法删除临时文件: {}", file, e);
+            }
+        }
+    }
+
+    /**
+     * 待写入的文件
+     *
+     * @param path    文件路径
+     * @param content 文件内容
+     */
+    public record FileWrite(Path path, String content) {
+    }
+}
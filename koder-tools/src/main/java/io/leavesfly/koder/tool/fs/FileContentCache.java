@@ -0,0 +1,198 @@
+package io.leavesfly.koder.tool.fs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 文件内容缓存
+ * <p>
+ * 在读取工具与编辑工具之间共享已解码的文件内容，避免“先读后改”时重复读盘与字符集解码。
+ * 条目以规范化的绝对路径为键，每次访问时用（大小、修改时间、文件标识/inode）校验，
+ * 任何一项不一致即视为失效并重新读取。缓存按字节数加权，超出总容量时淘汰最久未使用的条目，
+ * 单个文件超过 {@link #MAX_ENTRY_BYTES} 时不进入缓存。
+ * <p>
+ * 编辑工具写入文件后调用 {@link #put(Path, String)} 直写更新，使随后的读取直接命中。
+ */
+@Slf4j
+@Component
+public class FileContentCache {
+
+    /**
+     * 缓存总容量（字节）
+     */
+    private static final long MAX_TOTAL_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * 单个条目的最大大小（字节）
+     */
+    public static final long MAX_ENTRY_BYTES = 4L * 1024 * 1024;
+
+    private final LinkedHashMap<Path, Entry> cache = new LinkedHashMap<>(128, 0.75f, true);
+
+    private long totalBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * 读取文件内容（UTF-8），命中且未失效时直接返回缓存
+     *
+     * @param path 文件路径
+     * @return 文件内容
+     * @throws IOException 读取失败
+     */
+    public String read(Path path) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        BasicFileAttributes attrs = Files.readAttributes(key, BasicFileAttributes.class);
+
+        synchronized (cache) {
+            Entry cached = cache.get(key);
+            if (cached != null && cached.matches(attrs)) {
+                hits++;
+                return cached.content;
+            }
+            misses++;
+        }
+
+        // 先取属性再读内容：若两者之间文件被修改，缓存的旧属性会在下次访问时校验失败
+        String content = Files.readString(key, StandardCharsets.UTF_8);
+        store(key, attrs, content);
+        return content;
+    }
+
+    /**
+     * 直写更新：文件写入完成后记录新内容
+     *
+     * @param path    文件路径
+     * @param content 刚写入的内容
+     */
+    public void put(Path path, String content) {
+        Path key = path.toAbsolutePath().normalize();
+        try {
+            store(key, Files.readAttributes(key, BasicFileAttributes.class), content);
+        } catch (IOException e) {
+            log.debug("无法获取文件属性，移除缓存: {}", key, e);
+            invalidate(key);
+        }
+    }
+
+    /**
+     * 移除指定文件的缓存
+     */
+    public void invalidate(Path path) {
+        Path key = path.toAbsolutePath().normalize();
+        synchronized (cache) {
+            Entry removed = cache.remove(key);
+            if (removed != null) {
+                totalBytes -= removed.size;
+            }
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        synchronized (cache) {
+            cache.clear();
+            totalBytes = 0;
+        }
+    }
+
+    /**
+     * 获取缓存统计
+     */
+    public Stats getStats() {
+        synchronized (cache) {
+            return new Stats(hits, misses, evictions, cache.size(), totalBytes);
+        }
+    }
+
+    private void store(Path key, BasicFileAttributes attrs, String content) {
+        long size = attrs.size();
+        synchronized (cache) {
+            Entry previous = cache.remove(key);
+            if (previous != null) {
+                totalBytes -= previous.size;
+            }
+            if (size > MAX_ENTRY_BYTES) {
+                return;
+            }
+
+            cache.put(key, new Entry(content, size, attrs.lastModifiedTime().toMillis(), attrs.fileKey()));
+            totalBytes += size;
+
+            Iterator<Map.Entry<Path, Entry>> iterator = cache.entrySet().iterator();
+            while (totalBytes > MAX_TOTAL_BYTES && iterator.hasNext()) {
+                Entry eldest = iterator.next().getValue();
+                iterator.remove();
+                totalBytes -= eldest.size;
+                evictions++;
+            }
+        }
+    }
+
+    /**
+     * 缓存条目
+     */
+    private record Entry(String content, long size, long modifiedTime, Object fileKey) {
+
+        boolean matches(BasicFileAttributes attrs) {
+            return attrs.size() == size
+                    && attrs.lastModifiedTime().toMillis() == modifiedTime
+                    && Objects.equals(attrs.fileKey(), fileKey);
+        }
+    }
+
+    /**
+     * 缓存统计
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Stats {
+        /**
+         * 命中次数
+         */
+        private long hits;
+
+        /**
+         * 未命中次数
+         */
+        private long misses;
+
+        /**
+         * 因容量不足被淘汰的条目数
+         */
+        private long evictions;
+
+        /**
+         * 当前条目数
+         */
+        private int entries;
+
+        /**
+         * 当前缓存的字节数
+         */
+        private long bytes;
+
+        /**
+         * 命中率
+         */
+        public double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package io.leavesfly.koder.tool.fs;
+
+import io.leavesfly.koder.tool.config.ToolProperties;
+import io.leavesfly.koder.tool.config.ToolProperties.PrefetchSettings;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 文件预取
+ * <p>
+ * 等待模型响应期间，在后台预先读取接下来可能被读取的文件（如上次 Grep/Glob 命中的文件、刚读过的源文件导入的文件），
+ * 把内容放入 {@link FileContentCache}（大文件则构建 {@link LineIndexCache} 中的行索引），页缓存冷时把磁盘延迟藏在模型延迟之后。
+ * <p>
+ * - 单个最低优先级的守护线程执行，不与工具调用争抢 CPU
+ * - 每轮最多预取 maxFiles 个文件、合计 maxBytes 字节，超过 maxFileBytes 的文件跳过
+ * - 新一轮预取或 {@link #cancel(long)} 会让进行中的一轮在当前文件完成后停止
+ */
+@Slf4j
+@Component
+public class FilePrefetcher {
+
+    private final ToolProperties properties;
+    private final LineIndexCache lineIndexCache;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "koder-prefetch");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    /**
+     * 当前一轮的编号，变化即取消进行中的一轮
+     */
+    private final AtomicLong round = new AtomicLong();
+
+    private final AtomicLong rounds = new AtomicLong();
+    private final AtomicLong files = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+
+    public FilePrefetcher(ToolProperties properties, LineIndexCache lineIndexCache) {
+        this.properties = properties;
+        this.lineIndexCache = lineIndexCache;
+    }
+
+    /**
+     * 开始新一轮预取（取消上一轮）
+     *
+     * @param candidates   候选文件，按可能性从高到低排列（可能不存在）
+     * @param contentCache 读取工具使用的内容缓存（为null时只构建行索引）
+     * @return 本轮编号，用于 {@link #cancel(long)}；没有开始预取时返回 -1
+     */
+    public long prefetch(Collection<Path> candidates, FileContentCache contentCache) {
+        PrefetchSettings settings = settings();
+        if (!settings.isEnabled() || candidates.isEmpty()) {
+            return -1;
+        }
+        List<Path> batch = new ArrayList<>(new LinkedHashSet<>(candidates));
+        long id = round.incrementAndGet();
+        rounds.incrementAndGet();
+        executor.execute(() -> run(id, batch, contentCache, settings));
+        return id;
+    }
+
+    /**
+     * 取消指定的一轮（已被新一轮取代时不做任何事）
+     */
+    public void cancel(long id) {
+        if (id >= 0 && round.compareAndSet(id, id + 1)) {
+            log.debug("取消文件预取: 第 {} 轮", id);
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(rounds.get(), files.get(), bytes.get(), skipped.get(), cancelled.get());
+    }
+
+    @PreDestroy
+    public void close() {
+        round.incrementAndGet();
+        executor.shutdownNow();
+    }
+
+    private void run(long id, List<Path> batch, FileContentCache contentCache, PrefetchSettings settings) {
+        long start = System.nanoTime();
+        long budget = settings.getMaxBytes();
+        int fetched = 0;
+        for (Path path : batch) {
+            if (round.get() != id) {
+                cancelled.incrementAndGet();
+                break;
+            }
+            if (fetched >= settings.getMaxFiles()) {
+                break;
+            }
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                if (!attrs.isRegularFile()) {
+                    continue;
+                }
+                if (attrs.size() > settings.getMaxFileBytes() || attrs.size() > budget) {
+                    skipped.incrementAndGet();
+                    continue;
+                }
+                budget -= attrs.size();
+                // 与读取工具的选择一致：小文件走内容缓存，其余走行索引
+                if (contentCache != null && attrs.size() <= FileContentCache.MAX_ENTRY_BYTES) {
+                    contentCache.read(path);
+                } else {
+                    lineIndexCache.get(path);
+                }
+                fetched++;
+                files.incrementAndGet();
+                bytes.addAndGet(attrs.size());
+            } catch (NoSuchFileException e) {
+                // 推测的路径不存在
+            } catch (IOException | RuntimeException e) {
+                skipped.incrementAndGet();
+                log.debug("预取文件失败: {} ({})", path, e.getMessage());
+            }
+        }
+        log.debug("文件预取第 {} 轮: {} 个文件，耗时 {}ms", id, fetched, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private PrefetchSettings settings() {
+        return properties.getPrefetch();
+    }
+
+    /**
+     * 预取统计
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Stats {
+        /**
+         * 开始的轮数
+         */
+        private long rounds;
+
+        /**
+         * 预取的文件数
+         */
+        private long files;
+
+        /**
+         * 预取的字节数
+         */
+        private long bytes;
+
+        /**
+         * 因超出预算、过大或读取失败而跳过的文件数
+         */
+        private long skipped;
+
+        /**
+         * 被取消（未完成）的轮数
+         */
+        private long cancelled;
+    }
+}
@@ -0,0 +1,215 @@
+package io.leavesfly.koder.tool.fs;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.FileVisitor;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 感知忽略规则的目录遍历器
+ * <p>
+ * 供 Grep、Glob、LS 等工具共享使用。遍历时按目录层级叠加 .gitignore / .ignore
+ * 规则（深层目录的规则优先），被忽略的目录整棵跳过，不会产生任何磁盘读取。
+ * 版本控制元数据目录始终跳过，其他过滤由 {@link Filter} 决定。
+ */
+@Component
+@RequiredArgsConstructor
+public class FileWalker {
+
+    /**
+     * 始终跳过的版本控制元数据目录
+     */
+    private static final Set<String> VCS_DIRECTORIES = Set.of(".git", ".svn", ".hg");
+
+    /**
+     * 默认跳过的常见依赖与构建输出目录（与忽略文件叠加生效）
+     */
+    private static final Set<String> DEFAULT_EXCLUDED_DIRECTORIES = Set.of("node_modules", "target", "build");
+
+    private final IgnoreRuleCache ruleCache;
+
+    /**
+     * 遍历时应用的过滤（版本控制元数据目录始终跳过）
+     */
+    public enum Filter {
+        /**
+         * 忽略文件的规则，以及隐藏目录与常见的依赖、构建输出目录（搜索类工具的默认行为）
+         */
+        DEFAULT,
+
+        /**
+         * 只应用忽略文件的规则（.gitignore、.ignore、.git/info/exclude 与全局排除文件）
+         */
+        IGNORE_FILES,
+
+        /**
+         * 不过滤
+         */
+        NONE
+    }
+
+    /**
+     * 遍历目录树
+     *
+     * @param start          起始路径
+     * @param includeIgnored 是否包含被忽略的文件（false 时按 {@link Filter#DEFAULT} 过滤）
+     * @param visitor        访问器
+     * @throws IOException 遍历失败
+     */
+    public void walk(Path start, boolean includeIgnored, FileVisitor<Path> visitor) throws IOException {
+        walk(start, Integer.MAX_VALUE, includeIgnored ? Filter.NONE : Filter.DEFAULT, visitor);
+    }
+
+    /**
+     * 遍历目录树（限制深度）
+     * <p>
+     * 与 {@link Files#walkFileTree(Path, Set, int, FileVisitor)} 一致，
+     * 位于最大深度的目录通过 visitFile 回调传递。
+     *
+     * @param start    起始路径
+     * @param maxDepth 最大深度
+     * @param filter   过滤方式
+     * @param visitor  访问器
+     * @throws IOException 遍历失败
+     */
+    public void walk(Path start, int maxDepth, Filter filter, FileVisitor<Path> visitor) throws IOException {
+        Path root = start.toAbsolutePath().normalize();
+        boolean includeIgnored = filter == Filter.NONE;
+        Deque<Frame> frames = new ArrayDeque<>();
+        if (!includeIgnored) {
+            for (Path ancestor : ancestorsWithinRepository(root)) {
+                frames.push(new Frame(ancestor, ruleCache.rulesFor(ancestor)));
+            }
+        }
+        Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class), maxDepth,
+                new FilteringVisitor(root, filter, frames, visitor));
+    }
+
+    /**
+     * 起始目录之上、仓库根目录之下的祖先目录（自上而下），其忽略规则同样作用于起始目录
+     */
+    private List<Path> ancestorsWithinRepository(Path start) {
+        Path repositoryRoot = ruleCache.findRepositoryRoot(start);
+        if (repositoryRoot == null || repositoryRoot.equals(start)) {
+            return Collections.emptyList();
+        }
+        List<Path> ancestors = new ArrayList<>();
+        Path current = start.getParent();
+        while (current != null && current.startsWith(repositoryRoot)) {
+            ancestors.add(0, current);
+            current = current.getParent();
+        }
+        return ancestors;
+    }
+
+    /**
+     * 判断路径是否被规则栈忽略
+     */
+    private static boolean isIgnored(Deque<Frame> frames, Path path, boolean isDirectory) {
+        for (Frame frame : frames) {
+            if (frame.rules.isEmpty()) {
+                continue;
+            }
+            String relative = frame.directory.relativize(path).toString();
+            if (path.getFileSystem().getSeparator().equals("\\")) {
+                relative = relative.replace('\\', '/');
+            }
+            IgnoreRules.Match match = frame.rules.match(relative, isDirectory);
+            if (match != IgnoreRules.Match.NONE) {
+                return match == IgnoreRules.Match.IGNORED;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 过滤访问器：在委托给调用方访问器之前应用忽略规则
+     */
+    private final class FilteringVisitor implements FileVisitor<Path> {
+
+        private final Path root;
+        private final Filter filter;
+        private final boolean includeIgnored;
+        private final Deque<Frame> frames;
+        private final FileVisitor<Path> delegate;
+
+        private FilteringVisitor(Path root, Filter filter, Deque<Frame> frames, FileVisitor<Path> delegate) {
+            this.root = root;
+            this.filter = filter;
+            this.includeIgnored = filter == Filter.NONE;
+            this.frames = frames;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+            if (!dir.equals(root) && isExcludedDirectory(dir)) {
+                return FileVisitResult.SKIP_SUBTREE;
+            }
+            FileVisitResult result = delegate.preVisitDirectory(dir, attrs);
+            if (result == FileVisitResult.CONTINUE && !includeIgnored) {
+                frames.push(new Frame(dir, ruleCache.rulesFor(dir)));
+            }
+            return result;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+            if (!file.equals(root)) {
+                boolean excluded = attrs.isDirectory()
+                        ? isExcludedDirectory(file)
+                        : !includeIgnored && isIgnored(frames, file, false);
+                if (excluded) {
+                    return FileVisitResult.CONTINUE;
+                }
+            }
+            return delegate.visitFile(file, attrs);
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+            return delegate.visitFileFailed(file, exc);
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+            if (!includeIgnored && !frames.isEmpty() && frames.peek().directory.equals(dir)) {
+                frames.pop();
+            }
+            return delegate.postVisitDirectory(dir, exc);
+        }
+
+        private boolean isExcludedDirectory(Path dir) {
+            String name = dir.getFileName().toString();
+            if (VCS_DIRECTORIES.contains(name)) {
+                return true;
+            }
+            if (includeIgnored) {
+                return false;
+            }
+            if (filter == Filter.DEFAULT && (name.startsWith(".") || DEFAULT_EXCLUDED_DIRECTORIES.contains(name))) {
+                return true;
+            }
+            return isIgnored(frames, dir, true);
+        }
+    }
+
+    /**
+     * 规则栈中的一层：目录及其声明的规则
+     */
+    private record Frame(Path directory, IgnoreRules rules) {
+    }
+}
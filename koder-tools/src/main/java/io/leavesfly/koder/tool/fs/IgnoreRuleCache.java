@@ -0,0 +1,156 @@
+package io.leavesfly.koder.tool.fs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 忽略规则缓存
+ * <p>
+ * 按目录缓存编译后的忽略规则，每次查询时用忽略文件的修改时间和大小校验，
+ * 文件变化后自动重新解析。仓库根目录额外合并全局排除文件与 .git/info/exclude。
+ */
+@Slf4j
+@Component
+public class IgnoreRuleCache {
+
+    /**
+     * 每个目录中参与匹配的忽略文件（后者优先级更高）
+     */
+    private static final List<String> IGNORE_FILE_NAMES = List.of(".gitignore", ".ignore");
+
+    private static final int MAX_CACHED_DIRECTORIES = 4096;
+
+    private final Map<Path, CachedRules> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, CachedRules> eldest) {
+            return size() > MAX_CACHED_DIRECTORIES;
+        }
+    };
+
+    /**
+     * 获取目录自身声明的忽略规则
+     *
+     * @param directory 目录（绝对路径）
+     * @return 编译后的规则集，不存在忽略文件时返回 {@link IgnoreRules#EMPTY}
+     */
+    public IgnoreRules rulesFor(Path directory) {
+        List<Path> sources = new ArrayList<>(IGNORE_FILE_NAMES.size() + 2);
+        if (isRepositoryRoot(directory)) {
+            sources.add(globalExcludesFile());
+            sources.add(directory.resolve(".git").resolve("info").resolve("exclude"));
+        }
+        for (String name : IGNORE_FILE_NAMES) {
+            sources.add(directory.resolve(name));
+        }
+
+        long[] stamps = stamp(sources);
+        synchronized (cache) {
+            CachedRules cached = cache.get(directory);
+            if (cached != null && Arrays.equals(cached.stamps, stamps)) {
+                return cached.rules;
+            }
+        }
+
+        IgnoreRules rules = load(sources, stamps);
+        synchronized (cache) {
+            cache.put(directory, new CachedRules(stamps, rules));
+        }
+        return rules;
+    }
+
+    /**
+     * 查找路径所在的仓库根目录（包含 .git 的最近祖先）
+     *
+     * @param path 起始路径
+     * @return 仓库根目录，不在仓库中时返回null
+     */
+    public Path findRepositoryRoot(Path path) {
+        Path current = Files.isDirectory(path) ? path : path.getParent();
+        while (current != null) {
+            if (isRepositoryRoot(current)) {
+                return current;
+            }
+            current = current.getParent();
+        }
+        return null;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private boolean isRepositoryRoot(Path directory) {
+        return Files.exists(directory.resolve(".git"), LinkOption.NOFOLLOW_LINKS);
+    }
+
+    /**
+     * 读取并编译各个忽略文件
+     */
+    private IgnoreRules load(List<Path> sources, long[] stamps) {
+        List<IgnoreRules> parts = new ArrayList<>(sources.size());
+        for (int i = 0; i < sources.size(); i++) {
+            if (stamps[i * 2] < 0) {
+                continue;
+            }
+            try {
+                parts.add(IgnoreRules.parse(Files.readAllLines(sources.get(i), StandardCharsets.UTF_8)));
+            } catch (IOException e) {
+                log.debug("无法读取忽略文件: {}", sources.get(i), e);
+            }
+        }
+        return IgnoreRules.concat(parts);
+    }
+
+    /**
+     * 计算各个忽略文件的（修改时间，大小）指纹，文件不存在时为 -1
+     */
+    private long[] stamp(List<Path> sources) {
+        long[] stamps = new long[sources.size() * 2];
+        for (int i = 0; i < sources.size(); i++) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(sources.get(i), BasicFileAttributes.class);
+                stamps[i * 2] = attrs.lastModifiedTime().toMillis();
+                stamps[i * 2 + 1] = attrs.size();
+            } catch (IOException e) {
+                stamps[i * 2] = -1;
+                stamps[i * 2 + 1] = -1;
+            }
+        }
+        return stamps;
+    }
+
+    /**
+     * 全局排除文件（core.excludesFile 的默认位置）
+     */
+    private Path globalExcludesFile() {
+        String xdgConfigHome = System.getenv("XDG_CONFIG_HOME");
+        Path configHome = xdgConfigHome != null && !xdgConfigHome.isEmpty()
+                ? Paths.get(xdgConfigHome)
+                : Paths.get(System.getProperty("user.home"), ".config");
+        return configHome.resolve("git").resolve("ignore");
+    }
+
+    /**
+     * 缓存条目
+     */
+    private record CachedRules(long[] stamps, IgnoreRules rules) {
+    }
+}
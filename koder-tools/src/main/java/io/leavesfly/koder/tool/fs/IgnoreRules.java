@@ -0,0 +1,240 @@
+package io.leavesfly.koder.tool.fs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 单个忽略文件（.gitignore / .ignore / info/exclude）编译后的规则集
+ * <p>
+ * 规则语义遵循 gitignore：
+ * - 空行与 # 开头的行被忽略，\# 与 \! 用于转义
+ * - ! 开头表示取反（重新包含）
+ * - 以 / 结尾的规则只匹配目录
+ * - 规则开头或中间包含 / 时相对于规则所在目录锚定，否则匹配任意层级的文件名
+ * - 支持 *、?、[...] 以及 ** 通配
+ * <p>
+ * 所有路径使用相对于规则所在目录、以 / 分隔的形式匹配。
+ */
+public final class IgnoreRules {
+
+    /**
+     * 空规则集（目录中不存在忽略文件时共享使用）
+     */
+    public static final IgnoreRules EMPTY = new IgnoreRules(Collections.emptyList());
+
+    private final List<Rule> rules;
+
+    private IgnoreRules(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * 解析忽略文件内容
+     *
+     * @param lines 文件各行
+     * @return 编译后的规则集
+     */
+    public static IgnoreRules parse(List<String> lines) {
+        List<Rule> rules = new ArrayList<>();
+        for (String line : lines) {
+            Rule rule = compile(line);
+            if (rule != null) {
+                rules.add(rule);
+            }
+        }
+        return rules.isEmpty() ? EMPTY : new IgnoreRules(rules);
+    }
+
+    /**
+     * 合并多个规则集，后面的规则优先级更高
+     */
+    public static IgnoreRules concat(List<IgnoreRules> parts) {
+        List<Rule> rules = new ArrayList<>();
+        for (IgnoreRules part : parts) {
+            rules.addAll(part.rules);
+        }
+        return rules.isEmpty() ? EMPTY : new IgnoreRules(rules);
+    }
+
+    /**
+     * 是否不包含任何规则
+     */
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    /**
+     * 匹配相对路径
+     *
+     * @param relativePath 相对于规则所在目录的路径（以 / 分隔）
+     * @param isDirectory  路径是否为目录
+     * @return 最后一条命中的规则给出的结论；没有规则命中时返回 {@link Match#NONE}
+     */
+    public Match match(String relativePath, boolean isDirectory) {
+        int slash = relativePath.lastIndexOf('/');
+        String baseName = slash >= 0 ? relativePath.substring(slash + 1) : relativePath;
+
+        // 同一文件内后出现的规则优先
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            Rule rule = rules.get(i);
+            if (rule.directoryOnly && !isDirectory) {
+                continue;
+            }
+            String target = rule.anchored ? relativePath : baseName;
+            if (rule.pattern.matcher(target).matches()) {
+                return rule.negated ? Match.INCLUDED : Match.IGNORED;
+            }
+        }
+        return Match.NONE;
+    }
+
+    /**
+     * 编译单行规则
+     */
+    private static Rule compile(String line) {
+        String text = trimTrailingSpaces(line);
+        if (text.isEmpty() || text.startsWith("#")) {
+            return null;
+        }
+
+        boolean negated = false;
+        if (text.startsWith("!")) {
+            negated = true;
+            text = text.substring(1);
+        } else if (text.startsWith("\\!") || text.startsWith("\\#")) {
+            text = text.substring(1);
+        }
+
+        boolean directoryOnly = false;
+        if (text.endsWith("/")) {
+            directoryOnly = true;
+            text = text.substring(0, text.length() - 1);
+        }
+        if (text.isEmpty()) {
+            return null;
+        }
+
+        // 开头或中间含有 / 的规则相对于所在目录锚定
+        boolean anchored = text.indexOf('/') >= 0;
+        if (text.startsWith("/")) {
+            text = text.substring(1);
+        }
+        if (text.isEmpty()) {
+            return null;
+        }
+
+        return new Rule(Pattern.compile(toRegex(text)), negated, directoryOnly, anchored);
+    }
+
+    /**
+     * 去除未转义的行尾空格
+     */
+    private static String trimTrailingSpaces(String line) {
+        int end = line.length();
+        while (end > 0 && line.charAt(end - 1) == ' ') {
+            if (end > 1 && line.charAt(end - 2) == '\\') {
+                break;
+            }
+            end--;
+        }
+        String text = line.substring(0, end);
+        return text.endsWith("\\ ") ? text.substring(0, text.length() - 2) + " " : text;
+    }
+
+    /**
+     * 将glob规则翻译为正则表达式
+     */
+    private static String toRegex(String glob) {
+        StringBuilder regex = new StringBuilder(glob.length() * 2);
+        int length = glob.length();
+        int i = 0;
+        while (i < length) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '*' -> {
+                    boolean doubleStar = i + 1 < length && glob.charAt(i + 1) == '*';
+                    boolean atSegmentStart = i == 0 || glob.charAt(i - 1) == '/';
+                    if (doubleStar && atSegmentStart) {
+                        int next = i + 2;
+                        if (next == length) {
+                            // 末尾的 /** 匹配其下的所有内容
+                            regex.append(".*");
+                            i = next;
+                            continue;
+                        }
+                        if (glob.charAt(next) == '/') {
+                            // **/ 匹配零个或多个目录
+                            regex.append("(?:.*/)?");
+                            i = next + 1;
+                            continue;
+                        }
+                    }
+                    regex.append("[^/]*");
+                    i += doubleStar ? 2 : 1;
+                }
+                case '?' -> {
+                    regex.append("[^/]");
+                    i++;
+                }
+                case '[' -> {
+                    int close = glob.indexOf(']', i + 1);
+                    if (close < 0) {
+                        regex.append("\\[");
+                        i++;
+                        continue;
+                    }
+                    String body = glob.substring(i + 1, close);
+                    if (body.startsWith("!")) {
+                        body = "^" + body.substring(1);
+                    }
+                    regex.append('[').append(body.replace("\\", "\\\\")).append(']');
+                    i = close + 1;
+                }
+                case '\\' -> {
+                    if (i + 1 < length) {
+                        regex.append(Pattern.quote(String.valueOf(glob.charAt(i + 1))));
+                        i += 2;
+                    } else {
+                        i++;
+                    }
+                }
+                default -> {
+                    if ("().+^$|{}".indexOf(c) >= 0) {
+                        regex.append('\\');
+                    }
+                    regex.append(c);
+                    i++;
+                }
+            }
+        }
+        return regex.toString();
+    }
+
+    /**
+     * 匹配结论
+     */
+    public enum Match {
+        /**
+         * 没有规则命中
+         */
+        NONE,
+
+        /**
+         * 被忽略
+         */
+        IGNORED,
+
+        /**
+         * 被取反规则重新包含
+         */
+        INCLUDED
+    }
+
+    /**
+     * 单条编译后的规则
+     */
+    private record Rule(Pattern pattern, boolean negated, boolean directoryOnly, boolean anchored) {
+    }
+}
@@ -0,0 +1,166 @@
+package io.leavesfly.koder.tool.fs;
+
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 源文件导入扫描
+ * <p>
+ * 从源文件开头的导入语句推测它引用的本地文件，供预取使用（见 {@link FilePrefetcher}）。只做文本匹配、不访问磁盘，
+ * 得到的路径可能不存在，由使用方跳过：
+ * - Java / Kotlin：按 package 声明推出源码根目录，import a.b.C 对应 根目录/a/b/C.java（通配符导入忽略）
+ * - JavaScript / TypeScript：相对路径的 import / export ... from / require，缺少扩展名时补上当前文件的扩展名
+ * - Python：相对导入 from .x import y
+ * - C / C++：#include "x.h"
+ */
+public final class ImportScanner {
+
+    /**
+     * 只扫描文件开头的这么多个字符（导入语句都在开头）
+     */
+    private static final int SCAN_CHARS = 16 * 1024;
+
+    private static final Pattern JVM_PACKAGE = Pattern.compile("(?m)^\\s*package\\s+([\\w.]+)\\s*;?\\s*$");
+    private static final Pattern JVM_IMPORT = Pattern.compile("(?m)^\\s*import\\s+(?:static\\s+)?([\\w.]+)\\s*;?\\s*$");
+    private static final Pattern JS_IMPORT = Pattern.compile(
+            "(?:\\bfrom\\s*|\\bimport\\s*|\\brequire\\s*\\(\\s*)['\"](\\.{1,2}/[^'\"\\s]+)['\"]");
+    private static final Pattern PY_IMPORT = Pattern.compile("(?m)^\\s*from\\s+(\\.+)([\\w.]*)\\s+import\\s+([\\w, ]+)");
+    private static final Pattern C_INCLUDE = Pattern.compile("(?m)^\\s*#\\s*include\\s+\"([^\"]+)\"");
+
+    private ImportScanner() {
+    }
+
+    /**
+     * 推测源文件引用的本地文件
+     *
+     * @param file    源文件路径
+     * @param content 源文件内容
+     * @return 候选路径（按出现顺序，可能不存在）
+     */
+    public static List<Path> imports(Path file, String content) {
+        String name = file.getFileName() != null ? file.getFileName().toString() : "";
+        int dot = name.lastIndexOf('.');
+        if (dot < 0) {
+            return List.of();
+        }
+        String extension = name.substring(dot);
+        String head = content.length() > SCAN_CHARS ? content.substring(0, SCAN_CHARS) : content;
+        Path directory = file.toAbsolutePath().normalize().getParent();
+        if (directory == null) {
+            return List.of();
+        }
+
+        Set<Path> candidates = new LinkedHashSet<>();
+        switch (extension) {
+            case ".java", ".kt" -> scanJvm(directory, head, extension, candidates);
+            case ".js", ".jsx", ".ts", ".tsx", ".mjs", ".cjs", ".vue" -> scanJs(directory, head, extension, candidates);
+            case ".py" -> scanPython(directory, head, candidates);
+            case ".c", ".h", ".cc", ".cpp", ".hpp", ".cxx" -> {
+                Matcher matcher = C_INCLUDE.matcher(head);
+                while (matcher.find()) {
+                    candidates.add(directory.resolve(matcher.group(1)).normalize());
+                }
+            }
+            default -> {
+            }
+        }
+        candidates.remove(file.toAbsolutePath().normalize());
+        return List.copyOf(candidates);
+    }
+
+    private static void scanJvm(Path directory, String head, String extension, Set<Path> candidates) {
+        Matcher packageMatcher = JVM_PACKAGE.matcher(head);
+        Path root = directory;
+        if (packageMatcher.find()) {
+            String[] segments = packageMatcher.group(1).split("\\.");
+            for (int i = segments.length - 1; i >= 0 && root != null; i--) {
+                if (root.getFileName() == null || !root.getFileName().toString().equals(segments[i])) {
+                    // 目录结构与 package 不一致，无法推出源码根目录
+                    return;
+                }
+                root = root.getParent();
+            }
+        }
+        if (root == null) {
+            return;
+        }
+        Matcher matcher = JVM_IMPORT.matcher(head);
+        while (matcher.find()) {
+            String imported = matcher.group(1);
+            if (imported.startsWith("java.") || imported.startsWith("javax.") || imported.startsWith("kotlin.")) {
+                continue;
+            }
+            String[] segments = imported.split("\\.");
+            // 类名以大写字母开头；静态导入的成员名和包名忽略，内部类归到外部类的文件
+            int end = segments.length;
+            while (end > 0 && !isClassName(segments[end - 1])) {
+                end--;
+            }
+            while (end > 1 && isClassName(segments[end - 2])) {
+                end--;
+            }
+            if (end == 0) {
+                continue;
+            }
+            Path path = root;
+            for (int i = 0; i < end - 1; i++) {
+                path = path.resolve(segments[i]);
+            }
+            candidates.add(path.resolve(segments[end - 1] + extension));
+        }
+    }
+
+    private static boolean isClassName(String segment) {
+        return !segment.isEmpty() && Character.isUpperCase(segment.charAt(0));
+    }
+
+    private static void scanJs(Path directory, String head, String extension, Set<Path> candidates) {
+        Matcher matcher = JS_IMPORT.matcher(head);
+        while (matcher.find()) {
+            String specifier = matcher.group(1);
+            Path target = directory.resolve(specifier).normalize();
+            String fileName = target.getFileName() != null ? target.getFileName().toString() : "";
+            if (fileName.contains(".") && !fileName.startsWith(".")) {
+                candidates.add(target);
+            } else {
+                String scriptExtension = ".vue".equals(extension) ? ".js" : extension;
+                candidates.add(target.resolveSibling(fileName + scriptExtension));
+                candidates.add(target.resolve("index" + scriptExtension));
+            }
+        }
+    }
+
+    private static void scanPython(Path directory, String head, Set<Path> candidates) {
+        Matcher matcher = PY_IMPORT.matcher(head);
+        while (matcher.find()) {
+            Path base = directory;
+            for (int i = 1; i < matcher.group(1).length() && base != null; i++) {
+                base = base.getParent();
+            }
+            if (base == null) {
+                continue;
+            }
+            String module = matcher.group(2);
+            if (!module.isEmpty()) {
+                Path path = base;
+                for (String segment : module.split("\\.")) {
+                    path = path.resolve(segment);
+                }
+                candidates.add(path.resolveSibling(path.getFileName() + ".py"));
+                candidates.add(path.resolve("__init__.py"));
+            } else {
+                // from . import a, b：导入的可能是同目录下的模块
+                for (String imported : matcher.group(3).split(",")) {
+                    String trimmed = imported.strip().split("\\s+")[0];
+                    if (!trimmed.isEmpty()) {
+                        candidates.add(base.resolve(trimmed + ".py"));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package io.leavesfly.koder.tool.fs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 文件换行符风格
+ */
+public enum LineEnding {
+
+    LF("\n"),
+
+    CRLF("\r\n");
+
+    /**
+     * 探测换行符时最多读取的字节数
+     */
+    private static final int DETECT_LIMIT = 8192;
+
+    private final String separator;
+
+    LineEnding(String separator) {
+        this.separator = separator;
+    }
+
+    public String getSeparator() {
+        return separator;
+    }
+
+    /**
+     * 按第一个换行符判断文本的换行风格，没有换行时返回null
+     */
+    public static LineEnding detect(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                return i > 0 && text.charAt(i - 1) == '\r' ? CRLF : LF;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 读取文件开头判断换行风格，文件不存在或没有换行时返回null
+     */
+    public static LineEnding detect(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        byte[] head;
+        try (InputStream in = Files.newInputStream(file)) {
+            head = in.readNBytes(DETECT_LIMIT);
+        }
+        for (int i = 0; i < head.length; i++) {
+            if (head[i] == '\n') {
+                return i > 0 && head[i - 1] == '\r' ? CRLF : LF;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 将文本统一为 \n 换行
+     */
+    public static String normalize(String text) {
+        return text.indexOf('\r') >= 0 ? text.replace("\r\n", "\n") : text;
+    }
+
+    /**
+     * 将文本转换为当前换行风格
+     */
+    public String apply(String text) {
+        String normalized = normalize(text);
+        return this == LF ? normalized : normalized.replace("\n", separator);
+    }
+}
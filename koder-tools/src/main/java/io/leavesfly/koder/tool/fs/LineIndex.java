@@ -0,0 +1,193 @@
+package io.leavesfly.koder.tool.fs;
+
+import lombok.Getter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+
+/**
+ * 文件行偏移索引
+ * <p>
+ * 通过内存映射一次扫描全部换行符，每隔 {@link #CHECKPOINT_INTERVAL} 行记录一个行首字节偏移。
+ * 定位任意行时先跳到最近的检查点，再向后扫描不超过一个间隔的行，
+ * 因此索引大小与行数成正比但只占极小内存，读取任意行范围都只需一次定位加有界解码。
+ * <p>
+ * 行的划分与 {@link java.nio.file.Files#readAllLines(Path)} 保持一致：
+ * 以 \n 分隔，末尾没有换行的最后一行同样计数，\r\n 中的 \r 在解码时去除。
+ */
+public final class LineIndex {
+
+    /**
+     * 检查点间隔（行）
+     */
+    static final int CHECKPOINT_INTERVAL = 1024;
+
+    /**
+     * 内存映射窗口大小
+     */
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 构建索引时的文件大小
+     */
+    @Getter
+    private final long size;
+
+    /**
+     * 构建索引时的修改时间
+     */
+    @Getter
+    private final long modifiedTime;
+
+    /**
+     * 总行数
+     */
+    @Getter
+    private final long lineCount;
+
+    /**
+     * checkpoints[i] 为第 i * CHECKPOINT_INTERVAL 行（从0开始）的起始字节偏移
+     */
+    private final long[] checkpoints;
+
+    private LineIndex(long size, long modifiedTime, long lineCount, long[] checkpoints) {
+        this.size = size;
+        this.modifiedTime = modifiedTime;
+        this.lineCount = lineCount;
+        this.checkpoints = checkpoints;
+    }
+
+    /**
+     * 扫描文件构建索引
+     *
+     * @param path  文件路径
+     * @param attrs 文件属性（用于记录大小与修改时间）
+     * @return 行索引
+     * @throws IOException 读取失败
+     */
+    public static LineIndex build(Path path, BasicFileAttributes attrs) throws IOException {
+        long size = attrs.size();
+        long[] checkpoints = new long[16];
+        int checkpointCount = 1; // 第0行从偏移0开始
+        long newlines = 0;
+        byte lastByte = '\n';
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (long windowStart = 0; windowStart < size; windowStart += MAP_WINDOW) {
+                long windowLength = Math.min(MAP_WINDOW, size - windowStart);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+                int limit = (int) windowLength;
+                for (int i = 0; i < limit; i++) {
+                    if (window.get(i) == '\n') {
+                        newlines++;
+                        if (newlines % CHECKPOINT_INTERVAL == 0) {
+                            if (checkpointCount == checkpoints.length) {
+                                checkpoints = Arrays.copyOf(checkpoints, checkpointCount * 2);
+                            }
+                            checkpoints[checkpointCount++] = windowStart + i + 1;
+                        }
+                    }
+                }
+                lastByte = window.get(limit - 1);
+            }
+        }
+
+        long lineCount = newlines + (size > 0 && lastByte != '\n' ? 1 : 0);
+        return new LineIndex(size, attrs.lastModifiedTime().toMillis(), lineCount,
+                Arrays.copyOf(checkpoints, checkpointCount));
+    }
+
+    /**
+     * 索引是否仍与文件属性一致
+     */
+    public boolean matches(BasicFileAttributes attrs) {
+        return attrs.size() == size && attrs.lastModifiedTime().toMillis() == modifiedTime;
+    }
+
+    /**
+     * 获取指定行的起始字节偏移
+     *
+     * @param channel 已打开的文件通道
+     * @param line    行号（从0开始），等于 {@link #getLineCount()} 时返回文件末尾
+     * @return 字节偏移
+     * @throws IOException 读取失败
+     */
+    public long offsetOfLine(FileChannel channel, long line) throws IOException {
+        if (line <= 0) {
+            return 0;
+        }
+        if (line >= lineCount) {
+            return size;
+        }
+
+        int checkpoint = (int) (line / CHECKPOINT_INTERVAL);
+        long offset = checkpoints[checkpoint];
+        long remaining = line - (long) checkpoint * CHECKPOINT_INTERVAL;
+        if (remaining == 0) {
+            return offset;
+        }
+
+        // 从检查点向后扫描剩余的换行符
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long position = offset;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n' && --remaining == 0) {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * 读取并解码字节区间内的行
+     * <p>
+     * 去除末尾换行并将 \r\n 规范为 \n，返回值与按行读取后用 \n 连接的结果一致。
+     *
+     * @param channel 已打开的文件通道
+     * @param start   起始字节偏移（行首）
+     * @param end     结束字节偏移（行首或文件末尾）
+     * @return 文本内容
+     * @throws IOException 读取失败
+     */
+    public static String decode(FileChannel channel, long start, long end) throws IOException {
+        int length = (int) (end - start);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        long position = start;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("文件在读取过程中被截断");
+            }
+            position += read;
+        }
+
+        int contentLength = length;
+        if (contentLength > 0 && buffer.get(contentLength - 1) == '\n') {
+            contentLength--;
+            if (contentLength > 0 && buffer.get(contentLength - 1) == '\r') {
+                contentLength--;
+            }
+        }
+
+        String text = new String(buffer.array(), 0, contentLength, StandardCharsets.UTF_8);
+        return text.indexOf('\r') >= 0 ? text.replace("\r\n", "\n") : text;
+    }
+}
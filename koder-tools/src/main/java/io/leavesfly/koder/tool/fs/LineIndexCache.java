@@ -0,0 +1,69 @@
+package io.leavesfly.koder.tool.fs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 行偏移索引缓存
+ * <p>
+ * 按（路径、大小、修改时间）缓存 {@link LineIndex}，文件变化后在下次访问时重建。
+ * 缓存按条目数量有界，最久未使用的索引先被淘汰。
+ */
+@Slf4j
+@Component
+public class LineIndexCache {
+
+    private static final int MAX_ENTRIES = 64;
+
+    private final Map<Path, LineIndex> cache = new LinkedHashMap<>(MAX_ENTRIES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, LineIndex> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * 获取文件的行索引，必要时重新构建
+     *
+     * @param path 文件路径
+     * @return 行索引
+     * @throws IOException 读取失败
+     */
+    public LineIndex get(Path path) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        BasicFileAttributes attrs = Files.readAttributes(key, BasicFileAttributes.class);
+
+        synchronized (cache) {
+            LineIndex cached = cache.get(key);
+            if (cached != null && cached.matches(attrs)) {
+                return cached;
+            }
+        }
+
+        long startTime = System.nanoTime();
+        LineIndex index = LineIndex.build(key, attrs);
+        log.debug("构建行索引: {} ({} 行, {} 字节, 耗时 {}ms)", key, index.getLineCount(),
+                index.getSize(), (System.nanoTime() - startTime) / 1_000_000);
+
+        synchronized (cache) {
+            cache.put(key, index);
+        }
+        return index;
+    }
+
+    /**
+     * 移除指定文件的索引
+     */
+    public void invalidate(Path path) {
+        synchronized (cache) {
+            cache.remove(path.toAbsolutePath().normalize());
+        }
+    }
+}
@@ -0,0 +1,489 @@
+package io.leavesfly.koder.tool.fs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文本批量替换引擎
+ * <p>
+ * 供 Edit、MultiEdit 等工具共享。对一组按顺序给出的搜索-替换操作：
+ * <ol>
+ *     <li>用 Aho-Corasick 自动机对原始内容做一次多模式字面量扫描，定位所有编辑的匹配位置</li>
+ *     <li>预先检查是否找到、是否唯一以及编辑之间是否重叠</li>
+ *     <li>按位置顺序一次性拼接到预分配容量的缓冲区中</li>
+ * </ol>
+ * 整体耗时与文件长度成线性关系，与编辑数量基本无关。
+ * <p>
+ * 结果与“按顺序逐个应用”完全一致：当某个编辑依赖前面编辑产生的文本（原始内容中找不到、
+ * 或前面编辑写入的文本与相邻原文拼接后出现了它的原文本），或编辑之间存在重叠、
+ * 唯一性无法在原始内容上判定时，自动回退为逐个应用。
+ * 逐个应用同样只做字面量查找和拼接，不使用正则表达式。
+ * <p>
+ * 空的原文本表示在内容开头插入（用于新建文件）。replaceAll 按从左到右、互不重叠的方式替换全部匹配。
+ */
+public final class TextEditEngine {
+
+    private TextEditEngine() {
+    }
+
+    /**
+     * 应用编辑
+     *
+     * @param content       原始内容
+     * @param edits         按顺序排列的编辑
+     * @param requireUnique 非 replaceAll 的编辑是否要求原文本唯一匹配
+     * @return 编辑结果；存在失败时 {@link Result#getContent()} 不应被写回
+     */
+    public static Result apply(String content, List<Edit> edits, boolean requireUnique) {
+        Result result = applySinglePass(content, edits, requireUnique);
+        return result != null ? result : applySequentially(content, edits, requireUnique);
+    }
+
+    /**
+     * 单遍应用，无法保证与逐个应用结果一致时返回null
+     */
+    private static Result applySinglePass(String content, List<Edit> edits, boolean requireUnique) {
+        int editCount = edits.size();
+
+        // 去重后的模式，以及每个模式需要收集全部匹配还是只需前两个
+        Map<String, Integer> patternIds = new LinkedHashMap<>();
+        List<Boolean> collectAll = new ArrayList<>();
+        for (Edit edit : edits) {
+            if (edit.oldText().isEmpty()) {
+                continue;
+            }
+            Integer id = patternIds.get(edit.oldText());
+            if (id == null) {
+                patternIds.put(edit.oldText(), patternIds.size());
+                collectAll.add(edit.replaceAll());
+            } else if (edit.replaceAll()) {
+                collectAll.set(id, true);
+            }
+        }
+        Occurrences[] occurrences = patternIds.isEmpty()
+                ? new Occurrences[0]
+                : new Matcher(new ArrayList<>(patternIds.keySet()), collectAll).scan(content);
+
+        // 计算每个编辑在原始内容中的区间
+        int[] counts = new int[editCount];
+        List<int[]> spans = new ArrayList<>();
+        for (int i = 0; i < editCount; i++) {
+            Edit edit = edits.get(i);
+            if (edit.oldText().isEmpty()) {
+                spans.add(new int[]{0, 0, i});
+                counts[i] = 1;
+                continue;
+            }
+            Occurrences found = occurrences[patternIds.get(edit.oldText())];
+            if (found.total == 0) {
+                return null;
+            }
+            int length = edit.oldText().length();
+            if (edit.replaceAll()) {
+                for (int k = 0; k < found.nonOverlappingCount; k++) {
+                    int start = found.nonOverlapping[k];
+                    spans.add(new int[]{start, start + length, i});
+                }
+                counts[i] = found.nonOverlappingCount;
+            } else {
+                if (requireUnique && found.total > 1) {
+                    return null;
+                }
+                spans.add(new int[]{found.first, found.first + length, i});
+                counts[i] = 1;
+            }
+        }
+
+        // 按位置排序并检查重叠；同一位置的两个插入无法确定先后，同样视为重叠
+        spans.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(a[1], b[1]));
+        long resultLength = content.length();
+        int[] previous = null;
+        for (int[] span : spans) {
+            if (previous != null && (span[0] < previous[1]
+                    || (span[0] == previous[0] && span[0] == span[1] && previous[0] == previous[1]))) {
+                return null;
+            }
+            resultLength += edits.get(span[2]).newText().length() - (span[1] - span[0]);
+            previous = span;
+        }
+        if (resultLength > Integer.MAX_VALUE - 8 || createsNewMatches(content, edits, spans)) {
+            return null;
+        }
+
+        // 一次拼接
+        StringBuilder sb = new StringBuilder((int) resultLength);
+        int position = 0;
+        for (int[] span : spans) {
+            sb.append(content, position, span[0]).append(edits.get(span[2]).newText());
+            position = span[1];
+        }
+        sb.append(content, position, content.length());
+        return new Result(sb.toString(), counts, List.of());
+    }
+
+    /**
+     * 检查前面编辑写入的新文本（或删除后拼接的两侧原文）是否会产生后面编辑的原文本的新匹配，
+     * 这类依赖只能通过逐个应用得到正确结果
+     */
+    private static boolean createsNewMatches(String content, List<Edit> edits, List<int[]> spans) {
+        for (int s = 0; s < spans.size(); s++) {
+            int[] span = spans.get(s);
+            String newText = edits.get(span[2]).newText();
+            for (int j = span[2] + 1; j < edits.size(); j++) {
+                String oldText = edits.get(j).oldText();
+                if (oldText.isEmpty()) {
+                    continue;
+                }
+                int reach = oldText.length() - 1;
+                int windowStart = Math.max(0, span[0] - reach);
+                int windowEnd = Math.min(content.length(), span[1] + reach);
+
+                // 窗口内还有编辑 j 之前应用的其他编辑时，中间状态无法仅凭原文确定，保守回退
+                for (int t = s - 1; t >= 0 && spans.get(t)[1] > windowStart; t--) {
+                    if (spans.get(t)[2] < j) {
+                        return true;
+                    }
+                }
+                for (int t = s + 1; t < spans.size() && spans.get(t)[0] < windowEnd; t++) {
+                    if (spans.get(t)[2] < j) {
+                        return true;
+                    }
+                }
+
+                // 只关心与新文本区域相交（删除时为跨越删除点）的匹配，完全落在两侧原文中的匹配原本就存在
+                String window = content.substring(windowStart, span[0]) + newText + content.substring(span[1], windowEnd);
+                int regionStart = span[0] - windowStart;
+                int regionEnd = regionStart + newText.length();
+                for (int index = window.indexOf(oldText); index >= 0; index = window.indexOf(oldText, index + 1)) {
+                    if (index + oldText.length() > regionStart && index < regionEnd
+                            || regionStart == regionEnd && index < regionStart && index + oldText.length() > regionStart) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 逐个应用：每个编辑在前一个编辑的结果上查找
+     */
+    private static Result applySequentially(String content, List<Edit> edits, boolean requireUnique) {
+        int[] counts = new int[edits.size()];
+        List<Failure> failures = new ArrayList<>();
+        String current = content;
+
+        for (int i = 0; i < edits.size(); i++) {
+            Edit edit = edits.get(i);
+            String oldText = edit.oldText();
+            if (oldText.isEmpty()) {
+                current = edit.newText() + current;
+                counts[i] = 1;
+                continue;
+            }
+
+            int first = current.indexOf(oldText);
+            if (first < 0) {
+                failures.add(new Failure(i, FailureReason.NOT_FOUND));
+                continue;
+            }
+
+            if (!edit.replaceAll()) {
+                if (requireUnique && current.indexOf(oldText, first + 1) >= 0) {
+                    failures.add(new Failure(i, FailureReason.NOT_UNIQUE));
+                    continue;
+                }
+                current = new StringBuilder(current.length() - oldText.length() + edit.newText().length())
+                        .append(current, 0, first)
+                        .append(edit.newText())
+                        .append(current, first + oldText.length(), current.length())
+                        .toString();
+                counts[i] = 1;
+                continue;
+            }
+
+            StringBuilder sb = new StringBuilder(current.length());
+            int position = 0;
+            int count = 0;
+            for (int index = first; index >= 0; index = current.indexOf(oldText, position)) {
+                sb.append(current, position, index).append(edit.newText());
+                position = index + oldText.length();
+                count++;
+            }
+            sb.append(current, position, current.length());
+            current = sb.toString();
+            counts[i] = count;
+        }
+
+        return new Result(current, counts, failures);
+    }
+
+    /**
+     * 单个编辑
+     *
+     * @param oldText    原文本（为空表示在开头插入）
+     * @param newText    新文本
+     * @param replaceAll 是否替换全部匹配
+     */
+    public record Edit(String oldText, String newText, boolean replaceAll) {
+
+        public Edit {
+            oldText = oldText != null ? oldText : "";
+            newText = newText != null ? newText : "";
+        }
+    }
+
+    /**
+     * 失败原因
+     */
+    public enum FailureReason {
+        /**
+         * 未找到匹配文本
+         */
+        NOT_FOUND,
+
+        /**
+         * 要求唯一匹配但找到多个
+         */
+        NOT_UNIQUE
+    }
+
+    /**
+     * 单个编辑的失败信息
+     *
+     * @param index  编辑下标（从0开始）
+     * @param reason 失败原因
+     */
+    public record Failure(int index, FailureReason reason) {
+    }
+
+    /**
+     * 编辑结果
+     */
+    public static final class Result {
+
+        private final String content;
+        private final int[] occurrences;
+        private final List<Failure> failures;
+
+        private Result(String content, int[] occurrences, List<Failure> failures) {
+            this.content = content;
+            this.occurrences = occurrences;
+            this.failures = failures;
+        }
+
+        /**
+         * 编辑后的内容
+         */
+        public String getContent() {
+            return content;
+        }
+
+        /**
+         * 指定编辑替换的次数
+         */
+        public int getOccurrences(int index) {
+            return occurrences[index];
+        }
+
+        /**
+         * 全部编辑的替换总次数
+         */
+        public int getTotalOccurrences() {
+            return Arrays.stream(occurrences).sum();
+        }
+
+        /**
+         * 失败的编辑（按下标排序）
+         */
+        public List<Failure> getFailures() {
+            return failures;
+        }
+
+        /**
+         * 是否全部成功
+         */
+        public boolean isSuccess() {
+            return failures.isEmpty();
+        }
+    }
+
+    /**
+     * 单个模式在原始内容中的匹配情况
+     */
+    private static final class Occurrences {
+        /**
+         * 第一次出现的位置
+         */
+        int first = -1;
+
+        /**
+         * 出现总次数（允许重叠；未收集全部时最多记到2）
+         */
+        int total;
+
+        /**
+         * 从左到右互不重叠的匹配起始位置（仅在需要全部匹配时收集）
+         */
+        int[] nonOverlapping = new int[0];
+        int nonOverlappingCount;
+        int lastEnd;
+    }
+
+    /**
+     * Aho-Corasick 多模式字面量匹配自动机
+     */
+    private static final class Matcher {
+
+        private final List<String> patterns;
+        private final List<Boolean> collectAll;
+
+        /**
+         * 转移边：key = (状态 << 16) | 字符
+         */
+        private final Map<Long, Integer> transitions = new HashMap<>();
+        private int[] failure = new int[16];
+        /**
+         * 以该状态结尾的模式编号，没有时为 -1
+         */
+        private int[] terminal = new int[16];
+        /**
+         * 沿失败链最近的终止状态，没有时为 -1
+         */
+        private int[] outputLink = new int[16];
+        private int stateCount = 1;
+
+        Matcher(List<String> patterns, List<Boolean> collectAll) {
+            this.patterns = patterns;
+            this.collectAll = collectAll;
+            terminal[0] = -1;
+            outputLink[0] = -1;
+            for (int id = 0; id < patterns.size(); id++) {
+                insert(patterns.get(id), id);
+            }
+            buildFailureLinks();
+        }
+
+        Occurrences[] scan(String text) {
+            Occurrences[] result = new Occurrences[patterns.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = new Occurrences();
+            }
+
+            int state = 0;
+            for (int i = 0; i < text.length(); i++) {
+                state = next(state, text.charAt(i));
+                int output = terminal[state] >= 0 ? state : outputLink[state];
+                while (output >= 0) {
+                    record(result[terminal[output]], terminal[output], i + 1);
+                    output = outputLink[output];
+                }
+            }
+            return result;
+        }
+
+        private void record(Occurrences occurrences, int patternId, int end) {
+            int start = end - patterns.get(patternId).length();
+            if (occurrences.first < 0) {
+                occurrences.first = start;
+            }
+            if (!collectAll.get(patternId)) {
+                occurrences.total = Math.min(occurrences.total + 1, 2);
+                return;
+            }
+            occurrences.total++;
+            if (start >= occurrences.lastEnd) {
+                if (occurrences.nonOverlappingCount == occurrences.nonOverlapping.length) {
+                    occurrences.nonOverlapping = Arrays.copyOf(occurrences.nonOverlapping,
+                            Math.max(8, occurrences.nonOverlappingCount * 2));
+                }
+                occurrences.nonOverlapping[occurrences.nonOverlappingCount++] = start;
+                occurrences.lastEnd = end;
+            }
+        }
+
+        private int next(int state, char c) {
+            while (true) {
+                Integer target = transitions.get(key(state, c));
+                if (target != null) {
+                    return target;
+                }
+                if (state == 0) {
+                    return 0;
+                }
+                state = failure[state];
+            }
+        }
+
+        private void insert(String pattern, int id) {
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                long key = key(state, pattern.charAt(i));
+                Integer target = transitions.get(key);
+                if (target == null) {
+                    target = newState();
+                    transitions.put(key, target);
+                }
+                state = target;
+            }
+            terminal[state] = id;
+        }
+
+        private void buildFailureLinks() {
+            // 按深度广度优先处理，保证父状态的失败链先于子状态确定
+            List<List<long[]>> childrenByState = new ArrayList<>(stateCount);
+            for (int i = 0; i < stateCount; i++) {
+                childrenByState.add(null);
+            }
+            for (Map.Entry<Long, Integer> edge : transitions.entrySet()) {
+                int parent = (int) (edge.getKey() >>> 16);
+                List<long[]> children = childrenByState.get(parent);
+                if (children == null) {
+                    children = new ArrayList<>(2);
+                    childrenByState.set(parent, children);
+                }
+                children.add(new long[]{edge.getKey() & 0xFFFF, edge.getValue()});
+            }
+
+            int[] queue = new int[stateCount];
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = 0;
+            while (head < tail) {
+                int state = queue[head++];
+                List<long[]> children = childrenByState.get(state);
+                if (children == null) {
+                    continue;
+                }
+                for (long[] child : children) {
+                    char c = (char) child[0];
+                    int target = (int) child[1];
+                    int fail = state == 0 ? 0 : next(failure[state], c);
+                    failure[target] = fail;
+                    outputLink[target] = terminal[fail] >= 0 ? fail : outputLink[fail];
+                    queue[tail++] = target;
+                }
+            }
+        }
+
+        private int newState() {
+            if (stateCount == failure.length) {
+                int capacity = stateCount * 2;
+                failure = Arrays.copyOf(failure, capacity);
+                terminal = Arrays.copyOf(terminal, capacity);
+                outputLink = Arrays.copyOf(outputLink, capacity);
+            }
+            terminal[stateCount] = -1;
+            outputLink[stateCount] = -1;
+            return stateCount++;
+        }
+
+        private static long key(int state, char c) {
+            return ((long) state << 16) | c;
+        }
+    }
+}
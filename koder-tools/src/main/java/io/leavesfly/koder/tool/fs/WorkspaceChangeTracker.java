@@ -0,0 +1,31 @@
+package io.leavesfly.koder.tool.fs;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 工作区变更跟踪
+ * <p>
+ * 维护一个单调递增的变更代数：工具写入文件、执行可能修改工作区的命令后递增。
+ * 缓存记录生成时的代数，代数变化即说明工作区可能已改变。
+ */
+@Component
+public class WorkspaceChangeTracker {
+
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 当前变更代数
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * 标记工作区已变更
+     */
+    public void markChanged() {
+        generation.incrementAndGet();
+    }
+}
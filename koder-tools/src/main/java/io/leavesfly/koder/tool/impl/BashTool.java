@@ -1,6 +1,15 @@
 package io.leavesfly.koder.tool.impl;
 
 import io.leavesfly.koder.tool.*;
+import io.leavesfly.koder.tool.config.ToolProperties;
+import io.leavesfly.koder.tool.config.ToolProperties.CommandCacheSettings;
+import io.leavesfly.koder.tool.fs.WorkspaceChangeTracker;
+import io.leavesfly.koder.tool.shell.BoundedOutputCapture;
+import io.leavesfly.koder.tool.shell.CommandResultCache;
+import io.leavesfly.koder.tool.shell.ProcessResourceMonitor;
+import io.leavesfly.koder.tool.shell.ShellResourceStats;
+import io.leavesfly.koder.tool.shell.ShellSession;
+import io.leavesfly.koder.tool.shell.ShellSessionManager;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -10,11 +19,14 @@ import org.apache.commons.exec.*;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 
-import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * Bash命令执行工具
@@ -35,7 +47,37 @@ public class BashTool extends AbstractTool<BashTool.Input, BashTool.Output> {
 
     private static final int DEFAULT_TIMEOUT_MS = 120000; // 2分钟
     private static final int MAX_TIMEOUT_MS = 600000; // 10分钟
-    private static final int MAX_OUTPUT_LINES = 1000;
+
+    /**
+     * 输出捕获上限：保留开头与末尾的行（构建错误通常出现在末尾），中间部分省略
+     */
+    private static final int HEAD_OUTPUT_LINES = 200;
+    private static final int TAIL_OUTPUT_LINES = 800;
+    private static final int MAX_HEAD_OUTPUT_BYTES = 64 * 1024;
+    private static final int MAX_TAIL_OUTPUT_BYTES = 192 * 1024;
+    private static final int MAX_LINE_BYTES = 4096;
+
+    private final ToolProperties properties;
+    private final ShellSessionManager shellSessionManager;
+    private final ShellResourceStats resourceStats;
+    private final WorkspaceChangeTracker changeTracker;
+    private final CommandResultCache<Output> resultCache;
+
+    public BashTool(ToolProperties properties, ShellSessionManager shellSessionManager,
+                    ShellResourceStats resourceStats, WorkspaceChangeTracker changeTracker) {
+        this.properties = properties;
+        this.shellSessionManager = shellSessionManager;
+        this.resourceStats = resourceStats;
+        this.changeTracker = changeTracker;
+        this.resultCache = new CommandResultCache<>(changeTracker);
+    }
+
+    /**
+     * 只读命令结果缓存统计
+     */
+    public CommandResultCache.Stats getResultCacheStats() {
+        return resultCache.getStats();
+    }
 
     @Override
     public String getName() {
@@ -136,7 +178,10 @@ public class BashTool extends AbstractTool<BashTool.Input, BashTool.Output> {
             }
         }
 
-        if (output.interrupted) {
+        if (output.limitExceeded != null) {
+            if (sb.length() > 0) sb.append("\n");
+            sb.append("<命令超出资源限制被终止: ").append(output.limitExceeded).append(">");
+        } else if (output.interrupted) {
             if (sb.length() > 0) sb.append("\n");
             sb.append("<命令在完成前被中断>");
         }
@@ -162,7 +207,10 @@ public class BashTool extends AbstractTool<BashTool.Input, BashTool.Output> {
             result.append(output.stderr);
         }
 
-        if (output.interrupted) {
+        if (output.limitExceeded != null) {
+            if (result.length() > 0) result.append("\n");
+            result.append("<error>命令超出资源限制被终止: ").append(output.limitExceeded).append("</error>");
+        } else if (output.interrupted) {
             if (result.length() > 0) result.append("\n");
             result.append("<error>命令在完成前被中断</error>");
         }
@@ -174,7 +222,7 @@ public class BashTool extends AbstractTool<BashTool.Input, BashTool.Output> {
     public Flux<ToolResponse<Output>> call(Input input, ToolUseContext context) {
         return Flux.create(sink -> {
             // 检查是否已中断
-            if (context.getAbortController() != null &&
+            if (context != null && context.getAbortController() != null &&
                     context.getAbortController().isAborted()) {
                 Output output = Output.builder()
                         .stdout("")
@@ -187,70 +235,89 @@ public class BashTool extends AbstractTool<BashTool.Input, BashTool.Output> {
                 return;
             }
 
-            ByteArrayOutputStream stdout = new ByteArrayOutputStream();
-            ByteArrayOutputStream stderr = new ByteArrayOutputStream();
-
-            try {
-                CommandLine cmdLine;
-                if (System.getProperty("os.name").toLowerCase().contains("win")) {
-                    cmdLine = CommandLine.parse("cmd.exe /c " + input.command);
-                } else {
-                    cmdLine = CommandLine.parse("/bin/sh -c \"" + input.command.replace("\"", "\\\"") + "\"");
+            ShellSession session = usePersistentSession()
+                    ? shellSessionManager.getSession(context != null ? context.getAgentId() : null)
+                    : null;
+            File workingDirectory = session != null
+                    ? session.getWorkingDirectory()
+                    : new File(System.getProperty("user.dir"));
+
+            // 白名单中的只读命令优先使用缓存结果
+            CommandCacheSettings cacheSettings = properties.getShell().getResultCache();
+            boolean cacheable = resultCache.isCacheable(input.command, cacheSettings);
+            if (cacheable) {
+                Output cached = resultCache.get(input.command, workingDirectory, cacheSettings);
+                if (cached != null) {
+                    log.debug("命令结果缓存命中: {}", input.command);
+                    sink.next(ToolResponse.result(cached.toBuilder().cached(true).build()));
+                    sink.complete();
+                    return;
                 }
+            }
+            CommandResultCache.Snapshot snapshot = cacheable ? resultCache.snapshot(workingDirectory) : null;
 
-                DefaultExecutor executor = DefaultExecutor.builder().get();
-                executor.setWorkingDirectory(new java.io.File(System.getProperty("user.dir")));
-
-                // 设置超时
-                int timeout = input.timeout != null ? input.timeout : DEFAULT_TIMEOUT_MS;
-                ExecuteWatchdog watchdog = ExecuteWatchdog.builder()
-                        .setTimeout(java.time.Duration.ofMillis(timeout))
-                        .get();
-                executor.setWatchdog(watchdog);
-
-                // 设置输出流
-                PumpStreamHandler streamHandler = new PumpStreamHandler(stdout, stderr);
-                executor.setStreamHandler(streamHandler);
-
-                // 设置退出值处理（允许非0退出）
-                executor.setExitValues(null);
-
-                // 执行命令
-                int exitCode;
-                boolean interrupted = false;
+            // 有界捕获输出，同时把每一行作为进度事件实时推送
+            BoundedOutputCapture stdout = newCapture(line -> sink.next(ToolResponse.progress(new OutputLine(false, line))));
+            BoundedOutputCapture stderr = newCapture(line -> sink.next(ToolResponse.progress(new OutputLine(true, line))));
 
+            int timeout = input.timeout != null ? input.timeout : DEFAULT_TIMEOUT_MS;
+            try {
+                ExecutionResult result;
                 try {
-                    exitCode = executor.execute(cmdLine);
-                } catch (ExecuteException e) {
-                    exitCode = e.getExitValue();
-                    interrupted = watchdog.killedProcess();
+                    result = session != null
+                            ? executeInSession(session, input.command, timeout, stdout, stderr, context)
+                            : executeProcess(input.command, workingDirectory, timeout, stdout, stderr);
+                } finally {
+                    // 其他命令可能修改了工作区
+                    if (!cacheable) {
+                        changeTracker.markChanged();
+                    }
                 }
 
                 // 处理输出
-                String stdoutStr = truncateOutput(stdout.toString());
-                String stderrStr = truncateOutput(stderr.toString());
-                boolean stdoutTruncated = stdout.toString().split("\n").length > MAX_OUTPUT_LINES;
-                boolean stderrTruncated = stderr.toString().split("\n").length > MAX_OUTPUT_LINES;
+                stdout.close();
+                stderr.close();
 
                 Output output = Output.builder()
-                        .stdout(stdoutStr)
-                        .stdoutTruncated(stdoutTruncated)
-                        .stderr(stderrStr)
-                        .stderrTruncated(stderrTruncated)
-                        .exitCode(exitCode)
-                        .interrupted(interrupted)
+                        .stdout(stdout.getText())
+                        .stdoutTruncated(stdout.isTruncated())
+                        .stdoutLines(stdout.getTotalLines())
+                        .stdoutBytes(stdout.getTotalBytes())
+                        .stderr(stderr.getText())
+                        .stderrTruncated(stderr.isTruncated())
+                        .stderrLines(stderr.getTotalLines())
+                        .stderrBytes(stderr.getTotalBytes())
+                        .exitCode(result.exitCode())
+                        .interrupted(result.interrupted())
+                        .sessionRestarted(result.sessionRestarted())
+                        .cpuTimeMs(result.usage().getCpuTimeMs())
+                        .peakRssBytes(result.usage().getPeakRssBytes())
+                        .readBytes(result.usage().getReadBytes())
+                        .writeBytes(result.usage().getWriteBytes())
+                        .peakProcesses(result.usage().getPeakProcesses())
+                        .limitExceeded(result.limitExceeded())
                         .build();
+                resourceStats.record(result.usage(), result.limitExceeded() != null);
+                if (cacheable && !result.interrupted()) {
+                    resultCache.put(input.command, workingDirectory, snapshot, output, cacheSettings);
+                }
 
                 sink.next(ToolResponse.result(output));
                 sink.complete();
 
-                log.info("命令执行完成: {}, 退出码: {}", input.command, exitCode);
+                log.info("命令执行完成: {}, 退出码: {}, CPU: {}ms, 内存峰值: {}KB",
+                        input.command, result.exitCode(), result.usage().getCpuTimeMs(),
+                        result.usage().getPeakRssBytes() / 1024);
 
             } catch (IOException e) {
                 log.error("命令执行失败: {}", input.command, e);
 
+                stdout.close();
                 Output output = Output.builder()
-                        .stdout(stdout.toString())
+                        .stdout(stdout.getText())
+                        .stdoutTruncated(stdout.isTruncated())
+                        .stdoutLines(stdout.getTotalLines())
+                        .stdoutBytes(stdout.getTotalBytes())
                         .stderr("命令执行失败: " + e.getMessage())
                         .exitCode(-1)
                         .interrupted(false)
@@ -263,15 +330,99 @@ public class BashTool extends AbstractTool<BashTool.Input, BashTool.Output> {
     }
 
     /**
-     * 截断输出到最大行数
+     * 是否在持久 Shell 会话中执行（Windows 下始终为每条命令启动新进程）
      */
-    private String truncateOutput(String output) {
-        String[] lines = output.split("\n");
-        if (lines.length <= MAX_OUTPUT_LINES) {
-            return output;
+    private boolean usePersistentSession() {
+        return properties.getShell().isPersistentSession()
+                && !System.getProperty("os.name").toLowerCase().contains("win");
+    }
+
+    /**
+     * 为每条命令启动独立的 Shell 进程
+     */
+    private ExecutionResult executeProcess(String command, File workingDirectory, int timeout,
+                                           OutputStream stdout, OutputStream stderr) throws IOException {
+        CommandLine cmdLine;
+        if (System.getProperty("os.name").toLowerCase().contains("win")) {
+            cmdLine = CommandLine.parse("cmd.exe /c " + command);
+        } else {
+            cmdLine = CommandLine.parse("/bin/sh -c \"" + command.replace("\"", "\\\"") + "\"");
         }
 
-        return String.join("\n", Arrays.copyOfRange(lines, 0, MAX_OUTPUT_LINES));
+        DefaultExecutor executor = DefaultExecutor.builder().get();
+        executor.setWorkingDirectory(workingDirectory);
+
+        // 设置超时，进程启动时开始资源监控
+        AtomicReference<ProcessResourceMonitor> monitor = new AtomicReference<>();
+        MonitoringWatchdog watchdog = new MonitoringWatchdog(timeout,
+                process -> monitor.set(startMonitor(process.toHandle(), true)));
+        executor.setWatchdog(watchdog);
+
+        // 设置输出流
+        PumpStreamHandler streamHandler = new PumpStreamHandler(stdout, stderr);
+        executor.setStreamHandler(streamHandler);
+
+        // 设置退出值处理（允许非0退出）
+        executor.setExitValues(null);
+
+        int exitCode;
+        boolean interrupted = false;
+        try {
+            exitCode = executor.execute(cmdLine);
+        } catch (ExecuteException e) {
+            exitCode = e.getExitValue();
+            interrupted = watchdog.killedProcess();
+        } finally {
+            if (monitor.get() != null) {
+                monitor.get().close();
+            }
+        }
+        return toResult(exitCode, interrupted, false, monitor.get());
+    }
+
+    /**
+     * 在当前代理的持久 Shell 会话中执行，cd、export 等状态在命令之间保留
+     */
+    private ExecutionResult executeInSession(ShellSession session, String command, int timeout, OutputStream stdout,
+                                             OutputStream stderr, ToolUseContext context) throws IOException {
+        // 只统计 Shell 的子孙进程，Shell 本身跨命令存在；超出资源限制时与取消一样中断命令
+        AtomicReference<ProcessResourceMonitor> monitor = new AtomicReference<>();
+        ShellSession.Result result;
+        try {
+            result = session.execute(command, timeout, stdout, stderr,
+                    () -> context != null && context.getAbortController() != null
+                            && context.getAbortController().isAborted()
+                            || monitor.get() != null && monitor.get().getLimitExceeded() != null,
+                    shell -> monitor.set(startMonitor(shell, false)));
+        } finally {
+            if (monitor.get() != null) {
+                monitor.get().close();
+            }
+        }
+        if (result.restarted()) {
+            log.info("Shell 会话已重启，之前的工作目录与环境变量已重置");
+        }
+        return toResult(result.exitCode(), result.interrupted(), result.restarted(), monitor.get());
+    }
+
+    private ProcessResourceMonitor startMonitor(ProcessHandle root, boolean includeRoot) {
+        return new ProcessResourceMonitor(root, includeRoot, properties.getShell().getLimits()).start();
+    }
+
+    private static ExecutionResult toResult(int exitCode, boolean interrupted, boolean sessionRestarted,
+                                            ProcessResourceMonitor monitor) {
+        if (monitor == null) {
+            return new ExecutionResult(exitCode, interrupted, sessionRestarted,
+                    new ProcessResourceMonitor.Usage(0, 0, 0, 0, 0, 0), null);
+        }
+        String limitExceeded = monitor.getLimitExceeded();
+        return new ExecutionResult(exitCode, interrupted || limitExceeded != null, sessionRestarted,
+                monitor.getUsage(), limitExceeded);
+    }
+
+    private BoundedOutputCapture newCapture(Consumer<String> lineListener) {
+        return new BoundedOutputCapture(HEAD_OUTPUT_LINES, TAIL_OUTPUT_LINES,
+                MAX_HEAD_OUTPUT_BYTES, MAX_TAIL_OUTPUT_BYTES, MAX_LINE_BYTES, lineListener);
     }
 
     /**
@@ -297,7 +448,7 @@ public class BashTool extends AbstractTool<BashTool.Input, BashTool.Output> {
      * 输出结果
      */
     @Data
-    @Builder
+    @Builder(toBuilder = true)
     @NoArgsConstructor
     @AllArgsConstructor
     public static class Output {
@@ -311,6 +462,16 @@ public class BashTool extends AbstractTool<BashTool.Input, BashTool.Output> {
          */
         private boolean stdoutTruncated;
 
+        /**
+         * 标准输出总行数
+         */
+        private long stdoutLines;
+
+        /**
+         * 标准输出总字节数
+         */
+        private long stdoutBytes;
+
         /**
          * 标准错误
          */
@@ -321,6 +482,16 @@ public class BashTool extends AbstractTool<BashTool.Input, BashTool.Output> {
          */
         private boolean stderrTruncated;
 
+        /**
+         * 标准错误总行数
+         */
+        private long stderrLines;
+
+        /**
+         * 标准错误总字节数
+         */
+        private long stderrBytes;
+
         /**
          * 退出代码
          */
@@ -330,5 +501,94 @@ public class BashTool extends AbstractTool<BashTool.Input, BashTool.Output> {
          * 是否被中断
          */
         private boolean interrupted;
+
+        /**
+         * 持久 Shell 会话是否在本次执行前重启（之前的工作目录与环境变量已丢失）
+         */
+        private boolean sessionRestarted;
+
+        /**
+         * CPU 时间（毫秒）
+         */
+        private long cpuTimeMs;
+
+        /**
+         * 常驻内存峰值（字节）
+         */
+        private long peakRssBytes;
+
+        /**
+         * 磁盘读取字节数
+         */
+        private long readBytes;
+
+        /**
+         * 磁盘写入字节数
+         */
+        private long writeBytes;
+
+        /**
+         * 同时存活的最大进程数
+         */
+        private int peakProcesses;
+
+        /**
+         * 超出的资源限制（未超出时为null）
+         */
+        private String limitExceeded;
+
+        /**
+         * 是否来自只读命令结果缓存
+         */
+        private boolean cached;
+    }
+
+    /**
+     * 命令执行结果
+     */
+    private record ExecutionResult(int exitCode, boolean interrupted, boolean sessionRestarted,
+                                   ProcessResourceMonitor.Usage usage, String limitExceeded) {
+    }
+
+    /**
+     * 在进程启动时取得进程对象的看门狗（commons-exec 不直接暴露启动的进程）
+     */
+    private static final class MonitoringWatchdog extends ExecuteWatchdog {
+
+        private final Consumer<Process> onStart;
+
+        @SuppressWarnings("deprecation")
+        MonitoringWatchdog(long timeoutMs, Consumer<Process> onStart) {
+            super(timeoutMs);
+            this.onStart = onStart;
+        }
+
+        @Override
+        public synchronized void start(Process process) {
+            onStart.accept(process);
+            super.start(process);
+        }
+    }
+
+    /**
+     * 实时输出行（以进度事件推送）
+     */
+    @Data
+    @AllArgsConstructor
+    public static class OutputLine {
+        /**
+         * 是否来自标准错误
+         */
+        private boolean stderr;
+
+        /**
+         * 行内容
+         */
+        private String text;
+
+        @Override
+        public String toString() {
+            return text;
+        }
     }
 }
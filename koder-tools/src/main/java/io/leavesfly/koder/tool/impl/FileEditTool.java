@@ -1,10 +1,15 @@
 package io.leavesfly.koder.tool.impl;
 
 import io.leavesfly.koder.tool.*;
+import io.leavesfly.koder.tool.fs.FileCommitService;
+import io.leavesfly.koder.tool.fs.FileContentCache;
+import io.leavesfly.koder.tool.fs.LineEnding;
+import io.leavesfly.koder.tool.fs.TextEditEngine;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
@@ -14,8 +19,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * 文件编辑工具
@@ -23,8 +30,11 @@ import java.util.Map;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class FileEditTool extends AbstractTool<FileEditTool.Input, FileEditTool.Output> {
 
+    private final FileCommitService fileCommitService;
+
     @Override
     public String getName() {
         return "Edit";
@@ -118,66 +128,53 @@ public class FileEditTool extends AbstractTool<FileEditTool.Input, FileEditTool.
         return Flux.create(sink -> {
             try {
                 Path filePath = Paths.get(input.filePath);
-                String content = Files.readString(filePath);
-                String originalContent = content;
-                int totalReplacements = 0;
+                FileContentCache contentCache = context != null ? context.getFileContentCache() : null;
+                String originalContent = contentCache != null ? contentCache.read(filePath) : Files.readString(filePath);
+
+                // CRLF 文件统一按 \n 匹配（与读取工具展示的内容一致），写回时恢复原换行风格
+                boolean crlf = LineEnding.detect(originalContent) == LineEnding.CRLF;
+                String content = crlf ? LineEnding.normalize(originalContent) : originalContent;
                 List<String> errors = new ArrayList<>();
 
-                // 按顺序执行所有替换
+                // 一次扫描定位全部替换并检查唯一性，再一次性拼接
+                List<TextEditEngine.Edit> edits = new ArrayList<>(input.replacements.size());
+                for (Replacement repl : input.replacements) {
+                    edits.add(new TextEditEngine.Edit(
+                            crlf && repl.originalText != null ? LineEnding.normalize(repl.originalText) : repl.originalText,
+                            crlf && repl.newText != null ? LineEnding.normalize(repl.newText) : repl.newText,
+                            Boolean.TRUE.equals(repl.replaceAll)));
+                }
+                TextEditEngine.Result result = TextEditEngine.apply(content, edits, true);
+
+                Map<Integer, TextEditEngine.FailureReason> failures = new HashMap<>();
+                for (TextEditEngine.Failure failure : result.getFailures()) {
+                    failures.put(failure.index(), failure.reason());
+                }
                 for (int i = 0; i < input.replacements.size(); i++) {
                     Replacement repl = input.replacements.get(i);
-
-                    if (repl.originalText.equals(repl.newText)) {
+                    if (Objects.equals(repl.originalText, repl.newText)) {
                         errors.add(String.format("替换 %d: 原文本和新文本相同", i + 1));
-                        continue;
-                    }
-
-                    // 检查是否存在匹配
-                    int firstIndex = content.indexOf(repl.originalText);
-                    if (firstIndex == -1) {
+                    } else if (repl.originalText == null || repl.originalText.isEmpty()) {
+                        errors.add(String.format("替换 %d: 原文本不能为空", i + 1));
+                    } else if (failures.get(i) == TextEditEngine.FailureReason.NOT_FOUND) {
                         errors.add(String.format("替换 %d: 未找到匹配文本", i + 1));
-                        continue;
-                    }
-
-                    // 如果不是replace_all，检查唯一性
-                    if (!Boolean.TRUE.equals(repl.replaceAll)) {
-                        int secondIndex = content.indexOf(repl.originalText, firstIndex + 1);
-                        if (secondIndex != -1) {
-                            errors.add(String.format("替换 %d: 找到多个匹配，请提供更多上下文使其唯一", i + 1));
-                            continue;
-                        }
-                    }
-
-                    // 执行替换
-                    if (Boolean.TRUE.equals(repl.replaceAll)) {
-                        int count = 0;
-                        String temp = content;
-                        while (temp.contains(repl.originalText)) {
-                            temp = temp.replaceFirst(java.util.regex.Pattern.quote(repl.originalText),
-                                    java.util.regex.Matcher.quoteReplacement(repl.newText));
-                            count++;
-                        }
-                        content = temp;
-                        totalReplacements += count;
-                    } else {
-                        content = content.replaceFirst(
-                                java.util.regex.Pattern.quote(repl.originalText),
-                                java.util.regex.Matcher.quoteReplacement(repl.newText)
-                        );
-                        totalReplacements++;
+                    } else if (failures.get(i) == TextEditEngine.FailureReason.NOT_UNIQUE) {
+                        errors.add(String.format("替换 %d: 找到多个匹配，请提供更多上下文使其唯一", i + 1));
                     }
                 }
+                content = result.getContent();
+                int totalReplacements = result.getTotalOccurrences();
 
                 if (!errors.isEmpty()) {
                     sink.error(new RuntimeException("替换失败: " + String.join("; ", errors)));
                     return;
                 }
 
-                // 写入文件
-                Files.writeString(filePath, content);
+                // 原子写入文件
+                content = fileCommitService.write(filePath, content);
 
                 // 更新时间戳
-                if (context.getReadFileTimestamps() != null) {
+                if (context != null && context.getReadFileTimestamps() != null) {
                     context.getReadFileTimestamps().put(
                             input.filePath,
                             Files.getLastModifiedTime(filePath).toMillis()
@@ -1,21 +1,26 @@
 package io.leavesfly.koder.tool.impl;
 
 import io.leavesfly.koder.tool.*;
+import io.leavesfly.koder.tool.fs.FileContentCache;
+import io.leavesfly.koder.tool.fs.LineIndex;
+import io.leavesfly.koder.tool.fs.LineIndexCache;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * 文件读取工具
@@ -23,11 +28,14 @@ import java.util.stream.Collectors;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class FileReadTool extends AbstractTool<FileReadTool.Input, FileReadTool.Output> {
 
     private static final int MAX_OUTPUT_SIZE = 256 * 1024; // 256KB
     private static final int MAX_LINES_TO_RENDER = 5;
 
+    private final LineIndexCache lineIndexCache;
+
     @Override
     public String getName() {
         return "View";
@@ -68,6 +76,21 @@ public class FileReadTool extends AbstractTool<FileReadTool.Input, FileReadTool.
         return true;
     }
 
+    @Override
+    public boolean isResultCacheable() {
+        return true;
+    }
+
+    @Override
+    public List<Path> getResultDependencies(Input input) {
+        return List.of(Paths.get(input.filePath));
+    }
+
+    @Override
+    public void onCachedResult(Input input, ToolUseContext context) {
+        recordRead(input, context);
+    }
+
     @Override
     public boolean needsPermissions(Input input) {
         // 可以在这里集成权限检查
@@ -129,52 +152,27 @@ public class FileReadTool extends AbstractTool<FileReadTool.Input, FileReadTool.
             try {
                 Path filePath = Paths.get(input.filePath);
 
-                // 更新文件读取时间戳
-                if (context.getReadFileTimestamps() != null) {
-                    context.getReadFileTimestamps().put(
-                            input.filePath,
-                            System.currentTimeMillis()
-                    );
-                }
-
-                // 读取文件
-                List<String> allLines = Files.readAllLines(filePath);
-                int totalLines = allLines.size();
-
-                // 应用offset和limit
-                int startLine = input.offset != null ? input.offset - 1 : 0;
-                int endLine = input.limit != null ?
-                        Math.min(startLine + input.limit, totalLines) : totalLines;
-
-                if (startLine < 0) startLine = 0;
-                if (startLine >= totalLines) {
-                    sink.error(new IllegalArgumentException("Offset超出文件行数"));
-                    return;
-                }
-
-                List<String> lines = allLines.subList(startLine, endLine);
-                String content = String.join("\n", lines);
-
-                // 检查大小限制
-                if (content.length() > MAX_OUTPUT_SIZE) {
-                    sink.error(new IllegalArgumentException(
-                            String.format("文件内容 (%dKB) 超过最大允许大小 (%dKB)。请使用offset和limit参数分段读取。",
-                                    content.length() / 1024, MAX_OUTPUT_SIZE / 1024)
-                    ));
-                    return;
-                }
+                recordRead(input, context);
+
+                // 小文件优先从共享内容缓存读取，其余通过行索引定位，只读取请求的行范围
+                FileContentCache contentCache = context != null ? context.getFileContentCache() : null;
+                LineRange range = contentCache != null && Files.size(filePath) <= FileContentCache.MAX_ENTRY_BYTES
+                        ? readFromCache(contentCache, filePath, input)
+                        : readFromIndex(filePath, input);
 
                 Output output = Output.builder()
                         .filePath(input.filePath)
-                        .content(content)
-                        .numLines(lines.size())
-                        .startLine(startLine + 1)
-                        .totalLines(totalLines)
+                        .content(range.content())
+                        .numLines((int) (range.endLine() - range.startLine()))
+                        .startLine((int) range.startLine() + 1)
+                        .totalLines((int) Math.min(range.totalLines(), Integer.MAX_VALUE))
                         .build();
 
                 sink.next(ToolResponse.result(output));
                 sink.complete();
 
+            } catch (IllegalArgumentException e) {
+                sink.error(e);
             } catch (IOException e) {
                 log.error("读取文件失败: {}", input.filePath, e);
                 sink.error(new RuntimeException("读取文件失败: " + e.getMessage(), e));
@@ -183,20 +181,139 @@ public class FileReadTool extends AbstractTool<FileReadTool.Input, FileReadTool.
     }
 
     /**
-     * 为内容添加行号
+     * 更新文件读取时间戳
      */
-    private String addLineNumbers(Output output) {
-        String[] lines = output.content.split("\n");
-        StringBuilder sb = new StringBuilder();
+    private void recordRead(Input input, ToolUseContext context) {
+        if (context != null && context.getReadFileTimestamps() != null) {
+            context.getReadFileTimestamps().put(
+                    input.filePath,
+                    System.currentTimeMillis()
+            );
+        }
+    }
 
-        int startLine = output.startLine;
-        for (int i = 0; i < lines.length; i++) {
-            sb.append(String.format("%4d | %s\n", startLine + i, lines[i]));
+    /**
+     * 通过行索引读取行范围
+     */
+    private LineRange readFromIndex(Path filePath, Input input) throws IOException {
+        LineIndex index = lineIndexCache.get(filePath);
+        long totalLines = index.getLineCount();
+        long startLine = startLine(input, totalLines);
+        long endLine = endLine(input, startLine, totalLines);
+
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long startOffset = index.offsetOfLine(channel, startLine);
+            long endOffset = index.offsetOfLine(channel, endLine);
+
+            // 在读取之前检查大小限制
+            checkOutputSize(endOffset - startOffset);
+            return new LineRange(LineIndex.decode(channel, startOffset, endOffset), startLine, endLine, totalLines);
         }
+    }
+
+    /**
+     * 从共享内容缓存中截取行范围，行的划分与 {@link LineIndex} 一致
+     */
+    private LineRange readFromCache(FileContentCache contentCache, Path filePath, Input input) throws IOException {
+        String text = contentCache.read(filePath);
+        int length = text.length();
 
+        long totalLines = 0;
+        for (int i = text.indexOf('\n'); i >= 0; i = text.indexOf('\n', i + 1)) {
+            totalLines++;
+        }
+        if (length > 0 && text.charAt(length - 1) != '\n') {
+            totalLines++;
+        }
+
+        long startLine = startLine(input, totalLines);
+        long endLine = endLine(input, startLine, totalLines);
+
+        int start = 0;
+        for (long line = 0; line < startLine; line++) {
+            start = text.indexOf('\n', start) + 1;
+        }
+        int end = start;
+        for (long line = startLine; line < endLine; line++) {
+            int newline = text.indexOf('\n', end);
+            end = newline < 0 ? length : newline + 1;
+        }
+        checkOutputSize(end - start);
+
+        // 去除末尾换行并规范 \r\n，与 LineIndex.decode 的结果保持一致
+        int contentEnd = end;
+        if (contentEnd > start && text.charAt(contentEnd - 1) == '\n') {
+            contentEnd--;
+            if (contentEnd > start && text.charAt(contentEnd - 1) == '\r') {
+                contentEnd--;
+            }
+        }
+        String content = text.substring(start, contentEnd);
+        if (content.indexOf('\r') >= 0) {
+            content = content.replace("\r\n", "\n");
+        }
+        return new LineRange(content, startLine, endLine, totalLines);
+    }
+
+    /**
+     * 应用offset，返回起始行（从0开始）
+     */
+    private static long startLine(Input input, long totalLines) {
+        long startLine = input.offset != null ? input.offset - 1 : 0;
+        if (startLine < 0) startLine = 0;
+        if (startLine >= totalLines) {
+            throw new IllegalArgumentException("Offset超出文件行数");
+        }
+        return startLine;
+    }
+
+    /**
+     * 应用limit，返回结束行（不含）
+     */
+    private static long endLine(Input input, long startLine, long totalLines) {
+        return input.limit != null ? Math.min(startLine + input.limit, totalLines) : totalLines;
+    }
+
+    private static void checkOutputSize(long size) {
+        if (size > MAX_OUTPUT_SIZE) {
+            throw new IllegalArgumentException(
+                    String.format("文件内容 (%dKB) 超过最大允许大小 (%dKB)。请使用offset和limit参数分段读取。",
+                            size / 1024, MAX_OUTPUT_SIZE / 1024));
+        }
+    }
+
+    /**
+     * 为内容添加行号
+     */
+    private String addLineNumbers(Output output) {
+        String content = output.content;
+        int end = content.length();
+        while (end > 0 && content.charAt(end - 1) == '\n') {
+            end--;
+        }
+        StringBuilder sb = new StringBuilder(end + (output.numLines + 1) * 8);
+        int lineNumber = output.startLine;
+        int start = 0;
+        do {
+            int newline = content.indexOf('\n', start);
+            int lineEnd = newline < 0 || newline > end ? end : newline;
+            appendLineNumber(sb, lineNumber++);
+            sb.append(content, start, lineEnd).append('\n');
+            start = lineEnd + 1;
+        } while (start < end);
         return sb.toString();
     }
 
+    /**
+     * 追加右对齐到 4 位的行号与分隔符（与 "%4d | " 相同）
+     */
+    private static void appendLineNumber(StringBuilder sb, int lineNumber) {
+        for (int width = 1000; width > 1 && lineNumber < width; width /= 10) {
+            sb.append(' ');
+        }
+        sb.append(lineNumber).append(" | ");
+    }
+
     /**
      * 输入参数
      */
@@ -221,6 +338,12 @@ public class FileReadTool extends AbstractTool<FileReadTool.Input, FileReadTool.
         private Integer limit;
     }
 
+    /**
+     * 读取到的行范围
+     */
+    private record LineRange(String content, long startLine, long endLine, long totalLines) {
+    }
+
     /**
      * 输出结果
      */
@@ -1,19 +1,21 @@
 package io.leavesfly.koder.tool.impl;
 
 import io.leavesfly.koder.tool.*;
+import io.leavesfly.koder.tool.fs.FileCommitService;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.util.Map;
 
 /**
@@ -22,8 +24,11 @@ import java.util.Map;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class FileWriteTool extends AbstractTool<FileWriteTool.Input, FileWriteTool.Output> {
 
+    private final FileCommitService fileCommitService;
+
     @Override
     public String getName() {
         return "Create";
@@ -94,13 +99,11 @@ public class FileWriteTool extends AbstractTool<FileWriteTool.Input, FileWriteTo
                     content += "\n";
                 }
 
-                // 写入文件
-                Files.writeString(filePath, content,
-                        StandardOpenOption.CREATE,
-                        StandardOpenOption.TRUNCATE_EXISTING);
+                // 原子写入文件（覆盖时保留原有权限与换行风格）
+                content = fileCommitService.write(filePath, content);
 
                 // 更新时间戳
-                if (context.getReadFileTimestamps() != null) {
+                if (context != null && context.getReadFileTimestamps() != null) {
                     context.getReadFileTimestamps().put(
                             input.filePath,
                             Files.getLastModifiedTime(filePath).toMillis()
@@ -109,7 +112,7 @@ public class FileWriteTool extends AbstractTool<FileWriteTool.Input, FileWriteTo
 
                 Output output = Output.builder()
                         .filePath(input.filePath)
-                        .bytesWritten(content.getBytes().length)
+                        .bytesWritten(content.getBytes(StandardCharsets.UTF_8).length)
                         .success(true)
                         .build();
 
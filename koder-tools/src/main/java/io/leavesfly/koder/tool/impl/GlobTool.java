@@ -1,10 +1,12 @@
 package io.leavesfly.koder.tool.impl;
 
 import io.leavesfly.koder.tool.*;
+import io.leavesfly.koder.tool.fs.FileWalker;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
@@ -21,10 +23,13 @@ import java.util.Map;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class GlobTool extends AbstractTool<GlobTool.Input, GlobTool.Output> {
 
     private static final int MAX_RESULTS = 1000;
 
+    private final FileWalker fileWalker;
+
     @Override
     public String getName() {
         return "Glob";
@@ -45,6 +50,8 @@ public class GlobTool extends AbstractTool<GlobTool.Input, GlobTool.Output> {
                 - [] 匹配字符范围
                 
                 示例: *.java, src/**/*.ts, **/*.{java,kt}
+                
+                默认跳过被 .gitignore/.ignore 忽略的文件，设置 include_ignored=true 可包含它们。
                 """;
     }
 
@@ -53,6 +60,7 @@ public class GlobTool extends AbstractTool<GlobTool.Input, GlobTool.Output> {
         return schema()
                 .addStringProperty("pattern", "Glob匹配模式")
                 .addStringProperty("base_path", "搜索的基础路径（可选，默认当前目录）")
+                .addBooleanProperty("include_ignored", "是否包含被忽略的文件（默认false）")
                 .required("pattern")
                 .build();
     }
@@ -91,12 +99,32 @@ public class GlobTool extends AbstractTool<GlobTool.Input, GlobTool.Output> {
         return sb.toString();
     }
 
+    /**
+     * 返回给模型的紧凑格式：每行一个文件
+     */
+    @Override
+    public Object renderResultForAssistant(Output output) {
+        if (output.files.isEmpty()) {
+            return "没有找到匹配的文件";
+        }
+        StringBuilder sb = new StringBuilder(output.files.size() * 48);
+        sb.append("找到 ").append(output.files.size()).append(" 个文件");
+        if (output.truncated) {
+            sb.append("（已达到上限，结果不完整，请使用更具体的模式）");
+        }
+        sb.append('\n');
+        for (String file : output.files) {
+            sb.append(file).append('\n');
+        }
+        return sb.toString();
+    }
+
     @Override
     public Flux<ToolResponse<Output>> call(Input input, ToolUseContext context) {
         return Flux.create(sink -> {
             try {
                 String basePath = input.basePath != null ? input.basePath : System.getProperty("user.dir");
-                Path startPath = Paths.get(basePath);
+                Path startPath = Paths.get(basePath).toAbsolutePath().normalize();
 
                 if (!Files.exists(startPath)) {
                     sink.error(new IllegalArgumentException("基础路径不存在: " + basePath));
@@ -107,7 +135,7 @@ public class GlobTool extends AbstractTool<GlobTool.Input, GlobTool.Output> {
                 PathMatcher matcher = FileSystems.getDefault()
                         .getPathMatcher("glob:" + input.pattern);
 
-                Files.walkFileTree(startPath, new SimpleFileVisitor<Path>() {
+                fileWalker.walk(startPath, Boolean.TRUE.equals(input.includeIgnored), new SimpleFileVisitor<Path>() {
                     @Override
                     public FileVisitResult visitFile(Path file, java.nio.file.attribute.BasicFileAttributes attrs) {
                         Path relativePath = startPath.relativize(file);
@@ -119,19 +147,6 @@ public class GlobTool extends AbstractTool<GlobTool.Input, GlobTool.Output> {
                         }
                         return FileVisitResult.CONTINUE;
                     }
-
-                    @Override
-                    public FileVisitResult preVisitDirectory(Path dir, java.nio.file.attribute.BasicFileAttributes attrs) {
-                        // 跳过常见的不需要搜索的目录
-                        String dirName = dir.getFileName().toString();
-                        if (dirName.startsWith(".") ||
-                                dirName.equals("node_modules") ||
-                                dirName.equals("target") ||
-                                dirName.equals("build")) {
-                            return FileVisitResult.SKIP_SUBTREE;
-                        }
-                        return FileVisitResult.CONTINUE;
-                    }
                 });
 
                 Output output = Output.builder()
@@ -170,6 +185,12 @@ public class GlobTool extends AbstractTool<GlobTool.Input, GlobTool.Output> {
          * 基础路径
          */
         private String basePath;
+
+        /**
+         * 是否包含被忽略的文件
+         */
+        @Builder.Default
+        private Boolean includeIgnored = false;
     }
 
     /**
@@ -1,10 +1,12 @@
 package io.leavesfly.koder.tool.impl;
 
 import io.leavesfly.koder.tool.*;
+import io.leavesfly.koder.tool.fs.FileWalker;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
@@ -23,11 +25,19 @@ import java.util.regex.Pattern;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class GrepTool extends AbstractTool<GrepTool.Input, GrepTool.Output> {
 
     private static final int MAX_MATCHES = 100;
     private static final int CONTEXT_LINES = 2;
 
+    /**
+     * 返回给模型时单行匹配内容的最大长度
+     */
+    private static final int MAX_LINE_LENGTH = 240;
+
+    private final FileWalker fileWalker;
+
     @Override
     public String getName() {
         return "Grep";
@@ -46,6 +56,7 @@ public class GrepTool extends AbstractTool<GrepTool.Input, GrepTool.Output> {
                 - file_pattern: 文件Glob模式（可选，如 *.java）
                 - base_path: 搜索基础路径（可选）
                 - case_sensitive: 是否区分大小写（默认true）
+                - include_ignored: 是否搜索被 .gitignore/.ignore 忽略的文件（默认false）
                 """;
     }
 
@@ -56,6 +67,7 @@ public class GrepTool extends AbstractTool<GrepTool.Input, GrepTool.Output> {
                 .addStringProperty("file_pattern", "文件Glob模式（可选）")
                 .addStringProperty("base_path", "搜索基础路径（可选）")
                 .addBooleanProperty("case_sensitive", "是否区分大小写（默认true）")
+                .addBooleanProperty("include_ignored", "是否包含被忽略的文件（默认false）")
                 .required("regex")
                 .build();
     }
@@ -100,12 +112,44 @@ public class GrepTool extends AbstractTool<GrepTool.Input, GrepTool.Output> {
         return sb.toString();
     }
 
+    /**
+     * 返回给模型的紧凑格式：同一文件的连续匹配归在文件路径下，每行为"行号: 内容"，过长的行截断
+     */
+    @Override
+    public Object renderResultForAssistant(Output output) {
+        if (output.matches.isEmpty()) {
+            return "没有找到匹配";
+        }
+        StringBuilder sb = new StringBuilder(output.matches.size() * 64);
+        sb.append("找到 ").append(output.matches.size()).append(" 个匹配");
+        if (output.truncated) {
+            sb.append("（已达到上限，结果不完整，请缩小搜索范围）");
+        }
+        sb.append('\n');
+        String currentFile = null;
+        for (Match match : output.matches) {
+            if (!match.file.equals(currentFile)) {
+                currentFile = match.file;
+                sb.append(currentFile).append('\n');
+            }
+            String line = match.line.strip();
+            sb.append("  ").append(match.lineNumber).append(": ");
+            if (line.length() > MAX_LINE_LENGTH) {
+                sb.append(line, 0, MAX_LINE_LENGTH).append('…');
+            } else {
+                sb.append(line);
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
     @Override
     public Flux<ToolResponse<Output>> call(Input input, ToolUseContext context) {
         return Flux.create(sink -> {
             try {
                 String basePath = input.basePath != null ? input.basePath : System.getProperty("user.dir");
-                Path startPath = Paths.get(basePath);
+                Path startPath = Paths.get(basePath).toAbsolutePath().normalize();
 
                 if (!Files.exists(startPath)) {
                     sink.error(new IllegalArgumentException("基础路径不存在: " + basePath));
@@ -127,7 +171,7 @@ public class GrepTool extends AbstractTool<GrepTool.Input, GrepTool.Output> {
                 List<Match> matches = new ArrayList<>();
                 PathMatcher finalFileMatcher = fileMatcher;
 
-                Files.walkFileTree(startPath, new SimpleFileVisitor<Path>() {
+                fileWalker.walk(startPath, Boolean.TRUE.equals(input.includeIgnored), new SimpleFileVisitor<Path>() {
                     @Override
                     public FileVisitResult visitFile(Path file, java.nio.file.attribute.BasicFileAttributes attrs) {
                         try {
@@ -165,18 +209,6 @@ public class GrepTool extends AbstractTool<GrepTool.Input, GrepTool.Output> {
                         }
                         return FileVisitResult.CONTINUE;
                     }
-
-                    @Override
-                    public FileVisitResult preVisitDirectory(Path dir, java.nio.file.attribute.BasicFileAttributes attrs) {
-                        String dirName = dir.getFileName().toString();
-                        if (dirName.startsWith(".") ||
-                                dirName.equals("node_modules") ||
-                                dirName.equals("target") ||
-                                dirName.equals("build")) {
-                            return FileVisitResult.SKIP_SUBTREE;
-                        }
-                        return FileVisitResult.CONTINUE;
-                    }
                 });
 
                 Output output = Output.builder()
@@ -228,6 +260,12 @@ public class GrepTool extends AbstractTool<GrepTool.Input, GrepTool.Output> {
          */
         @Builder.Default
         private Boolean caseSensitive = true;
+
+        /**
+         * 是否包含被忽略的文件
+         */
+        @Builder.Default
+        private Boolean includeIgnored = false;
     }
 
     /**
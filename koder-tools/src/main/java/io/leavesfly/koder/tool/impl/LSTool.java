@@ -1,22 +1,26 @@
 package io.leavesfly.koder.tool.impl;
 
 import io.leavesfly.koder.tool.*;
+import io.leavesfly.koder.tool.fs.FileWalker;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 
 import java.io.IOException;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Stream;
 
 /**
  * 目录列表工具
@@ -24,8 +28,11 @@ import java.util.stream.Stream;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class LSTool extends AbstractTool<LSTool.Input, LSTool.Output> {
 
+    private final FileWalker fileWalker;
+
     @Override
     public String getName() {
         return "List";
@@ -48,6 +55,8 @@ public class LSTool extends AbstractTool<LSTool.Input, LSTool.Output> {
                 - path: 目录路径（必需）
                 - recursive: 是否递归列出（可选，默认false）
                 - max_depth: 最大递归深度（可选，默认1）
+                - include_ignored: 是否列出被 .gitignore/.ignore 忽略的条目（可选，默认false）；
+                  未被忽略的隐藏目录与构建目录（如 .github、.mvn、build）照常列出，.git 等版本控制目录始终不列出
                 """;
     }
 
@@ -57,6 +66,7 @@ public class LSTool extends AbstractTool<LSTool.Input, LSTool.Output> {
                 .addStringProperty("path", "要列出的目录路径")
                 .addBooleanProperty("recursive", "是否递归列出子目录")
                 .addNumberProperty("max_depth", "最大递归深度（默认1）")
+                .addBooleanProperty("include_ignored", "是否包含被忽略的条目（默认false）")
                 .required("path")
                 .build();
     }
@@ -121,56 +131,70 @@ public class LSTool extends AbstractTool<LSTool.Input, LSTool.Output> {
         return sb.toString();
     }
 
+    /**
+     * 返回给模型的紧凑格式：每行一个条目，目录以 / 结尾
+     */
+    @Override
+    public Object renderResultForAssistant(Output output) {
+        StringBuilder sb = new StringBuilder(64 + output.entries.size() * 32);
+        sb.append(output.path).append("（").append(output.dirCount).append(" 个目录，")
+                .append(output.fileCount).append(" 个文件）\n");
+        for (Entry entry : output.entries) {
+            sb.append(entry.name);
+            if (entry.isDirectory) {
+                sb.append('/');
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
     @Override
     public Flux<ToolResponse<Output>> call(Input input, ToolUseContext context) {
         return Flux.create(sink -> {
             try {
-                Path dirPath = Paths.get(input.path);
+                Path dirPath = Paths.get(input.path).toAbsolutePath().normalize();
                 List<Entry> entries = new ArrayList<>();
-                int fileCount = 0;
-                int dirCount = 0;
+                int[] counts = new int[2]; // [文件数, 目录数]
 
+                int maxDepth = 1;
                 if (Boolean.TRUE.equals(input.recursive)) {
-                    int maxDepth = input.maxDepth != null ? input.maxDepth : Integer.MAX_VALUE;
-
-                    try (Stream<Path> paths = Files.walk(dirPath, maxDepth)) {
-                        for (Path path : paths.toList()) {
-                            if (path.equals(dirPath)) continue;
-
-                            boolean isDir = Files.isDirectory(path);
-                            Entry entry = Entry.builder()
-                                    .name(dirPath.relativize(path).toString())
-                                    .isDirectory(isDir)
-                                    .size(isDir ? 0 : Files.size(path))
-                                    .build();
-
-                            entries.add(entry);
-                            if (isDir) {
-                                dirCount++;
-                            } else {
-                                fileCount++;
+                    maxDepth = input.maxDepth != null ? input.maxDepth : Integer.MAX_VALUE;
+                }
+
+                fileWalker.walk(dirPath, maxDepth,
+                        Boolean.TRUE.equals(input.includeIgnored) ? FileWalker.Filter.NONE : FileWalker.Filter.IGNORE_FILES,
+                        new SimpleFileVisitor<Path>() {
+                            @Override
+                            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                                if (!dir.equals(dirPath)) {
+                                    addEntry(dir, attrs);
+                                }
+                                return FileVisitResult.CONTINUE;
                             }
-                        }
-                    }
-                } else {
-                    try (Stream<Path> paths = Files.list(dirPath)) {
-                        for (Path path : paths.toList()) {
-                            boolean isDir = Files.isDirectory(path);
-                            Entry entry = Entry.builder()
-                                    .name(path.getFileName().toString())
-                                    .isDirectory(isDir)
-                                    .size(isDir ? 0 : Files.size(path))
-                                    .build();
-
-                            entries.add(entry);
-                            if (isDir) {
-                                dirCount++;
-                            } else {
-                                fileCount++;
+
+                            @Override
+                            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                                addEntry(file, attrs);
+                                return FileVisitResult.CONTINUE;
                             }
-                        }
-                    }
-                }
+
+                            @Override
+                            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                                log.debug("无法访问: {}", file, exc);
+                                return FileVisitResult.CONTINUE;
+                            }
+
+                            private void addEntry(Path path, BasicFileAttributes attrs) {
+                                boolean isDir = attrs.isDirectory();
+                                entries.add(Entry.builder()
+                                        .name(dirPath.relativize(path).toString())
+                                        .isDirectory(isDir)
+                                        .size(isDir ? 0 : attrs.size())
+                                        .build());
+                                counts[isDir ? 1 : 0]++;
+                            }
+                        });
 
                 // 排序：目录在前，文件在后，同类型按名称排序
                 entries.sort((a, b) -> {
@@ -183,8 +207,8 @@ public class LSTool extends AbstractTool<LSTool.Input, LSTool.Output> {
                 Output output = Output.builder()
                         .path(input.path)
                         .entries(entries)
-                        .fileCount(fileCount)
-                        .dirCount(dirCount)
+                        .fileCount(counts[0])
+                        .dirCount(counts[1])
                         .build();
 
                 sink.next(ToolResponse.result(output));
@@ -222,6 +246,12 @@ public class LSTool extends AbstractTool<LSTool.Input, LSTool.Output> {
          * 最大深度
          */
         private Integer maxDepth;
+
+        /**
+         * 是否包含被忽略的条目
+         */
+        @Builder.Default
+        private Boolean includeIgnored = false;
     }
 
     /**
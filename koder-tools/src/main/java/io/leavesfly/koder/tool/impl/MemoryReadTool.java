@@ -1,17 +1,19 @@
 package io.leavesfly.koder.tool.impl;
 
 import io.leavesfly.koder.tool.*;
+import io.leavesfly.koder.tool.memory.Memory;
+import io.leavesfly.koder.tool.memory.MemoryStore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 记忆读取工具
@@ -19,13 +21,16 @@ import java.util.stream.Collectors;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class MemoryReadTool extends AbstractTool<MemoryReadTool.Input, MemoryReadTool.Output> {
 
-    /**
-     * 记忆存储（内存实现）
-     * 实际应用应使用持久化存储（如数据库、向量数据库等）
-     */
-    private static final Map<String, Memory> MEMORY_STORE = new ConcurrentHashMap<>();
+    private static final String MODE_RELEVANCE = "relevance";
+    private static final String MODE_RECENT = "recent";
+
+    private static final int DEFAULT_RELEVANCE_LIMIT = 5;
+    private static final int DEFAULT_RECENT_LIMIT = 10;
+
+    private final MemoryStore memoryStore;
 
     @Override
     public String getName() {
@@ -43,9 +48,11 @@ public class MemoryReadTool extends AbstractTool<MemoryReadTool.Input, MemoryRea
                 从记忆系统检索信息：
                 - query: 搜索查询（可选）
                 - tags: 标签列表（可选）
-                - limit: 最大结果数（可选，默认10）
+                - mode: relevance（按相关度排序，提供query时的默认值）或 recent（按时间倒序，所有查询词都须命中）
+                - limit: 最大结果数（可选，relevance默认5，recent默认10）
                 
                 如果不提供任何参数，将返回最近的记忆。
+                相关度排序已综合考虑关键词、标签与新近程度，通常取前几条即可，无需加大limit。
                 """;
     }
 
@@ -60,6 +67,11 @@ public class MemoryReadTool extends AbstractTool<MemoryReadTool.Input, MemoryRea
                                 "items", Map.of("type", "string"),
                                 "description", "标签列表"
                         ),
+                        "mode", Map.of(
+                                "type", "string",
+                                "description", "检索方式",
+                                "enum", List.of(MODE_RELEVANCE, MODE_RECENT)
+                        ),
                         "limit", Map.of("type", "number", "description", "最大结果数")
                 )
         );
@@ -80,6 +92,14 @@ public class MemoryReadTool extends AbstractTool<MemoryReadTool.Input, MemoryRea
         return false;
     }
 
+    @Override
+    public ValidationResult validateInput(Input input, ToolUseContext context) {
+        if (input.mode != null && !MODE_RELEVANCE.equals(input.mode) && !MODE_RECENT.equals(input.mode)) {
+            return ValidationResult.failure("未知的检索方式: " + input.mode);
+        }
+        return ValidationResult.success();
+    }
+
     @Override
     public String renderToolUseMessage(Input input, boolean verbose) {
         StringBuilder sb = new StringBuilder();
@@ -90,6 +110,10 @@ public class MemoryReadTool extends AbstractTool<MemoryReadTool.Input, MemoryRea
             if (sb.length() > 0) sb.append(", ");
             sb.append("tags: ").append(String.join(",", input.tags));
         }
+        if (input.mode != null) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append("mode: ").append(input.mode);
+        }
         return sb.toString();
     }
 
@@ -102,25 +126,25 @@ public class MemoryReadTool extends AbstractTool<MemoryReadTool.Input, MemoryRea
     public Flux<ToolResponse<Output>> call(Input input, ToolUseContext context) {
         return Flux.create(sink -> {
             try {
-                int limit = input.limit != null ? input.limit : 10;
-                List<Memory> allMemories = new ArrayList<>(MEMORY_STORE.values());
-
-                // 过滤和排序
-                List<Memory> filtered = allMemories.stream()
-                        .filter(m -> matchesQuery(m, input.query, input.tags))
-                        .sorted(Comparator.comparingLong(Memory::getTimestamp).reversed())
-                        .limit(limit)
-                        .collect(Collectors.toList());
+                boolean hasQuery = input.query != null && !input.query.isBlank();
+                String mode = input.mode != null ? input.mode : hasQuery ? MODE_RELEVANCE : MODE_RECENT;
+                boolean relevance = MODE_RELEVANCE.equals(mode) && hasQuery;
+                int limit = input.limit != null ? input.limit
+                        : relevance ? DEFAULT_RELEVANCE_LIMIT : DEFAULT_RECENT_LIMIT;
+                List<Memory> filtered = relevance
+                        ? memoryStore.rank(input.query, input.tags, limit)
+                        : memoryStore.search(input.query, input.tags, limit);
 
                 Output output = Output.builder()
                         .memories(filtered)
                         .count(filtered.size())
+                        .mode(relevance ? MODE_RELEVANCE : MODE_RECENT)
                         .build();
 
                 sink.next(ToolResponse.result(output));
                 sink.complete();
 
-                log.debug("记忆检索完成: 找到 {} 条", filtered.size());
+                log.debug("记忆检索完成: 找到 {} 条（{}）", filtered.size(), output.mode);
 
             } catch (Exception e) {
                 log.error("记忆检索失败", e);
@@ -129,48 +153,6 @@ public class MemoryReadTool extends AbstractTool<MemoryReadTool.Input, MemoryRea
         });
     }
 
-    /**
-     * 检查记忆是否匹配查询
-     */
-    private boolean matchesQuery(Memory memory, String query, List<String> tags) {
-        // 如果没有任何过滤条件，返回所有记忆
-        if (query == null && (tags == null || tags.isEmpty())) {
-            return true;
-        }
-
-        // 检查标签匹配
-        if (tags != null && !tags.isEmpty()) {
-            if (memory.getTags() == null || Collections.disjoint(memory.getTags(), tags)) {
-                return false;
-            }
-        }
-
-        // 检查查询匹配
-        if (query != null && !query.isEmpty()) {
-            String lowerQuery = query.toLowerCase();
-            return memory.getContent().toLowerCase().contains(lowerQuery) ||
-                    (memory.getTitle() != null && memory.getTitle().toLowerCase().contains(lowerQuery));
-        }
-
-        return true;
-    }
-
-    /**
-     * 记忆实体
-     */
-    @Data
-    @Builder
-    @NoArgsConstructor
-    @AllArgsConstructor
-    public static class Memory {
-        private String id;
-        private String title;
-        private String content;
-        private List<String> tags;
-        private long timestamp;
-        private Map<String, Object> metadata;
-    }
-
     /**
      * 输入参数
      */
@@ -181,6 +163,12 @@ public class MemoryReadTool extends AbstractTool<MemoryReadTool.Input, MemoryRea
     public static class Input {
         private String query;
         private List<String> tags;
+
+        /**
+         * 检索方式：relevance 或 recent
+         */
+        private String mode;
+
         private Integer limit;
     }
 
@@ -194,12 +182,10 @@ public class MemoryReadTool extends AbstractTool<MemoryReadTool.Input, MemoryRea
     public static class Output {
         private List<Memory> memories;
         private int count;
-    }
 
-    /**
-     * 获取记忆存储（用于MemoryWriteTool访问）
-     */
-    public static Map<String, Memory> getMemoryStore() {
-        return MEMORY_STORE;
+        /**
+         * 实际使用的检索方式
+         */
+        private String mode;
     }
 }
@@ -1,14 +1,18 @@
 package io.leavesfly.koder.tool.impl;
 
 import io.leavesfly.koder.tool.*;
+import io.leavesfly.koder.tool.memory.Memory;
+import io.leavesfly.koder.tool.memory.MemoryStore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -17,8 +21,11 @@ import java.util.*;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class MemoryWriteTool extends AbstractTool<MemoryWriteTool.Input, MemoryWriteTool.Output> {
 
+    private final MemoryStore memoryStore;
+
     @Override
     public String getName() {
         return "WriteMemory";
@@ -119,7 +126,7 @@ public class MemoryWriteTool extends AbstractTool<MemoryWriteTool.Input, MemoryW
     /**
      * 保存记忆
      */
-    private Output saveMemory(Input input) {
+    private Output saveMemory(Input input) throws IOException {
         if (input.content == null || input.content.isEmpty()) {
             return Output.builder()
                     .success(false)
@@ -127,10 +134,8 @@ public class MemoryWriteTool extends AbstractTool<MemoryWriteTool.Input, MemoryW
                     .build();
         }
 
-        String memoryId = input.id != null ? input.id : generateMemoryId();
-
-        MemoryReadTool.Memory memory = MemoryReadTool.Memory.builder()
-                .id(memoryId)
+        Memory memory = Memory.builder()
+                .id(input.id)
                 .title(input.title)
                 .content(input.content)
                 .tags(input.tags != null ? new ArrayList<>(input.tags) : new ArrayList<>())
@@ -138,7 +143,7 @@ public class MemoryWriteTool extends AbstractTool<MemoryWriteTool.Input, MemoryW
                 .metadata(new HashMap<>())
                 .build();
 
-        MemoryReadTool.getMemoryStore().put(memoryId, memory);
+        String memoryId = memoryStore.save(memory).getId();
 
         return Output.builder()
                 .success(true)
@@ -150,7 +155,7 @@ public class MemoryWriteTool extends AbstractTool<MemoryWriteTool.Input, MemoryW
     /**
      * 更新记忆
      */
-    private Output updateMemory(Input input) {
+    private Output updateMemory(Input input) throws IOException {
         if (input.id == null) {
             return Output.builder()
                     .success(false)
@@ -158,7 +163,7 @@ public class MemoryWriteTool extends AbstractTool<MemoryWriteTool.Input, MemoryW
                     .build();
         }
 
-        MemoryReadTool.Memory memory = MemoryReadTool.getMemoryStore().get(input.id);
+        Memory memory = memoryStore.update(input.id, input.title, input.content, input.tags);
         if (memory == null) {
             return Output.builder()
                     .success(false)
@@ -166,20 +171,6 @@ public class MemoryWriteTool extends AbstractTool<MemoryWriteTool.Input, MemoryW
                     .build();
         }
 
-        // 更新字段
-        if (input.title != null) {
-            memory.setTitle(input.title);
-        }
-        if (input.content != null) {
-            memory.setContent(input.content);
-        }
-        if (input.tags != null) {
-            memory.setTags(new ArrayList<>(input.tags));
-        }
-        memory.setTimestamp(System.currentTimeMillis());
-
-        MemoryReadTool.getMemoryStore().put(memory.getId(), memory);
-
         return Output.builder()
                 .success(true)
                 .message(String.format("记忆已更新: %s", memory.getId()))
@@ -190,7 +181,7 @@ public class MemoryWriteTool extends AbstractTool<MemoryWriteTool.Input, MemoryW
     /**
      * 删除记忆
      */
-    private Output deleteMemory(Input input) {
+    private Output deleteMemory(Input input) throws IOException {
         if (input.id == null) {
             return Output.builder()
                     .success(false)
@@ -198,8 +189,7 @@ public class MemoryWriteTool extends AbstractTool<MemoryWriteTool.Input, MemoryW
                     .build();
         }
 
-        MemoryReadTool.Memory removed = MemoryReadTool.getMemoryStore().remove(input.id);
-        if (removed == null) {
+        if (!memoryStore.delete(input.id)) {
             return Output.builder()
                     .success(false)
                     .message("记忆不存在: " + input.id)
@@ -213,14 +203,6 @@ public class MemoryWriteTool extends AbstractTool<MemoryWriteTool.Input, MemoryW
                 .build();
     }
 
-    /**
-     * 生成记忆ID
-     */
-    private String generateMemoryId() {
-        return "mem_" + System.currentTimeMillis() + "_" +
-                (int) (Math.random() * 10000);
-    }
-
     /**
      * 输入参数
      */
@@ -1,10 +1,15 @@
 package io.leavesfly.koder.tool.impl;
 
 import io.leavesfly.koder.tool.*;
+import io.leavesfly.koder.tool.fs.FileCommitService;
+import io.leavesfly.koder.tool.fs.FileContentCache;
+import io.leavesfly.koder.tool.fs.LineEnding;
+import io.leavesfly.koder.tool.fs.TextEditEngine;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
@@ -12,15 +17,17 @@ import reactor.core.publisher.Flux;
 import java.io.IOException;
 import java.nio.file.*;
 import java.util.*;
-import java.util.regex.Pattern;
 
 /**
  * 多重编辑工具 - 对单个文件进行多次原子性编辑
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class MultiEditTool extends AbstractTool<MultiEditTool.Input, MultiEditTool.Output> {
 
+    private final FileCommitService fileCommitService;
+
     @Override
     public String getName() {
         return "MultiEdit";
@@ -135,11 +142,12 @@ public class MultiEditTool extends AbstractTool<MultiEditTool.Input, MultiEditTo
             try {
                 Path filePath = Paths.get(input.filePath);
                 boolean fileExists = Files.exists(filePath);
+                FileContentCache contentCache = context != null ? context.getFileContentCache() : null;
                 
                 // 读取当前内容（新文件则为空）
                 String currentContent = "";
                 if (fileExists) {
-                    currentContent = Files.readString(filePath);
+                    currentContent = contentCache != null ? contentCache.read(filePath) : Files.readString(filePath);
                 } else {
                     // 确保父目录存在
                     Path parentDir = filePath.getParent();
@@ -148,38 +156,51 @@ public class MultiEditTool extends AbstractTool<MultiEditTool.Input, MultiEditTo
                     }
                 }
                 
-                // 按顺序应用所有编辑
-                String modifiedContent = currentContent;
+                // CRLF 文件统一按 \n 匹配，写回时恢复原换行风格
+                boolean crlf = LineEnding.detect(currentContent) == LineEnding.CRLF;
+                if (crlf) {
+                    currentContent = LineEnding.normalize(currentContent);
+                }
+
+                // 一次扫描定位全部编辑，再一次性拼接（依赖前序编辑结果时自动按顺序应用）
+                List<TextEditEngine.Edit> edits = new ArrayList<>(input.edits.size());
+                for (Edit edit : input.edits) {
+                    edits.add(new TextEditEngine.Edit(
+                            crlf && edit.oldString != null ? LineEnding.normalize(edit.oldString) : edit.oldString,
+                            crlf && edit.newString != null ? LineEnding.normalize(edit.newString) : edit.newString,
+                            Boolean.TRUE.equals(edit.replaceAll)));
+                }
+                TextEditEngine.Result result = TextEditEngine.apply(currentContent, edits, false);
+
+                if (!result.isSuccess()) {
+                    // 任何编辑失败，终止整个操作
+                    int failedIndex = result.getFailures().get(0).index();
+                    Output output = Output.builder()
+                            .success(false)
+                            .filePath(input.filePath)
+                            .error(String.format("编辑 %d 失败: 未找到要替换的字符串: %s", failedIndex + 1,
+                                    truncate(input.edits.get(failedIndex).oldString, 50)))
+                            .build();
+                    sink.next(ToolResponse.result(output));
+                    sink.complete();
+                    return;
+                }
+
+                String modifiedContent = result.getContent();
                 List<AppliedEdit> appliedEdits = new ArrayList<>();
-                
                 for (int i = 0; i < input.edits.size(); i++) {
                     Edit edit = input.edits.get(i);
-                    
-                    try {
-                        EditResult result = applyEdit(modifiedContent, edit);
-                        modifiedContent = result.newContent;
-                        appliedEdits.add(new AppliedEdit(
-                                i + 1,
-                                true,
-                                truncate(edit.oldString, 100),
-                                truncate(edit.newString, 100),
-                                result.occurrences
-                        ));
-                    } catch (Exception e) {
-                        // 任何编辑失败，终止整个操作
-                        Output output = Output.builder()
-                                .success(false)
-                                .filePath(input.filePath)
-                                .error(String.format("编辑 %d 失败: %s", i + 1, e.getMessage()))
-                                .build();
-                        sink.next(ToolResponse.result(output));
-                        sink.complete();
-                        return;
-                    }
+                    appliedEdits.add(new AppliedEdit(
+                            i + 1,
+                            true,
+                            truncate(edit.oldString, 100),
+                            truncate(edit.newString, 100),
+                            result.getOccurrences(i)
+                    ));
                 }
                 
-                // 写入修改后的内容
-                Files.writeString(filePath, modifiedContent);
+                // 原子写入修改后的内容
+                fileCommitService.write(filePath, modifiedContent);
                 
                 log.info("成功应用 {} 处编辑到文件: {}", appliedEdits.size(), input.filePath);
                 
@@ -212,36 +233,6 @@ public class MultiEditTool extends AbstractTool<MultiEditTool.Input, MultiEditTo
         });
     }
     
-    /**
-     * 应用单个编辑操作
-     */
-    private EditResult applyEdit(String content, Edit edit) {
-        if (edit.replaceAll) {
-            // 替换所有匹配
-            String escaped = Pattern.quote(edit.oldString);
-            Pattern pattern = Pattern.compile(escaped);
-            java.util.regex.Matcher matcher = pattern.matcher(content);
-            int count = 0;
-            while (matcher.find()) {
-                count++;
-            }
-            String newContent = content.replaceAll(escaped, 
-                    java.util.regex.Matcher.quoteReplacement(edit.newString));
-            return new EditResult(newContent, count);
-        } else {
-            // 替换第一个匹配
-            if (content.contains(edit.oldString)) {
-                String newContent = content.replaceFirst(
-                        Pattern.quote(edit.oldString),
-                        java.util.regex.Matcher.quoteReplacement(edit.newString));
-                return new EditResult(newContent, 1);
-            } else {
-                throw new IllegalArgumentException(
-                        "未找到要替换的字符串: " + truncate(edit.oldString, 50));
-            }
-        }
-    }
-    
     private String truncate(String text, int maxLength) {
         if (text == null || text.length() <= maxLength) {
             return text;
@@ -302,14 +293,4 @@ public class MultiEditTool extends AbstractTool<MultiEditTool.Input, MultiEditTo
         private String newString;
         private int occurrences;
     }
-    
-    /**
-     * 编辑结果
-     */
-    @Data
-    @AllArgsConstructor
-    private static class EditResult {
-        private String newContent;
-        private int occurrences;
-    }
 }
@@ -1,14 +1,14 @@
 package io.leavesfly.koder.tool.impl;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.leavesfly.koder.tool.*;
+import io.leavesfly.koder.tool.fs.FileCommitService;
+import io.leavesfly.koder.tool.notebook.NotebookCellEdit;
+import io.leavesfly.koder.tool.notebook.NotebookPatch;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
@@ -19,12 +19,14 @@ import java.util.*;
 
 /**
  * Jupyter Notebook 编辑工具
+ * 通过 {@link NotebookPatch} 流式改写：未改动的单元格按字节原样复制，只重新编码被编辑的单元格，支持一次批量编辑多个单元格
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class NotebookEditTool extends AbstractTool<NotebookEditTool.Input, NotebookEditTool.Output> {
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final FileCommitService fileCommitService;
 
     @Override
     public String getName() {
@@ -47,6 +49,8 @@ public class NotebookEditTool extends AbstractTool<NotebookEditTool.Input, Noteb
                 - new_source: 单元格的新内容
                 - cell_type: 单元格类型（code 或 markdown），可选
                 - edit_mode: 编辑模式（replace/insert/delete），默认 replace
+                - edits: 批量编辑（可选），每项包含 cell_number、new_source、cell_type、edit_mode；
+                  按顺序应用，每项的索引基于前面的编辑完成后的 Notebook，全部成功才写入文件
                 
                 编辑模式：
                 - replace: 替换指定单元格的内容
@@ -57,6 +61,7 @@ public class NotebookEditTool extends AbstractTool<NotebookEditTool.Input, Noteb
                 - 仅适用于 .ipynb 文件
                 - 编辑 code 单元格会清除执行计数和输出
                 - insert 模式需要指定 cell_type
+                - 同一 Notebook 的多处修改请用 edits 一次完成，避免反复改写大文件
                 - 对于普通文本文件，请使用 FileEdit 或 MultiEdit 工具
                 """;
     }
@@ -87,9 +92,31 @@ public class NotebookEditTool extends AbstractTool<NotebookEditTool.Input, Noteb
                                 "type", "string",
                                 "enum", List.of("replace", "insert", "delete"),
                                 "description", "编辑模式（默认 replace）"
+                        ),
+                        "edits", Map.of(
+                                "type", "array",
+                                "description", "批量编辑（按顺序应用）",
+                                "items", Map.of(
+                                        "type", "object",
+                                        "properties", Map.of(
+                                                "cell_number", Map.of("type", "integer", "description", "单元格索引"),
+                                                "new_source", Map.of("type", "string", "description", "单元格的新内容"),
+                                                "cell_type", Map.of(
+                                                        "type", "string",
+                                                        "enum", List.of("code", "markdown"),
+                                                        "description", "单元格类型"
+                                                ),
+                                                "edit_mode", Map.of(
+                                                        "type", "string",
+                                                        "enum", List.of("replace", "insert", "delete"),
+                                                        "description", "编辑模式"
+                                                )
+                                        ),
+                                        "required", List.of("cell_number")
+                                )
                         )
                 ),
-                "required", List.of("notebook_path", "cell_number", "new_source")
+                "required", List.of("notebook_path")
         );
     }
 
@@ -108,8 +135,26 @@ public class NotebookEditTool extends AbstractTool<NotebookEditTool.Input, Noteb
         return true;
     }
 
+    @Override
+    public ValidationResult validateInput(Input input, ToolUseContext context) {
+        if (input.notebookPath == null || input.notebookPath.isBlank()) {
+            return ValidationResult.failure("Notebook 路径不能为空");
+        }
+        boolean batch = input.edits != null && !input.edits.isEmpty();
+        if (batch && input.cellNumber != null) {
+            return ValidationResult.failure("cell_number 与 edits 不能同时使用");
+        }
+        if (!batch && input.cellNumber == null) {
+            return ValidationResult.failure("需要指定 cell_number 或 edits");
+        }
+        return ValidationResult.success();
+    }
+
     @Override
     public String renderToolUseMessage(Input input, boolean verbose) {
+        if (input.edits != null && !input.edits.isEmpty()) {
+            return String.format("编辑 Notebook: %s, %d 处编辑", input.notebookPath, input.edits.size());
+        }
         String mode = input.editMode != null ? input.editMode : "replace";
         return String.format("编辑 Notebook: %s, 单元格 %d, 模式: %s",
                 input.notebookPath, input.cellNumber, mode);
@@ -120,6 +165,9 @@ public class NotebookEditTool extends AbstractTool<NotebookEditTool.Input, Noteb
         if (output.error != null) {
             return "❌ " + output.error;
         }
+        if (output.editCount > 1) {
+            return String.format("✅ 成功应用 %d 处编辑（现有 %d 个单元格）", output.editCount, output.cellCount);
+        }
         return String.format("✅ 成功%s单元格 %d (%s)",
                 output.editMode, output.cellNumber, output.cellType);
     }
@@ -148,99 +196,35 @@ public class NotebookEditTool extends AbstractTool<NotebookEditTool.Input, Noteb
                     return;
                 }
                 
-                // 读取并解析 notebook
-                String content = Files.readString(notebookPath);
-                JsonNode notebook = objectMapper.readTree(content);
-                
-                if (!notebook.has("cells") || !notebook.get("cells").isArray()) {
+                List<NotebookCellEdit> edits = editsOf(input);
+                NotebookPatch patch;
+                try {
+                    patch = NotebookPatch.prepare(notebookPath, edits);
+                } catch (IllegalArgumentException e) {
                     Output output = Output.builder()
-                            .error("Notebook 格式无效")
+                            .error(e.getMessage())
                             .build();
                     sink.next(ToolResponse.result(output));
                     sink.complete();
                     return;
                 }
                 
-                ArrayNode cells = (ArrayNode) notebook.get("cells");
-                String editMode = input.editMode != null ? input.editMode : "replace";
-                String language = notebook.path("metadata").path("language_info")
-                        .path("name").asText("python");
-                
-                // 执行编辑操作
-                switch (editMode) {
-                    case "delete":
-                        if (input.cellNumber < 0 || input.cellNumber >= cells.size()) {
-                            Output output = Output.builder()
-                                    .error(String.format("单元格索引超出范围。Notebook 有 %d 个单元格",
-                                            cells.size()))
-                                    .build();
-                            sink.next(ToolResponse.result(output));
-                            sink.complete();
-                            return;
-                        }
-                        cells.remove(input.cellNumber);
-                        break;
-                        
-                    case "insert":
-                        if (input.cellType == null) {
-                            Output output = Output.builder()
-                                    .error("insert 模式需要指定 cell_type")
-                                    .build();
-                            sink.next(ToolResponse.result(output));
-                            sink.complete();
-                            return;
-                        }
-                        if (input.cellNumber < 0 || input.cellNumber > cells.size()) {
-                            Output output = Output.builder()
-                                    .error(String.format("单元格索引超出范围。insert 模式最大值为 %d",
-                                            cells.size()))
-                                    .build();
-                            sink.next(ToolResponse.result(output));
-                            sink.complete();
-                            return;
-                        }
-                        ObjectNode newCell = createCell(input.cellType, input.newSource);
-                        cells.insert(input.cellNumber, newCell);
-                        break;
-                        
-                    case "replace":
-                    default:
-                        if (input.cellNumber < 0 || input.cellNumber >= cells.size()) {
-                            Output output = Output.builder()
-                                    .error(String.format("单元格索引超出范围。Notebook 有 %d 个单元格",
-                                            cells.size()))
-                                    .build();
-                            sink.next(ToolResponse.result(output));
-                            sink.complete();
-                            return;
-                        }
-                        ObjectNode targetCell = (ObjectNode) cells.get(input.cellNumber);
-                        targetCell.put("source", input.newSource);
-                        targetCell.remove("execution_count");
-                        targetCell.remove("outputs");
-                        if (input.cellType != null) {
-                            targetCell.put("cell_type", input.cellType);
-                        }
-                        if ("code".equals(targetCell.get("cell_type").asText())) {
-                            targetCell.set("outputs", objectMapper.createArrayNode());
-                        }
-                        break;
-                }
-                
-                // 写回文件
-                String updatedContent = objectMapper.writerWithDefaultPrettyPrinter()
-                        .writeValueAsString(notebook);
-                Files.writeString(notebookPath, updatedContent);
+                // 流式写回：未改动的单元格原样复制
+                fileCommitService.writeStream(notebookPath, patch::writeTo);
                 
-                log.info("成功编辑 Notebook: {}, 单元格 {}, 模式: {}",
-                        input.notebookPath, input.cellNumber, editMode);
+                NotebookCellEdit last = edits.get(edits.size() - 1);
+                List<String> cellTypes = patch.getResultCellTypes();
+                log.info("成功编辑 Notebook: {}, {} 处编辑, 单元格 {} -> {}",
+                        input.notebookPath, edits.size(), patch.getOriginalCellCount(), patch.getCellCount());
                 
                 Output output = Output.builder()
-                        .cellNumber(input.cellNumber)
-                        .newSource(input.newSource)
-                        .cellType(input.cellType != null ? input.cellType : "code")
-                        .language(language)
-                        .editMode(editMode)
+                        .cellNumber(last.getCellNumber())
+                        .newSource(last.getNewSource())
+                        .cellType(cellTypes.get(cellTypes.size() - 1))
+                        .language(patch.getLanguage())
+                        .editMode(last.modeOrDefault())
+                        .editCount(edits.size())
+                        .cellCount(patch.getCellCount())
                         .build();
                 
                 sink.next(ToolResponse.result(output));
@@ -261,19 +245,18 @@ public class NotebookEditTool extends AbstractTool<NotebookEditTool.Input, Noteb
     }
     
     /**
-     * 创建新单元格
+     * 单个编辑参数与批量编辑统一为编辑列表
      */
-    private ObjectNode createCell(String cellType, String source) {
-        ObjectNode cell = objectMapper.createObjectNode();
-        cell.put("cell_type", cellType);
-        cell.put("source", source);
-        cell.set("metadata", objectMapper.createObjectNode());
-        
-        if ("code".equals(cellType)) {
-            cell.set("outputs", objectMapper.createArrayNode());
+    private static List<NotebookCellEdit> editsOf(Input input) {
+        if (input.edits != null && !input.edits.isEmpty()) {
+            return input.edits;
         }
-        
-        return cell;
+        return List.of(NotebookCellEdit.builder()
+                .cellNumber(input.cellNumber)
+                .newSource(input.newSource)
+                .cellType(input.cellType)
+                .editMode(input.editMode)
+                .build());
     }
     
     /**
@@ -289,6 +272,11 @@ public class NotebookEditTool extends AbstractTool<NotebookEditTool.Input, Noteb
         private String newSource;
         private String cellType;
         private String editMode;
+
+        /**
+         * 批量编辑（与单个编辑参数二选一）
+         */
+        private List<NotebookCellEdit> edits;
     }
     
     /**
@@ -304,6 +292,17 @@ public class NotebookEditTool extends AbstractTool<NotebookEditTool.Input, Noteb
         private String cellType;
         private String language;
         private String editMode;
+
+        /**
+         * 应用的编辑数
+         */
+        private int editCount;
+
+        /**
+         * 编辑后的单元格数
+         */
+        private int cellCount;
+
         private String error;
     }
 }
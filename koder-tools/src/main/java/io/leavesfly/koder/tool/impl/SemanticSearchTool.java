@@ -0,0 +1,273 @@
+package io.leavesfly.koder.tool.impl;
+
+import io.leavesfly.koder.tool.*;
+import io.leavesfly.koder.tool.semantic.SemanticHit;
+import io.leavesfly.koder.tool.semantic.SemanticIndex;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 语义检索工具
+ * 按自然语言描述在代码库与记忆中查找相关内容（见 {@link SemanticIndex}），一次检索即可定位到相关代码块，
+ * 不必反复尝试不同的 Grep 关键字
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SemanticSearchTool extends AbstractTool<SemanticSearchTool.Input, SemanticSearchTool.Output> {
+
+    private static final String SCOPE_CODE = "code";
+    private static final String SCOPE_MEMORY = "memory";
+    private static final String SCOPE_ALL = "all";
+    private static final Set<String> SCOPES = Set.of(SCOPE_CODE, SCOPE_MEMORY, SCOPE_ALL);
+
+    private static final int DEFAULT_LIMIT = 8;
+    private static final int MAX_LIMIT = 30;
+
+    private final SemanticIndex semanticIndex;
+
+    @Override
+    public String getName() {
+        return "SemanticSearch";
+    }
+
+    @Override
+    public String getDescription() {
+        return "按语义检索代码与记忆。用自然语言描述要找的功能，返回最相关的代码块（文件与行号）或记忆。";
+    }
+
+    @Override
+    public String getPrompt(boolean safeMode) {
+        return """
+                按语义检索代码库与记忆：
+                - query: 要查找的内容，可以是自然语言描述或标识符（必需，如 "用户登录时校验密码"）
+                - path: 检索目录（可选，默认当前目录）
+                - scope: 检索范围 code / memory / all（默认code）
+                - file_pattern: 文件Glob模式（可选，如 *.java）
+                - limit: 最大结果数（默认8，最多30）
+
+                不确定关键字或要了解某个功能在哪里实现时，优先使用此工具，而不是反复尝试不同的 Grep 正则；
+                已知确切的标识符或字符串时使用 Grep。索引首次使用时构建，之后按文件修改增量更新。
+                """;
+    }
+
+    @Override
+    public Map<String, Object> getInputSchema() {
+        return schema()
+                .addStringProperty("query", "要查找的内容（自然语言或标识符）")
+                .addStringProperty("path", "检索目录（可选）")
+                .addStringProperty("scope", "检索范围：code / memory / all（默认code）")
+                .addStringProperty("file_pattern", "文件Glob模式（可选）")
+                .addNumberProperty("limit", "最大结果数（默认8）")
+                .required("query")
+                .build();
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public boolean isConcurrencySafe() {
+        return true;
+    }
+
+    @Override
+    public boolean needsPermissions(Input input) {
+        return false;
+    }
+
+    @Override
+    public ValidationResult validateInput(Input input, ToolUseContext context) {
+        if (input.query == null || input.query.isBlank()) {
+            return ValidationResult.failure("检索内容不能为空");
+        }
+        if (input.scope != null && !SCOPES.contains(input.scope)) {
+            return ValidationResult.failure("不支持的检索范围: " + input.scope + "（可选 code / memory / all）");
+        }
+        if (input.limit != null && (input.limit < 1 || input.limit > MAX_LIMIT)) {
+            return ValidationResult.failure("最大结果数必须在1到" + MAX_LIMIT + "之间");
+        }
+        if (!SCOPE_MEMORY.equals(input.scope) && input.path != null && !Files.isDirectory(Paths.get(input.path))) {
+            return ValidationResult.failure("检索目录不存在: " + input.path);
+        }
+        return ValidationResult.success();
+    }
+
+    @Override
+    public String renderToolUseMessage(Input input, boolean verbose) {
+        return String.format("query: %s, scope: %s", input.query, scopeOf(input));
+    }
+
+    @Override
+    public String renderToolResultMessage(Output output) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("找到 %d 个结果", output.hits.size()));
+        if (!SCOPE_MEMORY.equals(output.scope)) {
+            sb.append(String.format("（索引 %d 个文件 / %d 个代码块%s）",
+                    output.indexedFiles, output.indexedChunks,
+                    output.updatedFiles > 0 ? "，更新 " + output.updatedFiles + " 个文件" : ""));
+        }
+        sb.append(":\n");
+
+        int displayCount = Math.min(output.hits.size(), 5);
+        for (int i = 0; i < displayCount; i++) {
+            sb.append("  ").append(location(output.hits.get(i))).append('\n');
+        }
+        if (output.hits.size() > displayCount) {
+            sb.append(String.format("  ... 还有 %d 个结果", output.hits.size() - displayCount));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public Object renderResultForAssistant(Output output) {
+        if (output.hits.isEmpty()) {
+            return "没有找到相关内容";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (SemanticHit hit : output.hits) {
+            sb.append("## ").append(location(hit)).append('\n');
+            if (hit.getSnippet() != null && !hit.getSnippet().isEmpty()) {
+                sb.append(hit.getSnippet()).append('\n');
+            }
+            sb.append('\n');
+        }
+        if (output.truncated) {
+            sb.append("（目录文件数超过索引上限，部分文件未建索引）\n");
+        }
+        return sb.toString().trim();
+    }
+
+    @Override
+    public Flux<ToolResponse<Output>> call(Input input, ToolUseContext context) {
+        return Flux.<ToolResponse<Output>>create(sink -> {
+            String scope = scopeOf(input);
+            int limit = input.limit != null ? input.limit : DEFAULT_LIMIT;
+            try {
+                List<SemanticHit> hits = new ArrayList<>();
+                Output.OutputBuilder output = Output.builder().query(input.query).scope(scope);
+
+                if (!SCOPE_MEMORY.equals(scope)) {
+                    Path path = Paths.get(input.path != null ? input.path : System.getProperty("user.dir"));
+                    SemanticIndex.CodeSearchResult result =
+                            semanticIndex.searchCode(path, input.query, input.filePattern, limit);
+                    hits.addAll(result.getHits());
+                    output.indexedFiles(result.getIndexedFiles())
+                            .indexedChunks(result.getIndexedChunks())
+                            .updatedFiles(result.getUpdatedFiles())
+                            .truncated(result.isTruncated());
+                }
+                if (!SCOPE_CODE.equals(scope)) {
+                    hits.addAll(semanticIndex.searchMemories(input.query, limit));
+                }
+
+                hits.sort(Comparator.comparingDouble(SemanticHit::getScore).reversed());
+                List<SemanticHit> top = hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+                sink.next(ToolResponse.result(output.hits(top).build()));
+                sink.complete();
+
+                log.debug("语义检索完成: query={}, scope={}, 结果={}", input.query, scope, top.size());
+            } catch (IOException e) {
+                log.error("语义检索失败: {}", input.query, e);
+                sink.error(new RuntimeException("语义检索失败: " + e.getMessage(), e));
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static String scopeOf(Input input) {
+        return input.scope != null ? input.scope : SCOPE_CODE;
+    }
+
+    private static String location(SemanticHit hit) {
+        if (SemanticHit.MEMORY.equals(hit.getKind())) {
+            return String.format("[记忆 %s] %s (%.2f)", hit.getMemoryId(), hit.getTitle(), hit.getScore());
+        }
+        return String.format("%s:%d-%d (%.2f)", hit.getFile(), hit.getStartLine(), hit.getEndLine(), hit.getScore());
+    }
+
+    /**
+     * 输入参数
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Input {
+        /**
+         * 检索内容
+         */
+        private String query;
+
+        /**
+         * 检索目录
+         */
+        private String path;
+
+        /**
+         * 检索范围：code / memory / all
+         */
+        private String scope;
+
+        /**
+         * 文件模式
+         */
+        private String filePattern;
+
+        /**
+         * 最大结果数
+         */
+        private Integer limit;
+    }
+
+    /**
+     * 输出结果
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Output {
+        private String query;
+        private String scope;
+
+        /**
+         * 按相似度降序排列的结果
+         */
+        private List<SemanticHit> hits;
+
+        /**
+         * 索引中的文件数与代码块数
+         */
+        private int indexedFiles;
+        private int indexedChunks;
+
+        /**
+         * 本次检索前增量更新的文件数
+         */
+        private int updatedFiles;
+
+        /**
+         * 目录文件数是否超过索引上限
+         */
+        private boolean truncated;
+    }
+}
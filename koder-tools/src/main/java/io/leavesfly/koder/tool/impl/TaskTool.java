@@ -1,43 +1,39 @@
 package io.leavesfly.koder.tool.impl;
 
 import io.leavesfly.koder.tool.*;
+import io.leavesfly.koder.tool.task.Task;
+import io.leavesfly.koder.tool.task.TaskPage;
+import io.leavesfly.koder.tool.task.TaskStatus;
+import io.leavesfly.koder.tool.task.TaskStore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * 任务管理工具
- * 支持创建、更新、查询任务列表
+ * 支持创建、更新、分页查询任务，任务由 {@link TaskStore} 持久化
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class TaskTool extends AbstractTool<TaskTool.Input, TaskTool.Output> {
 
-    /**
-     * 任务状态枚举
-     */
-    public enum TaskStatus {
-        PENDING,      // 待处理
-        IN_PROGRESS,  // 进行中
-        COMPLETE,     // 已完成
-        CANCELLED,    // 已取消
-        ERROR         // 错误
-    }
+    private static final int DEFAULT_LIST_LIMIT = 50;
+    private static final int MAX_LIST_LIMIT = 200;
 
-    /**
-     * 任务存储（内存）
-     * 实际应用中应持久化到数据库
-     */
-    private static final Map<String, Task> TASKS = new ConcurrentHashMap<>();
+    private final TaskStore taskStore;
 
     @Override
     public String getName() {
@@ -56,8 +52,13 @@ public class TaskTool extends AbstractTool<TaskTool.Input, TaskTool.Output> {
                 - action: add（添加任务）、update（更新任务）、list（列出任务）
                 - task_id: 任务ID（更新时必需）
                 - content: 任务内容（添加时必需）
-                - status: 任务状态（PENDING, IN_PROGRESS, COMPLETE, CANCELLED, ERROR）
-                - parent_id: 父任务ID（可选，用于创建子任务）
+                - status: 任务状态（PENDING, IN_PROGRESS, COMPLETE, CANCELLED, ERROR）；列出时按状态过滤
+                - parent_id: 父任务ID（添加时用于创建子任务；列出时只返回其子任务）
+                - recursive: 列出时包含 parent_id 的全部后代（默认false）
+                - limit: 列出时每页条数（默认50，最多200）
+                - cursor: 列出下一页时传入上一页返回的 next_cursor
+
+                任务持久保存，重启后仍在；任务较多时用 status、parent_id 过滤，而不是逐页列出全部。
                 """;
     }
 
@@ -78,7 +79,10 @@ public class TaskTool extends AbstractTool<TaskTool.Input, TaskTool.Output> {
                                 "description", "任务状态",
                                 "enum", List.of("PENDING", "IN_PROGRESS", "COMPLETE", "CANCELLED", "ERROR")
                         ),
-                        "parent_id", Map.of("type", "string", "description", "父任务ID")
+                        "parent_id", Map.of("type", "string", "description", "父任务ID"),
+                        "recursive", Map.of("type", "boolean", "description", "列出时是否包含全部后代"),
+                        "limit", Map.of("type", "number", "description", "每页条数（默认50）"),
+                        "cursor", Map.of("type", "string", "description", "分页游标")
                 ),
                 "required", List.of("action")
         );
@@ -94,6 +98,21 @@ public class TaskTool extends AbstractTool<TaskTool.Input, TaskTool.Output> {
         return false;
     }
 
+    @Override
+    public ValidationResult validateInput(Input input, ToolUseContext context) {
+        if (input.action == null || input.action.isBlank()) {
+            return ValidationResult.failure("操作类型不能为空");
+        }
+        if (input.status != null && parseStatus(input.status) == null) {
+            return ValidationResult.failure("无效的任务状态: " + input.status + "（可选 "
+                    + Arrays.stream(TaskStatus.values()).map(Enum::name).collect(Collectors.joining(", ")) + "）");
+        }
+        if (input.limit != null && (input.limit < 1 || input.limit > MAX_LIST_LIMIT)) {
+            return ValidationResult.failure("每页条数必须在1到" + MAX_LIST_LIMIT + "之间");
+        }
+        return ValidationResult.success();
+    }
+
     @Override
     public String renderToolUseMessage(Input input, boolean verbose) {
         return String.format("action: %s", input.action);
@@ -111,7 +130,7 @@ public class TaskTool extends AbstractTool<TaskTool.Input, TaskTool.Output> {
                 Output output = switch (input.action.toLowerCase()) {
                     case "add" -> addTask(input);
                     case "update" -> updateTask(input);
-                    case "list" -> listTasks();
+                    case "list" -> listTasks(input);
                     default -> Output.builder()
                             .success(false)
                             .message("未知操作: " + input.action)
@@ -136,7 +155,7 @@ public class TaskTool extends AbstractTool<TaskTool.Input, TaskTool.Output> {
     /**
      * 添加任务
      */
-    private Output addTask(Input input) {
+    private Output addTask(Input input) throws IOException {
         if (input.content == null || input.content.isEmpty()) {
             return Output.builder()
                     .success(false)
@@ -144,25 +163,21 @@ public class TaskTool extends AbstractTool<TaskTool.Input, TaskTool.Output> {
                     .build();
         }
 
-        String taskId = input.taskId != null ? input.taskId : generateTaskId();
-        TaskStatus status = input.status != null ?
-                TaskStatus.valueOf(input.status) : TaskStatus.PENDING;
-
-        Task task = Task.builder()
-                .id(taskId)
-                .content(input.content)
-                .status(status)
-                .parentId(input.parentId)
-                .createdAt(System.currentTimeMillis())
-                .updatedAt(System.currentTimeMillis())
-                .build();
-
-        TASKS.put(taskId, task);
+        TaskStatus status = input.status != null ? parseStatus(input.status) : TaskStatus.PENDING;
+        Task task;
+        try {
+            task = taskStore.create(input.taskId, input.content, status, input.parentId);
+        } catch (IllegalArgumentException e) {
+            return Output.builder()
+                    .success(false)
+                    .message(e.getMessage())
+                    .build();
+        }
 
         return Output.builder()
                 .success(true)
-                .message(String.format("任务已创建: %s", taskId))
-                .taskId(taskId)
+                .message(String.format("任务已创建: %s", task.getId()))
+                .taskId(task.getId())
                 .task(task)
                 .build();
     }
@@ -170,7 +185,7 @@ public class TaskTool extends AbstractTool<TaskTool.Input, TaskTool.Output> {
     /**
      * 更新任务
      */
-    private Output updateTask(Input input) {
+    private Output updateTask(Input input) throws IOException {
         if (input.taskId == null) {
             return Output.builder()
                     .success(false)
@@ -178,7 +193,8 @@ public class TaskTool extends AbstractTool<TaskTool.Input, TaskTool.Output> {
                     .build();
         }
 
-        Task task = TASKS.get(input.taskId);
+        Task task = taskStore.update(input.taskId, input.content,
+                input.status != null ? parseStatus(input.status) : null);
         if (task == null) {
             return Output.builder()
                     .success(false)
@@ -186,17 +202,6 @@ public class TaskTool extends AbstractTool<TaskTool.Input, TaskTool.Output> {
                     .build();
         }
 
-        // 更新字段
-        if (input.content != null) {
-            task.setContent(input.content);
-        }
-        if (input.status != null) {
-            task.setStatus(TaskStatus.valueOf(input.status));
-        }
-        task.setUpdatedAt(System.currentTimeMillis());
-
-        TASKS.put(task.getId(), task);
-
         return Output.builder()
                 .success(true)
                 .message(String.format("任务已更新: %s", task.getId()))
@@ -206,40 +211,43 @@ public class TaskTool extends AbstractTool<TaskTool.Input, TaskTool.Output> {
     }
 
     /**
-     * 列出所有任务
+     * 分页列出任务
      */
-    private Output listTasks() {
-        List<Task> tasks = new ArrayList<>(TASKS.values());
+    private Output listTasks(Input input) {
+        TaskStatus status = input.status != null ? parseStatus(input.status) : null;
+        int limit = input.limit != null ? input.limit : DEFAULT_LIST_LIMIT;
+        TaskPage page;
+        try {
+            page = taskStore.list(status, input.parentId, Boolean.TRUE.equals(input.recursive), input.cursor, limit);
+        } catch (IllegalArgumentException e) {
+            return Output.builder()
+                    .success(false)
+                    .message(e.getMessage())
+                    .build();
+        }
 
+        String message = page.getNextCursor() != null || input.cursor != null
+                ? String.format("共 %d 个任务，本页 %d 个", page.getTotal(), page.getTasks().size())
+                : String.format("共 %d 个任务", page.getTotal());
         return Output.builder()
                 .success(true)
-                .message(String.format("共 %d 个任务", tasks.size()))
-                .tasks(tasks)
+                .message(message)
+                .tasks(page.getTasks())
+                .total(page.getTotal())
+                .nextCursor(page.getNextCursor())
+                .statusCounts(taskStore.countByStatus())
                 .build();
     }
 
     /**
-     * 生成任务ID
+     * 解析任务状态（忽略大小写），无效时返回null
      */
-    private String generateTaskId() {
-        return "task_" + System.currentTimeMillis() + "_" +
-                (int) (Math.random() * 10000);
-    }
-
-    /**
-     * 任务实体
-     */
-    @Data
-    @Builder
-    @NoArgsConstructor
-    @AllArgsConstructor
-    public static class Task {
-        private String id;
-        private String content;
-        private TaskStatus status;
-        private String parentId;
-        private long createdAt;
-        private long updatedAt;
+    private static TaskStatus parseStatus(String status) {
+        try {
+            return TaskStatus.valueOf(status.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 
     /**
@@ -255,6 +263,21 @@ public class TaskTool extends AbstractTool<TaskTool.Input, TaskTool.Output> {
         private String content;
         private String status;
         private String parentId;
+
+        /**
+         * 列出时是否包含 parentId 的全部后代
+         */
+        private Boolean recursive;
+
+        /**
+         * 列出时的每页条数
+         */
+        private Integer limit;
+
+        /**
+         * 列出时的分页游标
+         */
+        private String cursor;
     }
 
     /**
@@ -270,5 +293,20 @@ public class TaskTool extends AbstractTool<TaskTool.Input, TaskTool.Output> {
         private String taskId;
         private Task task;
         private List<Task> tasks;
+
+        /**
+         * 列出时满足条件的任务总数
+         */
+        private Integer total;
+
+        /**
+         * 下一页游标，没有更多时为null
+         */
+        private String nextCursor;
+
+        /**
+         * 列出时全部任务按状态的计数
+         */
+        private Map<TaskStatus, Integer> statusCounts;
     }
 }
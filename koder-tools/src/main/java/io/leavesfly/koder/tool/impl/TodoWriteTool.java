@@ -1,29 +1,33 @@
 package io.leavesfly.koder.tool.impl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.leavesfly.koder.tool.*;
+import io.leavesfly.koder.tool.todo.TodoItem;
+import io.leavesfly.koder.tool.todo.TodoSnapshot;
+import io.leavesfly.koder.tool.todo.TodoStore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 
-import java.io.IOException;
-import java.nio.file.*;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * 任务列表管理工具
+ * 列表由 {@link TodoStore} 保存：只记录与上次相比的变更，写盘防抖合并
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class TodoWriteTool extends AbstractTool<TodoWriteTool.Input, TodoWriteTool.Output> {
 
-    private static final String TODO_FILE = ".koder-todos.json";
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private static final Set<String> STATUSES = Set.of(TodoItem.PENDING, TodoItem.IN_PROGRESS, TodoItem.COMPLETED);
+    private static final Set<String> PRIORITIES = Set.of("high", "medium", "low");
+
+    private final TodoStore todoStore;
 
     @Override
     public String getName() {
@@ -133,25 +137,25 @@ public class TodoWriteTool extends AbstractTool<TodoWriteTool.Input, TodoWriteTo
             // 按状态分组：completed, in_progress, pending
             List<TodoItem> sorted = new ArrayList<>(output.todos);
             sorted.sort(Comparator
-                    .comparing((TodoItem t) -> getStatusOrder(t.status))
-                    .thenComparing(t -> t.content));
+                    .comparing((TodoItem t) -> getStatusOrder(t.getStatus()))
+                    .thenComparing(TodoItem::getContent));
             
             for (TodoItem todo : sorted) {
-                String checkbox = switch (todo.status) {
+                String checkbox = switch (todo.getStatus()) {
                     case "completed" -> "☒";
                     case "in_progress" -> "☐";
                     default -> "☐";
                 };
                 
-                String symbol = switch (todo.status) {
+                String symbol = switch (todo.getStatus()) {
                     case "completed" -> "  ⎿ ";
                     case "in_progress" -> "  ⎿ ";
                     default -> "  ⎿ ";
                 };
                 
-                sb.append(symbol).append(checkbox).append(" ").append(todo.content);
+                sb.append(symbol).append(checkbox).append(" ").append(todo.getContent());
                 
-                if ("high".equals(todo.priority)) {
+                if ("high".equals(todo.getPriority())) {
                     sb.append(" [!]");
                 }
                 
@@ -181,46 +185,25 @@ public class TodoWriteTool extends AbstractTool<TodoWriteTool.Input, TodoWriteTo
                     return;
                 }
                 
-                // 保存任务列表
-                Path todoFile = getTodoFilePath();
-                objectMapper.writerWithDefaultPrettyPrinter()
-                        .writeValue(todoFile.toFile(), input.todos);
-                
-                // 生成统计信息
-                long pending = input.todos.stream()
-                        .filter(t -> "pending".equals(t.status))
-                        .count();
-                long inProgress = input.todos.stream()
-                        .filter(t -> "in_progress".equals(t.status))
-                        .count();
-                long completed = input.todos.stream()
-                        .filter(t -> "completed".equals(t.status))
-                        .count();
-                
+                // 更新任务列表（计数随变更增量维护，写盘在后台合并进行）
+                TodoSnapshot snapshot = todoStore.replace(input.todos);
+
                 log.info("任务列表已更新: {} 个任务 ({} 待处理, {} 进行中, {} 已完成)",
-                        input.todos.size(), pending, inProgress, completed);
-                
+                        snapshot.getTotal(), snapshot.getPending(), snapshot.getInProgress(), snapshot.getCompleted());
+
                 Output output = Output.builder()
                         .success(true)
-                        .todos(input.todos)
-                        .total(input.todos.size())
-                        .pending((int) pending)
-                        .inProgress((int) inProgress)
-                        .completed((int) completed)
-                        .summary(String.format("成功更新 %d 个任务", input.todos.size()))
+                        .todos(snapshot.getTodos())
+                        .total(snapshot.getTotal())
+                        .pending(snapshot.getPending())
+                        .inProgress(snapshot.getInProgress())
+                        .completed(snapshot.getCompleted())
+                        .summary(String.format("成功更新 %d 个任务", snapshot.getTotal()))
                         .build();
                 
                 sink.next(ToolResponse.result(output));
                 sink.complete();
                 
-            } catch (IOException e) {
-                log.error("保存任务列表失败", e);
-                Output output = Output.builder()
-                        .success(false)
-                        .error("文件操作失败: " + e.getMessage())
-                        .build();
-                sink.next(ToolResponse.result(output));
-                sink.complete();
             } catch (Exception e) {
                 log.error("更新任务列表失败", e);
                 sink.error(new RuntimeException("更新任务列表失败: " + e.getMessage(), e));
@@ -232,54 +215,40 @@ public class TodoWriteTool extends AbstractTool<TodoWriteTool.Input, TodoWriteTo
      * 验证任务列表
      */
     private String validateTodos(List<TodoItem> todos) {
-        // 检查重复 ID
+        // 检查重复 ID 与多个进行中的任务
         Set<String> ids = new HashSet<>();
+        int inProgressCount = 0;
         for (TodoItem todo : todos) {
-            if (!ids.add(todo.id)) {
-                return "发现重复的任务 ID: " + todo.id;
+            if (!ids.add(todo.getId())) {
+                return "发现重复的任务 ID: " + todo.getId();
+            }
+            if (TodoItem.IN_PROGRESS.equals(todo.getStatus())) {
+                inProgressCount++;
             }
         }
-        
-        // 检查多个进行中的任务
-        long inProgressCount = todos.stream()
-                .filter(t -> "in_progress".equals(t.status))
-                .count();
         if (inProgressCount > 1) {
             return "同时只能有一个任务处于 in_progress 状态";
         }
         
         // 检查每个任务
         for (TodoItem todo : todos) {
-            if (todo.content == null || todo.content.trim().isEmpty()) {
-                return String.format("任务 %s 的内容不能为空", todo.id);
+            if (todo.getId() == null || todo.getId().isBlank()) {
+                return "任务 ID 不能为空";
+            }
+            if (todo.getContent() == null || todo.getContent().trim().isEmpty()) {
+                return String.format("任务 %s 的内容不能为空", todo.getId());
             }
-            if (!List.of("pending", "in_progress", "completed").contains(todo.status)) {
-                return String.format("任务 %s 的状态无效: %s", todo.id, todo.status);
+            if (!STATUSES.contains(todo.getStatus())) {
+                return String.format("任务 %s 的状态无效: %s", todo.getId(), todo.getStatus());
             }
-            if (!List.of("high", "medium", "low").contains(todo.priority)) {
-                return String.format("任务 %s 的优先级无效: %s", todo.id, todo.priority);
+            if (!PRIORITIES.contains(todo.getPriority())) {
+                return String.format("任务 %s 的优先级无效: %s", todo.getId(), todo.getPriority());
             }
         }
         
         return null;
     }
     
-    /**
-     * 获取 TODO 文件路径
-     */
-    private Path getTodoFilePath() {
-        String userHome = System.getProperty("user.home");
-        Path koderDir = Paths.get(userHome, ".koder");
-        try {
-            if (!Files.exists(koderDir)) {
-                Files.createDirectories(koderDir);
-            }
-        } catch (IOException e) {
-            log.warn("无法创建 .koder 目录", e);
-        }
-        return koderDir.resolve(TODO_FILE);
-    }
-    
     /**
      * 获取状态排序权重
      */
@@ -291,19 +260,6 @@ public class TodoWriteTool extends AbstractTool<TodoWriteTool.Input, TodoWriteTo
         };
     }
     
-    /**
-     * 任务项
-     */
-    @Data
-    @NoArgsConstructor
-    @AllArgsConstructor
-    public static class TodoItem {
-        private String id;
-        private String content;
-        private String status;
-        private String priority;
-    }
-    
     /**
      * 输入参数
      */
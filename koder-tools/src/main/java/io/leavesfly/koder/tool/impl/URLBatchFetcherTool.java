@@ -0,0 +1,374 @@
+package io.leavesfly.koder.tool.impl;
+
+import io.leavesfly.koder.tool.*;
+import io.leavesfly.koder.tool.config.ToolProperties;
+import io.leavesfly.koder.tool.config.ToolProperties.FetchSettings;
+import io.leavesfly.koder.tool.web.HtmlTextExtractor;
+import io.leavesfly.koder.tool.web.HttpFetcher;
+import io.leavesfly.koder.tool.web.PageContentListener;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 批量URL获取工具
+ * <p>
+ * 一次调用并发获取多个URL：按主机轮转排队保证各主机公平获得并发名额，全局并发数有上限，
+ * 同一主机的连接数由共享连接池限制。每个URL完成时立即以进度事件推送结果，
+ * 单个URL有独立超时，所有URL共享一份解码后字节预算。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class URLBatchFetcherTool extends AbstractTool<URLBatchFetcherTool.Input, URLBatchFetcherTool.Output> {
+
+    /**
+     * 所有页面合计的原文字符上限（与单URL获取一致，按URL数均分）
+     */
+    private static final int MAX_TOTAL_CONTENT_LENGTH = 100 * 1024;
+
+    /**
+     * 每个页面至少保留的原文字符数
+     */
+    private static final int MIN_CONTENT_LENGTH = 8 * 1024;
+
+    /**
+     * 每个页面至少保留的文本 token 数
+     */
+    private static final long MIN_TEXT_TOKENS = 1000;
+
+    private final HttpFetcher httpFetcher;
+    private final ToolProperties properties;
+
+    @Override
+    public String getName() {
+        return "FetchURLs";
+    }
+
+    @Override
+    public String getDescription() {
+        return "并发获取多个URL的网页内容。支持HTTP和HTTPS协议。";
+    }
+
+    @Override
+    public String getPrompt(boolean safeMode) {
+        return "需要同时查看多个网页时使用此工具，一次调用并发获取所有URL，比逐个调用FetchURL快得多。"
+                + "每个URL完成后立即返回其结果，单个URL失败或超时不影响其他URL。"
+                + "HTML页面默认转换为精简的Markdown文本，需要原始内容时设置raw为true。"
+                + "单次最多 " + properties.getFetch().getBatchMaxUrls() + " 个URL。";
+    }
+
+    @Override
+    public Map<String, Object> getInputSchema() {
+        Map<String, Object> schema = schema()
+                .addProperty("urls", "array", "要获取的URL列表（必须是http或https）")
+                .addBooleanProperty("raw", "是否返回原始内容（可选，默认把HTML页面转换为精简的Markdown文本）")
+                .addNumberProperty("timeout", "单个URL的超时时间（毫秒，可选）")
+                .required("urls")
+                .build();
+        @SuppressWarnings("unchecked")
+        Map<String, Object> props = (Map<String, Object>) schema.get("properties");
+        @SuppressWarnings("unchecked")
+        Map<String, Object> urls = (Map<String, Object>) props.get("urls");
+        urls.put("items", Map.of("type", "string"));
+        return schema;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public boolean isConcurrencySafe() {
+        return true;
+    }
+
+    @Override
+    public boolean needsPermissions(Input input) {
+        return false;
+    }
+
+    @Override
+    public ValidationResult validateInput(Input input, ToolUseContext context) {
+        if (input.urls == null || input.urls.isEmpty()) {
+            return ValidationResult.failure("URL列表不能为空");
+        }
+
+        int maxUrls = properties.getFetch().getBatchMaxUrls();
+        if (input.urls.size() > maxUrls) {
+            return ValidationResult.failure("URL数量超过上限: " + input.urls.size() + " > " + maxUrls);
+        }
+
+        for (String url : input.urls) {
+            if (url == null || (!url.startsWith("http://") && !url.startsWith("https://"))) {
+                return ValidationResult.failure("URL必须以http://或https://开头: " + url);
+            }
+        }
+
+        if (input.timeout != null && input.timeout <= 0) {
+            return ValidationResult.failure("超时时间必须大于0");
+        }
+
+        return ValidationResult.success();
+    }
+
+    @Override
+    public String renderToolUseMessage(Input input, boolean verbose) {
+        if (verbose || input.urls.size() <= 3) {
+            return String.format("urls: %s", String.join(", ", input.urls));
+        }
+        return String.format("urls: %s 等 %d 个", String.join(", ", input.urls.subList(0, 3)), input.urls.size());
+    }
+
+    @Override
+    public String renderToolResultMessage(Output output) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("批量获取完成: 成功 %d 个, 失败 %d 个", output.succeeded, output.failed));
+        if (output.budgetExhausted) {
+            sb.append("（共享字节预算已用尽）");
+        }
+        for (Item item : output.results) {
+            sb.append("\n  ").append(renderItem(item));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String renderResultForAssistant(Output output) {
+        StringBuilder sb = new StringBuilder();
+        for (Item item : output.results) {
+            sb.append("=== ").append(item.url).append(" ===\n");
+            if (item.error != null) {
+                sb.append("获取失败: ").append(item.error).append("\n\n");
+                continue;
+            }
+            sb.append("状态码: ").append(item.statusCode);
+            if (item.contentType != null) {
+                sb.append(", 类型: ").append(item.contentType);
+            }
+            sb.append("\n").append(item.content).append("\n\n");
+        }
+        return sb.toString().trim();
+    }
+
+    @Override
+    public Flux<ToolResponse<Output>> call(Input input, ToolUseContext context) {
+        return Flux.create(sink -> {
+            FetchSettings settings = properties.getFetch();
+            boolean raw = Boolean.TRUE.equals(input.raw);
+            int count = input.urls.size();
+            int maxChars = Math.max(MAX_TOTAL_CONTENT_LENGTH / count, MIN_CONTENT_LENGTH);
+            long maxTokens = Math.max(settings.getMaxTextTokens() / count, MIN_TEXT_TOKENS);
+            Duration timeout = Duration.ofMillis(input.timeout != null
+                    ? input.timeout : settings.getBatchUrlTimeoutMs());
+            AtomicLong budget = new AtomicLong(settings.getBatchMaxBytes());
+            Item[] results = new Item[count];
+
+            Disposable batch = Flux.fromIterable(fairOrder(input.urls))
+                    .flatMap(index -> fetchOne(input.urls.get(index), raw, maxChars, maxTokens, budget, timeout)
+                                    .map(item -> {
+                                        results[index] = item;
+                                        return item;
+                                    }),
+                            Math.max(settings.getBatchConcurrency(), 1))
+                    .subscribe(item -> sink.next(ToolResponse.progress(item)),
+                            e -> {
+                                log.error("批量URL获取失败", e);
+                                sink.error(new RuntimeException("批量URL获取失败: " + e.getMessage(), e));
+                            },
+                            () -> {
+                                List<Item> items = Arrays.asList(results);
+                                int succeeded = (int) items.stream().filter(Item::isSuccess).count();
+                                Output output = Output.builder()
+                                        .results(items)
+                                        .succeeded(succeeded)
+                                        .failed(count - succeeded)
+                                        .budgetExhausted(budget.get() <= 0)
+                                        .build();
+                                sink.next(ToolResponse.result(output));
+                                sink.complete();
+
+                                log.info("批量URL获取完成: 成功 {} 个, 失败 {} 个", succeeded, count - succeeded);
+                            });
+            sink.onDispose(batch);
+        });
+    }
+
+    /**
+     * 获取单个URL，失败与超时转换为带错误信息的结果
+     */
+    private Mono<Item> fetchOne(String url, boolean raw, int maxChars, long maxTokens,
+                                AtomicLong budget, Duration timeout) {
+        return Mono.defer(() -> {
+                    if (budget.get() <= 0) {
+                        return Mono.just(failedItem(url, "共享字节预算已用尽，未获取"));
+                    }
+                    PageContentListener page = new PageContentListener(raw, maxChars,
+                            new HtmlTextExtractor(maxTokens, url), budget);
+                    return httpFetcher.fetch(url, properties.getFetch().getMaxBodyBytes(), page)
+                            .timeout(timeout)
+                            .map(result -> {
+                                String content = page.getContent();
+                                if (page.isBudgetExhausted()) {
+                                    content = content + "\n... (内容被截断，共享字节预算已用尽)";
+                                } else if (page.isTruncated() || result.isTruncated() && !page.isExtracted()) {
+                                    content = content + "\n... (内容被截断，超过最大长度)";
+                                }
+                                return Item.builder()
+                                        .url(url)
+                                        .statusCode(result.getStatusCode())
+                                        .content(content)
+                                        .contentType(result.getContentType())
+                                        .success(result.getStatusCode() >= 200 && result.getStatusCode() < 300)
+                                        .cached(result.isFromCache() || result.isRevalidated())
+                                        .extracted(page.isExtracted())
+                                        .build();
+                            });
+                })
+                .onErrorResume(e -> {
+                    String message = e instanceof TimeoutException
+                            ? "超时（" + timeout.toMillis() + "ms）"
+                            : e.getMessage();
+                    log.warn("URL获取失败: {}, {}", url, message);
+                    return Mono.just(failedItem(url, message));
+                });
+    }
+
+    /**
+     * 按主机轮转排列URL下标：每轮从每个主机各取一个，避免单个主机的大量URL占满并发名额
+     */
+    static List<Integer> fairOrder(List<String> urls) {
+        Map<String, Deque<Integer>> byHost = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            byHost.computeIfAbsent(hostOf(urls.get(i)), k -> new ArrayDeque<>()).add(i);
+        }
+
+        List<Integer> order = new ArrayList<>(urls.size());
+        while (order.size() < urls.size()) {
+            for (Deque<Integer> queue : byHost.values()) {
+                Integer next = queue.poll();
+                if (next != null) {
+                    order.add(next);
+                }
+            }
+        }
+        return order;
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host.toLowerCase(Locale.ROOT) : url;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    private static Item failedItem(String url, String error) {
+        return Item.builder()
+                .url(url)
+                .content("")
+                .error(error)
+                .build();
+    }
+
+    private static String renderItem(Item item) {
+        if (item.error != null) {
+            return String.format("✗ %s: %s", item.url, item.error);
+        }
+        return String.format("%s %s (%d 字节, 状态码: %d)%s", item.success ? "✓" : "✗",
+                item.url, item.content.length(), item.statusCode, item.cached ? " [缓存]" : "");
+    }
+
+    /**
+     * 输入参数
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Input {
+        private List<String> urls;
+
+        /**
+         * 是否返回原始内容（不提取HTML文本）
+         */
+        private Boolean raw;
+
+        /**
+         * 单个URL的超时时间（毫秒）
+         */
+        private Integer timeout;
+    }
+
+    /**
+     * 单个URL的获取结果（完成时以进度事件推送）
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private String url;
+        private int statusCode;
+        private String content;
+        private String contentType;
+        private boolean success;
+
+        /**
+         * 内容是否来自HTTP缓存
+         */
+        private boolean cached;
+
+        /**
+         * 内容是否为从HTML提取的文本
+         */
+        private boolean extracted;
+
+        /**
+         * 获取失败的原因（成功时为null）
+         */
+        private String error;
+
+        @Override
+        public String toString() {
+            return renderItem(this);
+        }
+    }
+
+    /**
+     * 输出结果
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Output {
+        /**
+         * 各URL的结果（与输入顺序一致）
+         */
+        private List<Item> results;
+
+        private int succeeded;
+        private int failed;
+
+        /**
+         * 共享字节预算是否已用尽
+         */
+        private boolean budgetExhausted;
+    }
+}
@@ -1,18 +1,20 @@
 package io.leavesfly.koder.tool.impl;
 
 import io.leavesfly.koder.tool.*;
+import io.leavesfly.koder.tool.config.ToolProperties;
+import io.leavesfly.koder.tool.web.HtmlTextExtractor;
+import io.leavesfly.koder.tool.web.HttpFetcher;
+import io.leavesfly.koder.tool.web.PageContentListener;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.util.Map;
 
 /**
@@ -21,10 +23,13 @@ import java.util.Map;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class URLFetcherTool extends AbstractTool<URLFetcherTool.Input, URLFetcherTool.Output> {
 
     private static final int MAX_CONTENT_LENGTH = 100 * 1024; // 100KB
-    private static final int TIMEOUT_MS = 10000; // 10秒
+
+    private final HttpFetcher httpFetcher;
+    private final ToolProperties properties;
 
     @Override
     public String getName() {
@@ -38,13 +43,15 @@ public class URLFetcherTool extends AbstractTool<URLFetcherTool.Input, URLFetche
 
     @Override
     public String getPrompt(boolean safeMode) {
-        return "使用此工具从URL获取网页内容。仅支持公开可访问的URL。";
+        return "使用此工具从URL获取网页内容。仅支持公开可访问的URL。"
+                + "HTML页面默认转换为精简的Markdown文本（去除脚本、样式与导航等内容），需要原始HTML时设置raw为true。";
     }
 
     @Override
     public Map<String, Object> getInputSchema() {
         return schema()
                 .addStringProperty("url", "要获取的URL地址（必须是http或https）")
+                .addBooleanProperty("raw", "是否返回原始内容（可选，默认把HTML页面转换为精简的Markdown文本）")
                 .required("url")
                 .build();
     }
@@ -84,62 +91,43 @@ public class URLFetcherTool extends AbstractTool<URLFetcherTool.Input, URLFetche
 
     @Override
     public String renderToolResultMessage(Output output) {
-        return String.format("获取成功: %s (%d 字节, 状态码: %d)",
-                output.url, output.content.length(), output.statusCode);
+        return String.format("获取成功: %s (%d 字节, 状态码: %d)%s",
+                output.url, output.content.length(), output.statusCode, output.cached ? " [缓存]" : "");
     }
 
     @Override
     public Flux<ToolResponse<Output>> call(Input input, ToolUseContext context) {
         return Flux.create(sink -> {
-            try {
-                URL url = new URL(input.url);
-                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-
-                connection.setRequestMethod("GET");
-                connection.setConnectTimeout(TIMEOUT_MS);
-                connection.setReadTimeout(TIMEOUT_MS);
-                connection.setRequestProperty("User-Agent",
-                        "Koder-Bot/1.0 (Java HTTP Client)");
-
-                int statusCode = connection.getResponseCode();
-                StringBuilder content = new StringBuilder();
-
-                try (BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(
-                                statusCode >= 400 ?
-                                        connection.getErrorStream() :
-                                        connection.getInputStream()))) {
-
-                    String line;
-                    int totalLength = 0;
-
-                    while ((line = reader.readLine()) != null) {
-                        totalLength += line.length();
-                        if (totalLength > MAX_CONTENT_LENGTH) {
-                            content.append("\n... (内容被截断，超过最大长度)");
-                            break;
+            boolean raw = Boolean.TRUE.equals(input.raw);
+            PageContentListener page = new PageContentListener(raw, MAX_CONTENT_LENGTH,
+                    new HtmlTextExtractor(properties.getFetch().getMaxTextTokens(), input.url));
+            Disposable request = httpFetcher.fetch(input.url, properties.getFetch().getMaxBodyBytes(), page)
+                    .subscribe(result -> {
+                        String content = page.getContent();
+                        if (page.isTruncated() || result.isTruncated() && !page.isExtracted()) {
+                            content = content + "\n... (内容被截断，超过最大长度)";
                         }
-                        content.append(line).append("\n");
-                    }
-                }
-
-                Output output = Output.builder()
-                        .url(input.url)
-                        .statusCode(statusCode)
-                        .content(content.toString())
-                        .contentType(connection.getContentType())
-                        .success(statusCode >= 200 && statusCode < 300)
-                        .build();
-
-                sink.next(ToolResponse.result(output));
-                sink.complete();
-
-                log.info("URL获取完成: {}, 状态码: {}", input.url, statusCode);
-
-            } catch (Exception e) {
-                log.error("URL获取失败: {}", input.url, e);
-                sink.error(new RuntimeException("URL获取失败: " + e.getMessage(), e));
-            }
+
+                        Output output = Output.builder()
+                                .url(input.url)
+                                .statusCode(result.getStatusCode())
+                                .content(content)
+                                .contentType(result.getContentType())
+                                .success(result.getStatusCode() >= 200 && result.getStatusCode() < 300)
+                                .cached(result.isFromCache() || result.isRevalidated())
+                                .extracted(page.isExtracted())
+                                .build();
+
+                        sink.next(ToolResponse.result(output));
+                        sink.complete();
+
+                        log.info("URL获取完成: {}, 状态码: {}{}", input.url, result.getStatusCode(),
+                                output.cached ? "（缓存）" : "");
+                    }, e -> {
+                        log.error("URL获取失败: {}", input.url, e);
+                        sink.error(new RuntimeException("URL获取失败: " + e.getMessage(), e));
+                    });
+            sink.onDispose(request);
         });
     }
 
@@ -152,6 +140,11 @@ public class URLFetcherTool extends AbstractTool<URLFetcherTool.Input, URLFetche
     @AllArgsConstructor
     public static class Input {
         private String url;
+
+        /**
+         * 是否返回原始内容（不提取HTML文本）
+         */
+        private Boolean raw;
     }
 
     /**
@@ -167,5 +160,15 @@ public class URLFetcherTool extends AbstractTool<URLFetcherTool.Input, URLFetche
         private String content;
         private String contentType;
         private boolean success;
+
+        /**
+         * 内容是否来自HTTP缓存
+         */
+        private boolean cached;
+
+        /**
+         * 内容是否为从HTML提取的文本
+         */
+        private boolean extracted;
     }
 }
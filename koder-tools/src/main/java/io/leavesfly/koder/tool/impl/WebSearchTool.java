@@ -1,26 +1,34 @@
 package io.leavesfly.koder.tool.impl;
 
 import io.leavesfly.koder.tool.*;
+import io.leavesfly.koder.tool.search.SearchService;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 /**
  * 网络搜索工具
- * 模拟搜索引擎功能（实际应用需要集成真实搜索API）
+ * 通过 {@link SearchService} 调用配置的搜索后端（结果缓存、相同查询合并与限流由服务统一处理）
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class WebSearchTool extends AbstractTool<WebSearchTool.Input, WebSearchTool.Output> {
 
+    private static final int DEFAULT_MAX_RESULTS = 5;
+    private static final int MAX_RESULTS_LIMIT = 20;
+
+    private final SearchService searchService;
+
     @Override
     public String getName() {
         return "WebSearch";
@@ -36,9 +44,9 @@ public class WebSearchTool extends AbstractTool<WebSearchTool.Input, WebSearchTo
         return """
                 使用此工具在网络上搜索信息：
                 - query: 搜索查询（必需）
-                - max_results: 最大结果数（可选，默认5）
+                - max_results: 最大结果数（可选，默认5，最多20）
                 
-                注意：当前为模拟实现，实际应用需要集成搜索API。
+                相同或仅写法不同的查询会直接返回缓存结果，无需为此改写查询。
                 """;
     }
 
@@ -66,6 +74,19 @@ public class WebSearchTool extends AbstractTool<WebSearchTool.Input, WebSearchTo
         return false;
     }
 
+    @Override
+    public ValidationResult validateInput(Input input, ToolUseContext context) {
+        if (input.query == null || input.query.isBlank()) {
+            return ValidationResult.failure("搜索查询不能为空");
+        }
+
+        if (input.maxResults != null && (input.maxResults < 1 || input.maxResults > MAX_RESULTS_LIMIT)) {
+            return ValidationResult.failure("最大结果数必须在1到" + MAX_RESULTS_LIMIT + "之间");
+        }
+
+        return ValidationResult.success();
+    }
+
     @Override
     public String renderToolUseMessage(Input input, boolean verbose) {
         return String.format("query: %s", input.query);
@@ -74,7 +95,7 @@ public class WebSearchTool extends AbstractTool<WebSearchTool.Input, WebSearchTo
     @Override
     public String renderToolResultMessage(Output output) {
         StringBuilder sb = new StringBuilder();
-        sb.append(String.format("找到 %d 个结果:\n", output.results.size()));
+        sb.append(String.format("找到 %d 个结果%s:\n", output.results.size(), output.cached ? " [缓存]" : ""));
 
         for (int i = 0; i < Math.min(output.results.size(), 3); i++) {
             SearchResult result = output.results.get(i);
@@ -92,94 +113,38 @@ public class WebSearchTool extends AbstractTool<WebSearchTool.Input, WebSearchTo
     @Override
     public Flux<ToolResponse<Output>> call(Input input, ToolUseContext context) {
         return Flux.create(sink -> {
-            try {
-                // 集成实际的搜索API
-                // 
-                // 可选的搜索API集成方案:
-                //
-                // 1. Google Custom Search API
-                //    - 需要: Google API Key + Search Engine ID
-                //    - 配置: application.properties 或环境变量
-                //    - 示例: 
-                //      String apiKey = config.getGoogleApiKey();
-                //      String searchEngineId = config.getGoogleSearchEngineId();
-                //      String url = String.format(
-                //          "https://www.googleapis.com/customsearch/v1?key=%s&cx=%s&q=%s",
-                //          apiKey, searchEngineId, URLEncoder.encode(input.query, "UTF-8")
-                //      );
-                //
-                // 2. Bing Search API
-                //    - 需要: Azure Cognitive Services API Key
-                //    - 示例:
-                //      WebClient client = WebClient.builder()
-                //          .baseUrl("https://api.bing.microsoft.com/v7.0/search")
-                //          .defaultHeader("Ocp-Apim-Subscription-Key", apiKey)
-                //          .build();
-                //
-                // 3. DuckDuckGo Instant Answer API
-                //    - 免费，无需API Key
-                //    - URL: https://api.duckduckgo.com/?q={query}&format=json
-                //
-                // 4. SerpAPI
-                //    - 封装多种搜索引擎的统一API
-                //    - 支持 Google, Bing, Baidu 等
-                //
-                // 实现建议:
-                // - 使用 WebClient 进行 HTTP 请求
-                // - 配置超时和重试机制
-                // - 缓存搜索结果（避免API限制）
-                // - 解析JSON响应并提取标题、URL、摘要
-                //
-                // 目前使用模拟数据，待集成搜索API后替换
-                
-                int maxResults = input.maxResults != null ? input.maxResults : 5;
-                List<SearchResult> results = generateMockResults(input.query, maxResults);
-
-                Output output = Output.builder()
-                        .query(input.query)
-                        .results(results)
-                        .totalResults(results.size())
-                        .build();
-
-                sink.next(ToolResponse.result(output));
-                sink.complete();
-
-                log.info("网络搜索完成: query={}, results={}", input.query, results.size());
-
-            } catch (Exception e) {
-                log.error("网络搜索失败: {}", input.query, e);
-                sink.error(new RuntimeException("网络搜索失败: " + e.getMessage(), e));
-            }
+            int maxResults = input.maxResults != null ? input.maxResults : DEFAULT_MAX_RESULTS;
+            Disposable request = searchService.search(input.query, maxResults)
+                    .subscribe(response -> {
+                        List<SearchResult> results = response.getHits().stream()
+                                .map(hit -> SearchResult.builder()
+                                        .title(hit.getTitle())
+                                        .url(hit.getUrl())
+                                        .snippet(hit.getSnippet())
+                                        .build())
+                                .toList();
+
+                        Output output = Output.builder()
+                                .query(input.query)
+                                .results(results)
+                                .totalResults(results.size())
+                                .backend(response.getBackend())
+                                .cached(response.isCached() || response.isCoalesced())
+                                .build();
+
+                        sink.next(ToolResponse.result(output));
+                        sink.complete();
+
+                        log.info("网络搜索完成: query={}, results={}, backend={}{}", input.query, results.size(),
+                                response.getBackend(), output.cached ? "（缓存）" : "");
+                    }, e -> {
+                        log.error("网络搜索失败: {}", input.query, e);
+                        sink.error(new RuntimeException("网络搜索失败: " + e.getMessage(), e));
+                    });
+            sink.onDispose(request);
         });
     }
 
-    /**
-     * 生成模拟搜索结果
-     * 此方法将在集成搜索API后被替换
-     */
-    private List<SearchResult> generateMockResults(String query, int maxResults) {
-        List<SearchResult> results = new ArrayList<>();
-
-        for (int i = 0; i < Math.min(maxResults, 5); i++) {
-            SearchResult result = SearchResult.builder()
-                    .title(String.format("搜索结果 %d: %s", i + 1, query))
-                    .url(String.format("https://example.com/result%d", i + 1))
-                    .snippet(String.format("这是关于 '%s' 的搜索结果摘要 %d。" +
-                            "包含相关信息和描述...", query, i + 1))
-                    .build();
-            results.add(result);
-        }
-        
-        // 添加模拟标记
-        if (!results.isEmpty()) {
-            SearchResult firstResult = results.get(0);
-            firstResult.setSnippet(firstResult.getSnippet() + 
-                    "\n\n⚠️ 注意: 这是模拟数据。集成搜索API后将返回真实结果。");
-        }
-
-        return results;
-    }
-
     /**
      * 搜索结果项
      */
@@ -216,5 +181,15 @@ public class WebSearchTool extends AbstractTool<WebSearchTool.Input, WebSearchTo
         private String query;
         private List<SearchResult> results;
         private int totalResults;
+
+        /**
+         * 执行搜索的后端
+         */
+        private String backend;
+
+        /**
+         * 结果是否来自缓存（或合并到了进行中的相同查询）
+         */
+        private boolean cached;
     }
 }
@@ -0,0 +1,176 @@
+package io.leavesfly.koder.tool.memory;
+
+import java.util.*;
+
+/**
+ * BM25 全文索引（非线程安全，由 {@link MemoryIndex} 管理）
+ * <p>
+ * 每篇文档分配一个递增的序号，词项的倒排列表见 {@link PostingList}。
+ * 更新文档时旧序号作废、新内容追加为新序号；作废的序号过多时由调用方重建索引。
+ */
+final class Bm25Index {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> ids = new ArrayList<>();
+    private int[] lengths = new int[64];
+    private long[] timestamps = new long[64];
+    private long totalLength;
+    private int removed;
+
+    /**
+     * 添加文档
+     *
+     * @param id          文档ID（不能已存在）
+     * @param timestamp   文档时间戳
+     * @param frequencies 词项 → 加权词频
+     */
+    void add(String id, long timestamp, Map<String, Integer> frequencies) {
+        int ordinal = ids.size();
+        ids.add(id);
+        ordinals.put(id, ordinal);
+
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), k -> new PostingList()).add(ordinal, entry.getValue());
+            length += entry.getValue();
+        }
+        if (ordinal >= lengths.length) {
+            lengths = Arrays.copyOf(lengths, lengths.length * 2);
+            timestamps = Arrays.copyOf(timestamps, timestamps.length * 2);
+        }
+        lengths[ordinal] = length;
+        timestamps[ordinal] = timestamp;
+        totalLength += length;
+    }
+
+    /**
+     * 删除文档
+     *
+     * @param id    文档ID
+     * @param terms 该文档的词项（与添加时一致）
+     */
+    void remove(String id, Set<String> terms) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal == null) {
+            return;
+        }
+        ids.set(ordinal, null);
+        totalLength -= lengths[ordinal];
+        removed++;
+        for (String term : terms) {
+            PostingList list = postings.get(term);
+            if (list != null) {
+                list.markRemoved();
+                if (list.getLiveDocs() == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    /**
+     * 文档的序号，不存在时返回 -1
+     */
+    int ordinal(String id) {
+        Integer ordinal = ordinals.get(id);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * 序号对应的文档ID
+     */
+    String id(int ordinal) {
+        return ids.get(ordinal);
+    }
+
+    /**
+     * 序号对应的文档时间戳
+     */
+    long timestamp(int ordinal) {
+        return timestamps[ordinal];
+    }
+
+    /**
+     * 序号上限（所有序号都小于该值）
+     */
+    int ordinalLimit() {
+        return ids.size();
+    }
+
+    /**
+     * 分数接收者
+     */
+    @FunctionalInterface
+    interface ScoreConsumer {
+        void accept(int ordinal, double score);
+    }
+
+    /**
+     * 作废的序号是否已多于存活文档（此时应重建）
+     */
+    boolean needsRebuild() {
+        return removed > 1024 && removed > ordinals.size();
+    }
+
+    /**
+     * 计算包含任一查询词项的文档的 BM25 分数
+     *
+     * @param terms    查询词项（去重）
+     * @param consumer 接收 (文档序号, 分数)，每篇文档回调一次
+     */
+    void score(Collection<String> terms, ScoreConsumer consumer) {
+        int docs = ordinals.size();
+        if (docs == 0) {
+            return;
+        }
+        double averageLength = Math.max((double) totalLength / docs, 1);
+
+        double[] scores = new double[ids.size()];
+        int[] touched = new int[64];
+        int touchedCount = 0;
+        for (String term : terms) {
+            PostingList list = postings.get(term);
+            if (list == null) {
+                continue;
+            }
+            int df = list.getLiveDocs();
+            double idf = Math.log(1 + (docs - df + 0.5) / (df + 0.5));
+            PostingList.Cursor cursor = list.cursor();
+            while (cursor.next()) {
+                int doc = cursor.doc();
+                if (ids.get(doc) == null) {
+                    continue;
+                }
+                if (scores[doc] == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touched.length * 2);
+                    }
+                    touched[touchedCount++] = doc;
+                }
+                int frequency = cursor.frequency();
+                double norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+                scores[doc] += idf * frequency * (K1 + 1) / (frequency + norm);
+            }
+        }
+
+        for (int i = 0; i < touchedCount; i++) {
+            int doc = touched[i];
+            consumer.accept(doc, scores[doc]);
+        }
+    }
+
+    /**
+     * 倒排列表占用的总字节数
+     */
+    long getPostingBytes() {
+        long bytes = 0;
+        for (PostingList list : postings.values()) {
+            bytes += list.getSizeInBytes();
+        }
+        return bytes;
+    }
+}
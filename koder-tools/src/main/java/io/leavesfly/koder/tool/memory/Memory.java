@@ -0,0 +1,37 @@
+package io.leavesfly.koder.tool.memory;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 记忆实体
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class Memory {
+    private String id;
+    private String title;
+    private String content;
+    private List<String> tags;
+    private long timestamp;
+    private Map<String, Object> metadata;
+
+    /**
+     * 复制一份（标签与元数据同样复制），避免调用方修改存储中的对象
+     */
+    public Memory copy() {
+        return toBuilder()
+                .tags(tags != null ? new ArrayList<>(tags) : new ArrayList<>())
+                .metadata(metadata != null ? new HashMap<>(metadata) : new HashMap<>())
+                .build();
+    }
+}
@@ -0,0 +1,29 @@
+package io.leavesfly.koder.tool.memory;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 记忆日志记录：写入完整记忆或删除记忆（按ID幂等，重复回放结果不变）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemoryEvent {
+
+    public static final String PUT = "put";
+    public static final String DELETE = "delete";
+
+    private String type;
+    private String id;
+    private Memory memory;
+
+    public static MemoryEvent put(Memory memory) {
+        return new MemoryEvent(PUT, memory.getId(), memory);
+    }
+
+    public static MemoryEvent delete(String id) {
+        return new MemoryEvent(DELETE, id, null);
+    }
+}
@@ -0,0 +1,382 @@
+package io.leavesfly.koder.tool.memory;
+
+import io.leavesfly.koder.tool.search.TextTokenizer;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+
+/**
+ * 记忆的内存索引（非线程安全，由 {@link MemoryStore} 加锁访问）
+ * <p>
+ * - 倒排索引：标题、内容与标签的词项 → 记忆ID，按词项有序存放，查询词作为前缀匹配
+ * - 标签索引：小写标签 → 记忆ID
+ * - 时间线：按 (时间戳, ID) 排序的跳表，最近的记忆直接从尾部取出
+ * - BM25 索引：按相关度排序检索，叠加标签加权与时间衰减（见 {@link Bm25Index}）
+ */
+final class MemoryIndex {
+
+    /**
+     * 最近的排在前面；时间戳相同按ID倒序（与时间线一致）
+     */
+    private static final Comparator<Memory> RECENCY = Comparator.comparingLong(Memory::getTimestamp)
+            .thenComparing(Memory::getId)
+            .reversed();
+
+    /**
+     * 一个查询词最多按多少个倒排集合分别检查，超过时合并为一个集合
+     */
+    private static final int MAX_UNION_SETS = 16;
+
+    /**
+     * 标题中词项的词频权重
+     */
+    private static final int TITLE_WEIGHT = 2;
+
+    /**
+     * 每个与查询相符的标签带来的分数加成
+     */
+    private static final double TAG_BOOST = 0.5;
+
+    /**
+     * 时间衰减在分数中所占的比重（最旧的记忆仍保留 1 - RECENCY_WEIGHT 的分数）
+     */
+    private static final double RECENCY_WEIGHT = 0.3;
+
+    private final Map<String, Memory> byId = new HashMap<>();
+    private final NavigableMap<String, Set<String>> terms = new TreeMap<>();
+    private final Map<String, Set<String>> byTag = new HashMap<>();
+    private final NavigableSet<TimeKey> timeline = new ConcurrentSkipListSet<>();
+    private Bm25Index bm25 = new Bm25Index();
+
+    int size() {
+        return byId.size();
+    }
+
+    Memory get(String id) {
+        return byId.get(id);
+    }
+
+    Collection<Memory> values() {
+        return byId.values();
+    }
+
+    void put(Memory memory) {
+        remove(memory.getId());
+        byId.put(memory.getId(), memory);
+        Map<String, Integer> frequencies = termFrequencies(memory);
+        for (String term : frequencies.keySet()) {
+            terms.computeIfAbsent(term, k -> new HashSet<>()).add(memory.getId());
+        }
+        bm25.add(memory.getId(), memory.getTimestamp(), frequencies);
+        for (String tag : tagsOf(memory)) {
+            byTag.computeIfAbsent(tag, k -> new HashSet<>()).add(memory.getId());
+        }
+        timeline.add(new TimeKey(memory.getTimestamp(), memory.getId()));
+        if (bm25.needsRebuild()) {
+            rebuildBm25();
+        }
+    }
+
+    Memory remove(String id) {
+        Memory memory = byId.remove(id);
+        if (memory == null) {
+            return null;
+        }
+        Set<String> memoryTerms = termFrequencies(memory).keySet();
+        for (String term : memoryTerms) {
+            removeFrom(terms, term, id);
+        }
+        bm25.remove(id, memoryTerms);
+        if (bm25.needsRebuild()) {
+            rebuildBm25();
+        }
+        for (String tag : tagsOf(memory)) {
+            removeFrom(byTag, tag, id);
+        }
+        timeline.remove(new TimeKey(memory.getTimestamp(), id));
+        return memory;
+    }
+
+    /**
+     * 按时间倒序返回最多 limit 条满足条件的记忆
+     * <p>
+     * 每个过滤条件（每个查询词、整组标签）对应若干倒排集合的并集，不复制集合。
+     * 命中较多时沿时间线逐条检查，取够 limit 条即停；
+     * 否则只展开最小的条件，用其余条件筛选后以堆选出最近的 limit 条。
+     *
+     * @param query 查询（每个词项都须作为前缀命中，可为null）
+     * @param tags  标签（命中任意一个即可，可为null）
+     * @param limit 最大条数
+     */
+    List<Memory> recent(String query, List<String> tags, int limit) {
+        List<Condition> conditions = conditions(query, tags);
+        if (conditions.isEmpty()) {
+            return takeRecent(id -> true, limit);
+        }
+        conditions.sort(Comparator.comparingLong(Condition::estimate));
+        Condition smallest = conditions.get(0);
+        if (smallest.estimate() == 0 || limit == 0) {
+            return List.of();
+        }
+
+        Predicate<String> matchesAll = id -> {
+            for (Condition condition : conditions) {
+                if (!condition.contains(id)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+        // 按条件相互独立估算：沿时间线需要走 limit / 联合命中率 步，展开最小条件需要检查其全部成员
+        double selectivity = 1;
+        for (Condition condition : conditions) {
+            selectivity *= Math.min(1.0, (double) condition.estimate() / byId.size());
+        }
+        if (limit / selectivity < smallest.estimate()) {
+            return takeRecent(matchesAll, limit);
+        }
+
+        Set<String> candidates = new HashSet<>();
+        for (Set<String> ids : smallest.sets()) {
+            for (String id : ids) {
+                if (matchesAll.test(id)) {
+                    candidates.add(id);
+                }
+            }
+        }
+        return topByTimestamp(candidates, limit);
+    }
+
+    /**
+     * 把查询词与标签转换为过滤条件，没有任何过滤条件时返回空列表
+     */
+    private List<Condition> conditions(String query, List<String> tags) {
+        List<Condition> conditions = new ArrayList<>();
+        if (tags != null && !tags.isEmpty()) {
+            List<Set<String>> sets = new ArrayList<>();
+            for (String tag : new LinkedHashSet<>(tags)) {
+                Set<String> ids = byTag.get(normalizeTag(tag));
+                if (ids != null) {
+                    sets.add(ids);
+                }
+            }
+            conditions.add(new Condition(sets));
+        }
+        if (query != null && !query.isBlank()) {
+            for (String token : new LinkedHashSet<>(TextTokenizer.tokenize(query))) {
+                Collection<Set<String>> matches = terms.subMap(token, token + Character.MAX_VALUE).values();
+                if (matches.size() > MAX_UNION_SETS) {
+                    // 前缀过短、命中的词项太多时先合并，避免逐条检查时遍历大量集合
+                    Set<String> union = new HashSet<>();
+                    matches.forEach(union::addAll);
+                    conditions.add(new Condition(List.of(union)));
+                } else {
+                    conditions.add(new Condition(new ArrayList<>(matches)));
+                }
+            }
+        }
+        return conditions;
+    }
+
+    /**
+     * 按相关度返回最多 limit 条记忆
+     * <p>
+     * 分数 = BM25 × (1 + 标签加成 × 与查询相符的标签数) × 时间衰减，
+     * 时间衰减为 (1 - w) + w × 2^(-距今时长 / 半衰期)。只对命中查询词的记忆打分，以堆选出前 limit 条。
+     *
+     * @param query          查询
+     * @param tags           标签（命中任意一个即可，可为null）
+     * @param limit          最大条数
+     * @param now            当前时间（毫秒）
+     * @param halfLifeMillis 时间衰减的半衰期（毫秒，不大于0表示不衰减）
+     */
+    List<Memory> ranked(String query, List<String> tags, int limit, long now, long halfLifeMillis) {
+        Set<String> queryTerms = new LinkedHashSet<>(TextTokenizer.tokenize(query));
+        if (queryTerms.isEmpty()) {
+            return recent(null, tags, limit);
+        }
+        if (limit == 0) {
+            return List.of();
+        }
+
+        // 标签过滤与标签加成都按序号预先计算，打分循环中不访问记忆对象
+        BitSet allowed = null;
+        if (tags != null && !tags.isEmpty()) {
+            allowed = new BitSet(bm25.ordinalLimit());
+            for (String tag : new LinkedHashSet<>(tags)) {
+                markOrdinals(byTag.get(normalizeTag(tag)), allowed);
+            }
+        }
+        int[] matchedTags = null;
+        String normalizedQuery = query.toLowerCase(Locale.ROOT);
+        for (Map.Entry<String, Set<String>> entry : byTag.entrySet()) {
+            String tag = entry.getKey();
+            if (tag.isEmpty() || !(queryTerms.contains(tag) || normalizedQuery.contains(tag))) {
+                continue;
+            }
+            if (matchedTags == null) {
+                matchedTags = new int[bm25.ordinalLimit()];
+            }
+            for (String id : entry.getValue()) {
+                int ordinal = bm25.ordinal(id);
+                if (ordinal >= 0) {
+                    matchedTags[ordinal]++;
+                }
+            }
+        }
+
+        BitSet filter = allowed;
+        int[] boosts = matchedTags;
+        PriorityQueue<Scored> heap = new PriorityQueue<>(limit + 1, Scored.ORDER.reversed());
+        bm25.score(queryTerms, (ordinal, base) -> {
+            if (filter != null && !filter.get(ordinal)) {
+                return;
+            }
+            double score = boosts != null ? base * (1 + TAG_BOOST * boosts[ordinal]) : base;
+            long timestamp = bm25.timestamp(ordinal);
+            if (halfLifeMillis > 0) {
+                double age = Math.max(now - timestamp, 0);
+                score *= (1 - RECENCY_WEIGHT) + RECENCY_WEIGHT * Math.pow(2, -age / halfLifeMillis);
+            }
+
+            if (heap.size() < limit) {
+                heap.offer(new Scored(ordinal, timestamp, score));
+            } else if (score > heap.peek().score()) {
+                heap.poll();
+                heap.offer(new Scored(ordinal, timestamp, score));
+            }
+        });
+
+        List<Scored> result = new ArrayList<>(heap);
+        result.sort(Scored.ORDER);
+        return result.stream().map(scored -> byId.get(bm25.id(scored.ordinal()))).toList();
+    }
+
+    private void markOrdinals(Set<String> ids, BitSet target) {
+        if (ids == null) {
+            return;
+        }
+        for (String id : ids) {
+            int ordinal = bm25.ordinal(id);
+            if (ordinal >= 0) {
+                target.set(ordinal);
+            }
+        }
+    }
+
+    private void rebuildBm25() {
+        Bm25Index rebuilt = new Bm25Index();
+        for (Memory memory : byId.values()) {
+            rebuilt.add(memory.getId(), memory.getTimestamp(), termFrequencies(memory));
+        }
+        bm25 = rebuilt;
+    }
+
+    private List<Memory> takeRecent(Predicate<String> filter, int limit) {
+        List<Memory> result = new ArrayList<>(Math.min(limit, byId.size()));
+        Iterator<TimeKey> iterator = timeline.descendingIterator();
+        while (result.size() < limit && iterator.hasNext()) {
+            TimeKey key = iterator.next();
+            if (filter.test(key.id())) {
+                result.add(byId.get(key.id()));
+            }
+        }
+        return result;
+    }
+
+    private List<Memory> topByTimestamp(Set<String> ids, int limit) {
+        PriorityQueue<Memory> heap = new PriorityQueue<>(limit + 1, RECENCY.reversed());
+        for (String id : ids) {
+            heap.offer(byId.get(id));
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<Memory> result = new ArrayList<>(heap);
+        result.sort(RECENCY);
+        return result;
+    }
+
+    /**
+     * 词项 → 加权词频（标题中的词项权重更高）
+     */
+    private static Map<String, Integer> termFrequencies(Memory memory) {
+        Map<String, Integer> result = new HashMap<>();
+        TextTokenizer.tokenize(memory.getTitle()).forEach(term -> result.merge(term, TITLE_WEIGHT, Integer::sum));
+        TextTokenizer.tokenize(memory.getContent()).forEach(term -> result.merge(term, 1, Integer::sum));
+        if (memory.getTags() != null) {
+            memory.getTags().forEach(tag ->
+                    TextTokenizer.tokenize(tag).forEach(term -> result.merge(term, 1, Integer::sum)));
+        }
+        return result;
+    }
+
+    private static Set<String> tagsOf(Memory memory) {
+        Set<String> result = new HashSet<>();
+        if (memory.getTags() != null) {
+            memory.getTags().forEach(tag -> result.add(normalizeTag(tag)));
+        }
+        return result;
+    }
+
+    static String normalizeTag(String tag) {
+        return tag == null ? "" : tag.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static void removeFrom(Map<String, Set<String>> index, String key, String id) {
+        Set<String> ids = index.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /**
+     * 过滤条件：命中任意一个集合即满足
+     */
+    private record Condition(List<Set<String>> sets) {
+
+        long estimate() {
+            long total = 0;
+            for (Set<String> ids : sets) {
+                total += ids.size();
+            }
+            return total;
+        }
+
+        boolean contains(String id) {
+            for (Set<String> ids : sets) {
+                if (ids.contains(id)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 带分数的文档序号
+     */
+    private record Scored(int ordinal, long timestamp, double score) {
+        /**
+         * 分数高的排在前面；分数相同时较新的在前
+         */
+        static final Comparator<Scored> ORDER = Comparator.comparingDouble(Scored::score)
+                .thenComparingLong(Scored::timestamp)
+                .reversed();
+    }
+
+    /**
+     * 时间线上的键
+     */
+    private record TimeKey(long timestamp, String id) implements Comparable<TimeKey> {
+        @Override
+        public int compareTo(TimeKey other) {
+            int byTime = Long.compare(timestamp, other.timestamp);
+            return byTime != 0 ? byTime : id.compareTo(other.id);
+        }
+    }
+}
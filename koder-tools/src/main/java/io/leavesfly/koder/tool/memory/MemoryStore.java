@@ -0,0 +1,284 @@
+package io.leavesfly.koder.tool.memory;
+
+import io.leavesfly.koder.tool.config.ToolProperties;
+import io.leavesfly.koder.tool.config.ToolProperties.MemorySettings;
+import io.leavesfly.koder.tool.store.JsonJournal;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 持久化记忆存储
+ * <p>
+ * 记忆保存在 ~/.koder/memory 下的追加写日志中（见 {@link JsonJournal}），日志增长到阈值后压缩为快照，
+ * 启动时只需加载快照并回放其后的少量日志。查询走内存索引（见 {@link MemoryIndex}），不扫描全部记忆。
+ * 支持按时间倒序过滤与按相关度排序两种检索方式。首次使用时才加载；返回的记忆均为副本。
+ */
+@Slf4j
+@Component
+public class MemoryStore {
+
+    private static final String JOURNAL_NAME = "memories";
+
+    private final ToolProperties properties;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final MemoryIndex index = new MemoryIndex();
+
+    private JsonJournal<MemoryEvent> journal;
+    private volatile boolean loaded;
+    private volatile long revision;
+    private long lastId;
+
+    public MemoryStore(ToolProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 按ID获取记忆
+     *
+     * @return 记忆副本，不存在时返回null
+     */
+    public Memory get(String id) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Memory memory = index.get(id);
+            return memory != null ? memory.copy() : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按时间倒序检索记忆
+     *
+     * @param query 查询（每个词都须命中标题、内容或标签，词可以是前缀；可为null）
+     * @param tags  标签（命中任意一个即可；可为null）
+     * @param limit 最大条数
+     */
+    public List<Memory> search(String query, List<String> tags, int limit) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return index.recent(query, tags, Math.max(limit, 0)).stream().map(Memory::copy).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按相关度检索记忆（BM25，叠加标签加权与时间衰减），查询为空时退化为按时间倒序
+     *
+     * @param query 查询
+     * @param tags  标签（命中任意一个即可；可为null）
+     * @param limit 最大条数
+     */
+    public List<Memory> rank(String query, List<String> tags, int limit) {
+        ensureLoaded();
+        long halfLife = TimeUnit.DAYS.toMillis(settings().getRecencyHalfLifeDays());
+        lock.readLock().lock();
+        try {
+            return index.ranked(query, tags, Math.max(limit, 0), System.currentTimeMillis(), halfLife)
+                    .stream().map(Memory::copy).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 保存记忆（ID为空时自动生成，ID已存在时覆盖）
+     *
+     * @return 保存后的记忆副本
+     */
+    public Memory save(Memory memory) throws IOException {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            Memory stored = memory.copy();
+            if (stored.getId() == null || stored.getId().isEmpty()) {
+                stored.setId(nextId());
+            }
+            apply(MemoryEvent.put(stored));
+            return stored.copy();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 更新记忆的部分字段（为null的字段保持不变），并刷新时间戳
+     *
+     * @return 更新后的记忆副本，不存在时返回null
+     */
+    public Memory update(String id, String title, String content, List<String> tags) throws IOException {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            Memory existing = index.get(id);
+            if (existing == null) {
+                return null;
+            }
+            Memory updated = existing.copy();
+            if (title != null) {
+                updated.setTitle(title);
+            }
+            if (content != null) {
+                updated.setContent(content);
+            }
+            if (tags != null) {
+                updated.setTags(new ArrayList<>(tags));
+            }
+            updated.setTimestamp(System.currentTimeMillis());
+            apply(MemoryEvent.put(updated));
+            return updated.copy();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除记忆
+     *
+     * @return 是否存在并已删除
+     */
+    public boolean delete(String id) throws IOException {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            if (index.get(id) == null) {
+                return false;
+            }
+            apply(MemoryEvent.delete(id));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 记忆总数
+     */
+    public int size() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 全部记忆（副本）
+     */
+    public List<Memory> list() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return index.values().stream().map(Memory::copy).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 修订号：每次保存、更新或删除后递增，供派生索引判断是否需要同步
+     */
+    public long getRevision() {
+        ensureLoaded();
+        return revision;
+    }
+
+    /**
+     * 存储目录
+     */
+    public Path getDirectory() {
+        String configured = settings().getDirectory();
+        return configured != null && !configured.isBlank()
+                ? Paths.get(configured)
+                : Paths.get(System.getProperty("user.home"), ".koder", "memory");
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (journal != null) {
+                journal.close();
+            }
+        } catch (IOException e) {
+            log.warn("关闭记忆日志失败: {}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 先写日志再更新索引，写日志失败时索引保持不变
+     */
+    private void apply(MemoryEvent event) throws IOException {
+        journal.append(event);
+        replayEvent(event);
+        revision++;
+        if (journal.needsCompaction(index.size(), settings().getCompactThreshold())) {
+            List<MemoryEvent> state = index.values().stream().map(MemoryEvent::put).toList();
+            journal.compact(state);
+        }
+    }
+
+    private void replayEvent(MemoryEvent event) {
+        if (MemoryEvent.DELETE.equals(event.getType())) {
+            index.remove(event.getId());
+        } else if (event.getMemory() != null && event.getMemory().getId() != null) {
+            index.put(event.getMemory());
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            JsonJournal<MemoryEvent> opened = new JsonJournal<>(getDirectory(), JOURNAL_NAME,
+                    MemoryEvent.class, settings().isSync());
+            long replayed = opened.replay(this::replayEvent);
+            journal = opened;
+            loaded = true;
+            log.info("记忆存储已加载: {} 条记忆（回放 {} 条记录，其中日志 {} 条），耗时 {}ms",
+                    index.size(), replayed, opened.getLogEntries(), System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException("加载记忆存储失败: " + e.getMessage(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 生成记忆ID：毫秒时间戳，同一毫秒内递增，保证唯一且单调
+     */
+    private String nextId() {
+        long id = Math.max(System.currentTimeMillis(), lastId + 1);
+        while (index.get("mem_" + id) != null) {
+            id++;
+        }
+        lastId = id;
+        return "mem_" + id;
+    }
+
+    private MemorySettings settings() {
+        return properties.getMemory();
+    }
+}
@@ -0,0 +1,114 @@
+package io.leavesfly.koder.tool.memory;
+
+import java.util.Arrays;
+
+/**
+ * 压缩的倒排列表
+ * <p>
+ * 文档序号只增不减，按 (序号差值, 词频) 依次以变长整数（varint）追加存放，
+ * 常见的小差值与小词频各只占一个字节。已删除的文档仍留在列表中，由调用方在遍历时跳过，
+ * 这里单独维护存活文档数用于计算 IDF。
+ */
+final class PostingList {
+
+    private byte[] data = new byte[8];
+    private int size;
+    private int lastDoc = -1;
+    private int liveDocs;
+
+    /**
+     * 追加一条记录（序号必须大于之前的所有序号）
+     */
+    void add(int doc, int frequency) {
+        if (doc <= lastDoc) {
+            throw new IllegalArgumentException("文档序号必须递增: " + doc + " <= " + lastDoc);
+        }
+        writeVarint(doc - lastDoc);
+        writeVarint(frequency);
+        lastDoc = doc;
+        liveDocs++;
+    }
+
+    /**
+     * 标记一条记录对应的文档已删除
+     */
+    void markRemoved() {
+        liveDocs--;
+    }
+
+    /**
+     * 包含该词项的存活文档数
+     */
+    int getLiveDocs() {
+        return liveDocs;
+    }
+
+    /**
+     * 占用的字节数
+     */
+    int getSizeInBytes() {
+        return size;
+    }
+
+    /**
+     * 按序号递增遍历所有记录（含已删除的文档）
+     */
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    private void writeVarint(int value) {
+        if (size + 5 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, size + 5));
+        }
+        while ((value & ~0x7F) != 0) {
+            data[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[size++] = (byte) value;
+    }
+
+    /**
+     * 倒排列表游标
+     */
+    final class Cursor {
+
+        private int position;
+        private int doc = -1;
+        private int frequency;
+
+        /**
+         * 移动到下一条记录
+         *
+         * @return 是否还有记录
+         */
+        boolean next() {
+            if (position >= size) {
+                return false;
+            }
+            doc += readVarint();
+            frequency = readVarint();
+            return true;
+        }
+
+        int doc() {
+            return doc;
+        }
+
+        int frequency() {
+            return frequency;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
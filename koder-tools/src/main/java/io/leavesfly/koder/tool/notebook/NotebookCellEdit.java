@@ -0,0 +1,44 @@
+package io.leavesfly.koder.tool.notebook;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单个单元格编辑
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotebookCellEdit {
+
+    public static final String REPLACE = "replace";
+    public static final String INSERT = "insert";
+    public static final String DELETE = "delete";
+
+    /**
+     * 单元格索引（从 0 开始，基于前面的编辑完成后的 Notebook）
+     */
+    private Integer cellNumber;
+
+    /**
+     * 单元格的新内容
+     */
+    private String newSource;
+
+    /**
+     * 单元格类型（code / markdown），insert 时必需
+     */
+    private String cellType;
+
+    /**
+     * 编辑模式：replace / insert / delete（默认 replace）
+     */
+    private String editMode;
+
+    public String modeOrDefault() {
+        return editMode != null ? editMode : REPLACE;
+    }
+}
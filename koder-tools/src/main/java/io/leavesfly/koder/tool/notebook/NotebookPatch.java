@@ -0,0 +1,429 @@
+package io.leavesfly.koder.tool.notebook;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+/**
+ * Notebook 的流式改写计划
+ * <p>
+ * {@link #prepare} 用流式解析扫描一遍文件，只记录每个单元格在文件中的字节范围，输出（常含大段 base64 图片）
+ * 被跳过而不载入内存；随后在这份索引上依次应用全部编辑，被替换的单元格只解析 outputs、source 以外的字段。
+ * {@link #writeTo} 按新的单元格顺序输出：未改动的单元格与文档其余部分按字节原样复制（文件通道直接传输），
+ * 只有新增或被替换的单元格重新编码，缩进与分隔符沿用原文件的格式。
+ */
+public final class NotebookPatch {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Set<String> CELL_TYPES = Set.of("code", "markdown", "raw");
+
+    /**
+     * nbformat 默认缩进（json.dumps(indent=1)）
+     */
+    private static final String DEFAULT_INDENT = " ";
+
+    private final Path path;
+    private final long size;
+    private final FileTime modifiedTime;
+
+    /**
+     * 原单元格的字节范围：[starts[i], ends[i])
+     */
+    private final long[] starts;
+    private final long[] ends;
+
+    /**
+     * cells 数组的 '[' 与 ']' 所在位置
+     */
+    private final long cellsOpen;
+    private final long cellsClose;
+
+    private final String language;
+    private final int nbformat;
+    private final int nbformatMinor;
+
+    private final List<Slot> slots = new ArrayList<>();
+    private final List<String> resultCellTypes = new ArrayList<>();
+
+    private NotebookPatch(Path path, Scan scan) {
+        this.path = path;
+        this.size = scan.size;
+        this.modifiedTime = scan.modifiedTime;
+        this.starts = Arrays.copyOf(scan.starts, scan.cellCount);
+        this.ends = Arrays.copyOf(scan.ends, scan.cellCount);
+        this.cellsOpen = scan.cellsOpen;
+        this.cellsClose = scan.cellsClose;
+        this.language = scan.language;
+        this.nbformat = scan.nbformat;
+        this.nbformatMinor = scan.nbformatMinor;
+        for (int i = 0; i < starts.length; i++) {
+            slots.add(new Slot(i));
+        }
+    }
+
+    /**
+     * 扫描 Notebook 并依次应用编辑（不写文件）
+     *
+     * @param path  Notebook 文件
+     * @param edits 编辑列表，每个编辑的索引基于前面的编辑完成后的 Notebook
+     * @throws IllegalArgumentException Notebook 格式无效或编辑参数无效（此时不会有任何写入）
+     */
+    public static NotebookPatch prepare(Path path, List<NotebookCellEdit> edits) throws IOException {
+        NotebookPatch patch;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            patch = new NotebookPatch(path, scan(path, channel));
+            for (int i = 0; i < edits.size(); i++) {
+                String prefix = edits.size() > 1 ? String.format("第 %d 个编辑：", i + 1) : "";
+                patch.resultCellTypes.add(patch.apply(channel, edits.get(i), prefix));
+            }
+        }
+        return patch;
+    }
+
+    /**
+     * 输出编辑后的 Notebook
+     *
+     * @throws IOException 写入失败，或文件在扫描之后被修改
+     */
+    public void writeTo(FileChannel out) throws IOException {
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (in.size() != size || !Files.getLastModifiedTime(path).equals(modifiedTime)) {
+                throw new IOException("Notebook 在读取后被修改，请重新执行编辑: " + path);
+            }
+            copy(in, 0, cellsOpen + 1, out);
+            if (!slots.isEmpty()) {
+                Layout layout = layout(in);
+                write(out, layout.leading);
+                for (int i = 0; i < slots.size(); i++) {
+                    if (i > 0) {
+                        write(out, layout.separator);
+                    }
+                    Slot slot = slots.get(i);
+                    if (slot.cell == null) {
+                        copy(in, starts[slot.original], ends[slot.original] - starts[slot.original], out);
+                    } else {
+                        out.write(ByteBuffer.wrap(encode(slot.cell, layout)));
+                    }
+                }
+                write(out, layout.trailing);
+            }
+            copy(in, cellsClose, size - cellsClose, out);
+        }
+    }
+
+    /**
+     * 编辑前的单元格数
+     */
+    public int getOriginalCellCount() {
+        return starts.length;
+    }
+
+    /**
+     * 编辑后的单元格数
+     */
+    public int getCellCount() {
+        return slots.size();
+    }
+
+    /**
+     * Notebook 的语言（metadata.language_info.name）
+     */
+    public String getLanguage() {
+        return language;
+    }
+
+    /**
+     * 各编辑作用的单元格类型（delete 为被删除单元格的类型）
+     */
+    public List<String> getResultCellTypes() {
+        return Collections.unmodifiableList(resultCellTypes);
+    }
+
+    private String apply(FileChannel channel, NotebookCellEdit edit, String prefix) throws IOException {
+        String mode = edit.modeOrDefault();
+        Integer index = edit.getCellNumber();
+        if (index == null) {
+            throw new IllegalArgumentException(prefix + "缺少单元格索引");
+        }
+        if (edit.getCellType() != null && !CELL_TYPES.contains(edit.getCellType())) {
+            throw new IllegalArgumentException(prefix + "无效的单元格类型: " + edit.getCellType());
+        }
+        switch (mode) {
+            case NotebookCellEdit.DELETE -> {
+                if (index < 0 || index >= slots.size()) {
+                    throw new IllegalArgumentException(prefix
+                            + String.format("单元格索引超出范围。Notebook 有 %d 个单元格", slots.size()));
+                }
+                Slot removed = slots.remove((int) index);
+                return removed.cell != null
+                        ? removed.cell.path("cell_type").asText("code")
+                        : readCellHead(channel, starts[removed.original]).path("cell_type").asText("code");
+            }
+            case NotebookCellEdit.INSERT -> {
+                if (edit.getCellType() == null) {
+                    throw new IllegalArgumentException(prefix + "insert 模式需要指定 cell_type");
+                }
+                if (index < 0 || index > slots.size()) {
+                    throw new IllegalArgumentException(prefix
+                            + String.format("单元格索引超出范围。insert 模式最大值为 %d", slots.size()));
+                }
+                Slot inserted = new Slot(-1);
+                inserted.cell = newCell(edit.getCellType(), edit.getNewSource());
+                slots.add(index, inserted);
+                return edit.getCellType();
+            }
+            case NotebookCellEdit.REPLACE -> {
+                if (index < 0 || index >= slots.size()) {
+                    throw new IllegalArgumentException(prefix
+                            + String.format("单元格索引超出范围。Notebook 有 %d 个单元格", slots.size()));
+                }
+                if (edit.getNewSource() == null) {
+                    throw new IllegalArgumentException(prefix + "replace 模式需要指定 new_source");
+                }
+                Slot slot = slots.get(index);
+                if (slot.cell == null) {
+                    // 只在第一次替换时读取原单元格，outputs 与 source 不会被载入
+                    slot.cell = readCellHead(channel, starts[slot.original]);
+                }
+                String type = edit.getCellType() != null ? edit.getCellType() : slot.cell.path("cell_type").asText("code");
+                replaceContent(slot.cell, type, edit.getNewSource());
+                return type;
+            }
+            default -> throw new IllegalArgumentException(prefix + "无效的编辑模式: " + mode + "（可选 replace / insert / delete）");
+        }
+    }
+
+    private static ObjectNode readCellHead(FileChannel channel, long start) throws IOException {
+        ObjectNode cell = MAPPER.createObjectNode();
+        channel.position(start);
+        try (JsonParser parser = MAPPER.getFactory().createParser(Channels.newInputStream(channel))) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Notebook 格式无效");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("outputs".equals(field) || "source".equals(field)) {
+                    parser.skipChildren();
+                } else {
+                    cell.set(field, MAPPER.readTree(parser));
+                }
+            }
+        }
+        return cell;
+    }
+
+    private void replaceContent(ObjectNode cell, String type, String source) {
+        cell.put("cell_type", type);
+        cell.set("source", sourceLines(source));
+        if (!cell.has("metadata")) {
+            cell.set("metadata", MAPPER.createObjectNode());
+        }
+        if ("code".equals(type)) {
+            cell.putNull("execution_count");
+            cell.set("outputs", MAPPER.createArrayNode());
+        } else {
+            cell.remove("execution_count");
+            cell.remove("outputs");
+        }
+    }
+
+    private ObjectNode newCell(String type, String source) {
+        ObjectNode cell = MAPPER.createObjectNode();
+        // nbformat 4.5 起单元格必须带 id
+        if (nbformat > 4 || (nbformat == 4 && nbformatMinor >= 5)) {
+            cell.put("id", UUID.randomUUID().toString().replace("-", "").substring(0, 8));
+        }
+        cell.set("metadata", MAPPER.createObjectNode());
+        replaceContent(cell, type, source != null ? source : "");
+        return cell;
+    }
+
+    /**
+     * 按 Jupyter 的习惯把源码拆成保留换行符的行数组
+     */
+    private static ArrayNode sourceLines(String source) {
+        ArrayNode lines = MAPPER.createArrayNode();
+        int start = 0;
+        while (start < source.length()) {
+            int newline = source.indexOf('\n', start);
+            int end = newline < 0 ? source.length() : newline + 1;
+            lines.add(source.substring(start, end));
+            start = end;
+        }
+        return lines;
+    }
+
+    /**
+     * 按键名排序后编码（与 nbformat 的 sort_keys 一致）
+     */
+    private static byte[] encode(ObjectNode cell, Layout layout) throws IOException {
+        ObjectNode sorted = MAPPER.createObjectNode();
+        new TreeMap<>(toMap(cell)).forEach(sorted::set);
+        if (layout.indentUnit == null) {
+            return MAPPER.writeValueAsBytes(sorted);
+        }
+        return MAPPER.writer(new NotebookPrettyPrinter(layout.indentUnit, layout.baseIndent)).writeValueAsBytes(sorted);
+    }
+
+    private static Map<String, JsonNode> toMap(ObjectNode node) {
+        Map<String, JsonNode> fields = new LinkedHashMap<>();
+        node.fields().forEachRemaining(entry -> fields.put(entry.getKey(), entry.getValue()));
+        return fields;
+    }
+
+    /**
+     * 从原文件推断单元格之间的分隔与缩进
+     */
+    private Layout layout(FileChannel in) throws IOException {
+        if (starts.length == 0) {
+            String baseIndent = DEFAULT_INDENT + DEFAULT_INDENT;
+            return new Layout("\n" + baseIndent, ",\n" + baseIndent, "\n" + DEFAULT_INDENT, DEFAULT_INDENT, baseIndent);
+        }
+        String leading = read(in, cellsOpen + 1, starts[0]);
+        String trailing = read(in, ends[starts.length - 1], cellsClose);
+        String separator = starts.length > 1 ? read(in, ends[0], starts[1]) : "," + leading;
+        int newline = leading.lastIndexOf('\n');
+        if (newline < 0) {
+            return new Layout(leading, separator, trailing, null, null);
+        }
+        String baseIndent = leading.substring(newline + 1);
+        // 单元格位于第二层（文档对象 → cells 数组），基础缩进为两个缩进单位
+        String indentUnit = baseIndent.length() >= 2 ? baseIndent.substring(0, baseIndent.length() / 2) : DEFAULT_INDENT;
+        return new Layout(leading, separator, trailing, indentUnit, baseIndent);
+    }
+
+    private static Scan scan(Path path, FileChannel channel) throws IOException {
+        Scan scan = new Scan();
+        scan.size = channel.size();
+        scan.modifiedTime = Files.getLastModifiedTime(path);
+        try (JsonParser parser = MAPPER.getFactory().createParser(Channels.newInputStream(channel))) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Notebook 格式无效");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "cells" -> {
+                        if (value != JsonToken.START_ARRAY) {
+                            throw new IllegalArgumentException("Notebook 格式无效");
+                        }
+                        scan.cellsOpen = parser.getTokenLocation().getByteOffset();
+                        JsonToken token;
+                        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                            if (token != JsonToken.START_OBJECT) {
+                                throw new IllegalArgumentException("Notebook 格式无效：单元格不是对象");
+                            }
+                            long start = parser.getTokenLocation().getByteOffset();
+                            parser.skipChildren();
+                            scan.add(start, parser.getTokenLocation().getByteOffset() + 1);
+                        }
+                        scan.cellsClose = parser.getTokenLocation().getByteOffset();
+                    }
+                    case "metadata" -> {
+                        JsonNode metadata = MAPPER.readTree(parser);
+                        scan.language = metadata.path("language_info").path("name").asText("python");
+                    }
+                    case "nbformat" -> scan.nbformat = parser.getValueAsInt();
+                    case "nbformat_minor" -> scan.nbformatMinor = parser.getValueAsInt();
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        if (scan.cellsOpen < 0) {
+            throw new IllegalArgumentException("Notebook 格式无效");
+        }
+        return scan;
+    }
+
+    private static void copy(FileChannel in, long position, long count, FileChannel out) throws IOException {
+        long done = 0;
+        while (done < count) {
+            long transferred = in.transferTo(position + done, count - done, out);
+            if (transferred <= 0) {
+                throw new IOException("复制 Notebook 内容失败: " + position + "+" + count);
+            }
+            done += transferred;
+        }
+    }
+
+    private static String read(FileChannel in, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (to - from));
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, from + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+    }
+
+    private static void write(FileChannel out, String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * 编辑后的一个单元格位置：cell 为null时原样复制原单元格，否则重新编码
+     */
+    private static final class Slot {
+        final int original;
+        ObjectNode cell;
+
+        Slot(int original) {
+            this.original = original;
+        }
+    }
+
+    /**
+     * cells 数组内的格式
+     *
+     * @param indentUnit 缩进单位，为null表示紧凑格式（无换行）
+     */
+    private record Layout(String leading, String separator, String trailing, String indentUnit, String baseIndent) {
+    }
+
+    /**
+     * 扫描结果
+     */
+    private static final class Scan {
+        long size;
+        FileTime modifiedTime;
+        long cellsOpen = -1;
+        long cellsClose;
+        long[] starts = new long[64];
+        long[] ends = new long[64];
+        int cellCount;
+        String language = "python";
+        int nbformat = 4;
+        int nbformatMinor;
+
+        void add(long start, long end) {
+            if (cellCount == starts.length) {
+                starts = Arrays.copyOf(starts, cellCount * 2);
+                ends = Arrays.copyOf(ends, cellCount * 2);
+            }
+            starts[cellCount] = start;
+            ends[cellCount] = end;
+            cellCount++;
+        }
+    }
+}
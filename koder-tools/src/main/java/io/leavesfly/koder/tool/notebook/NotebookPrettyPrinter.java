@@ -0,0 +1,58 @@
+package io.leavesfly.koder.tool.notebook;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultIndenter;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+
+import java.io.IOException;
+
+/**
+ * 与 nbformat（json.dumps(indent=n)）一致的缩进格式：键值之间为 ": "，空数组/空对象写作 [] 与 {}。
+ * 每行额外带上单元格在文档中的基础缩进，使重新编码的单元格与原样复制的单元格对齐。
+ */
+final class NotebookPrettyPrinter extends DefaultPrettyPrinter {
+
+    NotebookPrettyPrinter(String indentUnit, String baseIndent) {
+        DefaultIndenter indenter = new DefaultIndenter(indentUnit, "\n" + baseIndent);
+        indentObjectsWith(indenter);
+        indentArraysWith(indenter);
+    }
+
+    private NotebookPrettyPrinter(NotebookPrettyPrinter base) {
+        super(base);
+    }
+
+    @Override
+    public DefaultPrettyPrinter createInstance() {
+        return new NotebookPrettyPrinter(this);
+    }
+
+    @Override
+    public void writeObjectFieldValueSeparator(JsonGenerator generator) throws IOException {
+        generator.writeRaw(": ");
+    }
+
+    @Override
+    public void writeEndObject(JsonGenerator generator, int nrOfEntries) throws IOException {
+        if (nrOfEntries > 0) {
+            super.writeEndObject(generator, nrOfEntries);
+            return;
+        }
+        if (!_objectIndenter.isInline()) {
+            --_nesting;
+        }
+        generator.writeRaw('}');
+    }
+
+    @Override
+    public void writeEndArray(JsonGenerator generator, int nrOfValues) throws IOException {
+        if (nrOfValues > 0) {
+            super.writeEndArray(generator, nrOfValues);
+            return;
+        }
+        if (!_arrayIndenter.isInline()) {
+            --_nesting;
+        }
+        generator.writeRaw(']');
+    }
+}
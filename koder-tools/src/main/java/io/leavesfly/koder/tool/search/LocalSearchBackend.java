@@ -0,0 +1,212 @@
+package io.leavesfly.koder.tool.search;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.leavesfly.koder.tool.config.ToolProperties;
+import io.leavesfly.koder.tool.config.ToolProperties.LocalSearchSettings;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * 本地文件搜索后端
+ * <p>
+ * 从 JSONL 语料文件（每行一个 {"title", "url", "content"} 对象）建立倒排索引并按词频打分，
+ * 标题中的匹配权重更高。语料文件修改后下次搜索时自动重建索引；语料文件不存在时搜索返回错误（说明文件路径与相关配置项）。
+ * 可配置模拟延迟，用于在离线环境中演练与评估整条搜索链路（缓存、合并、限流）。
+ */
+@Slf4j
+@Component
+public class LocalSearchBackend implements SearchBackend {
+
+    public static final String NAME = "local";
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final int SNIPPET_LENGTH = 200;
+
+    private final ToolProperties properties;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private volatile Index index;
+
+    public LocalSearchBackend(ToolProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Mono<List<SearchHit>> search(String query, int maxResults) {
+        Mono<List<SearchHit>> result = Mono.fromCallable(() -> currentIndex().search(query, maxResults))
+                .subscribeOn(Schedulers.boundedElastic());
+        long latencyMs = settings().getLatencyMs();
+        return latencyMs > 0 ? Mono.delay(Duration.ofMillis(latencyMs)).then(result) : result;
+    }
+
+    /**
+     * 语料文件路径
+     */
+    public Path getCorpusFile() {
+        String configured = settings().getCorpusFile();
+        return configured != null && !configured.isBlank()
+                ? Paths.get(configured)
+                : Paths.get(System.getProperty("user.home"), ".koder", "search", "corpus.jsonl");
+    }
+
+    private LocalSearchSettings settings() {
+        return properties.getSearch().getLocal();
+    }
+
+    /**
+     * 返回与语料文件一致的索引，文件变化时重建
+     *
+     * @throws IOException 语料文件不存在或无法读取
+     */
+    private Index currentIndex() throws IOException {
+        Path file = getCorpusFile();
+        if (!Files.isRegularFile(file)) {
+            throw new IOException("本地搜索语料文件不存在: " + file
+                    + "。请创建该 JSONL 文件（每行一个 {\"title\", \"url\", \"content\"} 对象），"
+                    + "或通过 koder.tools.search.local.corpus-file 指定语料文件、koder.tools.search.backend 切换搜索后端");
+        }
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        Index current = index;
+        if (current != null && current.path.equals(file) && current.modified == modified) {
+            return current;
+        }
+        synchronized (this) {
+            current = index;
+            if (current == null || !current.path.equals(file) || current.modified != modified) {
+                current = load(file, modified);
+                index = current;
+            }
+            return current;
+        }
+    }
+
+    private Index load(Path file, long modified) throws IOException {
+        Index loaded = new Index(file, modified);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    loaded.add(objectMapper.readValue(line, Document.class));
+                } catch (IOException e) {
+                    log.warn("跳过无法解析的语料行 {}:{}: {}", file, lineNumber, e.getMessage());
+                }
+            }
+        }
+        log.info("本地搜索语料已加载: {} ({} 篇)", file, loaded.documents.size());
+        return loaded;
+    }
+
+    /**
+     * 语料中的一篇文档
+     */
+    @Data
+    @NoArgsConstructor
+    public static class Document {
+        private String title;
+        private String url;
+        private String content;
+    }
+
+    /**
+     * 倒排索引：词项 → (文档下标, 加权词频)
+     */
+    private static final class Index {
+
+        private final Path path;
+        private final long modified;
+        private final List<Document> documents = new ArrayList<>();
+        private final Map<String, List<int[]>> postings = new HashMap<>();
+
+        Index(Path path, long modified) {
+            this.path = path;
+            this.modified = modified;
+        }
+
+        void add(Document document) {
+            int docIndex = documents.size();
+            documents.add(document);
+            Map<String, Integer> weights = new HashMap<>();
+            TextTokenizer.tokenize(document.getTitle()).forEach(term -> weights.merge(term, TITLE_WEIGHT, Integer::sum));
+            TextTokenizer.tokenize(document.getContent()).forEach(term -> weights.merge(term, 1, Integer::sum));
+            weights.forEach((term, weight) ->
+                    postings.computeIfAbsent(term, k -> new ArrayList<>()).add(new int[]{docIndex, weight}));
+        }
+
+        List<SearchHit> search(String query, int maxResults) {
+            Set<String> terms = new LinkedHashSet<>(TextTokenizer.tokenize(query));
+            Map<Integer, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                List<int[]> list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                // 稀有词项贡献更大
+                double idf = Math.log(1 + (double) documents.size() / list.size());
+                for (int[] posting : list) {
+                    scores.merge(posting[0], (1 + Math.log(posting[1])) * idf, Double::sum);
+                }
+            }
+
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(maxResults)
+                    .map(entry -> toHit(documents.get(entry.getKey()), terms))
+                    .toList();
+        }
+
+        private static SearchHit toHit(Document document, Set<String> terms) {
+            return SearchHit.builder()
+                    .title(document.getTitle())
+                    .url(document.getUrl())
+                    .snippet(snippet(document.getContent(), terms))
+                    .build();
+        }
+
+        /**
+         * 摘要：从第一个命中的词项附近截取
+         */
+        private static String snippet(String content, Set<String> terms) {
+            if (content == null || content.isEmpty()) {
+                return "";
+            }
+            String lower = content.toLowerCase(Locale.ROOT);
+            int first = -1;
+            for (String term : terms) {
+                int position = lower.indexOf(term);
+                if (position >= 0 && (first < 0 || position < first)) {
+                    first = position;
+                }
+            }
+            int start = Math.max(first - SNIPPET_LENGTH / 4, 0);
+            int end = Math.min(start + SNIPPET_LENGTH, content.length());
+            String text = content.substring(start, end).replaceAll("\\s+", " ").trim();
+            return (start > 0 ? "..." : "") + text + (end < content.length() ? "..." : "");
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package io.leavesfly.koder.tool.search;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * 搜索后端
+ * <p>
+ * 实现类注册为 Spring Bean 即可被 {@link SearchService} 发现，通过 koder.tools.search.backend 按名称选用。
+ * 缓存、并发合并与限流由 {@link SearchService} 统一处理，后端只负责执行一次实际查询。
+ */
+public interface SearchBackend {
+
+    /**
+     * 后端名称（用于配置选择与限流分组）
+     */
+    String getName();
+
+    /**
+     * 执行搜索
+     *
+     * @param query      规范化后的查询
+     * @param maxResults 最大结果数
+     * @return 按相关度排序的结果
+     */
+    Mono<List<SearchHit>> search(String query, int maxResults);
+}
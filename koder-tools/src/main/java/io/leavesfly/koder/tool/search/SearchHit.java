@@ -0,0 +1,19 @@
+package io.leavesfly.koder.tool.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 搜索结果项
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHit {
+    private String title;
+    private String url;
+    private String snippet;
+}
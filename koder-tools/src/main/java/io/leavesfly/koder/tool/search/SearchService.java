@@ -0,0 +1,266 @@
+package io.leavesfly.koder.tool.search;
+
+import io.leavesfly.koder.tool.config.ToolProperties;
+import io.leavesfly.koder.tool.config.ToolProperties.SearchSettings;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 搜索服务
+ * <p>
+ * 在 {@link SearchBackend} 之上提供：
+ * - 查询规范化（Unicode 兼容形式、大小写、空白、结尾标点），写法略有不同的重复查询命中同一缓存
+ * - 带 TTL 的结果缓存（LRU），较大 maxResults 的结果可以直接服务较小的请求
+ * - 并发的相同查询合并为一次后端调用
+ * - 每个后端一个令牌桶，超出速率的请求延后执行而不是失败
+ */
+@Slf4j
+@Component
+public class SearchService {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[\\s?!.。？！]+$");
+
+    private final Map<String, SearchBackend> backends = new LinkedHashMap<>();
+    private final ToolProperties properties;
+
+    private final Map<String, CacheEntry> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, Mono<List<SearchHit>>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> limiters = new ConcurrentHashMap<>();
+
+    private long hits;
+    private long misses;
+    private long coalesced;
+    private long backendCalls;
+
+    public SearchService(List<SearchBackend> backends, ToolProperties properties) {
+        this.properties = properties;
+        for (SearchBackend backend : backends) {
+            this.backends.put(backend.getName(), backend);
+        }
+    }
+
+    /**
+     * 使用配置的后端搜索
+     *
+     * @param query      查询
+     * @param maxResults 最大结果数
+     * @return 搜索结果
+     */
+    public Mono<SearchResponse> search(String query, int maxResults) {
+        SearchBackend backend = resolveBackend();
+        String normalized = normalize(query);
+        if (normalized.isEmpty()) {
+            return Mono.error(new IllegalArgumentException("搜索查询不能为空"));
+        }
+
+        String key = backend.getName() + '\u0000' + normalized;
+        List<SearchHit> cached = lookup(key, maxResults);
+        if (cached != null) {
+            return Mono.just(new SearchResponse(backend.getName(), normalized, cached, true, false));
+        }
+
+        boolean[] created = new boolean[1];
+        Mono<List<SearchHit>> shared = inFlight.computeIfAbsent(key + '\u0000' + maxResults, flightKey -> {
+            created[0] = true;
+            return execute(backend, normalized, maxResults, key)
+                    .doFinally(signal -> inFlight.remove(flightKey))
+                    .cache();
+        });
+        if (!created[0]) {
+            synchronized (cache) {
+                coalesced++;
+            }
+        }
+        boolean joined = !created[0];
+        return shared.map(list -> new SearchResponse(backend.getName(), normalized, list, false, joined));
+    }
+
+    /**
+     * 清空结果缓存
+     */
+    public void invalidateAll() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    public Stats getStats() {
+        synchronized (cache) {
+            return new Stats(hits, misses, coalesced, backendCalls, cache.size());
+        }
+    }
+
+    /**
+     * 规范化查询：NFKC、小写、合并空白、去掉结尾的问号句号等标点
+     */
+    public static String normalize(String query) {
+        if (query == null) {
+            return "";
+        }
+        String text = Normalizer.normalize(query, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        text = WHITESPACE.matcher(text).replaceAll(" ").trim();
+        return TRAILING_PUNCTUATION.matcher(text).replaceAll("");
+    }
+
+    private SearchBackend resolveBackend() {
+        String name = settings().getBackend();
+        SearchBackend backend = backends.get(name);
+        if (backend == null) {
+            throw new IllegalStateException("未找到搜索后端: " + name + "，可用的后端: " + backends.keySet());
+        }
+        return backend;
+    }
+
+    private Mono<List<SearchHit>> execute(SearchBackend backend, String query, int maxResults, String key) {
+        return Mono.defer(() -> {
+                    synchronized (cache) {
+                        backendCalls++;
+                    }
+                    long waitNanos = limiterFor(backend.getName()).reserve();
+                    Mono<List<SearchHit>> call = backend.search(query, maxResults);
+                    if (waitNanos > 0) {
+                        log.debug("搜索后端 {} 限流，延迟 {}ms", backend.getName(), waitNanos / 1_000_000);
+                        return Mono.delay(Duration.ofNanos(waitNanos)).then(call);
+                    }
+                    return call;
+                })
+                .map(List::copyOf)
+                .doOnNext(list -> store(key, maxResults, list));
+    }
+
+    private TokenBucket limiterFor(String backend) {
+        SearchSettings settings = settings();
+        return limiters.computeIfAbsent(backend,
+                name -> new TokenBucket(settings.getRateLimitPerSecond(), settings.getRateLimitBurst()));
+    }
+
+    /**
+     * 查找缓存：未过期，且缓存时请求的数量不少于本次请求（或后端已返回全部结果）
+     */
+    private List<SearchHit> lookup(String key, int maxResults) {
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            CacheEntry entry = cache.get(key);
+            if (entry != null && entry.isExpired(now, ttlMillis())) {
+                cache.remove(key);
+                entry = null;
+            }
+            if (entry == null || !entry.covers(maxResults)) {
+                misses++;
+                return null;
+            }
+            hits++;
+            return entry.hits.subList(0, Math.min(maxResults, entry.hits.size()));
+        }
+    }
+
+    private void store(String key, int maxResults, List<SearchHit> list) {
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            CacheEntry existing = cache.get(key);
+            if (existing != null && !existing.isExpired(now, ttlMillis()) && existing.requested > maxResults) {
+                return;
+            }
+            cache.put(key, new CacheEntry(list, maxResults, now));
+            int maxEntries = Math.max(settings().getCacheMaxEntries(), 1);
+            Iterator<CacheEntry> iterator = cache.values().iterator();
+            while (cache.size() > maxEntries && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+
+    private long ttlMillis() {
+        return settings().getCacheTtlSeconds() * 1000L;
+    }
+
+    private SearchSettings settings() {
+        return properties.getSearch();
+    }
+
+    /**
+     * 缓存条目
+     */
+    private record CacheEntry(List<SearchHit> hits, int requested, long createdAt) {
+
+        boolean isExpired(long now, long ttlMillis) {
+            return now - createdAt >= ttlMillis;
+        }
+
+        boolean covers(int maxResults) {
+            return requested >= maxResults || hits.size() < requested;
+        }
+    }
+
+    /**
+     * 搜索结果
+     */
+    @Data
+    @AllArgsConstructor
+    public static class SearchResponse {
+        /**
+         * 执行搜索的后端
+         */
+        private String backend;
+
+        /**
+         * 规范化后的查询
+         */
+        private String query;
+
+        private List<SearchHit> hits;
+
+        /**
+         * 是否来自结果缓存
+         */
+        private boolean cached;
+
+        /**
+         * 是否合并到了进行中的相同查询
+         */
+        private boolean coalesced;
+    }
+
+    /**
+     * 缓存统计
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Stats {
+        /**
+         * 缓存命中次数
+         */
+        private long hits;
+
+        /**
+         * 未命中次数
+         */
+        private long misses;
+
+        /**
+         * 合并到进行中查询的次数
+         */
+        private long coalesced;
+
+        /**
+         * 实际调用后端的次数
+         */
+        private long backendCalls;
+
+        /**
+         * 缓存条目数
+         */
+        private int entries;
+    }
+}
@@ -0,0 +1,57 @@
+package io.leavesfly.koder.tool.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 简单分词器：字母数字连续串为一个词（转为小写），汉字、假名等逐字成词，其余字符作为分隔符
+ */
+public final class TextTokenizer {
+
+    private TextTokenizer() {
+    }
+
+    /**
+     * 切分词项
+     *
+     * @param text 文本（可为null）
+     * @return 按出现顺序排列的词项
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder word = new StringBuilder();
+        text.toLowerCase(Locale.ROOT).codePoints().forEach(cp -> {
+            if (isIdeographic(cp)) {
+                flush(word, tokens);
+                tokens.add(new String(Character.toChars(cp)));
+            } else if (Character.isLetterOrDigit(cp)) {
+                word.appendCodePoint(cp);
+            } else {
+                flush(word, tokens);
+            }
+        });
+        flush(word, tokens);
+        return tokens;
+    }
+
+    /**
+     * 是否为逐字成词的文字（汉字、平假名、片假名）
+     */
+    public static boolean isIdeographic(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA;
+    }
+
+    private static void flush(StringBuilder word, List<String> tokens) {
+        if (word.length() > 0) {
+            tokens.add(word.toString());
+            word.setLength(0);
+        }
+    }
+}
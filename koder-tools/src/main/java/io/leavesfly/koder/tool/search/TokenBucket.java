@@ -0,0 +1,48 @@
+package io.leavesfly.koder.tool.search;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌桶限流器
+ * <p>
+ * 不阻塞线程：{@link #reserve()} 立即预占一个令牌并返回需要等待的时间，
+ * 令牌不足时允许透支，后续请求依次排到更晚的时刻，从而保持平均速率。
+ */
+public class TokenBucket {
+
+    private final double permitsPerSecond;
+    private final double capacity;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param permitsPerSecond 平均速率（每秒令牌数，不大于0表示不限流）
+     * @param burst            允许的突发数量
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = Math.max(burst, 1);
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * 预占一个令牌
+     *
+     * @return 调用方需要等待的时间（纳秒），0 表示可以立即执行
+     */
+    public synchronized long reserve() {
+        if (permitsPerSecond <= 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+        lastRefillNanos = now;
+
+        tokens -= 1;
+        if (tokens >= 0) {
+            return 0;
+        }
+        return (long) (-tokens / permitsPerSecond * TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,104 @@
+package io.leavesfly.koder.tool.semantic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 代码切块
+ * <p>
+ * 按行把文件切成大小相近的块：块长达到目标行数的一半后，遇到空行或顶层声明（缩进不深于块首行）
+ * 即在其前切开，使函数、类等完整落在同一块内；超过目标行数的 1.5 倍时强制切开。只含空白的块被丢弃。
+ */
+final class CodeChunker {
+
+    private final int targetLines;
+
+    CodeChunker(int targetLines) {
+        this.targetLines = Math.max(targetLines, 4);
+    }
+
+    /**
+     * 切块
+     *
+     * @param text 文件内容
+     * @return 按行号排列的块
+     */
+    List<Chunk> chunk(String text) {
+        String[] lines = text.split("\r?\n", -1);
+        List<Chunk> chunks = new ArrayList<>();
+        int minLines = targetLines / 2;
+        int maxLines = targetLines + targetLines / 2;
+
+        int start = 0;
+        int baseIndent = -1;
+        for (int i = 0; i < lines.length; i++) {
+            int length = i - start;
+            if (length > 0) {
+                boolean boundary = length >= minLines && isBoundary(lines[i], baseIndent);
+                if (boundary || length >= maxLines) {
+                    addChunk(lines, start, i, chunks);
+                    start = i;
+                    baseIndent = -1;
+                }
+            }
+            if (baseIndent < 0 && !lines[i].isBlank()) {
+                baseIndent = indentOf(lines[i]);
+            }
+        }
+        addChunk(lines, start, lines.length, chunks);
+        return chunks;
+    }
+
+    /**
+     * 空行，或缩进不深于块首行的行（闭合括号所在行除外，它属于上一段）
+     */
+    private static boolean isBoundary(String line, int baseIndent) {
+        if (line.isBlank()) {
+            return true;
+        }
+        String trimmed = line.stripLeading();
+        if (trimmed.startsWith("}") || trimmed.startsWith(")") || trimmed.startsWith("]")) {
+            return false;
+        }
+        return baseIndent >= 0 && indentOf(line) <= baseIndent;
+    }
+
+    private static int indentOf(String line) {
+        int indent = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == ' ') {
+                indent++;
+            } else if (c == '\t') {
+                indent += 4;
+            } else {
+                break;
+            }
+        }
+        return indent;
+    }
+
+    private static void addChunk(String[] lines, int start, int end, List<Chunk> chunks) {
+        while (start < end && lines[start].isBlank()) {
+            start++;
+        }
+        while (end > start && lines[end - 1].isBlank()) {
+            end--;
+        }
+        if (start >= end) {
+            return;
+        }
+        chunks.add(new Chunk(start + 1, end, String.join("\n", Arrays.asList(lines).subList(start, end))));
+    }
+
+    /**
+     * 代码块
+     *
+     * @param startLine 起始行号（从1开始）
+     * @param endLine   结束行号（含）
+     * @param text      内容
+     */
+    record Chunk(int startLine, int endLine, String text) {
+    }
+}
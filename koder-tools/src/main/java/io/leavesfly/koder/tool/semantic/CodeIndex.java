@@ -0,0 +1,242 @@
+package io.leavesfly.koder.tool.semantic;
+
+import io.leavesfly.koder.tool.config.ToolProperties.SemanticSettings;
+import io.leavesfly.koder.tool.fs.FileWalker;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * 单个目录的代码向量索引（非线程安全，由 {@link SemanticIndex} 加锁访问）
+ * <p>
+ * 记录每个文件的修改时间与大小，刷新时只遍历目录（不读取未变化的文件），
+ * 变化的文件重新切块、向量化并整体替换，消失的文件从索引中删除。
+ */
+@Slf4j
+final class CodeIndex {
+
+    /**
+     * 判断是否为二进制文件时检查的字节数
+     */
+    private static final int BINARY_PROBE_BYTES = 8000;
+
+    /**
+     * 摘要最多包含的行数与字符数
+     */
+    private static final int SNIPPET_LINES = 8;
+    private static final int SNIPPET_CHARS = 600;
+
+    private final Path root;
+    private final SemanticSettings settings;
+    private final HashingEmbedder embedder;
+    private final CodeChunker chunker;
+    private final VectorIndex<Path, ChunkRef> vectors;
+    private final Map<Path, FileStamp> stamps = new HashMap<>();
+
+    private long lastRefresh;
+    private long generation = -1;
+    private boolean truncated;
+
+    CodeIndex(Path root, SemanticSettings settings, HashingEmbedder embedder) {
+        this.root = root;
+        this.settings = settings;
+        this.embedder = embedder;
+        this.chunker = new CodeChunker(settings.getChunkLines());
+        this.vectors = new VectorIndex<>(settings);
+    }
+
+    Path getRoot() {
+        return root;
+    }
+
+    /**
+     * 工作区代数变化，或距上次刷新已超过刷新间隔时需要刷新
+     */
+    boolean needsRefresh(long currentGeneration, long now) {
+        return currentGeneration != generation || now - lastRefresh >= settings.getRefreshIntervalMs();
+    }
+
+    /**
+     * 增量刷新
+     *
+     * @param currentGeneration 刷新时的工作区变更代数
+     * @return 新增、修改或删除的文件数
+     */
+    int refresh(FileWalker fileWalker, long currentGeneration) throws IOException {
+        Set<Path> seen = new HashSet<>();
+        int[] changed = {0};
+        boolean[] limited = {false};
+        fileWalker.walk(root, false, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (!attrs.isRegularFile()) {
+                    return FileVisitResult.CONTINUE;
+                }
+                FileStamp stamp = new FileStamp(attrs.lastModifiedTime().toMillis(), attrs.size());
+                if (!stamps.containsKey(file) && stamps.size() >= settings.getMaxFiles()) {
+                    limited[0] = true;
+                    return FileVisitResult.CONTINUE;
+                }
+                seen.add(file);
+                if (!stamp.equals(stamps.get(file))) {
+                    indexFile(file, stamp);
+                    changed[0]++;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        Iterator<Path> iterator = stamps.keySet().iterator();
+        while (iterator.hasNext()) {
+            Path file = iterator.next();
+            if (!seen.contains(file)) {
+                iterator.remove();
+                vectors.remove(file);
+                changed[0]++;
+            }
+        }
+
+        if (limited[0] && !truncated) {
+            log.warn("目录 {} 的文件数超过语义索引上限 {}，其余文件未建索引", root, settings.getMaxFiles());
+        }
+        truncated = limited[0];
+        generation = currentGeneration;
+        lastRefresh = System.currentTimeMillis();
+        return changed[0];
+    }
+
+    /**
+     * 检索
+     *
+     * @param scope       只返回该路径下的文件（为索引根目录时不过滤）
+     * @param fileMatcher 文件 Glob 匹配器（可为null）
+     */
+    List<SemanticHit> search(Embedding query, Path scope, PathMatcher fileMatcher, int limit) {
+        Predicate<ChunkRef> filter = null;
+        if (!scope.equals(root) || fileMatcher != null) {
+            filter = ref -> ref.file().startsWith(scope)
+                    && (fileMatcher == null
+                    || fileMatcher.matches(scope.relativize(ref.file()))
+                    || fileMatcher.matches(ref.file().getFileName()));
+        }
+        List<SemanticHit> hits = new ArrayList<>();
+        for (VectorIndex.Scored<ChunkRef> scored : vectors.search(query, limit, filter)) {
+            ChunkRef ref = scored.item();
+            hits.add(SemanticHit.builder()
+                    .kind(SemanticHit.CODE)
+                    .score(scored.similarity())
+                    .file(ref.file().toString())
+                    .startLine(ref.startLine())
+                    .endLine(ref.endLine())
+                    .snippet(snippet(ref))
+                    .build());
+        }
+        return hits;
+    }
+
+    int getFileCount() {
+        return vectors.keys().size();
+    }
+
+    int getChunkCount() {
+        return vectors.size();
+    }
+
+    boolean isTruncated() {
+        return truncated;
+    }
+
+    long getOffHeapBytes() {
+        return vectors.getOffHeapBytes();
+    }
+
+    private void indexFile(Path file, FileStamp stamp) {
+        stamps.put(file, stamp);
+        vectors.remove(file);
+        if (stamp.size() == 0 || stamp.size() > settings.getMaxFileBytes()) {
+            return;
+        }
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (IOException e) {
+            log.debug("语义索引读取文件失败: {}: {}", file, e.getMessage());
+            return;
+        }
+        if (isBinary(bytes)) {
+            return;
+        }
+
+        // 相对路径参与向量化，查询中的模块名、文件名也能命中
+        String header = root.relativize(file).toString();
+        List<CodeChunker.Chunk> chunks = chunker.chunk(new String(bytes, StandardCharsets.UTF_8));
+        List<Embedding> embeddings = new ArrayList<>(chunks.size());
+        List<ChunkRef> refs = new ArrayList<>(chunks.size());
+        for (CodeChunker.Chunk chunk : chunks) {
+            Embedding embedding = embedder.embed(header + "\n" + chunk.text());
+            if (!embedding.isEmpty()) {
+                embeddings.add(embedding);
+                refs.add(new ChunkRef(file, chunk.startLine(), chunk.endLine()));
+            }
+        }
+        if (!embeddings.isEmpty()) {
+            vectors.put(file, embeddings, refs);
+        }
+    }
+
+    private static boolean isBinary(byte[] bytes) {
+        int limit = Math.min(bytes.length, BINARY_PROBE_BYTES);
+        for (int i = 0; i < limit; i++) {
+            if (bytes[i] == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 摘要在返回结果时从文件读取，索引中不保存代码文本
+     */
+    private static String snippet(ChunkRef ref) {
+        String[] lines;
+        try {
+            lines = new String(Files.readAllBytes(ref.file()), StandardCharsets.UTF_8).split("\r?\n", -1);
+        } catch (IOException e) {
+            return "";
+        }
+        int end = Math.min(Math.min(ref.endLine(), ref.startLine() + SNIPPET_LINES - 1), lines.length);
+        StringBuilder sb = new StringBuilder();
+        for (int i = ref.startLine() - 1; i < end; i++) {
+            if (sb.length() > 0) {
+                sb.append('\n');
+            }
+            sb.append(lines[i]);
+            if (sb.length() >= SNIPPET_CHARS) {
+                return sb.substring(0, SNIPPET_CHARS) + "...";
+            }
+        }
+        return end < ref.endLine() ? sb + "\n..." : sb.toString();
+    }
+
+    /**
+     * 代码块位置
+     */
+    private record ChunkRef(Path file, int startLine, int endLine) {
+    }
+
+    /**
+     * 建索引时的文件状态
+     */
+    private record FileStamp(long modified, long size) {
+    }
+}
@@ -0,0 +1,52 @@
+package io.leavesfly.koder.tool.semantic;
+
+/**
+ * int8 量化后的向量
+ * <p>
+ * 每个分量按向量自身的最大绝对值缩放到 [-127, 127]，同时记录量化后向量的模长。
+ * 余弦相似度只需整数点积再除以两个模长，与缩放系数无关。
+ *
+ * @param values 量化分量
+ * @param norm   量化分量的 L2 模长（零向量为 0）
+ */
+record Embedding(byte[] values, float norm) {
+
+    /**
+     * 量化浮点向量
+     */
+    static Embedding quantize(float[] vector) {
+        float maxAbs = 0;
+        for (float value : vector) {
+            maxAbs = Math.max(maxAbs, Math.abs(value));
+        }
+        byte[] values = new byte[vector.length];
+        if (maxAbs == 0) {
+            return new Embedding(values, 0);
+        }
+        long sumOfSquares = 0;
+        for (int i = 0; i < vector.length; i++) {
+            int quantized = Math.round(vector[i] * 127 / maxAbs);
+            values[i] = (byte) quantized;
+            sumOfSquares += (long) quantized * quantized;
+        }
+        return new Embedding(values, (float) Math.sqrt(sumOfSquares));
+    }
+
+    /**
+     * 是否为零向量（没有任何可用特征）
+     */
+    boolean isEmpty() {
+        return norm == 0;
+    }
+
+    /**
+     * 两个量化向量的整数点积
+     */
+    static int dot(byte[] a, byte[] b) {
+        int sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,202 @@
+package io.leavesfly.koder.tool.semantic;
+
+import io.leavesfly.koder.tool.search.TextTokenizer;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 哈希 n-gram 文本向量化
+ * <p>
+ * 不依赖模型文件，纯 CPU 计算：标识符按驼峰、下划线拆成词，词本身与词内的字符三元组经特征哈希
+ * 映射到固定维度（符号位随哈希取正负以抵消碰撞），词频取对数抑制重复，最后量化为 int8。
+ * 共享词根、拼写变体（如 auth / authentication、getUser / user_id）的文本因此得到相近的向量。
+ * 汉字逐字成词，并额外加入相邻两字的组合。
+ */
+final class HashingEmbedder {
+
+    /**
+     * 字符三元组相对于整词的权重
+     */
+    private static final float TRIGRAM_WEIGHT = 0.3f;
+
+    /**
+     * 复合标识符（如 getusername）整体作为特征时的权重
+     */
+    private static final float COMPOUND_WEIGHT = 0.5f;
+
+    /**
+     * 出现频繁、几乎不携带语义的词（常见关键字与英文虚词）
+     */
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it", "of", "on",
+            "or", "the", "this", "to", "with", "public", "private", "protected", "static", "final", "void",
+            "return", "new", "import", "package", "class", "int", "string", "if", "else", "var", "let",
+            "const", "def", "self", "true", "false", "null", "none");
+
+    private final int dimensions;
+
+    HashingEmbedder(int dimensions) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("向量维度必须为正数: " + dimensions);
+        }
+        this.dimensions = dimensions;
+    }
+
+    int getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * 计算文本的量化向量（没有可用特征时返回零向量）
+     */
+    Embedding embed(String text) {
+        Map<String, Integer> words = new HashMap<>();
+        Map<String, Integer> compounds = new HashMap<>();
+        collectWords(text, words, compounds);
+
+        float[] vector = new float[dimensions];
+        words.forEach((word, count) -> {
+            float weight = (float) (1 + Math.log(count));
+            addFeature(vector, word.hashCode(), weight);
+            addTrigrams(vector, word, weight * TRIGRAM_WEIGHT);
+        });
+        compounds.forEach((word, count) ->
+                addFeature(vector, word.hashCode() * 31 + 7, (float) (1 + Math.log(count)) * COMPOUND_WEIGHT));
+        return Embedding.quantize(vector);
+    }
+
+    /**
+     * 切词：先按非字母数字字符切成标识符，再按驼峰拆分；汉字逐字成词并加入相邻两字的组合
+     */
+    private static void collectWords(String text, Map<String, Integer> words, Map<String, Integer> compounds) {
+        if (text == null) {
+            return;
+        }
+        StringBuilder identifier = new StringBuilder();
+        int previousIdeograph = -1;
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            if (TextTokenizer.isIdeographic(cp)) {
+                flushIdentifier(identifier, words, compounds);
+                String single = new String(Character.toChars(cp));
+                words.merge(single, 1, Integer::sum);
+                if (previousIdeograph >= 0) {
+                    words.merge(new String(Character.toChars(previousIdeograph)) + single, 1, Integer::sum);
+                }
+                previousIdeograph = cp;
+            } else if (Character.isLetterOrDigit(cp)) {
+                identifier.appendCodePoint(cp);
+                previousIdeograph = -1;
+            } else {
+                flushIdentifier(identifier, words, compounds);
+                previousIdeograph = -1;
+            }
+        }
+        flushIdentifier(identifier, words, compounds);
+    }
+
+    private static void flushIdentifier(StringBuilder identifier, Map<String, Integer> words,
+                                        Map<String, Integer> compounds) {
+        if (identifier.length() == 0) {
+            return;
+        }
+        String raw = identifier.toString();
+        identifier.setLength(0);
+
+        int parts = 0;
+        int start = 0;
+        for (int i = 1; i <= raw.length(); i++) {
+            if (i == raw.length() || isCamelBoundary(raw, i)) {
+                if (addWord(raw.substring(start, i), words)) {
+                    parts++;
+                }
+                start = i;
+            }
+        }
+        if (parts > 1) {
+            compounds.merge(raw.toLowerCase(Locale.ROOT), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * 驼峰边界：小写/数字后接大写（userName），或连续大写后接大写+小写（HTTPServer 在 S 之前）
+     */
+    private static boolean isCamelBoundary(String s, int i) {
+        char previous = s.charAt(i - 1);
+        char current = s.charAt(i);
+        if (!Character.isUpperCase(current)) {
+            return false;
+        }
+        if (Character.isLowerCase(previous) || Character.isDigit(previous)) {
+            return true;
+        }
+        return Character.isUpperCase(previous) && i + 1 < s.length() && Character.isLowerCase(s.charAt(i + 1));
+    }
+
+    private static boolean addWord(String part, Map<String, Integer> words) {
+        String word = part.toLowerCase(Locale.ROOT);
+        if (word.length() < 2 || STOP_WORDS.contains(word) || isNumber(word)) {
+            return false;
+        }
+        words.merge(stem(word), 1, Integer::sum);
+        return true;
+    }
+
+    /**
+     * 极简词干：去掉英文复数的 s（不处理 ss 结尾）
+     */
+    private static String stem(String word) {
+        if (word.length() > 3 && word.endsWith("s") && !word.endsWith("ss")) {
+            return word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+
+    private static boolean isNumber(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (!Character.isDigit(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 词首尾加边界符后的字符三元组，如 auth → ^au, aut, uth, th$
+     */
+    private void addTrigrams(float[] vector, String word, float weight) {
+        int length = word.length() + 2;
+        if (length < 4) {
+            return;
+        }
+        for (int i = 0; i + 3 <= length; i++) {
+            int hash = 0x7F4A7C15;
+            for (int j = i; j < i + 3; j++) {
+                char c = j == 0 ? '^' : j == length - 1 ? '$' : word.charAt(j - 1);
+                hash = hash * 31 + c;
+            }
+            addFeature(vector, hash, weight);
+        }
+    }
+
+    private void addFeature(float[] vector, int hash, float weight) {
+        int mixed = mix(hash);
+        int index = Math.floorMod(mixed, dimensions);
+        vector[index] += (mixed & 0x40000000) != 0 ? weight : -weight;
+    }
+
+    /**
+     * 打散 String.hashCode 的低位相关性
+     */
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B1;
+        h ^= h >>> 15;
+        h *= 0x85EBCA77;
+        h ^= h >>> 13;
+        return h;
+    }
+}
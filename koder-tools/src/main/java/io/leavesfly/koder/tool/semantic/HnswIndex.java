@@ -0,0 +1,351 @@
+package io.leavesfly.koder.tool.semantic;
+
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * HNSW（分层可导航小世界图）近似最近邻索引（非线程安全）
+ * <p>
+ * 每个节点随机分配层级（越高层节点越少），各层内与最相近的若干节点相连。
+ * 检索从顶层入口贪心下降，到底层再做宽度为 ef 的束搜索，复杂度约为 O(log n)。
+ * 向量存放在堆外的 {@link VectorStore} 中，邻接表按节点、层级存为 int 数组（首元素为邻居数），
+ * 并在并行的 float 数组中缓存每条边的相似度：邻居数超限时直接淘汰最不相似的边，无需重新计算。
+ * <p>
+ * 删除只做标记：已删除节点仍参与导航但不出现在结果中，删除过多时由调用方重建。
+ */
+final class HnswIndex {
+
+    private final int maxConnections;
+    private final int maxConnectionsLevel0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final VectorStore vectors;
+    private final Random random = new Random(42);
+
+    private int[][][] links = new int[64][][];
+    private float[][][] weights = new float[64][][];
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    private int[] visited = new int[64];
+    private int visitMark;
+    private final byte[] scratch;
+
+    /**
+     * @param dimensions     向量维度
+     * @param maxConnections 每个节点在上层的最大邻居数（底层为两倍）
+     * @param efConstruction 建图时的束宽
+     */
+    HnswIndex(int dimensions, int maxConnections, int efConstruction) {
+        if (maxConnections < 2) {
+            throw new IllegalArgumentException("HNSW 邻居数至少为2: " + maxConnections);
+        }
+        this.maxConnections = maxConnections;
+        this.maxConnectionsLevel0 = maxConnections * 2;
+        this.efConstruction = Math.max(efConstruction, maxConnections);
+        this.levelMultiplier = 1 / Math.log(maxConnections);
+        this.vectors = new VectorStore(dimensions);
+        this.scratch = new byte[dimensions];
+    }
+
+    /**
+     * 插入向量
+     *
+     * @return 节点序号
+     */
+    int add(Embedding embedding) {
+        int node = vectors.add(embedding);
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        if (node == links.length) {
+            links = Arrays.copyOf(links, links.length * 2);
+            weights = Arrays.copyOf(weights, weights.length * 2);
+        }
+        links[node] = new int[level + 1][];
+        weights[node] = new float[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            int capacity = (l == 0 ? maxConnectionsLevel0 : maxConnections) + 1;
+            links[node][l] = new int[capacity];
+            weights[node][l] = new float[capacity];
+        }
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return node;
+        }
+
+        int current = entryPoint;
+        float currentSimilarity = vectors.similarity(embedding, current, scratch);
+        for (int l = maxLevel; l > level; l--) {
+            Neighbor closest = greedyClosest(embedding, current, currentSimilarity, l);
+            current = closest.node();
+            currentSimilarity = closest.similarity();
+        }
+
+        List<Neighbor> entries = List.of(new Neighbor(current, currentSimilarity));
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Neighbor> candidates = searchLayer(embedding, entries, efConstruction, l, null);
+            int limit = l == 0 ? maxConnectionsLevel0 : maxConnections;
+            List<Neighbor> selected = selectNeighbors(candidates, maxConnections);
+            for (Neighbor neighbor : selected) {
+                append(node, l, neighbor.node(), neighbor.similarity());
+                connect(neighbor.node(), node, neighbor.similarity(), l, limit);
+            }
+            entries = candidates;
+        }
+
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+        return node;
+    }
+
+    /**
+     * 标记删除
+     */
+    void remove(int node) {
+        if (node >= 0 && node < vectors.size() && !deleted.get(node)) {
+            deleted.set(node);
+            deletedCount++;
+        }
+    }
+
+    /**
+     * 检索最相近的存活节点
+     *
+     * @param query  查询向量
+     * @param k      返回数量
+     * @param ef     束宽（不小于 k，越大召回越高）
+     * @param accept 额外的节点过滤条件（可为null）
+     * @return 按相似度降序排列的节点
+     */
+    List<Neighbor> search(Embedding query, int k, int ef, IntPredicate accept) {
+        if (entryPoint < 0 || k <= 0 || query.isEmpty()) {
+            return List.of();
+        }
+        int current = entryPoint;
+        float currentSimilarity = vectors.similarity(query, current, scratch);
+        for (int l = maxLevel; l > 0; l--) {
+            Neighbor closest = greedyClosest(query, current, currentSimilarity, l);
+            current = closest.node();
+            currentSimilarity = closest.similarity();
+        }
+        IntPredicate filter = accept != null
+                ? node -> !deleted.get(node) && accept.test(node)
+                : node -> !deleted.get(node);
+        List<Neighbor> results = searchLayer(query, List.of(new Neighbor(current, currentSimilarity)),
+                Math.max(ef, k), 0, filter);
+        return results.size() > k ? results.subList(0, k) : results;
+    }
+
+    /**
+     * 节点向量（用于重建索引）
+     */
+    Embedding embedding(int node) {
+        return vectors.get(node);
+    }
+
+    boolean isDeleted(int node) {
+        return deleted.get(node);
+    }
+
+    /**
+     * 节点总数（含已删除）
+     */
+    int size() {
+        return vectors.size();
+    }
+
+    /**
+     * 存活节点数
+     */
+    int liveSize() {
+        return vectors.size() - deletedCount;
+    }
+
+    /**
+     * 已删除节点是否已多于存活节点（此时应重建）
+     */
+    boolean needsRebuild() {
+        return deletedCount > 256 && deletedCount > liveSize();
+    }
+
+    /**
+     * 占用的直接内存字节数
+     */
+    long getOffHeapBytes() {
+        return vectors.getOffHeapBytes();
+    }
+
+    /**
+     * 在某一层从当前节点出发贪心移动到最相近的节点
+     */
+    private Neighbor greedyClosest(Embedding query, int start, float startSimilarity, int level) {
+        int current = start;
+        float best = startSimilarity;
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbors = links[current][level];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                int candidate = neighbors[i];
+                float similarity = vectors.similarity(query, candidate, scratch);
+                if (similarity > best) {
+                    best = similarity;
+                    current = candidate;
+                    improved = true;
+                }
+            }
+        }
+        return new Neighbor(current, best);
+    }
+
+    /**
+     * 某一层内的束搜索
+     *
+     * @param accept 结果过滤条件；不满足的节点仍用于导航（为null时不过滤）
+     * @return 按相似度降序排列的至多 ef 个节点
+     */
+    private List<Neighbor> searchLayer(Embedding query, List<Neighbor> entries, int ef, int level,
+                                       IntPredicate accept) {
+        startVisit();
+        PriorityQueue<Neighbor> candidates = new PriorityQueue<>(Neighbor.CLOSEST_FIRST);
+        PriorityQueue<Neighbor> results = new PriorityQueue<>(Neighbor.CLOSEST_FIRST.reversed());
+        for (Neighbor entry : entries) {
+            if (markVisited(entry.node())) {
+                candidates.add(entry);
+                if (accept == null || accept.test(entry.node())) {
+                    results.add(entry);
+                }
+            }
+        }
+        while (results.size() > ef) {
+            results.poll();
+        }
+
+        while (!candidates.isEmpty()) {
+            Neighbor candidate = candidates.poll();
+            if (results.size() >= ef && candidate.similarity() < results.peek().similarity()) {
+                break;
+            }
+            int[] neighbors = links[candidate.node()][level];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                int node = neighbors[i];
+                if (!markVisited(node)) {
+                    continue;
+                }
+                float similarity = vectors.similarity(query, node, scratch);
+                if (results.size() < ef || similarity > results.peek().similarity()) {
+                    Neighbor neighbor = new Neighbor(node, similarity);
+                    candidates.add(neighbor);
+                    if (accept == null || accept.test(node)) {
+                        results.add(neighbor);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Neighbor> sorted = new ArrayList<>(results);
+        sorted.sort(Neighbor.CLOSEST_FIRST);
+        return sorted;
+    }
+
+    /**
+     * 启发式选邻：候选与已选邻居的相似度都低于它与目标的相似度时才选中，使邻居分散在不同方向；
+     * 不足数量时再按相似度补齐
+     */
+    private List<Neighbor> selectNeighbors(List<Neighbor> candidates, int count) {
+        if (candidates.size() <= count) {
+            return candidates;
+        }
+        List<Neighbor> selected = new ArrayList<>(count);
+        List<Neighbor> skipped = new ArrayList<>();
+        for (Neighbor candidate : candidates) {
+            if (selected.size() >= count) {
+                break;
+            }
+            Embedding candidateEmbedding = null;
+            boolean diverse = true;
+            for (Neighbor chosen : selected) {
+                if (candidateEmbedding == null) {
+                    candidateEmbedding = vectors.get(candidate.node());
+                }
+                if (vectors.similarity(candidateEmbedding, chosen.node(), scratch) > candidate.similarity()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            (diverse ? selected : skipped).add(candidate);
+        }
+        for (int i = 0; selected.size() < count && i < skipped.size(); i++) {
+            selected.add(skipped.get(i));
+        }
+        return selected;
+    }
+
+    /**
+     * 为已有节点添加反向连接，超出上限时替换其中最不相似的邻居
+     */
+    private void connect(int node, int neighbor, float similarity, int level, int limit) {
+        int[] list = links[node][level];
+        if (list[0] < limit) {
+            append(node, level, neighbor, similarity);
+            return;
+        }
+        float[] similarities = weights[node][level];
+        int weakest = 1;
+        for (int i = 2; i <= list[0]; i++) {
+            if (similarities[i] < similarities[weakest]) {
+                weakest = i;
+            }
+        }
+        if (similarity > similarities[weakest]) {
+            list[weakest] = neighbor;
+            similarities[weakest] = similarity;
+        }
+    }
+
+    private void append(int node, int level, int neighbor, float similarity) {
+        int[] list = links[node][level];
+        int position = ++list[0];
+        list[position] = neighbor;
+        weights[node][level][position] = similarity;
+    }
+
+    /**
+     * 开始一次新的遍历（用递增的标记代替每次清空访问集合）
+     */
+    private void startVisit() {
+        if (visited.length < vectors.size()) {
+            visited = Arrays.copyOf(visited, Math.max(vectors.size(), visited.length * 2));
+        }
+        if (++visitMark == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            visitMark = 1;
+        }
+    }
+
+    /**
+     * @return 是否首次访问
+     */
+    private boolean markVisited(int node) {
+        if (visited[node] == visitMark) {
+            return false;
+        }
+        visited[node] = visitMark;
+        return true;
+    }
+
+    /**
+     * 节点及其与查询的相似度
+     */
+    record Neighbor(int node, float similarity) {
+        static final Comparator<Neighbor> CLOSEST_FIRST = (a, b) -> Float.compare(b.similarity, a.similarity);
+    }
+}
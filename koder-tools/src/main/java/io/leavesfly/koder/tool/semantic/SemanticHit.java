@@ -0,0 +1,59 @@
+package io.leavesfly.koder.tool.semantic;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 语义检索结果：代码块或记忆
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SemanticHit {
+
+    public static final String CODE = "code";
+    public static final String MEMORY = "memory";
+
+    /**
+     * 结果类型：code / memory
+     */
+    private String kind;
+
+    /**
+     * 余弦相似度（0~1）
+     */
+    private double score;
+
+    /**
+     * 文件路径（代码块）
+     */
+    private String file;
+
+    /**
+     * 起始行号（代码块，从1开始）
+     */
+    private Integer startLine;
+
+    /**
+     * 结束行号（代码块，含）
+     */
+    private Integer endLine;
+
+    /**
+     * 记忆ID（记忆）
+     */
+    private String memoryId;
+
+    /**
+     * 记忆标题（记忆）
+     */
+    private String title;
+
+    /**
+     * 内容摘要
+     */
+    private String snippet;
+}
@@ -0,0 +1,239 @@
+package io.leavesfly.koder.tool.semantic;
+
+import io.leavesfly.koder.tool.config.ToolProperties;
+import io.leavesfly.koder.tool.config.ToolProperties.SemanticSettings;
+import io.leavesfly.koder.tool.fs.FileWalker;
+import io.leavesfly.koder.tool.fs.WorkspaceChangeTracker;
+import io.leavesfly.koder.tool.memory.Memory;
+import io.leavesfly.koder.tool.memory.MemoryStore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.*;
+
+/**
+ * 进程内语义索引：代码块与记忆
+ * <p>
+ * 文本经 {@link HashingEmbedder} 转为 int8 向量，存入堆外内存并由 {@link HnswIndex} 建立近似最近邻图。
+ * 代码按目录分别建索引：首次检索某目录时全量构建，之后每次检索前按文件修改时间增量刷新
+ * （工作区变更代数变化时立即刷新，否则按刷新间隔）；检索子目录时复用已建索引的上级目录。
+ * 记忆在 {@link MemoryStore} 修订号变化时同步。
+ */
+@Slf4j
+@Component
+public class SemanticIndex {
+
+    private static final int MEMORY_SNIPPET_CHARS = 300;
+
+    private final ToolProperties properties;
+    private final FileWalker fileWalker;
+    private final WorkspaceChangeTracker changeTracker;
+    private final MemoryStore memoryStore;
+    private final HashingEmbedder embedder;
+
+    /**
+     * 已建索引的目录，按访问顺序排列
+     */
+    private final LinkedHashMap<Path, CodeIndex> roots = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Object memoryLock = new Object();
+    private VectorIndex<String, MemoryRef> memoryVectors;
+    private final Map<String, Integer> memoryStamps = new HashMap<>();
+    private long memoryRevision = -1;
+
+    public SemanticIndex(ToolProperties properties, FileWalker fileWalker, WorkspaceChangeTracker changeTracker,
+                         MemoryStore memoryStore) {
+        this.properties = properties;
+        this.fileWalker = fileWalker;
+        this.changeTracker = changeTracker;
+        this.memoryStore = memoryStore;
+        this.embedder = new HashingEmbedder(properties.getSemantic().getDimensions());
+    }
+
+    /**
+     * 检索代码
+     *
+     * @param path        检索目录
+     * @param query       自然语言或代码片段
+     * @param filePattern 文件 Glob 模式（可为null）
+     * @param limit       最大结果数
+     */
+    public CodeSearchResult searchCode(Path path, String query, String filePattern, int limit) throws IOException {
+        Path scope = path.toAbsolutePath().normalize();
+        PathMatcher fileMatcher = filePattern != null && !filePattern.isBlank()
+                ? FileSystems.getDefault().getPathMatcher("glob:" + filePattern)
+                : null;
+        Embedding queryEmbedding = embedder.embed(query);
+        CodeIndex index = indexFor(scope);
+
+        synchronized (index) {
+            long start = System.currentTimeMillis();
+            boolean created = index.getFileCount() == 0;
+            int updated = 0;
+            long generation = changeTracker.getGeneration();
+            if (index.needsRefresh(generation, start)) {
+                updated = index.refresh(fileWalker, generation);
+                if (updated > 0) {
+                    log.info("语义索引{}: {} ({} 个文件变化, 共 {} 个文件 / {} 个代码块, 堆外 {} KB), 耗时 {}ms",
+                            created ? "已构建" : "已更新", index.getRoot(), updated, index.getFileCount(),
+                            index.getChunkCount(), index.getOffHeapBytes() / 1024, System.currentTimeMillis() - start);
+                }
+            }
+            List<SemanticHit> hits = queryEmbedding.isEmpty()
+                    ? List.of()
+                    : index.search(queryEmbedding, scope, fileMatcher, limit);
+            return CodeSearchResult.builder()
+                    .hits(hits)
+                    .indexedFiles(index.getFileCount())
+                    .indexedChunks(index.getChunkCount())
+                    .updatedFiles(updated)
+                    .truncated(index.isTruncated())
+                    .build();
+        }
+    }
+
+    /**
+     * 检索记忆
+     *
+     * @param query 自然语言查询
+     * @param limit 最大结果数
+     */
+    public List<SemanticHit> searchMemories(String query, int limit) {
+        Embedding queryEmbedding = embedder.embed(query);
+        synchronized (memoryLock) {
+            syncMemories();
+            if (queryEmbedding.isEmpty()) {
+                return List.of();
+            }
+            List<SemanticHit> hits = new ArrayList<>();
+            for (VectorIndex.Scored<MemoryRef> scored : memoryVectors.search(queryEmbedding, limit, null)) {
+                MemoryRef ref = scored.item();
+                hits.add(SemanticHit.builder()
+                        .kind(SemanticHit.MEMORY)
+                        .score(scored.similarity())
+                        .memoryId(ref.id())
+                        .title(ref.title())
+                        .snippet(ref.snippet())
+                        .build());
+            }
+            return hits;
+        }
+    }
+
+    /**
+     * 找到覆盖该路径的已有索引，没有时为该路径新建（超出数量上限时淘汰最久未使用的）
+     */
+    private CodeIndex indexFor(Path scope) {
+        synchronized (roots) {
+            for (Map.Entry<Path, CodeIndex> entry : roots.entrySet()) {
+                if (scope.startsWith(entry.getKey())) {
+                    return roots.get(entry.getKey());
+                }
+            }
+            CodeIndex index = new CodeIndex(scope, settings(), embedder);
+            roots.put(scope, index);
+            // 新目录是已有索引的上级时，子目录索引被它取代
+            roots.keySet().removeIf(root -> !root.equals(scope) && root.startsWith(scope));
+            Iterator<Path> eldest = roots.keySet().iterator();
+            while (roots.size() > Math.max(settings().getMaxIndexedRoots(), 1) && eldest.hasNext()) {
+                Path root = eldest.next();
+                if (!root.equals(scope)) {
+                    eldest.remove();
+                    log.debug("淘汰语义索引: {}", root);
+                }
+            }
+            return index;
+        }
+    }
+
+    /**
+     * 与记忆存储同步：只对新增、修改的记忆重新向量化
+     */
+    private void syncMemories() {
+        long revision = memoryStore.getRevision();
+        if (memoryVectors != null && revision == memoryRevision) {
+            return;
+        }
+        if (memoryVectors == null) {
+            memoryVectors = new VectorIndex<>(settings());
+        }
+        Set<String> live = new HashSet<>();
+        for (Memory memory : memoryStore.list()) {
+            live.add(memory.getId());
+            int stamp = Objects.hash(memory.getTitle(), memory.getContent(), memory.getTags());
+            if (Objects.equals(memoryStamps.get(memory.getId()), stamp)) {
+                continue;
+            }
+            memoryStamps.put(memory.getId(), stamp);
+            String tags = memory.getTags() != null ? String.join(" ", memory.getTags()) : "";
+            Embedding embedding = embedder.embed(Objects.toString(memory.getTitle(), "") + "\n" + tags + "\n"
+                    + Objects.toString(memory.getContent(), ""));
+            if (embedding.isEmpty()) {
+                memoryVectors.remove(memory.getId());
+            } else {
+                memoryVectors.put(memory.getId(), List.of(embedding),
+                        List.of(new MemoryRef(memory.getId(), memory.getTitle(), abbreviate(memory.getContent()))));
+            }
+        }
+        memoryStamps.keySet().removeIf(id -> {
+            if (live.contains(id)) {
+                return false;
+            }
+            memoryVectors.remove(id);
+            return true;
+        });
+        memoryRevision = revision;
+    }
+
+    private static String abbreviate(String content) {
+        if (content == null) {
+            return "";
+        }
+        return content.length() > MEMORY_SNIPPET_CHARS ? content.substring(0, MEMORY_SNIPPET_CHARS) + "..." : content;
+    }
+
+    private SemanticSettings settings() {
+        return properties.getSemantic();
+    }
+
+    /**
+     * 代码检索结果
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CodeSearchResult {
+        private List<SemanticHit> hits;
+
+        /**
+         * 索引中的文件数与代码块数
+         */
+        private int indexedFiles;
+        private int indexedChunks;
+
+        /**
+         * 本次检索前增量更新的文件数
+         */
+        private int updatedFiles;
+
+        /**
+         * 文件数是否超过上限（部分文件未建索引）
+         */
+        private boolean truncated;
+    }
+
+    /**
+     * 记忆摘要
+     */
+    private record MemoryRef(String id, String title, String snippet) {
+    }
+}
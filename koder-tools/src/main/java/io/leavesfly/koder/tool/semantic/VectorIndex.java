@@ -0,0 +1,130 @@
+package io.leavesfly.koder.tool.semantic;
+
+import io.leavesfly.koder.tool.config.ToolProperties.SemanticSettings;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * 按键分组的向量索引（非线程安全）
+ * <p>
+ * 一个键（如文件路径、记忆ID）对应若干向量及其附带数据，更新键时整体替换。
+ * 底层为 {@link HnswIndex}，旧节点标记删除，删除过多时用存活向量重建图。
+ *
+ * @param <K> 键类型
+ * @param <P> 附带数据类型
+ */
+final class VectorIndex<K, P> {
+
+    /**
+     * 过滤导致结果不足时，束宽最多扩大的次数
+     */
+    private static final int MAX_WIDENING = 3;
+
+    private final SemanticSettings settings;
+    private HnswIndex graph;
+    private List<P> payloads = new ArrayList<>();
+    private final Map<K, int[]> nodesByKey = new HashMap<>();
+
+    VectorIndex(SemanticSettings settings) {
+        this.settings = settings;
+        this.graph = newGraph();
+    }
+
+    /**
+     * 设置键对应的向量（替换原有内容）
+     */
+    void put(K key, List<Embedding> embeddings, List<P> items) {
+        remove(key);
+        int[] nodes = new int[embeddings.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = graph.add(embeddings.get(i));
+            payloads.add(items.get(i));
+        }
+        nodesByKey.put(key, nodes);
+    }
+
+    /**
+     * 删除键对应的向量
+     */
+    void remove(K key) {
+        int[] nodes = nodesByKey.remove(key);
+        if (nodes == null) {
+            return;
+        }
+        for (int node : nodes) {
+            graph.remove(node);
+            payloads.set(node, null);
+        }
+        if (graph.needsRebuild()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 检索最相近的条目
+     *
+     * @param filter 附带数据过滤条件（可为null）
+     */
+    List<Scored<P>> search(Embedding query, int limit, Predicate<P> filter) {
+        int ef = Math.max(settings.getEfSearch(), limit);
+        List<HnswIndex.Neighbor> neighbors = List.of();
+        for (int attempt = 0; attempt <= MAX_WIDENING; attempt++) {
+            neighbors = graph.search(query, limit, ef,
+                    filter != null ? node -> filter.test(payloads.get(node)) : null);
+            if (neighbors.size() >= limit || filter == null || ef >= graph.size()) {
+                break;
+            }
+            ef *= 4;
+        }
+        List<Scored<P>> results = new ArrayList<>(neighbors.size());
+        for (HnswIndex.Neighbor neighbor : neighbors) {
+            results.add(new Scored<>(payloads.get(neighbor.node()), neighbor.similarity()));
+        }
+        return results;
+    }
+
+    boolean contains(K key) {
+        return nodesByKey.containsKey(key);
+    }
+
+    Set<K> keys() {
+        return nodesByKey.keySet();
+    }
+
+    /**
+     * 存活向量数
+     */
+    int size() {
+        return graph.liveSize();
+    }
+
+    long getOffHeapBytes() {
+        return graph.getOffHeapBytes();
+    }
+
+    private void rebuild() {
+        HnswIndex rebuilt = newGraph();
+        List<P> rebuiltPayloads = new ArrayList<>(graph.liveSize());
+        for (Map.Entry<K, int[]> entry : nodesByKey.entrySet()) {
+            int[] nodes = entry.getValue();
+            for (int i = 0; i < nodes.length; i++) {
+                int node = rebuilt.add(graph.embedding(nodes[i]));
+                rebuiltPayloads.add(payloads.get(nodes[i]));
+                nodes[i] = node;
+            }
+        }
+        graph = rebuilt;
+        payloads = rebuiltPayloads;
+    }
+
+    private HnswIndex newGraph() {
+        return new HnswIndex(settings.getDimensions(), settings.getHnswM(), settings.getEfConstruction());
+    }
+
+    /**
+     * 带相似度的条目
+     */
+    record Scored<P>(P item, float similarity) {
+    }
+}
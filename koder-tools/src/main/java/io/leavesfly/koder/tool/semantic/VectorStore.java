@@ -0,0 +1,96 @@
+package io.leavesfly.koder.tool.semantic;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 堆外的定长向量存储（非线程安全）
+ * <p>
+ * 所有量化向量首尾相接存放在一块直接内存中，不为每个向量创建堆对象，大量代码块也不会增加 GC 压力。
+ * 容量不足时按倍数扩容并整体复制；向量只追加不修改，删除由上层以标记方式处理。
+ */
+final class VectorStore {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final int dimensions;
+    private ByteBuffer data;
+    private float[] norms;
+    private int size;
+
+    VectorStore(int dimensions) {
+        this.dimensions = dimensions;
+        this.data = ByteBuffer.allocateDirect(INITIAL_CAPACITY * dimensions);
+        this.norms = new float[INITIAL_CAPACITY];
+    }
+
+    /**
+     * 追加向量
+     *
+     * @return 向量序号
+     */
+    int add(Embedding embedding) {
+        if (embedding.values().length != dimensions) {
+            throw new IllegalArgumentException("向量维度不匹配: " + embedding.values().length + " != " + dimensions);
+        }
+        if (size == norms.length) {
+            grow();
+        }
+        data.put(size * dimensions, embedding.values());
+        norms[size] = embedding.norm();
+        return size++;
+    }
+
+    /**
+     * 把向量读入调用方提供的缓冲区（长度等于维度）
+     */
+    void read(int slot, byte[] target) {
+        data.get(slot * dimensions, target);
+    }
+
+    /**
+     * 读取向量
+     */
+    Embedding get(int slot) {
+        byte[] values = new byte[dimensions];
+        read(slot, values);
+        return new Embedding(values, norms[slot]);
+    }
+
+    /**
+     * 查询向量与存储向量的余弦相似度
+     *
+     * @param scratch 长度等于维度的临时缓冲区
+     */
+    float similarity(Embedding query, int slot, byte[] scratch) {
+        float norm = norms[slot];
+        if (norm == 0 || query.norm() == 0) {
+            return 0;
+        }
+        read(slot, scratch);
+        return Embedding.dot(query.values(), scratch) / (query.norm() * norm);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * 占用的直接内存字节数
+     */
+    long getOffHeapBytes() {
+        return data.capacity();
+    }
+
+    private void grow() {
+        int capacity = norms.length * 2;
+        ByteBuffer grown = ByteBuffer.allocateDirect(capacity * dimensions);
+        grown.put(0, data, 0, size * dimensions);
+        data = grown;
+        norms = Arrays.copyOf(norms, capacity);
+    }
+}
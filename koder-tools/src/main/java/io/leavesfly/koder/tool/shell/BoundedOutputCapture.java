@@ -0,0 +1,202 @@
+package io.leavesfly.koder.tool.shell;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 有界输出捕获流
+ * <p>
+ * 只保留输出的前 N 行和最后 M 行（各自另有字节上限），中间部分丢弃，
+ * 同时精确统计总字节数与总行数。超长的单行只保留开头部分。
+ * 无论命令输出多少内容，占用的内存都是固定上限。
+ * <p>
+ * 每读到完整的一行都会回调行监听器（用于实时流式展示）；流关闭时末尾不带换行的内容同样回调。
+ * 该流由单个输出泵线程写入，读取结果应在写入结束之后进行。
+ */
+public class BoundedOutputCapture extends OutputStream {
+
+    private final int headLines;
+    private final int tailLines;
+    private final int maxHeadBytes;
+    private final int maxTailBytes;
+    private final int maxLineBytes;
+    private final Consumer<String> lineListener;
+
+    private final List<String> head = new ArrayList<>();
+    private final Deque<CapturedLine> tail = new ArrayDeque<>();
+    private int headBytes;
+    private int tailBytes;
+    private boolean headFull;
+
+    /**
+     * 当前未结束的行（最多保留 maxLineBytes 字节）
+     */
+    private final ByteArrayOutputStream currentLine = new ByteArrayOutputStream();
+    private boolean currentLineTruncated;
+    private boolean anyLineTruncated;
+
+    private long totalBytes;
+    private long totalLines;
+    private boolean closed;
+
+    /**
+     * @param headLines    保留的开头行数
+     * @param tailLines    保留的末尾行数
+     * @param maxHeadBytes 开头部分的字节上限
+     * @param maxTailBytes 末尾部分的字节上限
+     * @param maxLineBytes 单行的字节上限
+     * @param lineListener 行监听器（可为null）
+     */
+    public BoundedOutputCapture(int headLines, int tailLines, int maxHeadBytes, int maxTailBytes,
+                                int maxLineBytes, Consumer<String> lineListener) {
+        this.headLines = headLines;
+        this.tailLines = tailLines;
+        this.maxHeadBytes = maxHeadBytes;
+        this.maxTailBytes = maxTailBytes;
+        this.maxLineBytes = maxLineBytes;
+        this.lineListener = lineListener;
+    }
+
+    @Override
+    public void write(int b) {
+        totalBytes++;
+        if (b == '\n') {
+            endLine();
+        } else {
+            appendToLine(new byte[]{(byte) b}, 0, 1);
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        totalBytes += length;
+        int end = offset + length;
+        int start = offset;
+        for (int i = offset; i < end; i++) {
+            if (bytes[i] == '\n') {
+                appendToLine(bytes, start, i - start);
+                endLine();
+                start = i + 1;
+            }
+        }
+        appendToLine(bytes, start, end - start);
+    }
+
+    /**
+     * 结束捕获：末尾不带换行的内容作为最后一行
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (currentLine.size() > 0 || currentLineTruncated) {
+            endLine();
+        }
+    }
+
+    /**
+     * 总字节数
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * 总行数（末尾不带换行的内容同样计为一行）
+     */
+    public long getTotalLines() {
+        return totalLines + (!closed && (currentLine.size() > 0 || currentLineTruncated) ? 1 : 0);
+    }
+
+    /**
+     * 是否有内容被丢弃（中间行被省略或单行被截断）
+     */
+    public boolean isTruncated() {
+        return omittedLines() > 0 || anyLineTruncated;
+    }
+
+    /**
+     * 保留下来的文本：开头部分、省略标记、末尾部分
+     */
+    public String getText() {
+        StringBuilder sb = new StringBuilder(headBytes + tailBytes + 64);
+        for (String line : head) {
+            sb.append(line).append('\n');
+        }
+        long omitted = omittedLines();
+        if (omitted > 0) {
+            sb.append("... (省略 ").append(omitted).append(" 行) ...\n");
+        }
+        for (CapturedLine line : tail) {
+            sb.append(line.text()).append('\n');
+        }
+        if (!closed && currentLine.size() > 0) {
+            sb.append(currentLine.toString(StandardCharsets.UTF_8));
+        } else if (sb.length() > 0) {
+            sb.setLength(sb.length() - 1);
+        }
+        return sb.toString();
+    }
+
+    private long omittedLines() {
+        return totalLines - head.size() - tail.size();
+    }
+
+    private void appendToLine(byte[] bytes, int offset, int length) {
+        if (length <= 0) {
+            return;
+        }
+        int room = maxLineBytes - currentLine.size();
+        if (length > room) {
+            currentLineTruncated = true;
+            length = Math.max(room, 0);
+        }
+        currentLine.write(bytes, offset, length);
+    }
+
+    private void endLine() {
+        int size = currentLine.size();
+        String line = currentLine.toString(StandardCharsets.UTF_8);
+        if (line.endsWith("\r")) {
+            line = line.substring(0, line.length() - 1);
+        }
+        if (currentLineTruncated) {
+            line = line + " ... (行被截断)";
+            anyLineTruncated = true;
+        }
+        currentLine.reset();
+        currentLineTruncated = false;
+        totalLines++;
+
+        if (lineListener != null) {
+            lineListener.accept(line);
+        }
+
+        if (!headFull && head.size() < headLines && headBytes + size <= maxHeadBytes) {
+            head.add(line);
+            headBytes += size;
+            return;
+        }
+        headFull = true;
+
+        tail.addLast(new CapturedLine(line, size));
+        tailBytes += size;
+        while (!tail.isEmpty() && (tail.size() > tailLines || tailBytes > maxTailBytes)) {
+            tailBytes -= tail.removeFirst().bytes();
+        }
+    }
+
+    /**
+     * 末尾部分保留的一行及其原始字节数
+     */
+    private record CapturedLine(String text, int bytes) {
+    }
+}
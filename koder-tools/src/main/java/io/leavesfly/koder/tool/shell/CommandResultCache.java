@@ -0,0 +1,284 @@
+package io.leavesfly.koder.tool.shell;
+
+import io.leavesfly.koder.tool.config.ToolProperties.CommandCacheSettings;
+import io.leavesfly.koder.tool.fs.WorkspaceChangeTracker;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 只读命令结果缓存
+ * <p>
+ * 缓存白名单中只读命令（如 git status、git diff）的执行结果，以命令与工作目录为键。满足以下条件时复用：
+ * - 未超过存活时间
+ * - 工作区变更代数未变化（工具写入文件或执行了其他命令都会使缓存失效）
+ * - 所在 Git 仓库的 index、HEAD、当前分支引用、packed-refs 与 refs/heads 的修改时间与大小未变化
+ * <p>
+ * 命令中包含管道、重定向、命令替换或多条命令时不缓存；白名单命令带有会写文件或修改仓库的参数时
+ * （如 git diff --output=f、git branch -D x、tree -o f）也不缓存，见 {@link #isReadOnly}。
+ *
+ * @param <T> 命令结果类型
+ */
+public class CommandResultCache<T> {
+
+    /**
+     * 出现任一字符即视为复合命令或带副作用的命令
+     */
+    private static final String UNSAFE_CHARACTERS = ";|&<>$`()\n\r\\";
+
+    /**
+     * git branch 中只列出分支的选项，出现其他选项或分支名（--list 的模式除外）即视为创建、删除、重命名等操作
+     */
+    private static final Set<String> GIT_BRANCH_LIST_OPTIONS = Set.of(
+            "-a", "--all", "-r", "--remotes", "-v", "-vv", "--verbose", "-l", "--list",
+            "--show-current", "--color", "--no-color", "--column", "--no-column", "-i", "--ignore-case");
+
+    private static final String[] GIT_BRANCH_LIST_OPTION_PREFIXES = {"--sort=", "--format=", "--color=", "--column=", "--abbrev="};
+
+    private static final String[] GIT_STATE_FILES = {"index", "HEAD", "packed-refs", "refs/heads"};
+
+    private final WorkspaceChangeTracker changeTracker;
+    private final Map<String, Entry<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long hits;
+    private long misses;
+
+    public CommandResultCache(WorkspaceChangeTracker changeTracker) {
+        this.changeTracker = changeTracker;
+    }
+
+    /**
+     * 命令是否可以缓存：由白名单中的命令（或其带只读参数的形式）构成
+     */
+    public boolean isCacheable(String command, CommandCacheSettings settings) {
+        if (!settings.isEnabled()) {
+            return false;
+        }
+        String trimmed = command.strip();
+        for (int i = 0; i < trimmed.length(); i++) {
+            if (UNSAFE_CHARACTERS.indexOf(trimmed.charAt(i)) >= 0) {
+                return false;
+            }
+        }
+        String[] tokens = trimmed.split("\\s+");
+        String normalized = String.join(" ", tokens);
+        for (String allowed : settings.getCommands()) {
+            String prefix = String.join(" ", allowed.strip().split("\\s+"));
+            if (normalized.equals(prefix) || normalized.startsWith(prefix + " ")) {
+                int prefixLength = prefix.split(" ").length;
+                List<String> arguments = List.of(tokens).subList(prefixLength, tokens.length);
+                if (isReadOnly(prefix, arguments)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 白名单命令的参数是否只读
+     * <p>
+     * 白名单按前缀匹配，参数可能让只读命令写文件或修改仓库，这里逐个命令排除：
+     * - 所有命令：--output（git diff / log / show 把结果写入文件）
+     * - git branch：只允许列出分支的选项，-d/-D/-m/-M/-c/-C、创建分支等都不缓存
+     * - tree：-o 写入文件，-R 配合 -H 会在各目录生成文件
+     */
+    static boolean isReadOnly(String command, List<String> arguments) {
+        for (String argument : arguments) {
+            if (argument.equals("--output") || argument.startsWith("--output=")) {
+                return false;
+            }
+        }
+        return switch (command) {
+            case "git branch" -> isGitBranchListing(arguments);
+            case "tree" -> arguments.stream().noneMatch(argument -> argument.startsWith("-o") || argument.equals("-R"));
+            default -> true;
+        };
+    }
+
+    private static boolean isGitBranchListing(List<String> arguments) {
+        boolean list = arguments.contains("--list") || arguments.contains("-l");
+        for (String argument : arguments) {
+            if (!argument.startsWith("-")) {
+                // 分支名：只有 --list 的模式是只读的
+                if (!list) {
+                    return false;
+                }
+            } else if (!GIT_BRANCH_LIST_OPTIONS.contains(argument) && !hasListOptionPrefix(argument)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasListOptionPrefix(String argument) {
+        for (String prefix : GIT_BRANCH_LIST_OPTION_PREFIXES) {
+            if (argument.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 查找仍然有效的缓存结果
+     *
+     * @return 缓存的结果，不存在或已失效时返回null
+     */
+    public synchronized T get(String command, File workingDirectory, CommandCacheSettings settings) {
+        String key = key(command, workingDirectory);
+        Entry<T> entry = entries.get(key);
+        if (entry != null && isValid(entry, workingDirectory, settings)) {
+            hits++;
+            return entry.result;
+        }
+        if (entry != null) {
+            entries.remove(key);
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * 记录命令开始执行前的状态，执行完成后用它写入缓存
+     * <p>
+     * 状态在执行前采集：执行期间工作区若发生变化，写入的缓存会在下次查找时失效，不会返回过期结果。
+     */
+    public Snapshot snapshot(File workingDirectory) {
+        return new Snapshot(changeTracker.getGeneration(), gitState(workingDirectory), System.currentTimeMillis());
+    }
+
+    /**
+     * 写入缓存
+     */
+    public synchronized void put(String command, File workingDirectory, Snapshot snapshot, T result,
+                                 CommandCacheSettings settings) {
+        entries.put(key(command, workingDirectory), new Entry<>(result, snapshot));
+        while (entries.size() > settings.getMaxEntries()) {
+            entries.remove(entries.keySet().iterator().next());
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, entries.size());
+    }
+
+    private boolean isValid(Entry<T> entry, File workingDirectory, CommandCacheSettings settings) {
+        Snapshot snapshot = entry.snapshot;
+        return System.currentTimeMillis() - snapshot.createdAt() <= settings.getTtlSeconds() * 1000L
+                && snapshot.generation() == changeTracker.getGeneration()
+                && snapshot.gitState().equals(gitState(workingDirectory));
+    }
+
+    private static String key(String command, File workingDirectory) {
+        return workingDirectory.getAbsolutePath() + '\0' + String.join(" ", command.strip().split("\\s+"));
+    }
+
+    /**
+     * 所在 Git 仓库关键文件的修改时间与大小，不在仓库中时为空
+     */
+    private static List<String> gitState(File workingDirectory) {
+        List<String> state = new ArrayList<>();
+        Path gitDir = findGitDir(workingDirectory.toPath().toAbsolutePath());
+        if (gitDir == null) {
+            return state;
+        }
+        state.add(gitDir.toString());
+        for (String name : GIT_STATE_FILES) {
+            state.add(stamp(gitDir.resolve(name)));
+        }
+        // 当前分支引用：HEAD 为 "ref: refs/heads/xxx" 时，提交只会修改引用文件
+        try {
+            String head = Files.readString(gitDir.resolve("HEAD"), StandardCharsets.UTF_8).strip();
+            if (head.startsWith("ref: ")) {
+                state.add(stamp(gitDir.resolve(head.substring(5))));
+            }
+        } catch (IOException e) {
+            // HEAD 不可读时仅依赖其他文件
+        }
+        return state;
+    }
+
+    private static Path findGitDir(Path directory) {
+        for (Path current = directory; current != null; current = current.getParent()) {
+            Path git = current.resolve(".git");
+            if (Files.isDirectory(git)) {
+                return git;
+            }
+            if (Files.isRegularFile(git)) {
+                // 工作树：.git 文件内容为 "gitdir: <路径>"
+                try {
+                    String content = Files.readString(git, StandardCharsets.UTF_8).strip();
+                    if (content.startsWith("gitdir: ")) {
+                        return current.resolve(content.substring(8)).normalize();
+                    }
+                } catch (IOException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String stamp(Path file) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            return attrs.lastModifiedTime().toMillis() + ":" + attrs.size();
+        } catch (IOException e) {
+            return "-";
+        }
+    }
+
+    /**
+     * 命令执行前的状态
+     *
+     * @param generation 工作区变更代数
+     * @param gitState   Git 仓库状态
+     * @param createdAt  采集时间
+     */
+    public record Snapshot(long generation, List<String> gitState, long createdAt) {
+    }
+
+    private record Entry<T>(T result, Snapshot snapshot) {
+    }
+
+    /**
+     * 缓存统计
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Stats {
+        /**
+         * 命中次数
+         */
+        private long hits;
+
+        /**
+         * 未命中次数
+         */
+        private long misses;
+
+        /**
+         * 当前条目数
+         */
+        private int entries;
+    }
+}
@@ -0,0 +1,253 @@
+package io.leavesfly.koder.tool.shell;
+
+import io.leavesfly.koder.tool.config.ToolProperties.ResourceLimits;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程资源监控
+ * <p>
+ * 定期采样进程树（通过 {@link ProcessHandle} 与 Linux 的 /proc）：
+ * - CPU 时间：各进程最后一次采样到的用户态与内核态时间之和
+ * - 内存峰值：同一时刻整棵进程树常驻内存之和的最大值
+ * - 磁盘读写：各进程最后一次采样到的 read_bytes/write_bytes 之和
+ * - 进程数：同一时刻存活进程数的最大值
+ * <p>
+ * 统计基于采样，生命周期短于采样间隔的进程可能统计不到；非 Linux 系统下内存与读写量为0。
+ * 超出软限制时异步终止整棵进程树，原因可通过 {@link #getLimitExceeded()} 获取。
+ */
+@Slf4j
+public class ProcessResourceMonitor implements AutoCloseable {
+
+    private static final long KILL_GRACE_MS = 1000;
+
+    private static final ScheduledExecutorService SAMPLER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "koder-process-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ProcessHandle root;
+    private final boolean includeRoot;
+    private final ResourceLimits limits;
+
+    /**
+     * 见过的进程（键含启动时间，避免 pid 复用）的最后一次采样值
+     */
+    private final Map<String, ProcessSample> samples = new HashMap<>();
+
+    private long peakRssBytes;
+    private int peakProcesses;
+    private volatile String limitExceeded;
+    private ScheduledFuture<?> task;
+    private boolean closed;
+
+    /**
+     * @param root        根进程
+     * @param includeRoot 是否统计根进程自身（持久 Shell 会话只统计子孙进程）
+     * @param limits      资源软限制
+     */
+    public ProcessResourceMonitor(ProcessHandle root, boolean includeRoot, ResourceLimits limits) {
+        this.root = root;
+        this.includeRoot = includeRoot;
+        this.limits = limits;
+    }
+
+    /**
+     * 开始采样
+     */
+    public synchronized ProcessResourceMonitor start() {
+        long interval = Math.max(limits.getSampleIntervalMs(), 10);
+        task = SAMPLER.scheduleAtFixedRate(this::sample, 0, interval, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * 停止采样
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (task != null) {
+            task.cancel(false);
+        }
+    }
+
+    /**
+     * 超出的限制说明，未超出时为null
+     */
+    public String getLimitExceeded() {
+        return limitExceeded;
+    }
+
+    /**
+     * 当前统计的资源用量
+     */
+    public synchronized Usage getUsage() {
+        long cpuNanos = 0;
+        long readBytes = 0;
+        long writeBytes = 0;
+        for (ProcessSample sample : samples.values()) {
+            cpuNanos += sample.cpuNanos;
+            readBytes += sample.readBytes;
+            writeBytes += sample.writeBytes;
+        }
+        return new Usage(TimeUnit.NANOSECONDS.toMillis(cpuNanos), peakRssBytes, readBytes, writeBytes,
+                peakProcesses, samples.size());
+    }
+
+    private synchronized void sample() {
+        if (closed) {
+            return;
+        }
+        try {
+            List<ProcessHandle> processes = new ArrayList<>();
+            if (includeRoot && root.isAlive()) {
+                processes.add(root);
+            }
+            root.descendants().forEach(processes::add);
+
+            long rssBytes = 0;
+            int alive = 0;
+            for (ProcessHandle process : processes) {
+                ProcessHandle.Info info = process.info();
+                String key = process.pid() + "@" + info.startInstant().map(Object::toString).orElse("");
+                ProcessSample sample = samples.computeIfAbsent(key, k -> new ProcessSample());
+                sample.cpuNanos = Math.max(sample.cpuNanos,
+                        info.totalCpuDuration().map(Duration::toNanos).orElse(0L));
+                Path proc = Path.of("/proc", Long.toString(process.pid()));
+                Map<String, Long> io = readFields(proc.resolve("io"));
+                sample.readBytes = Math.max(sample.readBytes, io.getOrDefault("read_bytes", 0L));
+                sample.writeBytes = Math.max(sample.writeBytes, io.getOrDefault("write_bytes", 0L));
+                rssBytes += readFields(proc.resolve("status")).getOrDefault("VmRSS", 0L) * 1024;
+                if (process.isAlive()) {
+                    alive++;
+                }
+            }
+            peakRssBytes = Math.max(peakRssBytes, rssBytes);
+            peakProcesses = Math.max(peakProcesses, alive);
+
+            checkLimits();
+        } catch (Exception e) {
+            // 采样失败不影响命令执行
+            log.trace("进程资源采样失败", e);
+        }
+    }
+
+    private void checkLimits() {
+        if (limitExceeded != null) {
+            return;
+        }
+        Usage usage = getUsage();
+        String reason = null;
+        if (limits.getMaxCpuSeconds() > 0 && usage.getCpuTimeMs() > limits.getMaxCpuSeconds() * 1000L) {
+            reason = String.format("CPU 时间超过 %d 秒", limits.getMaxCpuSeconds());
+        } else if (limits.getMaxRssMb() > 0 && usage.getPeakRssBytes() > limits.getMaxRssMb() * 1024L * 1024L) {
+            reason = String.format("内存占用超过 %d MB", limits.getMaxRssMb());
+        } else if (limits.getMaxWriteMb() > 0 && usage.getWriteBytes() > limits.getMaxWriteMb() * 1024L * 1024L) {
+            reason = String.format("磁盘写入超过 %d MB", limits.getMaxWriteMb());
+        } else if (limits.getMaxProcesses() > 0 && usage.getPeakProcesses() > limits.getMaxProcesses()) {
+            reason = String.format("进程数超过 %d", limits.getMaxProcesses());
+        }
+        if (reason == null) {
+            return;
+        }
+
+        limitExceeded = reason;
+        log.warn("命令超出资源限制，终止进程树: {} (pid={})", reason, root.pid());
+        // 终止需要等待宽限期，不占用共享的采样线程；持久 Shell 会话只终止子孙进程，Shell 由会话中断
+        CompletableFuture.runAsync(() -> ProcessTree.destroy(root, includeRoot, KILL_GRACE_MS));
+    }
+
+    /**
+     * 读取 /proc 下 "名称: 数值" 格式的文件，数值只取第一个数字（忽略单位）
+     */
+    private static Map<String, Long> readFields(Path file) {
+        Map<String, Long> fields = new HashMap<>();
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file);
+        } catch (IOException | SecurityException e) {
+            return fields;
+        }
+        for (String line : lines) {
+            int index = line.indexOf(':');
+            if (index <= 0) {
+                continue;
+            }
+            String value = line.substring(index + 1).trim();
+            int end = 0;
+            while (end < value.length() && Character.isDigit(value.charAt(end))) {
+                end++;
+            }
+            if (end > 0) {
+                fields.put(line.substring(0, index).trim(), Long.parseLong(value.substring(0, end)));
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * 单个进程的最后一次采样值
+     */
+    private static final class ProcessSample {
+        long cpuNanos;
+        long readBytes;
+        long writeBytes;
+    }
+
+    /**
+     * 资源用量
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Usage {
+        /**
+         * CPU 时间（毫秒）
+         */
+        private long cpuTimeMs;
+
+        /**
+         * 常驻内存峰值（字节）
+         */
+        private long peakRssBytes;
+
+        /**
+         * 磁盘读取字节数
+         */
+        private long readBytes;
+
+        /**
+         * 磁盘写入字节数
+         */
+        private long writeBytes;
+
+        /**
+         * 同时存活的最大进程数
+         */
+        private int peakProcesses;
+
+        /**
+         * 采样到的进程总数
+         */
+        private int totalProcesses;
+    }
+}
@@ -0,0 +1,53 @@
+package io.leavesfly.koder.tool.shell;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 进程树操作
+ */
+public final class ProcessTree {
+
+    /**
+     * 反复收集子孙进程的最大轮数（应对终止过程中仍在派生的进程）
+     */
+    private static final int MAX_ROUNDS = 3;
+
+    private ProcessTree() {
+    }
+
+    /**
+     * 终止进程树：先发送 SIGTERM，宽限期后仍存活的进程强制结束
+     *
+     * @param root        根进程
+     * @param includeRoot 是否同时终止根进程
+     * @param graceMs     宽限期（毫秒）
+     */
+    public static void destroy(ProcessHandle root, boolean includeRoot, long graceMs) {
+        for (int round = 0; round < MAX_ROUNDS; round++) {
+            List<ProcessHandle> targets = root.descendants().collect(Collectors.toList());
+            if (includeRoot && root.isAlive()) {
+                targets.add(root);
+            }
+            if (targets.isEmpty()) {
+                return;
+            }
+
+            targets.forEach(ProcessHandle::destroy);
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(graceMs);
+            for (ProcessHandle target : targets) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                try {
+                    target.onExit().get(remaining, TimeUnit.NANOSECONDS);
+                } catch (Exception e) {
+                    break;
+                }
+            }
+            targets.stream().filter(ProcessHandle::isAlive).forEach(ProcessHandle::destroyForcibly);
+        }
+    }
+}
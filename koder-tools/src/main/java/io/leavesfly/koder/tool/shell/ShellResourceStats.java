@@ -0,0 +1,86 @@
+package io.leavesfly.koder.tool.shell;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shell 命令资源用量统计
+ * <p>
+ * 汇总所有 Bash 命令的资源消耗，便于评估单机可以承载的并发会话数。
+ */
+@Component
+public class ShellResourceStats {
+
+    private long commands;
+    private long limitKills;
+    private long cpuTimeMs;
+    private long readBytes;
+    private long writeBytes;
+    private long maxPeakRssBytes;
+    private int maxPeakProcesses;
+
+    /**
+     * 记录一条命令的资源用量
+     *
+     * @param usage         资源用量
+     * @param limitExceeded 是否因超出资源限制被终止
+     */
+    public synchronized void record(ProcessResourceMonitor.Usage usage, boolean limitExceeded) {
+        commands++;
+        if (limitExceeded) {
+            limitKills++;
+        }
+        cpuTimeMs += usage.getCpuTimeMs();
+        readBytes += usage.getReadBytes();
+        writeBytes += usage.getWriteBytes();
+        maxPeakRssBytes = Math.max(maxPeakRssBytes, usage.getPeakRssBytes());
+        maxPeakProcesses = Math.max(maxPeakProcesses, usage.getPeakProcesses());
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(commands, limitKills, cpuTimeMs, readBytes, writeBytes, maxPeakRssBytes, maxPeakProcesses);
+    }
+
+    /**
+     * 资源用量统计
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Stats {
+        /**
+         * 已执行的命令数
+         */
+        private long commands;
+
+        /**
+         * 因超出资源限制被终止的命令数
+         */
+        private long limitKills;
+
+        /**
+         * 累计 CPU 时间（毫秒）
+         */
+        private long cpuTimeMs;
+
+        /**
+         * 累计磁盘读取字节数
+         */
+        private long readBytes;
+
+        /**
+         * 累计磁盘写入字节数
+         */
+        private long writeBytes;
+
+        /**
+         * 单条命令的最大内存峰值（字节）
+         */
+        private long maxPeakRssBytes;
+
+        /**
+         * 单条命令的最大并发进程数
+         */
+        private int maxPeakProcesses;
+    }
+}
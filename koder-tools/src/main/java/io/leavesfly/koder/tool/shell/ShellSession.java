@@ -0,0 +1,483 @@
+package io.leavesfly.koder.tool.shell;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 持久 Shell 会话
+ * <p>
+ * 维护一个长期运行的非交互式 Shell 进程，通过管道逐条发送命令，
+ * 工作目录、导出的环境变量以及激活的工具链在命令之间得以保留，也省去了每次启动进程的开销。
+ * <p>
+ * 命令写入会话的脚本文件，由 Shell 以 {@code .} 在当前 Shell 中执行；之后追加一次性的哨兵输出：
+ * 标准输出上的哨兵行携带命令的退出码，标准错误上的哨兵行表示错误输出已全部到达。哨兵之前的内容即命令的输出。
+ * <p>
+ * 超时或取消时只中断当前命令，会话状态保留：向 Shell 发送 SIGINT，由 INT 陷阱从脚本中 return，
+ * 命令列表中剩余的部分不再执行；同时终止命令启动的子进程树（之前命令留下的后台进程不受影响）。
+ * Shell 在宽限期内没有响应中断时才结束整个 Shell 进程树，下次执行时自动重启；
+ * Shell 因 exit 等原因退出后同样会在下次执行时自动重启。重启后之前的会话状态不再保留，
+ * 由 {@link Result#restarted()} 告知调用方。
+ */
+@Slf4j
+public class ShellSession implements AutoCloseable {
+
+    private static final String MARKER_PREFIX = "__KODER_DONE_";
+
+    /**
+     * 单行未遇到换行时最多缓存的字节数，超过后先转发给输出流
+     */
+    private static final int MAX_PENDING_LINE_BYTES = 64 * 1024;
+
+    /**
+     * 终止进程树时的宽限时间
+     */
+    private static final long KILL_GRACE_MS = 2000;
+
+    /**
+     * 标准输出哨兵到达后等待标准错误哨兵的时间
+     */
+    private static final long STDERR_DRAIN_MS = 1000;
+
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final String shellPath;
+    private final File initialDirectory;
+
+    /**
+     * 最近一条命令结束时 Shell 的当前目录
+     */
+    private volatile File workingDirectory;
+
+    private Process process;
+    private OutputStream stdin;
+
+    /**
+     * 存放待执行命令的脚本文件
+     */
+    private Path scriptFile;
+    private boolean started;
+    private volatile PendingCommand current;
+
+    /**
+     * @param shellPath        Shell 可执行文件
+     * @param workingDirectory 初始工作目录
+     */
+    public ShellSession(String shellPath, File workingDirectory) {
+        this.shellPath = shellPath;
+        this.initialDirectory = workingDirectory;
+        this.workingDirectory = workingDirectory;
+    }
+
+    /**
+     * 在会话中执行命令
+     *
+     * @param command   命令
+     * @param timeoutMs 超时时间（毫秒）
+     * @param stdout    标准输出接收流
+     * @param stderr    标准错误接收流
+     * @param aborted   是否已被取消（执行期间轮询）
+     * @param onSent    命令发送后以执行该命令的 Shell 进程回调（可为null，用于资源监控）
+     * @return 执行结果
+     * @throws IOException Shell 无法启动
+     */
+    public synchronized Result execute(String command, long timeoutMs, OutputStream stdout, OutputStream stderr,
+                                       BooleanSupplier aborted, Consumer<ProcessHandle> onSent) throws IOException {
+        String marker = MARKER_PREFIX + UUID.randomUUID().toString().replace("-", "");
+        PendingCommand pending = new PendingCommand(marker, stdout, stderr);
+
+        boolean restarted = ensureRunning();
+        current = pending;
+        try {
+            try {
+                send(pending, command, marker);
+            } catch (IOException e) {
+                // Shell 在上次执行后退出：重启后重试一次
+                log.debug("Shell 会话写入失败，重启后重试", e);
+                destroy();
+                restarted = ensureRunning();
+                send(pending, command, marker);
+            }
+            if (onSent != null) {
+                onSent.accept(pending.shell.toHandle());
+            }
+
+            long startTime = System.currentTimeMillis();
+            Integer exitCode = null;
+            boolean interrupted = false;
+            while (exitCode == null) {
+                if (aborted != null && aborted.getAsBoolean()
+                        || Thread.currentThread().isInterrupted()
+                        || System.currentTimeMillis() - startTime >= timeoutMs) {
+                    interrupted = true;
+                    exitCode = interrupt(pending);
+                    break;
+                }
+                exitCode = await(pending.exitCode, POLL_INTERVAL_MS);
+            }
+
+            try {
+                pending.stderrDone.await(STDERR_DRAIN_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new Result(exitCode, interrupted, restarted);
+        } finally {
+            current = null;
+        }
+    }
+
+    /**
+     * Shell 的当前目录（最近一条命令结束时）
+     */
+    public File getWorkingDirectory() {
+        return workingDirectory;
+    }
+
+    /**
+     * Shell 进程是否在运行
+     */
+    public synchronized boolean isAlive() {
+        return process != null && process.isAlive();
+    }
+
+    @Override
+    public synchronized void close() {
+        destroy();
+        if (scriptFile != null) {
+            try {
+                Files.deleteIfExists(scriptFile);
+            } catch (IOException e) {
+                log.debug("删除 Shell 会话脚本文件失败: {}", scriptFile, e);
+            }
+            scriptFile = null;
+        }
+    }
+
+    /**
+     * 超时或取消：中断当前命令
+     * <p>
+     * 只终止当前前台进程并不够，命令列表中剩余的部分仍会继续执行（Shell 内建的循环也没有进程可终止），
+     * 因此同时向 Shell 发送 SIGINT，由 INT 陷阱结束整条命令。Shell 在宽限期内仍没有输出哨兵时结束会话，下次执行时重启。
+     *
+     * @return 退出码（陷阱中断的命令为130）
+     */
+    private int interrupt(PendingCommand pending) {
+        // 清除线程中断标记，否则下面的等待会立即返回；结束后恢复
+        boolean threadInterrupted = Thread.interrupted();
+        try {
+            Process shell = pending.shell;
+            if (shell != null && shell.isAlive()) {
+                // 与终端中的 Ctrl-C 一样先向 Shell 与命令的进程发送 SIGINT，宽限期后仍存活的进程强制终止
+                List<ProcessHandle> commandProcesses = shell.toHandle().children()
+                        .filter(child -> !pending.existingChildren.contains(child.pid()))
+                        .flatMap(child -> Stream.concat(Stream.of(child), child.descendants()))
+                        .toList();
+                if (signalInterrupt(shell, commandProcesses)) {
+                    log.debug("命令被中断: {} 个进程", commandProcesses.size());
+                    Integer exitCode = await(pending.exitCode, KILL_GRACE_MS);
+                    List<ProcessHandle> survivors = commandProcesses.stream().filter(ProcessHandle::isAlive).toList();
+                    if (exitCode == null && !survivors.isEmpty()) {
+                        survivors.forEach(process -> ProcessTree.destroy(process, true, KILL_GRACE_MS));
+                        exitCode = await(pending.exitCode, KILL_GRACE_MS);
+                    }
+                    if (exitCode != null) {
+                        return exitCode;
+                    }
+                }
+            }
+            log.debug("Shell 未响应中断，结束 Shell 会话");
+            destroy();
+            // 等待输出泵读完残余输出
+            try {
+                pending.stderrDone.await(KILL_GRACE_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            pending.stderrDone.countDown();
+            return -1;
+        } finally {
+            if (threadInterrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 向 Shell 与命令的进程发送 SIGINT
+     *
+     * @return 是否发送成功
+     */
+    private static boolean signalInterrupt(Process shell, List<ProcessHandle> commandProcesses) {
+        List<String> command = new ArrayList<>(List.of("kill", "-INT", String.valueOf(shell.pid())));
+        commandProcesses.forEach(process -> command.add(String.valueOf(process.pid())));
+        try {
+            Process kill = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .start();
+            // 部分进程可能已经退出，kill 此时返回非0，只要 Shell 仍在运行即可
+            return kill.waitFor(KILL_GRACE_MS, TimeUnit.MILLISECONDS) && shell.isAlive();
+        } catch (IOException e) {
+            log.debug("向 Shell 发送 SIGINT 失败", e);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean ensureRunning() throws IOException {
+        if (process != null && process.isAlive()) {
+            return false;
+        }
+        boolean restarted = started;
+        destroy();
+        if (scriptFile == null) {
+            scriptFile = Files.createTempFile("koder-shell-", ".sh");
+            scriptFile.toFile().deleteOnExit();
+        }
+
+        ProcessBuilder builder = new ProcessBuilder(shellPath, "--noprofile", "--norc");
+        if (!shellPath.endsWith("bash")) {
+            builder = new ProcessBuilder(shellPath);
+        }
+        builder.directory(initialDirectory);
+        workingDirectory = initialDirectory;
+        Process shell = builder.start();
+        process = shell;
+        stdin = shell.getOutputStream();
+        started = true;
+        startPump(shell, shell.getInputStream(), false);
+        startPump(shell, shell.getErrorStream(), true);
+        log.debug("Shell 会话已启动: {} (pid={})", shellPath, shell.pid());
+        return restarted;
+    }
+
+    private void send(PendingCommand pending, String command, String marker) throws IOException {
+        pending.shell = process;
+        pending.existingChildren = process.toHandle().children()
+                .map(ProcessHandle::pid)
+                .collect(Collectors.toSet());
+        Files.writeString(scriptFile, command + "\n", StandardCharsets.UTF_8);
+
+        // 以 . 在当前 Shell 中执行以保留 cd、export 等对会话的影响；中断时 INT 陷阱从脚本中 return，
+        // 跳过命令剩余的部分。标准输入重定向，避免命令读走后续的控制输入
+        String script = "trap 'return 130 2>/dev/null' INT\n"
+                + ". " + quote(scriptFile.toString()) + " < /dev/null\n"
+                + "__koder_status=$?\n"
+                + "printf '%s %d %s\\n' '" + marker + "' \"$__koder_status\" \"$PWD\"\n"
+                + "printf '%s\\n' '" + marker + "' >&2\n";
+        stdin.write(script.getBytes(StandardCharsets.UTF_8));
+        stdin.flush();
+    }
+
+    private static String quote(String value) {
+        return "'" + value.replace("'", "'\\''") + "'";
+    }
+
+    private void destroy() {
+        Process shell = process;
+        process = null;
+        stdin = null;
+        if (shell != null && shell.isAlive()) {
+            ProcessTree.destroy(shell.toHandle(), true, KILL_GRACE_MS);
+        }
+    }
+
+    private static Integer await(CompletableFuture<Integer> future, long timeoutMs) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 启动输出泵线程：按行转发输出并识别哨兵
+     */
+    private void startPump(Process shell, InputStream in, boolean isStderr) {
+        Thread thread = new Thread(() -> pump(shell, in, isStderr),
+                "koder-shell-" + (isStderr ? "stderr-" : "stdout-") + shell.pid());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void pump(Process shell, InputStream in, boolean isStderr) {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                int start = 0;
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        line.write(buffer, start, i - start + 1);
+                        handleLine(shell, line.toByteArray(), isStderr);
+                        line.reset();
+                        start = i + 1;
+                    }
+                }
+                line.write(buffer, start, read - start);
+                if (line.size() > MAX_PENDING_LINE_BYTES) {
+                    flushPartialLine(shell, line, isStderr);
+                }
+            }
+        } catch (IOException e) {
+            log.trace("Shell 输出流已关闭", e);
+        }
+
+        // Shell 已退出：以进程退出码结束当前命令
+        PendingCommand pending = current;
+        if (pending != null && pending.shell == shell) {
+            if (line.size() > 0) {
+                pending.write(line.toByteArray(), 0, line.size(), isStderr);
+            }
+            if (isStderr) {
+                pending.stderrDone.countDown();
+            } else {
+                try {
+                    pending.exitCode.complete(shell.waitFor(KILL_GRACE_MS, TimeUnit.MILLISECONDS)
+                            ? shell.exitValue() : -1);
+                } catch (InterruptedException e) {
+                    pending.exitCode.complete(-1);
+                }
+            }
+        }
+    }
+
+    private void handleLine(Process shell, byte[] line, boolean isStderr) {
+        PendingCommand pending = current;
+        if (pending == null || pending.shell != shell) {
+            // 后台进程在命令之间产生的输出，或已结束的旧 Shell 的残余输出
+            return;
+        }
+        int index = indexOf(line, pending.markerBytes);
+        if (index < 0) {
+            pending.write(line, 0, line.length, isStderr);
+            return;
+        }
+
+        // 哨兵之前的内容是命令最后一行没有换行的输出
+        pending.write(line, 0, index, isStderr);
+        if (isStderr) {
+            pending.stderrDone.countDown();
+        } else {
+            // 哨兵行格式：<哨兵> <退出码> <当前目录>
+            String status = new String(line, index + pending.markerBytes.length,
+                    line.length - index - pending.markerBytes.length, StandardCharsets.UTF_8).strip();
+            int space = status.indexOf(' ');
+            if (space > 0) {
+                workingDirectory = new File(status.substring(space + 1));
+                status = status.substring(0, space);
+            }
+            try {
+                pending.exitCode.complete(Integer.parseInt(status));
+            } catch (NumberFormatException e) {
+                pending.exitCode.complete(-1);
+            }
+        }
+    }
+
+    /**
+     * 超长的单行先转发，末尾保留可能是哨兵开头的部分
+     */
+    private void flushPartialLine(Process shell, ByteArrayOutputStream line, boolean isStderr) {
+        PendingCommand pending = current;
+        if (pending != null && pending.shell != shell) {
+            pending = null;
+        }
+        byte[] bytes = line.toByteArray();
+        int keep = pending != null ? Math.min(bytes.length, pending.markerBytes.length) : 0;
+        if (pending != null) {
+            pending.write(bytes, 0, bytes.length - keep, isStderr);
+        }
+        line.reset();
+        line.write(bytes, bytes.length - keep, keep);
+    }
+
+    private static int indexOf(byte[] bytes, byte[] pattern) {
+        outer:
+        for (int i = 0; i + pattern.length <= bytes.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (bytes[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * 正在执行的命令
+     */
+    private static final class PendingCommand {
+        final byte[] markerBytes;
+        final OutputStream stdout;
+        final OutputStream stderr;
+        final CompletableFuture<Integer> exitCode = new CompletableFuture<>();
+        final CountDownLatch stderrDone = new CountDownLatch(1);
+
+        /**
+         * 命令发送前 Shell 已有的子进程（之前命令留下的后台进程），中断时不终止
+         */
+        volatile Set<Long> existingChildren = Set.of();
+
+        /**
+         * 命令发送到的 Shell 进程
+         */
+        volatile Process shell;
+
+        PendingCommand(String marker, OutputStream stdout, OutputStream stderr) {
+            this.markerBytes = marker.getBytes(StandardCharsets.UTF_8);
+            this.stdout = stdout;
+            this.stderr = stderr;
+        }
+
+        void write(byte[] bytes, int offset, int length, boolean isStderr) {
+            if (length <= 0) {
+                return;
+            }
+            try {
+                (isStderr ? stderr : stdout).write(bytes, offset, length);
+            } catch (IOException e) {
+                log.trace("写入命令输出失败", e);
+            }
+        }
+    }
+
+    /**
+     * 命令执行结果
+     *
+     * @param exitCode    退出码
+     * @param interrupted 是否因超时或取消被中断
+     * @param restarted   执行前 Shell 是否经过重启（此前的会话状态已丢失）
+     */
+    public record Result(int exitCode, boolean interrupted, boolean restarted) {
+    }
+}
@@ -0,0 +1,84 @@
+package io.leavesfly.koder.tool.shell;
+
+import io.leavesfly.koder.tool.config.ToolProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 持久 Shell 会话管理器
+ * <p>
+ * 按会话键（通常是代理ID）维护 {@link ShellSession}，同一代理的命令共享工作目录与环境变量。
+ * 会话数量有上限，超出时关闭最久未使用的会话。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ShellSessionManager {
+
+    private static final String DEFAULT_SESSION_KEY = "default";
+
+    private final ToolProperties properties;
+
+    private final Map<String, ShellSession> sessions = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 获取（必要时创建）会话
+     *
+     * @param key 会话键，为null时使用默认会话
+     * @return Shell 会话
+     */
+    public ShellSession getSession(String key) {
+        String sessionKey = key != null ? key : DEFAULT_SESSION_KEY;
+        ShellSession evicted = null;
+        ShellSession session;
+        synchronized (sessions) {
+            session = sessions.get(sessionKey);
+            if (session == null) {
+                session = new ShellSession(properties.getShell().getPath(),
+                        new File(System.getProperty("user.dir")));
+                sessions.put(sessionKey, session);
+                if (sessions.size() > properties.getShell().getMaxSessions()) {
+                    Map.Entry<String, ShellSession> eldest = sessions.entrySet().iterator().next();
+                    sessions.remove(eldest.getKey());
+                    evicted = eldest.getValue();
+                    log.debug("Shell 会话数量达到上限，关闭会话: {}", eldest.getKey());
+                }
+            }
+        }
+        if (evicted != null) {
+            evicted.close();
+        }
+        return session;
+    }
+
+    /**
+     * 关闭指定会话
+     */
+    public void closeSession(String key) {
+        ShellSession session;
+        synchronized (sessions) {
+            session = sessions.remove(key != null ? key : DEFAULT_SESSION_KEY);
+        }
+        if (session != null) {
+            session.close();
+        }
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        List<ShellSession> all;
+        synchronized (sessions) {
+            all = new ArrayList<>(sessions.values());
+            sessions.clear();
+        }
+        all.forEach(ShellSession::close);
+    }
+}
@@ -0,0 +1,385 @@
+package io.leavesfly.koder.tool.store;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.leavesfly.koder.core.fs.AtomicFileWriter;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * 追加写 JSON 日志（带快照压缩）
+ * <p>
+ * 每个日志由两个文件组成：
+ * - {@code <name>.snapshot}：某一时刻的完整状态，首行记录其覆盖到的序号，之后每行一条记录
+ * - {@code <name>.log}：快照之后的变更，每行一条带序号的记录，写入即追加
+ * <p>
+ * 启动时先加载快照，再只回放日志中序号更大的记录（快照与日志截断之间崩溃也不会重复应用）。
+ * 日志末尾写了一半的行被视为崩溃残留，回放时截掉。压缩把调用方给出的当前状态原子地写成新快照并清空日志。
+ * <p>
+ * 同一日志只允许一个写入者：回放时对 {@code <name>.lock} 加排他锁并持有到关闭，锁被其他进程占用时以只读方式打开
+ * （仍可回放，追加与压缩会失败）。追加失败时把日志截回写入前的位置，不在末尾留下半行。
+ *
+ * @param <E> 记录类型
+ */
+@Slf4j
+public class JsonJournal<E> implements Closeable {
+
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final String LOG_SUFFIX = ".log";
+    private static final String LOCK_SUFFIX = ".lock";
+
+    private final Path snapshotFile;
+    private final Path logFile;
+    private final Path lockFile;
+    private final boolean sync;
+    private final ObjectMapper objectMapper;
+    private final JavaType recordType;
+
+    private FileChannel channel;
+    private FileChannel lockChannel;
+    private FileLock lock;
+    private boolean readOnly;
+    private long sequence;
+    private long logEntries;
+
+    /**
+     * @param directory 存储目录
+     * @param name      日志名称（文件名前缀）
+     * @param entryType 记录类型
+     * @param sync      每次追加后是否刷盘
+     */
+    public JsonJournal(Path directory, String name, Class<E> entryType, boolean sync) {
+        this.snapshotFile = directory.resolve(name + SNAPSHOT_SUFFIX);
+        this.logFile = directory.resolve(name + LOG_SUFFIX);
+        this.lockFile = directory.resolve(name + LOCK_SUFFIX);
+        this.sync = sync;
+        this.objectMapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.recordType = objectMapper.getTypeFactory().constructParametricType(Entry.class, entryType);
+    }
+
+    /**
+     * 依次回放快照与日志中的记录，并打开日志以便追加（日志被其他进程占用时只读打开）
+     *
+     * @param consumer 记录消费者
+     * @return 回放的记录数
+     */
+    public synchronized long replay(Consumer<E> consumer) throws IOException {
+        Files.createDirectories(logFile.getParent());
+        acquireLock();
+        long count = 0;
+        long snapshotSequence = 0;
+
+        if (Files.exists(snapshotFile)) {
+            try (InputStream in = Files.newInputStream(snapshotFile)) {
+                LineReader reader = new LineReader(in);
+                byte[] header = reader.next();
+                if (header != null) {
+                    snapshotSequence = objectMapper.readValue(header, Entry.class).getSeq();
+                }
+                byte[] line;
+                while ((line = reader.next()) != null) {
+                    Entry<E> entry = objectMapper.readValue(line, recordType);
+                    consumer.accept(entry.getData());
+                    count++;
+                }
+            }
+        }
+
+        sequence = snapshotSequence;
+        logEntries = 0;
+        long validBytes = 0;
+        if (Files.exists(logFile)) {
+            try (InputStream in = Files.newInputStream(logFile)) {
+                LineReader reader = new LineReader(in);
+                byte[] line;
+                while ((line = reader.next()) != null) {
+                    Entry<E> entry;
+                    try {
+                        entry = reader.terminated() ? objectMapper.readValue(line, recordType) : null;
+                    } catch (IOException e) {
+                        entry = null;
+                    }
+                    if (entry == null) {
+                        if (!readOnly) {
+                            log.warn("日志 {} 在偏移 {} 处有不完整的记录，已截断", logFile, validBytes);
+                        }
+                        break;
+                    }
+                    validBytes = reader.position();
+                    if (entry.getSeq() <= snapshotSequence) {
+                        continue;
+                    }
+                    consumer.accept(entry.getData());
+                    sequence = entry.getSeq();
+                    logEntries++;
+                    count++;
+                }
+            }
+        }
+
+        if (!readOnly) {
+            channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            channel.truncate(validBytes);
+            channel.position(validBytes);
+        }
+        return count;
+    }
+
+    /**
+     * 是否以只读方式打开（日志正被其他进程写入）
+     */
+    public synchronized boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * 追加一条记录
+     */
+    public synchronized void append(E record) throws IOException {
+        ensureWritable();
+        write(serialize(new Entry<>(sequence + 1, record)));
+        sequence++;
+        logEntries++;
+    }
+
+    /**
+     * 一次写入追加多条记录（只刷盘一次）
+     */
+    public synchronized void appendAll(Collection<? extends E> records) throws IOException {
+        ensureWritable();
+        if (records.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long next = sequence;
+        for (E record : records) {
+            out.write(serialize(new Entry<>(++next, record)));
+        }
+        write(out.toByteArray());
+        sequence = next;
+        logEntries += records.size();
+    }
+
+    /**
+     * 把当前完整状态写成新快照并清空日志
+     *
+     * @param state 当前状态（每个元素回放时按顺序交给消费者）
+     */
+    public synchronized void compact(Collection<? extends E> state) throws IOException {
+        ensureWritable();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(serialize(new Entry<E>(sequence, null)));
+        for (E record : state) {
+            out.write(serialize(new Entry<>(0, record)));
+        }
+        AtomicFileWriter.write(snapshotFile, out.toByteArray(), true);
+
+        channel.truncate(0);
+        channel.position(0);
+        if (sync) {
+            channel.force(false);
+        }
+        log.debug("日志已压缩: {} ({} 条记录, 清理 {} 条日志)", snapshotFile, state.size(), logEntries);
+        logEntries = 0;
+    }
+
+    /**
+     * 上次压缩后追加的记录数
+     */
+    public synchronized long getLogEntries() {
+        return logEntries;
+    }
+
+    /**
+     * 是否值得压缩：日志条数超过阈值，且不少于当前状态的条数
+     */
+    public synchronized boolean needsCompaction(long liveRecords, long threshold) {
+        return logEntries >= threshold && logEntries >= liveRecords;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } finally {
+            channel = null;
+            releaseLock();
+        }
+    }
+
+    private void ensureWritable() throws IOException {
+        if (readOnly) {
+            throw new IOException("日志正被其他 Koder 进程使用，当前为只读: " + logFile);
+        }
+        if (channel == null) {
+            throw new IllegalStateException("日志尚未打开，请先调用 replay: " + logFile);
+        }
+    }
+
+    /**
+     * 把一段完整的行写到日志末尾；写入或刷盘失败时截回写入前的位置，避免留下半行
+     */
+    private void write(byte[] bytes) throws IOException {
+        long start = channel.position();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (sync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            try {
+                channel.truncate(start);
+                channel.position(start);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 对锁文件加排他锁（已持有时不重复加锁）；锁被其他进程或同一进程内的其他实例持有时转为只读
+     */
+    private void acquireLock() throws IOException {
+        if (lock != null || readOnly) {
+            return;
+        }
+        lockChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        } catch (IOException e) {
+            releaseLock();
+            throw e;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            lockChannel = null;
+            readOnly = true;
+            log.warn("日志 {} 正被其他 Koder 进程使用，以只读方式打开", logFile);
+        }
+    }
+
+    private void releaseLock() throws IOException {
+        try {
+            if (lock != null && lock.isValid()) {
+                lock.release();
+            }
+        } finally {
+            lock = null;
+            readOnly = false;
+            if (lockChannel != null) {
+                lockChannel.close();
+                lockChannel = null;
+            }
+        }
+    }
+
+    private byte[] serialize(Entry<E> entry) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(entry);
+        byte[] line = new byte[json.length + 1];
+        System.arraycopy(json, 0, line, 0, json.length);
+        line[json.length] = '\n';
+        return line;
+    }
+
+    /**
+     * 带序号的记录
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry<E> {
+        private long seq;
+        private E data;
+    }
+
+    /**
+     * 按字节读取行，记录已读取的位置以及最后一行是否以换行结尾
+     */
+    private static final class LineReader {
+
+        private final InputStream in;
+        private final byte[] buffer = new byte[64 * 1024];
+        private int start;
+        private int end;
+        private long position;
+        private boolean terminated;
+
+        LineReader(InputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * 读取下一行非空内容（不含换行），读到文件末尾时返回null
+         */
+        byte[] next() throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            while (true) {
+                if (start == end) {
+                    int read = in.read(buffer);
+                    if (read <= 0) {
+                        terminated = false;
+                        return line.size() > 0 ? line.toByteArray() : null;
+                    }
+                    start = 0;
+                    end = read;
+                }
+                int newline = start;
+                while (newline < end && buffer[newline] != '\n') {
+                    newline++;
+                }
+                line.write(buffer, start, newline - start);
+                if (newline == end) {
+                    position += end - start;
+                    start = end;
+                    continue;
+                }
+                position += newline - start + 1;
+                start = newline + 1;
+                if (line.size() > 0) {
+                    terminated = true;
+                    return line.toByteArray();
+                }
+            }
+        }
+
+        /**
+         * 上一次返回的行是否以换行结尾
+         */
+        boolean terminated() {
+            return terminated;
+        }
+
+        /**
+         * 已消费的字节数
+         */
+        long position() {
+            return position;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package io.leavesfly.koder.tool.task;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 任务实体
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class Task {
+    private String id;
+    private String content;
+    private TaskStatus status;
+    private String parentId;
+    private long createdAt;
+    private long updatedAt;
+
+    /**
+     * 复制一份，避免调用方修改存储中的对象
+     */
+    public Task copy() {
+        return toBuilder().build();
+    }
+}
@@ -0,0 +1,231 @@
+package io.leavesfly.koder.tool.task;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * 任务的内存索引（非线程安全，由 {@link TaskStore} 加锁访问）
+ * <p>
+ * 每个任务首次写入时分配一个递增的顺序号，之后更新不变；列表、分页都按顺序号进行。
+ * 回放时按日志顺序写入，压缩时按顺序号写出快照，因此重启后顺序号与游标保持一致。
+ * - 状态索引：状态 → 顺序号集合
+ * - 父任务索引：父任务ID → 直接子任务的顺序号集合
+ */
+final class TaskIndex {
+
+    private final Map<String, Long> orderById = new HashMap<>();
+    private final NavigableMap<Long, Task> byOrder = new TreeMap<>();
+    private final Map<TaskStatus, NavigableSet<Long>> byStatus = new EnumMap<>(TaskStatus.class);
+    private final Map<String, NavigableSet<Long>> byParent = new HashMap<>();
+    private long nextOrder;
+
+    int size() {
+        return byOrder.size();
+    }
+
+    Task get(String id) {
+        Long order = orderById.get(id);
+        return order != null ? byOrder.get(order) : null;
+    }
+
+    /**
+     * 按顺序号排列的全部任务
+     */
+    Collection<Task> values() {
+        return byOrder.values();
+    }
+
+    void put(Task task) {
+        Long order = orderById.get(task.getId());
+        if (order == null) {
+            order = nextOrder++;
+            orderById.put(task.getId(), order);
+        } else {
+            unindex(byOrder.get(order), order);
+        }
+        byOrder.put(order, task);
+        if (task.getStatus() != null) {
+            byStatus.computeIfAbsent(task.getStatus(), k -> new TreeSet<>()).add(order);
+        }
+        if (task.getParentId() != null) {
+            byParent.computeIfAbsent(task.getParentId(), k -> new TreeSet<>()).add(order);
+        }
+    }
+
+    /**
+     * 各状态的任务数
+     */
+    Map<TaskStatus, Integer> countByStatus() {
+        Map<TaskStatus, Integer> counts = new EnumMap<>(TaskStatus.class);
+        byStatus.forEach((status, orders) -> {
+            if (!orders.isEmpty()) {
+                counts.put(status, orders.size());
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * 分页查询
+     * <p>
+     * 只遍历最小的候选集合（状态集合、子任务集合或子树），其余条件逐条筛选；
+     * 游标定位到顺序号后直接从其后开始，不重复扫描前面的页。
+     * 子树展开时顺带按状态筛选；展开的任务数超过状态集合的大小即放弃，改为遍历状态集合并沿父任务链判断归属。
+     *
+     * @param status    状态（可为null）
+     * @param parentId  父任务ID（可为null）
+     * @param recursive 为true时包含 parentId 的全部后代，而不只是直接子任务
+     * @param cursor    上一页最后一个任务的ID（可为null）
+     * @param limit     每页条数
+     */
+    TaskPage list(TaskStatus status, String parentId, boolean recursive, String cursor, int limit) {
+        long after = -1;
+        if (cursor != null) {
+            Long order = orderById.get(cursor);
+            if (order == null) {
+                throw new IllegalArgumentException("无效的分页游标: " + cursor);
+            }
+            after = order;
+        }
+
+        NavigableSet<Long> statusSet = null;
+        if (status != null) {
+            statusSet = byStatus.getOrDefault(status, Collections.emptyNavigableSet());
+        }
+
+        NavigableSet<Long> candidates;
+        Predicate<Long> filter = null;
+        if (parentId == null) {
+            candidates = statusSet != null ? statusSet : byOrder.navigableKeySet();
+        } else if (!recursive) {
+            NavigableSet<Long> children = byParent.getOrDefault(parentId, Collections.emptyNavigableSet());
+            candidates = children;
+            if (statusSet != null) {
+                boolean statusSmaller = statusSet.size() <= children.size();
+                candidates = statusSmaller ? statusSet : children;
+                filter = statusSmaller ? children::contains : statusSet::contains;
+            }
+        } else {
+            long[] subtree = descendants(parentId, status, statusSet != null ? statusSet.size() : Integer.MAX_VALUE);
+            if (subtree != null) {
+                return page(subtree, after, limit);
+            }
+            candidates = statusSet;
+            filter = order -> isDescendant(byOrder.get(order), parentId);
+        }
+
+        int total;
+        if (filter == null) {
+            total = candidates.size();
+        } else {
+            total = 0;
+            for (Long order : candidates) {
+                if (filter.test(order)) {
+                    total++;
+                }
+            }
+        }
+
+        List<Task> tasks = new ArrayList<>(Math.min(limit, total));
+        boolean more = false;
+        for (Long order : candidates.tailSet(after, false)) {
+            if (filter != null && !filter.test(order)) {
+                continue;
+            }
+            if (tasks.size() == limit) {
+                more = true;
+                break;
+            }
+            tasks.add(byOrder.get(order));
+        }
+        String nextCursor = more && !tasks.isEmpty() ? tasks.get(tasks.size() - 1).getId() : null;
+        return new TaskPage(tasks, total, nextCursor);
+    }
+
+    /**
+     * 在已排序的顺序号数组上分页（二分定位游标）
+     */
+    private TaskPage page(long[] orders, long after, int limit) {
+        int from = Arrays.binarySearch(orders, after);
+        from = from >= 0 ? from + 1 : -from - 1;
+        int to = (int) Math.min((long) from + limit, orders.length);
+        List<Task> tasks = new ArrayList<>(Math.max(to - from, 0));
+        for (int i = from; i < to; i++) {
+            tasks.add(byOrder.get(orders[i]));
+        }
+        String nextCursor = to < orders.length && !tasks.isEmpty() ? tasks.get(tasks.size() - 1).getId() : null;
+        return new TaskPage(tasks, orders.length, nextCursor);
+    }
+
+    /**
+     * 子树中满足状态条件的后代顺序号，按顺序号升序（沿父任务索引逐层展开，只访问子树内的任务）
+     *
+     * @param status 状态（可为null，展开时顺带筛选）
+     * @param limit  展开的后代数超过该值时停止并返回null
+     */
+    private long[] descendants(String parentId, TaskStatus status, int limit) {
+        long[] found = new long[16];
+        int count = 0;
+        int visited = 0;
+        Deque<String> pending = new ArrayDeque<>();
+        pending.add(parentId);
+        while (!pending.isEmpty()) {
+            NavigableSet<Long> children = byParent.get(pending.poll());
+            if (children == null) {
+                continue;
+            }
+            visited += children.size();
+            if (visited > limit) {
+                return null;
+            }
+            for (Long order : children) {
+                Task child = byOrder.get(order);
+                if (status == null || child.getStatus() == status) {
+                    if (count == found.length) {
+                        found = Arrays.copyOf(found, count * 2);
+                    }
+                    found[count++] = order;
+                }
+                pending.add(child.getId());
+            }
+        }
+        long[] orders = Arrays.copyOf(found, count);
+        Arrays.sort(orders);
+        return orders;
+    }
+
+    /**
+     * 沿父任务链判断任务是否在 ancestorId 的子树中
+     */
+    private boolean isDescendant(Task task, String ancestorId) {
+        String parentId = task.getParentId();
+        // 父任务在创建时必须已存在，链上不会有环；步数上限只作保护
+        for (int depth = 0; parentId != null && depth < byOrder.size(); depth++) {
+            if (parentId.equals(ancestorId)) {
+                return true;
+            }
+            Task parent = get(parentId);
+            parentId = parent != null ? parent.getParentId() : null;
+        }
+        return false;
+    }
+
+    private void unindex(Task task, long order) {
+        if (task.getStatus() != null) {
+            removeFrom(byStatus, task.getStatus(), order);
+        }
+        if (task.getParentId() != null) {
+            removeFrom(byParent, task.getParentId(), order);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, NavigableSet<Long>> index, K key, long order) {
+        NavigableSet<Long> orders = index.get(key);
+        if (orders != null) {
+            orders.remove(order);
+            if (orders.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+}
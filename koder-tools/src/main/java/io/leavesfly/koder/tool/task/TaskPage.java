@@ -0,0 +1,33 @@
+package io.leavesfly.koder.tool.task;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 分页查询结果
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskPage {
+
+    /**
+     * 本页任务（按创建顺序）
+     */
+    private List<Task> tasks;
+
+    /**
+     * 满足条件的任务总数
+     */
+    private int total;
+
+    /**
+     * 下一页的游标（本页最后一个任务的ID），没有更多时为null
+     */
+    private String nextCursor;
+}
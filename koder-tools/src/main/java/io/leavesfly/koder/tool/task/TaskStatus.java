@@ -0,0 +1,12 @@
+package io.leavesfly.koder.tool.task;
+
+/**
+ * 任务状态
+ */
+public enum TaskStatus {
+    PENDING,      // 待处理
+    IN_PROGRESS,  // 进行中
+    COMPLETE,     // 已完成
+    CANCELLED,    // 已取消
+    ERROR         // 错误
+}
@@ -0,0 +1,263 @@
+package io.leavesfly.koder.tool.task;
+
+import io.leavesfly.koder.tool.config.ToolProperties;
+import io.leavesfly.koder.tool.config.ToolProperties.TaskSettings;
+import io.leavesfly.koder.tool.store.JsonJournal;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 持久化任务存储
+ * <p>
+ * 任务保存在 ~/.koder/tasks 下的追加写日志中（见 {@link JsonJournal}），每次创建或更新追加一条完整的任务记录，
+ * 日志增长到阈值后压缩为快照；进程崩溃后重启回放即可恢复。查询走按状态、父任务建立的内存索引（见 {@link TaskIndex}），
+ * 支持游标分页。任务ID形如 task_1、task_2，单调递增且重启后继续。首次使用时才加载；返回的任务均为副本。
+ */
+@Slf4j
+@Component
+public class TaskStore {
+
+    private static final String JOURNAL_NAME = "tasks";
+    private static final String ID_PREFIX = "task_";
+    private static final Pattern GENERATED_ID = Pattern.compile(Pattern.quote(ID_PREFIX) + "(\\d+)");
+
+    private final ToolProperties properties;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TaskIndex index = new TaskIndex();
+
+    private JsonJournal<Task> journal;
+    private volatile boolean loaded;
+    private long lastId;
+
+    public TaskStore(ToolProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 按ID获取任务
+     *
+     * @return 任务副本，不存在时返回null
+     */
+    public Task get(String id) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Task task = index.get(id);
+            return task != null ? task.copy() : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 创建任务
+     *
+     * @param id       任务ID（为空时自动生成）
+     * @param content  任务内容
+     * @param status   状态（为null时为 PENDING）
+     * @param parentId 父任务ID（可为null，不为null时父任务必须存在）
+     * @return 创建的任务副本
+     * @throws IllegalArgumentException ID已存在或父任务不存在
+     */
+    public Task create(String id, String content, TaskStatus status, String parentId) throws IOException {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            if (id != null && !id.isEmpty() && index.get(id) != null) {
+                throw new IllegalArgumentException("任务已存在: " + id);
+            }
+            if (parentId != null && index.get(parentId) == null) {
+                throw new IllegalArgumentException("父任务不存在: " + parentId);
+            }
+            long now = System.currentTimeMillis();
+            Task task = Task.builder()
+                    .id(id != null && !id.isEmpty() ? id : nextId())
+                    .content(content)
+                    .status(status != null ? status : TaskStatus.PENDING)
+                    .parentId(parentId)
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build();
+            apply(task);
+            return task.copy();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 更新任务的内容或状态（为null的字段保持不变）
+     *
+     * @return 更新后的任务副本，不存在时返回null
+     */
+    public Task update(String id, String content, TaskStatus status) throws IOException {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            Task existing = index.get(id);
+            if (existing == null) {
+                return null;
+            }
+            Task updated = existing.copy();
+            if (content != null) {
+                updated.setContent(content);
+            }
+            if (status != null) {
+                updated.setStatus(status);
+            }
+            updated.setUpdatedAt(System.currentTimeMillis());
+            apply(updated);
+            return updated.copy();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 分页查询任务（按创建顺序）
+     *
+     * @param status    状态（可为null）
+     * @param parentId  父任务ID（可为null）
+     * @param recursive 为true时包含 parentId 的全部后代
+     * @param cursor    上一页返回的游标（可为null）
+     * @param limit     每页条数
+     * @throws IllegalArgumentException 游标无效
+     */
+    public TaskPage list(TaskStatus status, String parentId, boolean recursive, String cursor, int limit) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            TaskPage page = index.list(status, parentId, recursive, cursor, Math.max(limit, 0));
+            page.setTasks(page.getTasks().stream().map(Task::copy).toList());
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 各状态的任务数
+     */
+    public Map<TaskStatus, Integer> countByStatus() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return index.countByStatus();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 任务总数
+     */
+    public int size() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 存储目录
+     */
+    public Path getDirectory() {
+        String configured = settings().getDirectory();
+        return configured != null && !configured.isBlank()
+                ? Paths.get(configured)
+                : Paths.get(System.getProperty("user.home"), ".koder", "tasks");
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (journal != null) {
+                journal.close();
+            }
+        } catch (IOException e) {
+            log.warn("关闭任务日志失败: {}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 先写日志再更新索引，写日志失败时索引保持不变
+     */
+    private void apply(Task task) throws IOException {
+        journal.append(task);
+        replay(task);
+        if (journal.needsCompaction(index.size(), settings().getCompactThreshold())) {
+            journal.compact(List.copyOf(index.values()));
+        }
+    }
+
+    private void replay(Task task) {
+        if (task.getId() == null) {
+            return;
+        }
+        index.put(task);
+        Matcher matcher = GENERATED_ID.matcher(task.getId());
+        if (matcher.matches()) {
+            try {
+                lastId = Math.max(lastId, Long.parseLong(matcher.group(1)));
+            } catch (NumberFormatException ignored) {
+                // 超出 long 范围的ID不参与编号
+            }
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            JsonJournal<Task> opened = new JsonJournal<>(getDirectory(), JOURNAL_NAME, Task.class, settings().isSync());
+            long replayed = opened.replay(this::replay);
+            journal = opened;
+            loaded = true;
+            log.info("任务存储已加载: {} 个任务（回放 {} 条记录，其中日志 {} 条），耗时 {}ms",
+                    index.size(), replayed, opened.getLogEntries(), System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException("加载任务存储失败: " + e.getMessage(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 生成任务ID：在已有最大编号上递增（跳过调用方手动占用的编号）
+     */
+    private String nextId() {
+        long id = lastId + 1;
+        while (index.get(ID_PREFIX + id) != null) {
+            id++;
+        }
+        lastId = id;
+        return ID_PREFIX + id;
+    }
+
+    private TaskSettings settings() {
+        return properties.getTask();
+    }
+}
@@ -0,0 +1,52 @@
+package io.leavesfly.koder.tool.todo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 任务列表的一条变更（日志记录）
+ * - put：新增任务追加到末尾，已有任务原位替换
+ * - remove：删除任务
+ * - order：按给出的ID顺序重排（只在顺序无法由 put/remove 推出时记录）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoChange {
+
+    public static final String PUT = "put";
+    public static final String REMOVE = "remove";
+    public static final String ORDER = "order";
+
+    private String op;
+
+    /**
+     * put 时为完整任务
+     */
+    private TodoItem item;
+
+    /**
+     * remove 时为任务ID
+     */
+    private String id;
+
+    /**
+     * order 时为全部任务ID
+     */
+    private List<String> order;
+
+    static TodoChange put(TodoItem item) {
+        return new TodoChange(PUT, item, null, null);
+    }
+
+    static TodoChange remove(String id) {
+        return new TodoChange(REMOVE, null, id, null);
+    }
+
+    static TodoChange order(List<String> order) {
+        return new TodoChange(ORDER, null, null, order);
+    }
+}
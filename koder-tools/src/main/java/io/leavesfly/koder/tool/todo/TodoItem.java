@@ -0,0 +1,30 @@
+package io.leavesfly.koder.tool.todo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 任务项
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoItem {
+
+    public static final String PENDING = "pending";
+    public static final String IN_PROGRESS = "in_progress";
+    public static final String COMPLETED = "completed";
+
+    private String id;
+    private String content;
+    private String status;
+    private String priority;
+
+    /**
+     * 复制一份，避免调用方修改存储中的对象
+     */
+    public TodoItem copy() {
+        return new TodoItem(id, content, status, priority);
+    }
+}
@@ -0,0 +1,35 @@
+package io.leavesfly.koder.tool.todo;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 任务列表的不可变快照
+ * 每次更新生成一份新快照，读者拿到的任务与计数总是同一版本
+ */
+@Getter
+@AllArgsConstructor
+public class TodoSnapshot {
+
+    static final TodoSnapshot EMPTY = new TodoSnapshot(List.of(), 0, 0, 0, 0);
+
+    /**
+     * 任务（按列表顺序，不可修改）
+     */
+    private final List<TodoItem> todos;
+
+    private final int pending;
+    private final int inProgress;
+    private final int completed;
+
+    /**
+     * 版本号，每次内容变化时递增
+     */
+    private final long revision;
+
+    public int getTotal() {
+        return todos.size();
+    }
+}
@@ -0,0 +1,327 @@
+package io.leavesfly.koder.tool.todo;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.leavesfly.koder.tool.config.ToolProperties;
+import io.leavesfly.koder.tool.config.ToolProperties.TodoSettings;
+import io.leavesfly.koder.tool.store.JsonJournal;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 任务列表（TODO）存储
+ * <p>
+ * 当前列表保存在内存中，每次更新后发布一份不可变快照（见 {@link TodoSnapshot}），各状态计数随变更增量维护。
+ * 写盘经过防抖：更新后等待 flushDelayMs 再把"上次写盘后的状态"与当前状态的差异（新增/修改、删除、重排）
+ * 一次性追加到 ~/.koder/todos 下的日志（见 {@link JsonJournal}），窗口内的多次更新合并为一批；
+ * 日志增长到阈值后压缩为快照。旧版的 ~/.koder/.koder-todos.json 在首次加载且日志为空时导入。
+ */
+@Slf4j
+@Component
+public class TodoStore {
+
+    private static final String JOURNAL_NAME = "todos";
+    private static final String LEGACY_FILE = ".koder-todos.json";
+
+    private final ToolProperties properties;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "koder-todo-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 当前列表（按列表顺序），只在持有锁时修改
+     */
+    private LinkedHashMap<String, TodoItem> current = new LinkedHashMap<>();
+
+    /**
+     * 上次写盘后的列表
+     */
+    private LinkedHashMap<String, TodoItem> persisted = new LinkedHashMap<>();
+
+    private final Map<String, Integer> counts = new HashMap<>();
+    private volatile TodoSnapshot snapshot = TodoSnapshot.EMPTY;
+
+    private JsonJournal<TodoChange> journal;
+    private volatile boolean loaded;
+    private ScheduledFuture<?> pendingFlush;
+
+    public TodoStore(ToolProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 当前列表的快照（不加锁，任务与计数属于同一版本；不要修改其中的任务）
+     */
+    public TodoSnapshot snapshot() {
+        ensureLoaded();
+        return snapshot;
+    }
+
+    /**
+     * 用新的完整列表替换当前列表
+     * <p>
+     * 内存状态立即生效并发布新快照，写盘按 flushDelayMs 防抖；列表没有变化时不产生写入。
+     *
+     * @return 更新后的快照
+     */
+    public synchronized TodoSnapshot replace(List<TodoItem> todos) {
+        ensureLoaded();
+        LinkedHashMap<String, TodoItem> next = new LinkedHashMap<>();
+        boolean changed = todos.size() != current.size();
+        Iterator<String> currentIds = current.keySet().iterator();
+        for (TodoItem todo : todos) {
+            TodoItem previous = current.get(todo.getId());
+            if (previous != null && previous.equals(todo)) {
+                next.put(todo.getId(), previous);
+            } else {
+                next.put(todo.getId(), todo.copy());
+                changed = true;
+            }
+            if (!changed && !(currentIds.hasNext() && currentIds.next().equals(todo.getId()))) {
+                changed = true;
+            }
+        }
+        if (!changed) {
+            return snapshot;
+        }
+
+        for (TodoItem previous : current.values()) {
+            TodoItem replacement = next.get(previous.getId());
+            if (replacement != previous) {
+                count(previous.getStatus(), -1);
+            }
+        }
+        for (TodoItem item : next.values()) {
+            TodoItem previous = current.get(item.getId());
+            if (item != previous) {
+                count(item.getStatus(), 1);
+            }
+        }
+        current = next;
+        publish();
+        scheduleFlush();
+        return snapshot;
+    }
+
+    /**
+     * 立即把尚未写盘的变更写入日志
+     */
+    public synchronized void flush() throws IOException {
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+            pendingFlush = null;
+        }
+        if (journal == null) {
+            return;
+        }
+        List<TodoChange> changes = diff(persisted, current);
+        if (changes.isEmpty()) {
+            return;
+        }
+        journal.appendAll(changes);
+        persisted = new LinkedHashMap<>(current);
+        if (journal.needsCompaction(current.size(), settings().getCompactThreshold())) {
+            journal.compact(putAll(current));
+        }
+    }
+
+    /**
+     * 存储目录
+     */
+    public Path getDirectory() {
+        String configured = settings().getDirectory();
+        return configured != null && !configured.isBlank()
+                ? Paths.get(configured)
+                : Paths.get(System.getProperty("user.home"), ".koder", "todos");
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        try {
+            flush();
+        } catch (IOException e) {
+            log.warn("保存任务列表失败: {}", e.getMessage());
+        }
+        flusher.shutdownNow();
+        try {
+            if (journal != null) {
+                journal.close();
+            }
+        } catch (IOException e) {
+            log.warn("关闭任务列表日志失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 计算从 before 到 after 的变更：删除、新增或修改，以及在两者都无法体现时的重排
+     */
+    static List<TodoChange> diff(LinkedHashMap<String, TodoItem> before, LinkedHashMap<String, TodoItem> after) {
+        List<TodoChange> changes = new ArrayList<>();
+        List<String> expectedOrder = new ArrayList<>(after.size());
+        for (Map.Entry<String, TodoItem> entry : before.entrySet()) {
+            TodoItem item = after.get(entry.getKey());
+            if (item == null) {
+                changes.add(TodoChange.remove(entry.getKey()));
+            } else {
+                expectedOrder.add(entry.getKey());
+                if (!item.equals(entry.getValue())) {
+                    changes.add(TodoChange.put(item));
+                }
+            }
+        }
+        for (Map.Entry<String, TodoItem> entry : after.entrySet()) {
+            if (!before.containsKey(entry.getKey())) {
+                expectedOrder.add(entry.getKey());
+                changes.add(TodoChange.put(entry.getValue()));
+            }
+        }
+        List<String> actualOrder = new ArrayList<>(after.keySet());
+        if (!expectedOrder.equals(actualOrder)) {
+            changes.add(TodoChange.order(actualOrder));
+        }
+        return changes;
+    }
+
+    /**
+     * 把一条变更应用到列表上（回放用）
+     */
+    static void apply(LinkedHashMap<String, TodoItem> todos, TodoChange change) {
+        switch (change.getOp()) {
+            case TodoChange.PUT -> {
+                if (change.getItem() != null && change.getItem().getId() != null) {
+                    todos.put(change.getItem().getId(), change.getItem());
+                }
+            }
+            case TodoChange.REMOVE -> todos.remove(change.getId());
+            case TodoChange.ORDER -> {
+                LinkedHashMap<String, TodoItem> reordered = new LinkedHashMap<>();
+                for (String id : change.getOrder()) {
+                    TodoItem item = todos.get(id);
+                    if (item != null) {
+                        reordered.put(id, item);
+                    }
+                }
+                // 重排记录之外的任务（理论上不存在）保留在末尾
+                todos.forEach(reordered::putIfAbsent);
+                todos.clear();
+                todos.putAll(reordered);
+            }
+            default -> log.warn("忽略未知的任务列表变更: {}", change.getOp());
+        }
+    }
+
+    private static List<TodoChange> putAll(LinkedHashMap<String, TodoItem> todos) {
+        List<TodoChange> changes = new ArrayList<>(todos.size());
+        for (TodoItem item : todos.values()) {
+            changes.add(TodoChange.put(item));
+        }
+        return changes;
+    }
+
+    private void count(String status, int delta) {
+        counts.merge(String.valueOf(status), delta, Integer::sum);
+    }
+
+    private void publish() {
+        snapshot = new TodoSnapshot(
+                Collections.unmodifiableList(new ArrayList<>(current.values())),
+                counts.getOrDefault(TodoItem.PENDING, 0),
+                counts.getOrDefault(TodoItem.IN_PROGRESS, 0),
+                counts.getOrDefault(TodoItem.COMPLETED, 0),
+                snapshot.getRevision() + 1);
+    }
+
+    private void scheduleFlush() {
+        long delay = settings().getFlushDelayMs();
+        if (delay <= 0) {
+            flushQuietly();
+            return;
+        }
+        if (pendingFlush == null) {
+            pendingFlush = flusher.schedule(this::flushQuietly, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            log.warn("保存任务列表失败，将在下次更新时重试: {}", e.getMessage());
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            LinkedHashMap<String, TodoItem> todos = new LinkedHashMap<>();
+            JsonJournal<TodoChange> opened = new JsonJournal<>(getDirectory(), JOURNAL_NAME, TodoChange.class, settings().isSync());
+            try {
+                long replayed = opened.replay(change -> apply(todos, change));
+                journal = opened;
+                current = todos;
+                persisted = new LinkedHashMap<>(todos);
+                if (replayed == 0 && !opened.isReadOnly() && importLegacy()) {
+                    opened.compact(putAll(current));
+                    persisted = new LinkedHashMap<>(current);
+                }
+                log.info("任务列表已加载: {} 个任务（回放 {} 条记录），耗时 {}ms",
+                        current.size(), replayed, System.currentTimeMillis() - start);
+            } catch (IOException e) {
+                throw new UncheckedIOException("加载任务列表失败: " + e.getMessage(), e);
+            }
+            for (TodoItem item : current.values()) {
+                count(item.getStatus(), 1);
+            }
+            publish();
+            loaded = true;
+        }
+    }
+
+    /**
+     * 导入旧版整文件保存的任务列表（保留原文件）
+     */
+    private boolean importLegacy() {
+        Path legacy = Paths.get(System.getProperty("user.home"), ".koder", LEGACY_FILE);
+        if (!Files.isRegularFile(legacy)) {
+            return false;
+        }
+        try {
+            List<TodoItem> todos = new ObjectMapper().readValue(legacy.toFile(), new TypeReference<List<TodoItem>>() {
+            });
+            for (TodoItem todo : todos) {
+                if (todo.getId() != null) {
+                    current.put(todo.getId(), todo);
+                }
+            }
+            log.info("已导入旧版任务列表: {} ({} 个任务)", legacy, current.size());
+            return !current.isEmpty();
+        } catch (IOException e) {
+            log.warn("导入旧版任务列表失败: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private TodoSettings settings() {
+        return properties.getTodo();
+    }
+}
@@ -0,0 +1,25 @@
+package io.leavesfly.koder.tool.web;
+
+/**
+ * 响应体流式监听器
+ * <p>
+ * 解码后的响应体按块回调，监听器可以在内容足够时要求停止读取。
+ */
+public interface BodyListener {
+
+    /**
+     * 收到响应头（或命中缓存）时回调
+     *
+     * @param statusCode  状态码
+     * @param contentType 内容类型（可为null）
+     */
+    default void onStart(int statusCode, String contentType) {
+    }
+
+    /**
+     * 收到一块解码后的数据
+     *
+     * @return 是否继续读取
+     */
+    boolean onData(byte[] bytes, int offset, int length);
+}
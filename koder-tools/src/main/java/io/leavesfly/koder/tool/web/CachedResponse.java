@@ -0,0 +1,225 @@
+package io.leavesfly.koder.tool.web;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * HTTP 缓存条目
+ * <p>
+ * 保存响应状态、与缓存相关的响应头以及解码后的响应体，并按 RFC 9111 计算新鲜度：
+ * - 显式新鲜期：Cache-Control 的 max-age，其次是 Expires 与 Date 之差
+ * - 启发式新鲜期：只有 Last-Modified 时取 (Date - Last-Modified) 的 10%，最长一天
+ * - no-cache 的响应每次使用前都需要重新验证
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachedResponse {
+
+    /**
+     * 没有显式新鲜期时允许启发式缓存的状态码（RFC 9110 第 15.1 节）
+     */
+    private static final Set<Integer> HEURISTICALLY_CACHEABLE = Set.of(
+            200, 203, 204, 206, 300, 301, 308, 404, 405, 410, 414, 501);
+
+    private static final long MAX_HEURISTIC_FRESHNESS_MS = Duration.ofDays(1).toMillis();
+
+    private String url;
+    private int statusCode;
+    private String contentType;
+    private String etag;
+    private String lastModified;
+    private String cacheControl;
+    private String expires;
+    private String date;
+
+    /**
+     * 存入缓存时响应已有的年龄（秒，来自 Age 响应头）
+     */
+    private long initialAgeSeconds;
+
+    /**
+     * 收到响应（或最近一次重新验证）的时间
+     */
+    private long storedAt;
+
+    /**
+     * 解码后的响应体（单独存放，不写入元数据）
+     */
+    @JsonIgnore
+    private byte[] body;
+
+    /**
+     * 响应体长度（用于校验磁盘上的响应体文件）
+     */
+    private int bodyLength;
+
+    /**
+     * 由响应构造缓存条目
+     */
+    public static CachedResponse from(String url, int statusCode, HttpHeaders headers, byte[] body, long now) {
+        return CachedResponse.builder()
+                .url(url)
+                .statusCode(statusCode)
+                .contentType(headers.getFirst(HttpHeaders.CONTENT_TYPE))
+                .etag(headers.getFirst(HttpHeaders.ETAG))
+                .lastModified(headers.getFirst(HttpHeaders.LAST_MODIFIED))
+                .cacheControl(headers.getFirst(HttpHeaders.CACHE_CONTROL))
+                .expires(headers.getFirst(HttpHeaders.EXPIRES))
+                .date(headers.getFirst(HttpHeaders.DATE))
+                .initialAgeSeconds(parseLong(headers.getFirst(HttpHeaders.AGE)))
+                .storedAt(now)
+                .body(body)
+                .bodyLength(body.length)
+                .build();
+    }
+
+    /**
+     * 响应是否允许存入缓存
+     */
+    public static boolean isStorable(int statusCode, HttpHeaders headers) {
+        String cacheControl = headers.getFirst(HttpHeaders.CACHE_CONTROL);
+        if (hasDirective(cacheControl, "no-store")) {
+            return false;
+        }
+        // Vary: * 表示响应取决于无法复现的请求特征；其余 Vary 字段在本客户端的请求中固定不变
+        String vary = headers.getFirst(HttpHeaders.VARY);
+        if (vary != null && vary.trim().equals("*")) {
+            return false;
+        }
+        boolean explicit = directiveValue(cacheControl, "max-age") != null
+                || headers.getFirst(HttpHeaders.EXPIRES) != null;
+        return explicit ? statusCode >= 200 && statusCode < 600 && statusCode != 206
+                : HEURISTICALLY_CACHEABLE.contains(statusCode) && statusCode != 206;
+    }
+
+    /**
+     * 304 重新验证后合并新的响应头并重置年龄
+     */
+    public CachedResponse revalidated(HttpHeaders headers, long now) {
+        CachedResponseBuilder builder = toBuilder().storedAt(now)
+                .initialAgeSeconds(parseLong(headers.getFirst(HttpHeaders.AGE)));
+        if (headers.getFirst(HttpHeaders.ETAG) != null) {
+            builder.etag(headers.getFirst(HttpHeaders.ETAG));
+        }
+        if (headers.getFirst(HttpHeaders.LAST_MODIFIED) != null) {
+            builder.lastModified(headers.getFirst(HttpHeaders.LAST_MODIFIED));
+        }
+        if (headers.getFirst(HttpHeaders.CACHE_CONTROL) != null) {
+            builder.cacheControl(headers.getFirst(HttpHeaders.CACHE_CONTROL));
+        }
+        if (headers.getFirst(HttpHeaders.EXPIRES) != null) {
+            builder.expires(headers.getFirst(HttpHeaders.EXPIRES));
+        }
+        if (headers.getFirst(HttpHeaders.DATE) != null) {
+            builder.date(headers.getFirst(HttpHeaders.DATE));
+        }
+        return builder.build();
+    }
+
+    /**
+     * 在指定时间是否新鲜（可以不经验证直接使用）
+     */
+    public boolean isFresh(long now) {
+        if (hasDirective(cacheControl, "no-cache")) {
+            return false;
+        }
+        long currentAgeMs = initialAgeSeconds * 1000 + Math.max(0, now - storedAt);
+        return currentAgeMs < freshnessLifetimeMs();
+    }
+
+    /**
+     * 是否可以发起条件请求重新验证
+     */
+    public boolean canRevalidate() {
+        return etag != null || lastModified != null;
+    }
+
+    /**
+     * 新鲜期（毫秒）
+     */
+    public long freshnessLifetimeMs() {
+        Long maxAge = directiveValue(cacheControl, "max-age");
+        if (maxAge != null) {
+            return maxAge * 1000;
+        }
+        long dateMs = parseDate(date, storedAt);
+        if (expires != null) {
+            // 无法解析的 Expires（如 "0"）视为已过期
+            return Math.max(0, parseDate(expires, dateMs) - dateMs);
+        }
+        if (lastModified != null && HEURISTICALLY_CACHEABLE.contains(statusCode)) {
+            long lastModifiedMs = parseDate(lastModified, dateMs);
+            if (lastModifiedMs <= 0) {
+                return 0;
+            }
+            return Math.min(Math.max(0, dateMs - lastModifiedMs) / 10, MAX_HEURISTIC_FRESHNESS_MS);
+        }
+        return 0;
+    }
+
+    static boolean hasDirective(String cacheControl, String name) {
+        if (cacheControl == null) {
+            return false;
+        }
+        for (String directive : cacheControl.toLowerCase(Locale.ROOT).split(",")) {
+            String trimmed = directive.trim();
+            if (trimmed.equals(name) || trimmed.startsWith(name + "=")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static Long directiveValue(String cacheControl, String name) {
+        if (cacheControl == null) {
+            return null;
+        }
+        for (String directive : cacheControl.toLowerCase(Locale.ROOT).split(",")) {
+            String trimmed = directive.trim();
+            if (trimmed.startsWith(name + "=")) {
+                String value = trimmed.substring(name.length() + 1).replace("\"", "").trim();
+                try {
+                    return Math.max(0, Long.parseLong(value));
+                } catch (NumberFormatException e) {
+                    return 0L;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static long parseDate(String value, long fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.DATE, value);
+            long parsed = headers.getDate();
+            return parsed >= 0 ? parsed : 0;
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+    }
+
+    private static long parseLong(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
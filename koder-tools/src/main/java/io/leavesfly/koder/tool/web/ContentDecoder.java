@@ -0,0 +1,280 @@
+package io.leavesfly.koder.tool.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 流式响应体解码器
+ * <p>
+ * 逐块接收响应体并按 Content-Encoding（identity、gzip、deflate）解压，
+ * 解码后的内容超过字节预算时停止并标记截断，压缩炸弹不会占用超过预算的内存。
+ * 解码后的数据可以实时转交 {@link BodyListener}，由监听器决定何时停止：在内存中保留内容时只是不再转交监听器，
+ * 继续解码到流结束或预算用尽（以便完整内容写入缓存），否则立即停止。
+ */
+public class ContentDecoder {
+
+    /**
+     * 请求时声明支持的编码
+     */
+    public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private static final int GZIP_FLAG_HCRC = 0x02;
+    private static final int GZIP_FLAG_EXTRA = 0x04;
+    private static final int GZIP_FLAG_NAME = 0x08;
+    private static final int GZIP_FLAG_COMMENT = 0x10;
+
+    private enum Encoding {IDENTITY, GZIP, DEFLATE}
+
+    private final Encoding encoding;
+    private final long maxBytes;
+    private final BodyListener listener;
+    private final ByteArrayOutputStream output;
+    private long decodedBytes;
+    private final byte[] buffer = new byte[16 * 1024];
+
+    private Inflater inflater;
+    /**
+     * gzip 头部尚未完整到达时暂存的字节
+     */
+    private ByteArrayOutputStream pendingHeader;
+    private boolean truncated;
+    private boolean stopped;
+    private boolean listenerStopped;
+    private boolean finished;
+
+    private ContentDecoder(Encoding encoding, long maxBytes, BodyListener listener, boolean buffered) {
+        this.encoding = encoding;
+        this.maxBytes = maxBytes;
+        this.listener = listener;
+        this.output = buffered ? new ByteArrayOutputStream() : null;
+        if (encoding == Encoding.GZIP) {
+            pendingHeader = new ByteArrayOutputStream();
+        }
+    }
+
+    /**
+     * 按 Content-Encoding 创建解码器
+     *
+     * @param contentEncoding 响应头 Content-Encoding（可为null）
+     * @param maxBytes        解码后的字节预算
+     * @throws IOException 不支持的编码
+     */
+    public static ContentDecoder create(String contentEncoding, long maxBytes) throws IOException {
+        return create(contentEncoding, maxBytes, null, true);
+    }
+
+    /**
+     * 按 Content-Encoding 创建解码器，解码后的数据实时转交监听器
+     *
+     * @param contentEncoding 响应头 Content-Encoding（可为null）
+     * @param maxBytes        解码后的字节预算
+     * @param listener        数据监听器（可为null）
+     * @param buffered        是否同时在内存中保留完整内容
+     * @throws IOException 不支持的编码
+     */
+    public static ContentDecoder create(String contentEncoding, long maxBytes, BodyListener listener,
+                                        boolean buffered) throws IOException {
+        String value = contentEncoding == null ? "" : contentEncoding.trim().toLowerCase(Locale.ROOT);
+        Encoding encoding = switch (value) {
+            case "", "identity" -> Encoding.IDENTITY;
+            case "gzip", "x-gzip" -> Encoding.GZIP;
+            case "deflate" -> Encoding.DEFLATE;
+            default -> throw new IOException("不支持的内容编码: " + contentEncoding);
+        };
+        return new ContentDecoder(encoding, maxBytes, listener, buffered);
+    }
+
+    /**
+     * 输入一块原始数据
+     *
+     * @return 是否需要继续输入（预算用尽或流已结束时返回false）
+     * @throws IOException 压缩数据格式错误
+     */
+    public boolean feed(ByteBuffer chunk) throws IOException {
+        if (truncated || stopped || finished) {
+            return false;
+        }
+        byte[] bytes = new byte[chunk.remaining()];
+        chunk.get(bytes);
+        return feed(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 输入一块原始数据
+     *
+     * @return 是否需要继续输入（预算用尽或流已结束时返回false）
+     * @throws IOException 压缩数据格式错误
+     */
+    public boolean feed(byte[] bytes, int offset, int length) throws IOException {
+        if (truncated || stopped || finished) {
+            return false;
+        }
+        switch (encoding) {
+            case IDENTITY -> append(bytes, offset, length);
+            case GZIP -> feedGzip(bytes, offset, length);
+            case DEFLATE -> feedDeflate(bytes, offset, length);
+        }
+        return !truncated && !stopped && !finished;
+    }
+
+    /**
+     * 输入结束
+     *
+     * @throws IOException 压缩流不完整
+     */
+    public void finish() throws IOException {
+        if (inflater != null) {
+            boolean complete = inflater.finished();
+            inflater.end();
+            inflater = null;
+            if (!complete && !truncated && !stopped) {
+                throw new IOException("压缩内容不完整");
+            }
+        } else if (pendingHeader != null && pendingHeader.size() > 0 && !truncated && !stopped) {
+            throw new IOException("压缩内容不完整");
+        }
+    }
+
+    /**
+     * 解码后的内容（未保留内容时为空数组）
+     */
+    public byte[] toByteArray() {
+        return output != null ? output.toByteArray() : new byte[0];
+    }
+
+    /**
+     * 是否因超出字节预算而截断
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * 是否因监听器要求而提前停止解码
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * 监听器是否已要求停止（之后的内容不再转交监听器）
+     */
+    public boolean isListenerStopped() {
+        return listenerStopped;
+    }
+
+    private void feedGzip(byte[] bytes, int offset, int length) throws IOException {
+        if (inflater == null) {
+            pendingHeader.write(bytes, offset, length);
+            byte[] header = pendingHeader.toByteArray();
+            int headerLength = gzipHeaderLength(header);
+            if (headerLength < 0) {
+                return;
+            }
+            pendingHeader = null;
+            inflater = new Inflater(true);
+            inflate(header, headerLength, header.length - headerLength);
+            return;
+        }
+        inflate(bytes, offset, length);
+    }
+
+    private void feedDeflate(byte[] bytes, int offset, int length) throws IOException {
+        if (inflater == null) {
+            if (length == 0) {
+                return;
+            }
+            // HTTP 的 deflate 应为 zlib 格式，但部分服务器发送裸 deflate 数据
+            boolean zlib = length >= 2 && (bytes[offset] & 0x0F) == 8
+                    && (((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF)) % 31 == 0;
+            inflater = new Inflater(!zlib);
+        }
+        inflate(bytes, offset, length);
+    }
+
+    private void inflate(byte[] bytes, int offset, int length) throws IOException {
+        if (inflater.finished()) {
+            // 成员结束后的尾部数据（gzip 校验和等）
+            finished = true;
+            return;
+        }
+        inflater.setInput(bytes, offset, length);
+        try {
+            while (!truncated && !stopped) {
+                int count = inflater.inflate(buffer);
+                if (count > 0) {
+                    append(buffer, 0, count);
+                } else if (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()) {
+                    break;
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("内容解压失败: " + e.getMessage(), e);
+        }
+        if (inflater.finished()) {
+            finished = true;
+        }
+    }
+
+    private void append(byte[] bytes, int offset, int length) {
+        long room = maxBytes - decodedBytes;
+        if (length > room) {
+            length = (int) Math.max(room, 0);
+            truncated = true;
+        }
+        decodedBytes += length;
+        if (output != null) {
+            output.write(bytes, offset, length);
+        }
+        if (listener != null && !listenerStopped && length > 0 && !listener.onData(bytes, offset, length)) {
+            listenerStopped = true;
+            stopped = output == null;
+        }
+    }
+
+    /**
+     * 解析 gzip 头部长度（RFC 1952），数据不足时返回-1
+     */
+    private static int gzipHeaderLength(byte[] header) throws IOException {
+        if (header.length < 10) {
+            return -1;
+        }
+        if ((header[0] & 0xFF) != 0x1F || (header[1] & 0xFF) != 0x8B || header[2] != 8) {
+            throw new IOException("无效的 gzip 数据");
+        }
+        int flags = header[3] & 0xFF;
+        int position = 10;
+        if ((flags & GZIP_FLAG_EXTRA) != 0) {
+            if (header.length < position + 2) {
+                return -1;
+            }
+            position += 2 + ((header[position] & 0xFF) | (header[position + 1] & 0xFF) << 8);
+        }
+        if ((flags & GZIP_FLAG_NAME) != 0) {
+            position = skipZeroTerminated(header, position);
+        }
+        if ((flags & GZIP_FLAG_COMMENT) != 0) {
+            position = skipZeroTerminated(header, position);
+        }
+        if ((flags & GZIP_FLAG_HCRC) != 0 && position >= 0) {
+            position += 2;
+        }
+        return position >= 0 && position <= header.length ? position : -1;
+    }
+
+    private static int skipZeroTerminated(byte[] bytes, int position) {
+        if (position < 0) {
+            return -1;
+        }
+        for (int i = position; i < bytes.length; i++) {
+            if (bytes[i] == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,79 @@
+package io.leavesfly.koder.tool.web;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HTTP 获取结果
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FetchResult {
+
+    /**
+     * 返回该响应的URL（跟随重定向后为最终地址）
+     */
+    private String url;
+
+    /**
+     * 状态码
+     */
+    private int statusCode;
+
+    /**
+     * 内容类型
+     */
+    private String contentType;
+
+    /**
+     * 解码后的响应体
+     */
+    private byte[] body;
+
+    /**
+     * 响应体是否不完整（超出字节预算，或监听器提前要求停止）
+     */
+    private boolean truncated;
+
+    /**
+     * 是否直接来自缓存（未发起网络请求）
+     */
+    private boolean fromCache;
+
+    /**
+     * 是否经条件请求确认缓存仍然有效（304）
+     */
+    private boolean revalidated;
+
+    /**
+     * 按 Content-Type 中的字符集解码响应体，未声明时使用 UTF-8
+     */
+    public String getText() {
+        return new String(body, charset());
+    }
+
+    /**
+     * 响应体的字符集
+     */
+    public Charset charset() {
+        if (contentType != null) {
+            try {
+                Charset charset = MediaType.parseMediaType(contentType).getCharset();
+                if (charset != null) {
+                    return charset;
+                }
+            } catch (RuntimeException e) {
+                // 无效的 Content-Type 或不支持的字符集
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+}
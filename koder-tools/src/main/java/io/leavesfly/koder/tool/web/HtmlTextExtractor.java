@@ -0,0 +1,764 @@
+package io.leavesfly.koder.tool.web;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 流式 HTML 文本提取器
+ * <p>
+ * 逐块接收 HTML（字节或字符），用状态机分词并即时输出紧凑的 Markdown 文本：
+ * - 丢弃 script、style 等原始文本元素与注释
+ * - 丢弃导航栏、页脚、侧边栏、表单等样板区域（按标签名与 role/class/id 识别）
+ * - 标题、列表、代码块、链接、表格转换为对应的 Markdown 写法，其余空白折叠
+ * <p>
+ * 输出达到 token 预算后停止处理，后续输入直接忽略，调用方据此尽早结束读取。
+ * token 数按字符估算：ASCII 字符约 4 个一个 token，其他字符各算一个。
+ * 该类不是线程安全的。
+ */
+public class HtmlTextExtractor implements BodyListener {
+
+    /**
+     * 内容原样丢弃的元素
+     */
+    private static final Set<String> RAW_TEXT_ELEMENTS = Set.of(
+            "script", "style", "noscript", "template", "textarea", "xmp");
+
+    /**
+     * 整个子树丢弃的样板元素
+     */
+    private static final Set<String> BOILERPLATE_ELEMENTS = Set.of(
+            "nav", "footer", "aside", "form", "button", "select", "svg", "canvas",
+            "iframe", "object", "embed", "dialog", "menu");
+
+    private static final Set<String> BOILERPLATE_ROLES = Set.of(
+            "navigation", "banner", "contentinfo", "complementary", "search", "menu", "menubar", "dialog");
+
+    /**
+     * class 或 id 中出现即视为样板区域的关键字
+     */
+    private static final String[] BOILERPLATE_MARKERS = {
+            "cookie", "sidebar", "breadcrumb", "advert", "share-", "social", "newsletter", "skip-link"};
+
+    private static final Set<String> VOID_ELEMENTS = Set.of(
+            "area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "param",
+            "source", "track", "wbr");
+
+    private static final Set<String> BLOCK_ELEMENTS = Set.of(
+            "div", "section", "article", "main", "header", "figure", "figcaption", "address",
+            "dl", "dt", "dd", "thead", "tbody", "tfoot", "caption", "details", "summary",
+            "center", "hgroup");
+
+    private static final Set<String> PARAGRAPH_ELEMENTS = Set.of("p", "blockquote", "table");
+
+    private static final Map<String, String> NAMED_ENTITIES = Map.ofEntries(
+            Map.entry("amp", "&"), Map.entry("lt", "<"), Map.entry("gt", ">"),
+            Map.entry("quot", "\""), Map.entry("apos", "'"), Map.entry("nbsp", " "),
+            Map.entry("copy", "©"), Map.entry("reg", "®"), Map.entry("trade", "™"),
+            Map.entry("mdash", "—"), Map.entry("ndash", "–"), Map.entry("hellip", "…"),
+            Map.entry("lsquo", "‘"), Map.entry("rsquo", "’"), Map.entry("ldquo", "“"),
+            Map.entry("rdquo", "”"), Map.entry("laquo", "«"), Map.entry("raquo", "»"),
+            Map.entry("middot", "·"), Map.entry("bull", "•"), Map.entry("times", "×"),
+            Map.entry("larr", "←"), Map.entry("rarr", "→"), Map.entry("deg", "°"));
+
+    /**
+     * 未闭合的标签最多缓存的字符数，超过后按文本处理（或在原始文本中丢弃）
+     */
+    private static final int MAX_TAG_LENGTH = 8192;
+
+    private static final int MAX_ENTITY_LENGTH = 12;
+
+    private enum State {TEXT, TAG, ENTITY}
+
+    private final long tokenBudget;
+    private final URI baseUri;
+    private final StringBuilder out = new StringBuilder();
+
+    private Charset charset;
+    private CharsetDecoder charsetDecoder;
+    private ByteBuffer pendingBytes;
+
+    private State state = State.TEXT;
+    private final StringBuilder tag = new StringBuilder();
+    private final StringBuilder entity = new StringBuilder();
+    private char tagQuote;
+
+    /**
+     * 当前所在的原始文本元素（null 表示不在其中）
+     */
+    private String rawTextElement;
+
+    /**
+     * 当前丢弃的样板元素及其嵌套深度
+     */
+    private String skipElement;
+    private int skipDepth;
+
+    private int preDepth;
+    private final Deque<int[]> lists = new ArrayDeque<>();
+    private boolean firstCellInRow;
+    private boolean pendingSpace;
+
+    private int linkStart = -1;
+    private String linkHref;
+
+    private double tokens;
+    private boolean truncated;
+
+    /**
+     * @param tokenBudget 输出的 token 预算
+     * @param baseUrl     页面URL，用于把相对链接解析为绝对地址（可为null）
+     */
+    public HtmlTextExtractor(long tokenBudget, String baseUrl) {
+        this.tokenBudget = tokenBudget;
+        URI base = null;
+        if (baseUrl != null) {
+            try {
+                base = URI.create(baseUrl);
+            } catch (IllegalArgumentException e) {
+                // 无法解析时保留相对链接
+            }
+        }
+        this.baseUri = base;
+    }
+
+    /**
+     * 指定字节输入的字符集（默认 UTF-8）
+     */
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    @Override
+    public void onStart(int statusCode, String contentType) {
+        if (charset == null) {
+            charset = FetchResult.builder().contentType(contentType).build().charset();
+        }
+    }
+
+    @Override
+    public boolean onData(byte[] bytes, int offset, int length) {
+        return feed(bytes, offset, length);
+    }
+
+    /**
+     * 输入一块字节
+     *
+     * @return 是否需要继续输入（达到预算后返回false）
+     */
+    public boolean feed(byte[] bytes, int offset, int length) {
+        if (truncated) {
+            return false;
+        }
+        if (charsetDecoder == null) {
+            charsetDecoder = (charset != null ? charset : StandardCharsets.UTF_8).newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+        ByteBuffer input;
+        if (pendingBytes != null && pendingBytes.hasRemaining()) {
+            input = ByteBuffer.allocate(pendingBytes.remaining() + length);
+            input.put(pendingBytes).put(bytes, offset, length).flip();
+        } else {
+            input = ByteBuffer.wrap(bytes, offset, length);
+        }
+        CharBuffer chars = CharBuffer.allocate((int) (input.remaining() * (double) charsetDecoder.maxCharsPerByte()) + 1);
+        charsetDecoder.decode(input, chars, false);
+        chars.flip();
+        // 不完整的多字节字符留到下一块
+        pendingBytes = input.hasRemaining() ? ByteBuffer.allocate(input.remaining()).put(input).flip() : null;
+        return feed(chars);
+    }
+
+    /**
+     * 输入一段字符
+     *
+     * @return 是否需要继续输入（达到预算后返回false）
+     */
+    public boolean feed(CharSequence chars) {
+        for (int i = 0; i < chars.length() && !truncated; i++) {
+            process(chars.charAt(i));
+        }
+        return !truncated;
+    }
+
+    /**
+     * 输入结束，返回提取的文本
+     */
+    public String finish() {
+        if (state == State.ENTITY && !truncated) {
+            state = State.TEXT;
+            text("&" + entity);
+        } else if (state == State.TAG && !truncated && rawTextElement == null) {
+            state = State.TEXT;
+            text("<" + tag);
+        }
+        closeLink();
+        return getText();
+    }
+
+    /**
+     * 当前已提取的文本
+     */
+    public String getText() {
+        int end = out.length();
+        while (end > 0 && Character.isWhitespace(out.charAt(end - 1))) {
+            end--;
+        }
+        return out.substring(0, end);
+    }
+
+    /**
+     * 是否因达到 token 预算而停止
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * 估算的输出 token 数
+     */
+    public long getTokenCount() {
+        return (long) Math.ceil(tokens);
+    }
+
+    private void process(char c) {
+        switch (state) {
+            case TEXT -> {
+                if (c == '<') {
+                    state = State.TAG;
+                    tag.setLength(0);
+                    tagQuote = 0;
+                } else if (rawTextElement != null || skipElement != null) {
+                    // 丢弃的内容
+                } else if (c == '&') {
+                    state = State.ENTITY;
+                    entity.setLength(0);
+                } else {
+                    text(c);
+                }
+            }
+            case TAG -> processTagChar(c);
+            case ENTITY -> processEntityChar(c);
+        }
+    }
+
+    private void processTagChar(char c) {
+        if (tag.length() == 0 && !isTagStart(c)) {
+            // "a < b" 之类的文本
+            state = State.TEXT;
+            if (rawTextElement == null && skipElement == null) {
+                text('<');
+            }
+            process(c);
+            return;
+        }
+
+        boolean comment = tag.length() >= 3 && tag.charAt(0) == '!' && tag.charAt(1) == '-' && tag.charAt(2) == '-';
+        if (c == '>' && tagQuote == 0 && (!comment || endsWith(tag, "--"))) {
+            state = State.TEXT;
+            handleTag(tag.toString());
+            return;
+        }
+        if (!comment && tag.length() > 0 && tag.charAt(0) != '!' && tag.charAt(0) != '?') {
+            if (tagQuote == 0 && (c == '"' || c == '\'') && tag.length() > 1 && isAttributeValueStart()) {
+                tagQuote = c;
+            } else if (c == tagQuote) {
+                tagQuote = 0;
+            }
+        }
+        if (tag.length() >= MAX_TAG_LENGTH) {
+            // 异常的超长标签：注释与原始文本中直接丢弃，否则回退为文本
+            state = State.TEXT;
+            if (!comment && rawTextElement == null && skipElement == null) {
+                text("<" + tag);
+            }
+            tag.setLength(0);
+            return;
+        }
+        tag.append(c);
+    }
+
+    private boolean isAttributeValueStart() {
+        for (int i = tag.length() - 1; i >= 0; i--) {
+            char previous = tag.charAt(i);
+            if (previous == '=') {
+                return true;
+            }
+            if (!Character.isWhitespace(previous)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTagStart(char c) {
+        return Character.isLetter(c) || c == '/' || c == '!' || c == '?';
+    }
+
+    private void processEntityChar(char c) {
+        if (c == ';') {
+            state = State.TEXT;
+            String decoded = decodeEntity(entity.toString());
+            text(decoded != null ? decoded : "&" + entity + ";");
+            return;
+        }
+        if (Character.isLetterOrDigit(c) || (c == '#' && entity.length() == 0)
+                || ((c == 'x' || c == 'X') && entity.length() == 1 && entity.charAt(0) == '#')) {
+            if (entity.length() < MAX_ENTITY_LENGTH) {
+                entity.append(c);
+                return;
+            }
+        }
+        // 不是实体：按原文输出
+        state = State.TEXT;
+        String decoded = entity.length() > 0 ? decodeEntity(entity.toString()) : null;
+        text(decoded != null ? decoded : "&" + entity);
+        process(c);
+    }
+
+    private static String decodeEntity(String name) {
+        if (name.startsWith("#")) {
+            try {
+                int codePoint = name.length() > 1 && (name.charAt(1) == 'x' || name.charAt(1) == 'X')
+                        ? Integer.parseInt(name.substring(2), 16)
+                        : Integer.parseInt(name.substring(1));
+                return Character.isValidCodePoint(codePoint) && codePoint != 0
+                        ? (codePoint == 0xA0 ? " " : new String(Character.toChars(codePoint)))
+                        : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return NAMED_ENTITIES.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    private void handleTag(String content) {
+        if (content.isEmpty() || content.charAt(0) == '!' || content.charAt(0) == '?') {
+            // 注释、DOCTYPE、处理指令
+            return;
+        }
+        boolean closing = content.charAt(0) == '/';
+        int nameStart = closing ? 1 : 0;
+        int nameEnd = nameStart;
+        while (nameEnd < content.length() && isNameChar(content.charAt(nameEnd))) {
+            nameEnd++;
+        }
+        String name = content.substring(nameStart, nameEnd).toLowerCase(Locale.ROOT);
+        if (name.isEmpty()) {
+            return;
+        }
+        boolean selfClosing = content.endsWith("/");
+
+        if (rawTextElement != null) {
+            if (closing && name.equals(rawTextElement)) {
+                rawTextElement = null;
+            }
+            return;
+        }
+
+        if (skipElement != null) {
+            if (name.equals(skipElement) && !VOID_ELEMENTS.contains(name)) {
+                if (closing) {
+                    skipDepth--;
+                    if (skipDepth == 0) {
+                        skipElement = null;
+                        pendingSpace = true;
+                    }
+                } else if (!selfClosing) {
+                    skipDepth++;
+                }
+            }
+            return;
+        }
+
+        if (closing) {
+            closeTag(name);
+            return;
+        }
+
+        String attributes = content.substring(nameEnd);
+        if (RAW_TEXT_ELEMENTS.contains(name)) {
+            if (!selfClosing) {
+                rawTextElement = name;
+            }
+            return;
+        }
+        if (!VOID_ELEMENTS.contains(name) && !selfClosing && isBoilerplate(name, attributes)) {
+            skipElement = name;
+            skipDepth = 1;
+            return;
+        }
+        openTag(name, attributes, selfClosing);
+    }
+
+    private void openTag(String name, String attributes, boolean selfClosing) {
+        switch (name) {
+            case "h1", "h2", "h3", "h4", "h5", "h6" -> {
+                newline(2);
+                emit("#".repeat(name.charAt(1) - '0') + " ");
+            }
+            case "title" -> {
+                newline(2);
+                emit("# ");
+            }
+            case "br" -> {
+                if (preDepth > 0) {
+                    emit("\n");
+                } else {
+                    lineBreak();
+                }
+            }
+            case "hr" -> {
+                newline(2);
+                emit("---");
+                newline(2);
+            }
+            case "pre" -> {
+                newline(2);
+                emit("```\n");
+                preDepth++;
+            }
+            case "code" -> {
+                if (preDepth == 0) {
+                    inlineMarker("`");
+                }
+            }
+            case "strong", "b" -> inlineMarker("**");
+            case "ul", "ol" -> {
+                newline(1);
+                lists.push(new int[]{name.equals("ol") ? 1 : 0, 0});
+            }
+            case "li" -> {
+                newline(1);
+                int[] list = lists.peek();
+                emit("  ".repeat(Math.max(lists.size() - 1, 0)));
+                if (list != null && list[0] == 1) {
+                    emit(++list[1] + ". ");
+                } else {
+                    emit("- ");
+                }
+            }
+            case "tr" -> {
+                newline(1);
+                firstCellInRow = true;
+            }
+            case "td", "th" -> {
+                if (!firstCellInRow) {
+                    emit(" | ");
+                }
+                firstCellInRow = false;
+                pendingSpace = false;
+            }
+            case "a" -> {
+                closeLink();
+                String href = attribute(attributes, "href");
+                if (href != null && !href.isBlank() && !href.startsWith("#")
+                        && !href.toLowerCase(Locale.ROOT).startsWith("javascript:")) {
+                    linkHref = resolve(href.trim());
+                    if (pendingSpace && needsSpace()) {
+                        emit(" ");
+                    }
+                    pendingSpace = false;
+                    linkStart = out.length();
+                }
+            }
+            case "img" -> {
+                String alt = attribute(attributes, "alt");
+                if (alt != null && !alt.isBlank()) {
+                    text("[图片: " + alt.trim() + "]");
+                }
+            }
+            default -> {
+                if (PARAGRAPH_ELEMENTS.contains(name)) {
+                    newline(2);
+                    if (name.equals("blockquote")) {
+                        emit("> ");
+                    }
+                } else if (BLOCK_ELEMENTS.contains(name)) {
+                    newline(1);
+                }
+            }
+        }
+    }
+
+    private void closeTag(String name) {
+        switch (name) {
+            case "h1", "h2", "h3", "h4", "h5", "h6", "title", "p", "blockquote", "table" -> newline(2);
+            case "pre" -> {
+                if (preDepth > 0) {
+                    preDepth--;
+                    if (out.length() > 0 && out.charAt(out.length() - 1) != '\n') {
+                        emit("\n");
+                    }
+                    emit("```");
+                    newline(2);
+                }
+            }
+            case "code" -> {
+                if (preDepth == 0) {
+                    inlineMarker("`");
+                }
+            }
+            case "strong", "b" -> inlineMarker("**");
+            case "ul", "ol" -> {
+                if (!lists.isEmpty()) {
+                    lists.pop();
+                }
+                newline(lists.isEmpty() ? 2 : 1);
+            }
+            case "a" -> closeLink();
+            case "li", "tr" -> newline(1);
+            default -> {
+                if (BLOCK_ELEMENTS.contains(name)) {
+                    newline(1);
+                }
+            }
+        }
+    }
+
+    /**
+     * 链接文本非空时改写为 [文本](地址)
+     */
+    private void closeLink() {
+        if (linkStart < 0) {
+            return;
+        }
+        int start = linkStart;
+        String href = linkHref;
+        linkStart = -1;
+        linkHref = null;
+        if (start > out.length()) {
+            return;
+        }
+        String text = out.substring(start).strip();
+        if (text.isEmpty() || text.equals(href)) {
+            return;
+        }
+        out.insert(start, '[');
+        count("[");
+        emit("](" + href + ")");
+    }
+
+    private void inlineMarker(String marker) {
+        if (pendingSpace && needsSpace()) {
+            emit(" ");
+            pendingSpace = false;
+        }
+        emit(marker);
+    }
+
+    private boolean isBoilerplate(String name, String attributes) {
+        if (BOILERPLATE_ELEMENTS.contains(name)) {
+            return true;
+        }
+        if (attributes.isBlank()) {
+            return false;
+        }
+        String role = attribute(attributes, "role");
+        if (role != null && BOILERPLATE_ROLES.contains(role.trim().toLowerCase(Locale.ROOT))) {
+            return true;
+        }
+        if (attribute(attributes, "hidden") != null || "true".equals(attribute(attributes, "aria-hidden"))) {
+            return true;
+        }
+        String classes = (String.valueOf(attribute(attributes, "class")) + " "
+                + attribute(attributes, "id")).toLowerCase(Locale.ROOT);
+        for (String marker : BOILERPLATE_MARKERS) {
+            if (classes.contains(marker)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 读取属性值；无值属性返回空字符串，不存在时返回null
+     */
+    private static String attribute(String attributes, String name) {
+        int length = attributes.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && (Character.isWhitespace(attributes.charAt(i)) || attributes.charAt(i) == '/')) {
+                i++;
+            }
+            int nameStart = i;
+            while (i < length && !Character.isWhitespace(attributes.charAt(i))
+                    && attributes.charAt(i) != '=' && attributes.charAt(i) != '/') {
+                i++;
+            }
+            String attributeName = attributes.substring(nameStart, i);
+            while (i < length && Character.isWhitespace(attributes.charAt(i))) {
+                i++;
+            }
+            String value = "";
+            if (i < length && attributes.charAt(i) == '=') {
+                i++;
+                while (i < length && Character.isWhitespace(attributes.charAt(i))) {
+                    i++;
+                }
+                if (i < length && (attributes.charAt(i) == '"' || attributes.charAt(i) == '\'')) {
+                    char quote = attributes.charAt(i++);
+                    int valueStart = i;
+                    while (i < length && attributes.charAt(i) != quote) {
+                        i++;
+                    }
+                    value = attributes.substring(valueStart, i);
+                    i++;
+                } else {
+                    int valueStart = i;
+                    while (i < length && !Character.isWhitespace(attributes.charAt(i))) {
+                        i++;
+                    }
+                    value = attributes.substring(valueStart, i);
+                }
+            }
+            if (attributeName.equalsIgnoreCase(name)) {
+                return decodeAttribute(value);
+            }
+            if (attributeName.isEmpty() && i == nameStart) {
+                i++;
+            }
+        }
+        return null;
+    }
+
+    private static String decodeAttribute(String value) {
+        return value.indexOf('&') < 0 ? value
+                : value.replace("&amp;", "&").replace("&quot;", "\"").replace("&#39;", "'")
+                .replace("&lt;", "<").replace("&gt;", ">");
+    }
+
+    private String resolve(String href) {
+        if (baseUri == null) {
+            return href;
+        }
+        try {
+            return baseUri.resolve(href).toString();
+        } catch (IllegalArgumentException e) {
+            return href;
+        }
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '-' || c == ':' || c == '_';
+    }
+
+    private void text(String text) {
+        for (int i = 0; i < text.length() && !truncated; i++) {
+            text(text.charAt(i));
+        }
+    }
+
+    private void text(char c) {
+        if (preDepth > 0) {
+            if (c != '\r') {
+                emit(c);
+            }
+            return;
+        }
+        if (Character.isWhitespace(c) || c == ' ') {
+            pendingSpace = true;
+            return;
+        }
+        if (pendingSpace && needsSpace()) {
+            emit(' ');
+        }
+        pendingSpace = false;
+        emit(c);
+    }
+
+    private boolean needsSpace() {
+        if (out.length() == 0) {
+            return false;
+        }
+        char last = out.charAt(out.length() - 1);
+        return !Character.isWhitespace(last) && last != '[' && last != '(';
+    }
+
+    /**
+     * 保证输出以至少 count 个换行结尾（输出开头不加换行）
+     */
+    private void newline(int count) {
+        pendingSpace = false;
+        if (preDepth > 0) {
+            return;
+        }
+        int end = out.length();
+        while (end > 0 && out.charAt(end - 1) == ' ') {
+            end--;
+        }
+        out.setLength(end);
+        if (end == 0) {
+            return;
+        }
+        int existing = 0;
+        while (existing < end && out.charAt(end - 1 - existing) == '\n') {
+            existing++;
+        }
+        for (int i = existing; i < count; i++) {
+            emit('\n');
+        }
+    }
+
+    private void lineBreak() {
+        pendingSpace = false;
+        int end = out.length();
+        while (end > 0 && out.charAt(end - 1) == ' ') {
+            end--;
+        }
+        out.setLength(end);
+        if (end > 0 && !endsWith(out, "\n\n")) {
+            emit('\n');
+        }
+    }
+
+    private void emit(String text) {
+        for (int i = 0; i < text.length() && !truncated; i++) {
+            emit(text.charAt(i));
+        }
+    }
+
+    private void emit(char c) {
+        if (truncated) {
+            return;
+        }
+        out.append(c);
+        count(c);
+        if (tokens >= tokenBudget) {
+            truncated = true;
+        }
+    }
+
+    private void count(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            count(text.charAt(i));
+        }
+    }
+
+    private void count(char c) {
+        tokens += c < 0x80 ? 0.25 : 1;
+    }
+
+    private static boolean endsWith(CharSequence text, String suffix) {
+        int offset = text.length() - suffix.length();
+        if (offset < 0) {
+            return false;
+        }
+        for (int i = 0; i < suffix.length(); i++) {
+            if (text.charAt(offset + i) != suffix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
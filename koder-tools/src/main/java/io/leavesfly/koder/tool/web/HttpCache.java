@@ -0,0 +1,297 @@
+package io.leavesfly.koder.tool.web;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.leavesfly.koder.core.fs.AtomicFileWriter;
+import io.leavesfly.koder.tool.config.ToolProperties;
+import io.leavesfly.koder.tool.config.ToolProperties.HttpCacheSettings;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * HTTP 响应缓存
+ * <p>
+ * 两级存储：内存中按字节数限制的 LRU，磁盘上每个 URL 一对文件（元数据 JSON 与响应体），
+ * 跨会话复用。写入磁盘在后台线程完成，磁盘占用超过上限时删除最久未写入的条目。
+ * 新鲜度与重新验证的判断见 {@link CachedResponse}。
+ */
+@Slf4j
+@Component
+public class HttpCache {
+
+    private static final String META_SUFFIX = ".json";
+    private static final String BODY_SUFFIX = ".body";
+
+    private final ToolProperties properties;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final Map<String, CachedResponse> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryBytes;
+
+    /**
+     * 磁盘占用字节数，首次写入时扫描目录得到
+     */
+    private long diskBytes = -1;
+    private final Object diskLock = new Object();
+
+    private long memoryHits;
+    private long diskHits;
+    private long misses;
+
+    public HttpCache(ToolProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 查找缓存条目（不判断新鲜度），可能读取磁盘
+     *
+     * @return 缓存条目，不存在时返回null
+     */
+    public CachedResponse get(String url) {
+        synchronized (memory) {
+            CachedResponse cached = memory.get(url);
+            if (cached != null) {
+                memoryHits++;
+                return cached;
+            }
+        }
+
+        CachedResponse loaded = readFromDisk(url);
+        synchronized (memory) {
+            if (loaded == null) {
+                misses++;
+                return null;
+            }
+            diskHits++;
+            putInMemory(loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * 写入缓存：内存立即可见，磁盘在后台写入
+     */
+    public void put(CachedResponse response) {
+        synchronized (memory) {
+            putInMemory(response);
+        }
+        Schedulers.boundedElastic().schedule(() -> writeToDisk(response));
+    }
+
+    /**
+     * 删除缓存条目
+     */
+    public void remove(String url) {
+        synchronized (memory) {
+            CachedResponse removed = memory.remove(url);
+            if (removed != null) {
+                memoryBytes -= removed.getBodyLength();
+            }
+        }
+        synchronized (diskLock) {
+            deleteFiles(url);
+        }
+    }
+
+    public Stats getStats() {
+        synchronized (memory) {
+            return new Stats(memoryHits, diskHits, misses, memory.size(), memoryBytes);
+        }
+    }
+
+    private HttpCacheSettings settings() {
+        return properties.getFetch().getCache();
+    }
+
+    private void putInMemory(CachedResponse response) {
+        CachedResponse previous = memory.put(response.getUrl(), response);
+        if (previous != null) {
+            memoryBytes -= previous.getBodyLength();
+        }
+        memoryBytes += response.getBodyLength();
+
+        long maxBytes = settings().getMemoryMaxBytes();
+        Iterator<CachedResponse> iterator = memory.values().iterator();
+        while (memoryBytes > maxBytes && iterator.hasNext()) {
+            CachedResponse eldest = iterator.next();
+            iterator.remove();
+            memoryBytes -= eldest.getBodyLength();
+        }
+    }
+
+    private Path directory() {
+        String configured = settings().getDirectory();
+        return configured != null && !configured.isBlank()
+                ? Paths.get(configured)
+                : Paths.get(System.getProperty("user.home"), ".koder", "cache", "http");
+    }
+
+    private CachedResponse readFromDisk(String url) {
+        Path directory = directory();
+        String name = fileName(url);
+        try {
+            byte[] meta = Files.readAllBytes(directory.resolve(name + META_SUFFIX));
+            CachedResponse response = objectMapper.readValue(meta, CachedResponse.class);
+            byte[] body = Files.readAllBytes(directory.resolve(name + BODY_SUFFIX));
+            if (!url.equals(response.getUrl()) || body.length != response.getBodyLength()) {
+                return null;
+            }
+            response.setBody(body);
+            return response;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.debug("读取HTTP缓存失败: {}", url, e);
+            return null;
+        }
+    }
+
+    private void writeToDisk(CachedResponse response) {
+        Path directory = directory();
+        String name = fileName(response.getUrl());
+        synchronized (diskLock) {
+            try {
+                Files.createDirectories(directory);
+                if (diskBytes < 0) {
+                    diskBytes = directorySize(directory);
+                }
+                diskBytes -= fileSize(directory.resolve(name + BODY_SUFFIX))
+                        + fileSize(directory.resolve(name + META_SUFFIX));
+
+                // 先写响应体再写元数据：元数据存在即表示条目完整
+                byte[] meta = objectMapper.writeValueAsBytes(response);
+                AtomicFileWriter.write(directory.resolve(name + BODY_SUFFIX), response.getBody(), false);
+                AtomicFileWriter.write(directory.resolve(name + META_SUFFIX), meta, false);
+                diskBytes += response.getBodyLength() + meta.length;
+
+                long maxBytes = settings().getDiskMaxMb() * 1024L * 1024L;
+                if (diskBytes > maxBytes) {
+                    prune(directory, maxBytes * 9 / 10);
+                }
+            } catch (IOException e) {
+                log.warn("写入HTTP缓存失败: {}", response.getUrl(), e);
+            }
+        }
+    }
+
+    /**
+     * 删除最久未写入的条目，直到磁盘占用不超过目标值
+     */
+    private void prune(Path directory, long targetBytes) throws IOException {
+        List<Path> metas;
+        try (Stream<Path> files = Files.list(directory)) {
+            metas = new ArrayList<>(files.filter(path -> path.toString().endsWith(META_SUFFIX)).toList());
+        }
+        metas.sort(Comparator.comparingLong(HttpCache::lastModified));
+        for (Path meta : metas) {
+            if (diskBytes <= targetBytes) {
+                break;
+            }
+            String name = meta.getFileName().toString();
+            Path body = directory.resolve(name.substring(0, name.length() - META_SUFFIX.length()) + BODY_SUFFIX);
+            diskBytes -= fileSize(meta) + fileSize(body);
+            Files.deleteIfExists(meta);
+            Files.deleteIfExists(body);
+        }
+        log.debug("HTTP缓存清理完成，当前占用 {} 字节", diskBytes);
+    }
+
+    private void deleteFiles(String url) {
+        Path directory = directory();
+        String name = fileName(url);
+        try {
+            long size = fileSize(directory.resolve(name + META_SUFFIX)) + fileSize(directory.resolve(name + BODY_SUFFIX));
+            Files.deleteIfExists(directory.resolve(name + META_SUFFIX));
+            Files.deleteIfExists(directory.resolve(name + BODY_SUFFIX));
+            if (diskBytes >= 0) {
+                diskBytes -= size;
+            }
+        } catch (IOException e) {
+            log.debug("删除HTTP缓存失败: {}", url, e);
+        }
+    }
+
+    private static long directorySize(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(HttpCache::fileSize).sum();
+        }
+    }
+
+    private static long fileSize(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static String fileName(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(url.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 缓存统计
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Stats {
+        /**
+         * 内存命中次数
+         */
+        private long memoryHits;
+
+        /**
+         * 磁盘命中次数
+         */
+        private long diskHits;
+
+        /**
+         * 未命中次数
+         */
+        private long misses;
+
+        /**
+         * 内存中的条目数
+         */
+        private int memoryEntries;
+
+        /**
+         * 内存中响应体的字节数
+         */
+        private long memoryBytes;
+    }
+}
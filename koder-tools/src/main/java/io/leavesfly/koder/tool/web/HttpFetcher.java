@@ -0,0 +1,263 @@
+package io.leavesfly.koder.tool.web;
+
+import io.leavesfly.koder.tool.config.ToolProperties;
+import io.leavesfly.koder.tool.config.ToolProperties.FetchSettings;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 共享的非阻塞 HTTP 获取器
+ * <p>
+ * 基于 WebClient 与 Reactor Netty：
+ * - 每个主机一个连接池，连接复用，同一主机的并发连接数有上限，超出的请求排队等待
+ * - 响应体按块流式解压（gzip、deflate），解码后的内容受字节预算限制
+ * - 经 {@link HttpCache} 缓存：新鲜的条目直接返回，过期的条目用 ETag/Last-Modified 发起条件请求
+ * - 重定向由本类逐跳跟随：每一跳按自己的URL查缓存，响应只以实际返回它的URL存入缓存（重定向本身不缓存）
+ */
+@Slf4j
+@Component
+public class HttpFetcher {
+
+    private static final String USER_AGENT = "Koder-Bot/1.0 (Java HTTP Client)";
+
+    /**
+     * 向监听器回放缓存内容时的分块大小
+     */
+    private static final int CACHE_REPLAY_CHUNK = 16 * 1024;
+
+    private static final Set<Integer> REDIRECT_STATUSES = Set.of(301, 302, 303, 307, 308);
+    private static final int MAX_REDIRECTS = 10;
+
+    private final ToolProperties properties;
+    private final HttpCache cache;
+    private final ConnectionProvider connectionProvider;
+    private final WebClient webClient;
+
+    public HttpFetcher(ToolProperties properties, HttpCache cache) {
+        this.properties = properties;
+        this.cache = cache;
+
+        FetchSettings settings = properties.getFetch();
+        this.connectionProvider = ConnectionProvider.builder("koder-fetch")
+                .maxConnections(settings.getMaxConnectionsPerHost())
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(Duration.ofMillis(settings.getResponseTimeoutMs()))
+                .maxIdleTime(Duration.ofSeconds(30))
+                .evictInBackground(Duration.ofSeconds(60))
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, settings.getConnectTimeoutMs())
+                .responseTimeout(Duration.ofMillis(settings.getResponseTimeoutMs()))
+                .followRedirect(false);
+        this.webClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .defaultHeader(HttpHeaders.USER_AGENT, USER_AGENT)
+                .build();
+    }
+
+    /**
+     * 按配置的字节预算获取URL内容
+     */
+    public Mono<FetchResult> fetch(String url) {
+        return fetch(url, properties.getFetch().getMaxBodyBytes());
+    }
+
+    /**
+     * 获取URL内容
+     *
+     * @param url      URL
+     * @param maxBytes 解码后响应体的字节预算
+     * @return 获取结果
+     */
+    public Mono<FetchResult> fetch(String url, long maxBytes) {
+        return fetch(url, maxBytes, null);
+    }
+
+    /**
+     * 获取URL内容，解码后的响应体边到达边转交监听器
+     * <p>
+     * 监听器要求停止后不再向其转交数据，结果标记为截断。可缓存的响应继续读取到结束（或字节预算用尽），
+     * 完整内容写入缓存；不可缓存的响应立即取消读取，响应体也不在内存中保留。
+     *
+     * @param url      URL
+     * @param maxBytes 解码后响应体的字节预算
+     * @param listener 响应体监听器（可为null）
+     * @return 获取结果（跟随重定向后，结果中的URL为最终响应的URL）
+     */
+    public Mono<FetchResult> fetch(String url, long maxBytes, BodyListener listener) {
+        return fetch(url, maxBytes, listener, 0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connectionProvider.dispose();
+    }
+
+    private Mono<FetchResult> fetch(String url, long maxBytes, BodyListener listener, int redirects) {
+        if (!properties.getFetch().getCache().isEnabled()) {
+            return request(url, null, maxBytes, listener, redirects);
+        }
+        // 缓存可能需要读取磁盘，不占用事件循环线程
+        return Mono.fromCallable(() -> Optional.ofNullable(cache.get(url)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(cached -> cached
+                        .filter(response -> response.isFresh(System.currentTimeMillis()))
+                        .map(response -> Mono.fromCallable(() -> fromCache(response, maxBytes, false, listener)))
+                        .orElseGet(() -> request(url, cached.orElse(null), maxBytes, listener, redirects)));
+    }
+
+    private Mono<FetchResult> request(String url, CachedResponse cached, long maxBytes, BodyListener listener,
+                                      int redirects) {
+        boolean conditional = cached != null && cached.canRevalidate();
+        return webClient.get()
+                .uri(URI.create(url))
+                .headers(headers -> {
+                    headers.set(HttpHeaders.ACCEPT_ENCODING, ContentDecoder.ACCEPT_ENCODING);
+                    if (conditional && cached.getEtag() != null) {
+                        headers.set(HttpHeaders.IF_NONE_MATCH, cached.getEtag());
+                    }
+                    if (conditional && cached.getLastModified() != null) {
+                        headers.set(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+                    }
+                })
+                .exchangeToMono(response -> {
+                    if (conditional && response.statusCode().value() == 304) {
+                        CachedResponse refreshed = cached.revalidated(response.headers().asHttpHeaders(),
+                                System.currentTimeMillis());
+                        cache.put(refreshed);
+                        log.debug("HTTP缓存重新验证通过: {}", url);
+                        return response.releaseBody()
+                                .then(Mono.fromCallable(() -> fromCache(refreshed, maxBytes, true, listener)));
+                    }
+                    String location = response.headers().asHttpHeaders().getFirst(HttpHeaders.LOCATION);
+                    if (location != null && REDIRECT_STATUSES.contains(response.statusCode().value())) {
+                        return response.releaseBody().then(redirect(url, location, maxBytes, listener, redirects));
+                    }
+                    return readBody(url, response, maxBytes, listener);
+                })
+                .timeout(Duration.ofMillis(properties.getFetch().getTotalTimeoutMs()));
+    }
+
+    /**
+     * 跟随一次重定向（目标URL重新查缓存）
+     */
+    private Mono<FetchResult> redirect(String url, String location, long maxBytes, BodyListener listener,
+                                       int redirects) {
+        if (redirects >= MAX_REDIRECTS) {
+            return Mono.error(new IOException("重定向次数过多（超过 " + MAX_REDIRECTS + " 次）: " + url));
+        }
+        String target;
+        try {
+            target = URI.create(url).resolve(location.trim()).toString();
+        } catch (IllegalArgumentException e) {
+            return Mono.error(new IOException("无效的重定向地址: " + location, e));
+        }
+        log.debug("HTTP重定向: {} -> {}", url, target);
+        return Mono.defer(() -> fetch(target, maxBytes, listener, redirects + 1));
+    }
+
+    /**
+     * 流式读取并解码响应体，超出预算后取消读取
+     */
+    private Mono<FetchResult> readBody(String url, ClientResponse response, long maxBytes, BodyListener listener) {
+        HttpHeaders headers = response.headers().asHttpHeaders();
+        int statusCode = response.statusCode().value();
+        boolean storable = properties.getFetch().getCache().isEnabled()
+                && CachedResponse.isStorable(statusCode, headers);
+        ContentDecoder decoder;
+        try {
+            decoder = ContentDecoder.create(headers.getFirst(HttpHeaders.CONTENT_ENCODING), maxBytes,
+                    listener, listener == null || storable);
+        } catch (IOException e) {
+            return response.releaseBody().then(Mono.error(e));
+        }
+        if (listener != null) {
+            listener.onStart(statusCode, headers.getFirst(HttpHeaders.CONTENT_TYPE));
+        }
+
+        return response.bodyToFlux(DataBuffer.class)
+                .<Boolean>handle((buffer, sink) -> {
+                    try {
+                        boolean more = true;
+                        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+                            while (more && iterator.hasNext()) {
+                                ByteBuffer chunk = iterator.next();
+                                more = decoder.feed(chunk);
+                            }
+                        }
+                        if (!more) {
+                            sink.complete();
+                        }
+                    } catch (IOException e) {
+                        sink.error(e);
+                    } finally {
+                        DataBufferUtils.release(buffer);
+                    }
+                })
+                .then(Mono.fromCallable(() -> {
+                    decoder.finish();
+                    byte[] body = decoder.toByteArray();
+                    boolean complete = !decoder.isTruncated() && !decoder.isStopped();
+                    if (complete && storable) {
+                        cache.put(CachedResponse.from(url, statusCode, headers, body, System.currentTimeMillis()));
+                    }
+                    return FetchResult.builder()
+                            .url(url)
+                            .statusCode(statusCode)
+                            .contentType(headers.getFirst(HttpHeaders.CONTENT_TYPE))
+                            .body(body)
+                            .truncated(!complete || decoder.isListenerStopped())
+                            .build();
+                }));
+    }
+
+    /**
+     * 由缓存条目构造结果，缓存的内容超出本次预算时按截断处理
+     */
+    private static FetchResult fromCache(CachedResponse cached, long maxBytes, boolean revalidated,
+                                         BodyListener listener) {
+        byte[] body = cached.getBody();
+        boolean truncated = body.length > maxBytes;
+        if (truncated) {
+            body = Arrays.copyOf(body, (int) maxBytes);
+        }
+        if (listener != null) {
+            listener.onStart(cached.getStatusCode(), cached.getContentType());
+            for (int offset = 0; offset < body.length; offset += CACHE_REPLAY_CHUNK) {
+                if (!listener.onData(body, offset, Math.min(CACHE_REPLAY_CHUNK, body.length - offset))) {
+                    truncated = true;
+                    break;
+                }
+            }
+        }
+        return FetchResult.builder()
+                .url(cached.getUrl())
+                .statusCode(cached.getStatusCode())
+                .contentType(cached.getContentType())
+                .body(body)
+                .truncated(truncated)
+                .fromCache(!revalidated)
+                .revalidated(revalidated)
+                .build();
+    }
+}
@@ -0,0 +1,116 @@
+package io.leavesfly.koder.tool.web;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 页面内容接收器：HTML 边接收边提取文本，其他内容保留原文（均有长度上限）
+ * <p>
+ * 可选的共享字节预算由多个接收器共同扣减（批量获取时使用），预算用尽后停止读取并标记截断。
+ */
+public class PageContentListener implements BodyListener {
+
+    private final boolean raw;
+    private final int maxChars;
+    private final HtmlTextExtractor extractor;
+    private final AtomicLong sharedBudget;
+    private final ByteArrayOutputStream rawContent = new ByteArrayOutputStream();
+    private Charset charset = StandardCharsets.UTF_8;
+    private boolean extracted;
+    private boolean rawTruncated;
+    private boolean budgetExhausted;
+
+    /**
+     * @param raw       是否保留原文（不提取HTML文本）
+     * @param maxChars  原文内容的字符上限
+     * @param extractor HTML 文本提取器
+     */
+    public PageContentListener(boolean raw, int maxChars, HtmlTextExtractor extractor) {
+        this(raw, maxChars, extractor, null);
+    }
+
+    /**
+     * @param raw          是否保留原文（不提取HTML文本）
+     * @param maxChars     原文内容的字符上限
+     * @param extractor    HTML 文本提取器
+     * @param sharedBudget 共享的字节预算（可为null）
+     */
+    public PageContentListener(boolean raw, int maxChars, HtmlTextExtractor extractor, AtomicLong sharedBudget) {
+        this.raw = raw;
+        this.maxChars = maxChars;
+        this.extractor = extractor;
+        this.sharedBudget = sharedBudget;
+    }
+
+    @Override
+    public void onStart(int statusCode, String contentType) {
+        extracted = !raw && isHtml(contentType);
+        charset = FetchResult.builder().contentType(contentType).build().charset();
+        extractor.onStart(statusCode, contentType);
+    }
+
+    @Override
+    public boolean onData(byte[] bytes, int offset, int length) {
+        if (sharedBudget != null) {
+            long remaining = sharedBudget.getAndAdd(-length);
+            if (remaining < length) {
+                length = (int) Math.max(remaining, 0);
+                budgetExhausted = true;
+            }
+        }
+        boolean more = extracted ? extractor.onData(bytes, offset, length) : appendRaw(bytes, offset, length);
+        return more && !budgetExhausted;
+    }
+
+    public boolean isExtracted() {
+        return extracted;
+    }
+
+    /**
+     * 共享字节预算是否在读取本页面时用尽
+     */
+    public boolean isBudgetExhausted() {
+        return budgetExhausted;
+    }
+
+    public boolean isTruncated() {
+        if (budgetExhausted) {
+            return true;
+        }
+        return extracted ? extractor.isTruncated() : rawTruncated || getRawText().length() > maxChars;
+    }
+
+    public String getContent() {
+        if (extracted) {
+            return extractor.finish();
+        }
+        String text = getRawText();
+        return text.length() > maxChars ? text.substring(0, maxChars) : text;
+    }
+
+    private boolean appendRaw(byte[] bytes, int offset, int length) {
+        // 按字节预留余量，解码后再按字符数截断
+        int room = maxChars * 4 - rawContent.size();
+        rawContent.write(bytes, offset, Math.max(Math.min(length, room), 0));
+        if (length >= room) {
+            rawTruncated = true;
+            return false;
+        }
+        return true;
+    }
+
+    private String getRawText() {
+        return rawContent.toString(charset);
+    }
+
+    private static boolean isHtml(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.contains("text/html") || type.contains("application/xhtml");
+    }
+}
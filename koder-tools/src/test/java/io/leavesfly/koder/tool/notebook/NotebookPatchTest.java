@@ -0,0 +1,216 @@
+package io.leavesfly.koder.tool.notebook;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Notebook 流式改写：单元格增删改、格式保持与并发修改检测
+ * <p>
+ * 夹具位于 src/test/resources/notebook，由 Python 的 json.dumps 生成：indented 为 nbformat 默认的
+ * indent=1 + sort_keys，compact 为无空白的紧凑格式；*-edited 为对应夹具应用同一组编辑后的期望输出。
+ */
+class NotebookPatchTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String NEW_SOURCE = "y = 3\nprint(y)";
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @CsvSource({
+            "indented.ipynb, replace, 0",
+            "indented.ipynb, replace, 1",
+            "indented.ipynb, replace, 2",
+            "indented.ipynb, insert, 0",
+            "indented.ipynb, insert, 1",
+            "indented.ipynb, insert, 3",
+            "indented.ipynb, delete, 0",
+            "indented.ipynb, delete, 1",
+            "indented.ipynb, delete, 2",
+            "compact.ipynb, replace, 0",
+            "compact.ipynb, replace, 1",
+            "compact.ipynb, replace, 2",
+            "compact.ipynb, insert, 0",
+            "compact.ipynb, insert, 1",
+            "compact.ipynb, insert, 3",
+            "compact.ipynb, delete, 0",
+            "compact.ipynb, delete, 1",
+            "compact.ipynb, delete, 2"
+    })
+    void editsCellAtPosition(String fixture, String mode, int index) throws IOException {
+        String original = fixture(fixture);
+        NotebookCellEdit edit = NotebookCellEdit.builder()
+                .cellNumber(index)
+                .editMode(mode)
+                .cellType(NotebookCellEdit.INSERT.equals(mode) ? "code" : null)
+                .newSource(NotebookCellEdit.DELETE.equals(mode) ? null : NEW_SOURCE)
+                .build();
+
+        String output = patch(fixture, edit);
+
+        ObjectNode expected = (ObjectNode) MAPPER.readTree(original);
+        ArrayNode cells = (ArrayNode) expected.get("cells");
+        switch (mode) {
+            case NotebookCellEdit.REPLACE -> {
+                ObjectNode cell = (ObjectNode) cells.get(index);
+                cell.set("source", lines("y = 3\n", "print(y)"));
+                if ("code".equals(cell.get("cell_type").asText())) {
+                    cell.putNull("execution_count");
+                    cell.set("outputs", MAPPER.createArrayNode());
+                }
+            }
+            case NotebookCellEdit.INSERT -> cells.insert(index, codeCell("y = 3\n", "print(y)"));
+            default -> cells.remove(index);
+        }
+        assertEquals(expected, MAPPER.readTree(output));
+
+        // 未改动的单元格按字节原样保留
+        List<String> originalCells = cellTexts(original);
+        for (int i = 0; i < originalCells.size(); i++) {
+            if (i != index || NotebookCellEdit.INSERT.equals(mode)) {
+                assertTrue(output.contains(originalCells.get(i)), "单元格 " + i + " 应原样保留");
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "indented.ipynb, indented-edited.ipynb",
+            "compact.ipynb, compact-edited.ipynb"
+    })
+    void keepsOriginalFormatting(String fixture, String expected) throws IOException {
+        String output = patch(fixture,
+                NotebookCellEdit.builder().cellNumber(0).newSource("# 数据分析\n更新后的说明").build(),
+                NotebookCellEdit.builder().cellNumber(2).editMode(NotebookCellEdit.INSERT).cellType("code")
+                        .newSource("print('new')").build(),
+                NotebookCellEdit.builder().cellNumber(3).editMode(NotebookCellEdit.DELETE).build());
+
+        assertEquals(fixture(expected), output);
+    }
+
+    @Test
+    void insertsIntoEmptyCellsArray() throws IOException {
+        String output = patch("empty.ipynb", NotebookCellEdit.builder()
+                .cellNumber(0)
+                .editMode(NotebookCellEdit.INSERT)
+                .cellType("markdown")
+                .newSource("第一个单元格")
+                .build());
+
+        assertEquals(fixture("empty-inserted.ipynb"), output);
+    }
+
+    @Test
+    void rejectsOutOfRangeEditOnEmptyCellsArray() throws IOException {
+        Path notebook = copy("empty.ipynb");
+
+        assertThrows(IllegalArgumentException.class, () -> NotebookPatch.prepare(notebook, List.of(
+                NotebookCellEdit.builder().cellNumber(0).editMode(NotebookCellEdit.DELETE).build())));
+        assertThrows(IllegalArgumentException.class, () -> NotebookPatch.prepare(notebook, List.of(
+                NotebookCellEdit.builder().cellNumber(0).newSource("x").build())));
+    }
+
+    @Test
+    void refusesToWriteWhenFileChangedAfterScan() throws IOException {
+        Path notebook = copy("indented.ipynb");
+        NotebookPatch patch = NotebookPatch.prepare(notebook, List.of(
+                NotebookCellEdit.builder().cellNumber(1).newSource(NEW_SOURCE).build()));
+
+        // 大小不变，只有修改时间变化
+        Files.setLastModifiedTime(notebook,
+                FileTime.fromMillis(Files.getLastModifiedTime(notebook).toMillis() + 5000));
+
+        Path output = directory.resolve("out.ipynb");
+        try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            assertThrows(IOException.class, () -> patch.writeTo(out));
+        }
+    }
+
+    private String patch(String fixture, NotebookCellEdit... edits) throws IOException {
+        Path notebook = copy(fixture);
+        NotebookPatch patch = NotebookPatch.prepare(notebook, List.of(edits));
+        Path output = directory.resolve("out-" + fixture);
+        try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            patch.writeTo(out);
+        }
+        return Files.readString(output, StandardCharsets.UTF_8);
+    }
+
+    private Path copy(String fixture) throws IOException {
+        Path target = directory.resolve(fixture);
+        try (InputStream in = NotebookPatchTest.class.getResourceAsStream("/notebook/" + fixture)) {
+            Files.copy(in, target);
+        }
+        return target;
+    }
+
+    private static String fixture(String name) throws IOException {
+        try (InputStream in = NotebookPatchTest.class.getResourceAsStream("/notebook/" + name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 原文件中各单元格的原始文本
+     */
+    private static List<String> cellTexts(String notebook) throws IOException {
+        byte[] bytes = notebook.getBytes(StandardCharsets.UTF_8);
+        List<String> cells = new ArrayList<>();
+        try (JsonParser parser = MAPPER.getFactory().createParser(bytes)) {
+            while (parser.nextToken() != null) {
+                if (parser.currentToken() == JsonToken.FIELD_NAME && "cells".equals(parser.getCurrentName())) {
+                    parser.nextToken();
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        int start = (int) parser.getTokenLocation().getByteOffset();
+                        parser.skipChildren();
+                        int end = (int) parser.getTokenLocation().getByteOffset() + 1;
+                        cells.add(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+                    }
+                    break;
+                }
+            }
+        }
+        return cells;
+    }
+
+    private static ObjectNode codeCell(String... source) {
+        ObjectNode cell = MAPPER.createObjectNode();
+        cell.put("cell_type", "code");
+        cell.putNull("execution_count");
+        cell.set("metadata", MAPPER.createObjectNode());
+        cell.set("outputs", MAPPER.createArrayNode());
+        cell.set("source", lines(source));
+        return cell;
+    }
+
+    private static ArrayNode lines(String... lines) {
+        ArrayNode array = MAPPER.createArrayNode();
+        for (String line : lines) {
+            array.add(line);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,76 @@
+package io.leavesfly.koder.tool.shell;
+
+import io.leavesfly.koder.tool.config.ToolProperties.CommandCacheSettings;
+import io.leavesfly.koder.tool.fs.WorkspaceChangeTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 只读命令结果缓存的可缓存判断
+ */
+class CommandResultCacheTest {
+
+    private CommandResultCache<String> cache;
+    private CommandCacheSettings settings;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CommandResultCache<>(new WorkspaceChangeTracker());
+        settings = new CommandCacheSettings();
+        settings.setEnabled(true);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "git status",
+            "git diff HEAD~1 -- src",
+            "git log --oneline -20",
+            "git show HEAD:README.md",
+            "git branch",
+            "git branch -a -v",
+            "git branch --show-current",
+            "git branch --list feature/*",
+            "git branch --sort=-committerdate",
+            "ls -la",
+            "tree -L 2 src"
+    })
+    void readOnlyCommandsAreCacheable(String command) {
+        assertTrue(cache.isCacheable(command, settings), command);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "git branch x",
+            "git branch -D x",
+            "git branch -d x",
+            "git branch -m a b",
+            "git branch -M a b",
+            "git branch -c a b",
+            "git branch -C a b",
+            "git branch --set-upstream-to=origin/main",
+            "git diff --output=f",
+            "git diff --output f",
+            "git log --output=f",
+            "git show --output=f HEAD",
+            "tree -o f",
+            "tree -of",
+            "tree -R -H . src",
+            "git status > f",
+            "git log | tee f",
+            "git status; rm -rf build"
+    })
+    void commandsThatWriteAreNotCacheable(String command) {
+        assertFalse(cache.isCacheable(command, settings), command);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"git status", "pwd"})
+    void disabledCacheIsNeverCacheable(String command) {
+        settings.setEnabled(false);
+        assertFalse(cache.isCacheable(command, settings), command);
+    }
+}
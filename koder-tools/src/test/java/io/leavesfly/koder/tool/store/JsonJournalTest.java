@@ -0,0 +1,125 @@
+package io.leavesfly.koder.tool.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 追加写 JSON 日志的回放、压缩与加锁
+ */
+class JsonJournalTest {
+
+    private static final String NAME = "test";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void tornTailIsTruncatedOnReplay() throws IOException {
+        try (JsonJournal<String> journal = open()) {
+            journal.replay(record -> {
+            });
+            journal.append("a");
+            journal.append("b");
+        }
+        Path logFile = directory.resolve(NAME + ".log");
+        long intact = Files.size(logFile);
+        Files.writeString(logFile, "{\"seq\":3,\"da", StandardOpenOption.APPEND);
+
+        try (JsonJournal<String> journal = open()) {
+            assertEquals(List.of("a", "b"), replay(journal));
+            assertEquals(intact, Files.size(logFile));
+            journal.append("c");
+        }
+        try (JsonJournal<String> journal = open()) {
+            assertEquals(List.of("a", "b", "c"), replay(journal));
+        }
+    }
+
+    @Test
+    void entriesCoveredBySnapshotAreSkipped() throws IOException {
+        Path logFile = directory.resolve(NAME + ".log");
+        byte[] beforeCompaction;
+        try (JsonJournal<String> journal = open()) {
+            journal.replay(record -> {
+            });
+            journal.append("a");
+            journal.append("b");
+            beforeCompaction = Files.readAllBytes(logFile);
+            journal.compact(List.of("a", "b"));
+            journal.append("c");
+        }
+        // 模拟快照已写入、日志尚未清空时崩溃：日志里仍有序号 1、2 的旧记录
+        byte[] afterCompaction = Files.readAllBytes(logFile);
+        Files.write(logFile, beforeCompaction);
+        Files.write(logFile, afterCompaction, StandardOpenOption.APPEND);
+
+        try (JsonJournal<String> journal = open()) {
+            assertEquals(List.of("a", "b", "c"), replay(journal));
+            assertEquals(1, journal.getLogEntries());
+        }
+    }
+
+    @Test
+    void compactThenReplayStartsFromSnapshot() throws IOException {
+        try (JsonJournal<String> journal = open()) {
+            journal.replay(record -> {
+            });
+            journal.appendAll(List.of("a", "b", "c"));
+            assertEquals(3, journal.getLogEntries());
+            journal.compact(List.of("x"));
+            assertEquals(0, journal.getLogEntries());
+            journal.append("d");
+        }
+        try (JsonJournal<String> journal = open()) {
+            assertEquals(List.of("x", "d"), replay(journal));
+            assertEquals(1, journal.getLogEntries());
+            journal.append("e");
+        }
+        String log = Files.readString(directory.resolve(NAME + ".log"), StandardCharsets.UTF_8);
+        assertTrue(log.contains("\"seq\":5"), log);
+    }
+
+    @Test
+    void secondWriterOpensReadOnly() throws IOException {
+        try (JsonJournal<String> owner = open()) {
+            owner.replay(record -> {
+            });
+            owner.append("a");
+
+            try (JsonJournal<String> other = open()) {
+                assertEquals(List.of("a"), replay(other));
+                assertTrue(other.isReadOnly());
+                assertThrows(IOException.class, () -> other.append("b"));
+                assertThrows(IOException.class, () -> other.compact(List.of("a")));
+            }
+            owner.append("c");
+        }
+        try (JsonJournal<String> journal = open()) {
+            assertEquals(List.of("a", "c"), replay(journal));
+            assertFalse(journal.isReadOnly());
+        }
+    }
+
+    private JsonJournal<String> open() {
+        return new JsonJournal<>(directory, NAME, String.class, false);
+    }
+
+    private static List<String> replay(JsonJournal<String> journal) throws IOException {
+        List<String> records = new ArrayList<>();
+        journal.replay(records::add);
+        return records;
+    }
+}